@@ -28,8 +28,12 @@ import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicHeaderElementIterator;
 import org.apache.http.protocol.HTTP;
 import org.apache.http.protocol.HttpContext;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.boot.web.client.RestTemplateCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.hateoas.MediaTypes;
@@ -55,6 +59,25 @@ public class Application {
     return restTemplate;
   }
 
+  /**
+   * Listener container for {@link uk.ac.ebi.biosamples.solr.BatchMessageHandlerSolr}. It has a
+   * single consumer so that acknowledging a delivery tag covers every message before it, and
+   * prefetches enough messages to fill a batch while the previous one is being indexed.
+   */
+  @Bean
+  public SimpleRabbitListenerContainerFactory solrBatchListenerContainerFactory(
+      SimpleRabbitListenerContainerFactoryConfigurer configurer,
+      ConnectionFactory connectionFactory,
+      BioSamplesProperties bioSamplesProperties) {
+    SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+    configurer.configure(factory, connectionFactory);
+    factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+    factory.setConcurrentConsumers(1);
+    factory.setMaxConcurrentConsumers(1);
+    factory.setPrefetchCount(2 * bioSamplesProperties.getAgentSolrBatchSize());
+    return factory;
+  }
+
   public static void main(String[] args) {
     System.exit(SpringApplication.exit(SpringApplication.run(Application.class, args)));
   }
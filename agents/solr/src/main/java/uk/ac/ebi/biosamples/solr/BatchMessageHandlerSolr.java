@@ -0,0 +1,192 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.solr;
+
+import com.rabbitmq.client.Channel;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import uk.ac.ebi.biosamples.BioSamplesProperties;
+import uk.ac.ebi.biosamples.MessageContent;
+import uk.ac.ebi.biosamples.Messaging;
+import uk.ac.ebi.biosamples.model.Sample;
+import uk.ac.ebi.biosamples.ols.OlsProcessor;
+import uk.ac.ebi.biosamples.solr.model.SolrSample;
+import uk.ac.ebi.biosamples.solr.repo.SolrSampleRepository;
+import uk.ac.ebi.biosamples.solr.service.SampleToSolrSampleConverter;
+
+/**
+ * Alternative to {@link MessageHandlerSolr} that indexes messages in batches, enabled with
+ * biosamples.agent.solr.batch=true.
+ *
+ * <p>Messages are acknowledged manually and held until either biosamples.agent.solr.batch.size
+ * messages have arrived or the oldest one has waited biosamples.agent.solr.batch.timeout
+ * milliseconds. The samples in them are then deduplicated by accession, ontology terms are looked
+ * up once per distinct IRI, and everything is sent to Solr in a single update to be committed
+ * within biosamples.agent.solr.commitwithin milliseconds. The messages are only acknowledged once
+ * that update succeeds; if it fails they are rejected to the dead letter exchange to be retried.
+ */
+@Service
+@ConditionalOnProperty(name = "biosamples.agent.solr.batch", havingValue = "true")
+public class BatchMessageHandlerSolr {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BatchMessageHandlerSolr.class);
+
+  private final SolrSampleRepository repository;
+  private final SampleToSolrSampleConverter sampleToSolrSampleConverter;
+  private final OlsProcessor olsProcessor;
+  private final int batchSize;
+  private final int batchTimeout;
+  private final int commitWithin;
+
+  // the latest version of each sample in the pending messages and the time it was modified
+  private final Map<String, Sample> pendingSamples = new LinkedHashMap<>();
+  private final Map<String, String> pendingModifiedTimes = new HashMap<>();
+  private int pendingMessageCount = 0;
+  private long pendingSince;
+  private Channel channel;
+  private long lastDeliveryTag;
+
+  public BatchMessageHandlerSolr(
+      SolrSampleRepository repository,
+      SampleToSolrSampleConverter sampleToSolrSampleConverter,
+      OlsProcessor olsProcessor,
+      BioSamplesProperties bioSamplesProperties) {
+    this.repository = repository;
+    this.sampleToSolrSampleConverter = sampleToSolrSampleConverter;
+    this.olsProcessor = olsProcessor;
+    this.batchSize = bioSamplesProperties.getAgentSolrBatchSize();
+    this.batchTimeout = bioSamplesProperties.getAgentSolrBatchTimeout();
+    this.commitWithin = bioSamplesProperties.getAgentSolrCommitWithin();
+  }
+
+  @RabbitListener(
+      queues = Messaging.queueToBeIndexedSolr,
+      containerFactory = "solrBatchListenerContainerFactory")
+  public synchronized void handle(
+      MessageContent messageContent,
+      Channel channel,
+      @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) {
+    if (messageContent.getSample() == null) {
+      LOGGER.warn("received message without sample");
+    } else {
+      addPendingSample(messageContent.getSample(), messageContent.getCreationTime());
+      for (Sample related : messageContent.getRelated()) {
+        addPendingSample(related, messageContent.getCreationTime());
+      }
+    }
+
+    if (pendingMessageCount == 0) {
+      pendingSince = System.currentTimeMillis();
+    }
+    pendingMessageCount++;
+    this.channel = channel;
+    this.lastDeliveryTag = deliveryTag;
+
+    if (pendingMessageCount >= batchSize) {
+      flush();
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${biosamples.agent.solr.batch.timeout:1000}")
+  public synchronized void flushIfWaiting() {
+    if (pendingMessageCount > 0 && System.currentTimeMillis() - pendingSince >= batchTimeout) {
+      flush();
+    }
+  }
+
+  private void addPendingSample(Sample sample, String modifiedTime) {
+    // related samples are sent again with every message about the samples they relate to
+    pendingSamples.remove(sample.getAccession());
+    pendingSamples.put(sample.getAccession(), sample);
+    pendingModifiedTimes.put(sample.getAccession(), modifiedTime);
+  }
+
+  private void flush() {
+    try {
+      index(pendingSamples.values());
+      channel.basicAck(lastDeliveryTag, true);
+      LOGGER.info(
+          "indexed {} samples from {} messages", pendingSamples.size(), pendingMessageCount);
+    } catch (RuntimeException e) {
+      LOGGER.error("failed to index batch of " + pendingMessageCount + " messages", e);
+      reject();
+    } catch (IOException e) {
+      // the channel has gone, the broker will redeliver the messages
+      LOGGER.error("failed to acknowledge batch of " + pendingMessageCount + " messages", e);
+    } finally {
+      pendingSamples.clear();
+      pendingModifiedTimes.clear();
+      pendingMessageCount = 0;
+    }
+  }
+
+  private void reject() {
+    try {
+      channel.basicNack(lastDeliveryTag, true, false);
+    } catch (IOException e) {
+      LOGGER.error("failed to reject batch of " + pendingMessageCount + " messages", e);
+    }
+  }
+
+  private void index(Collection<Sample> samples) {
+    List<SolrSample> solrSamples = new ArrayList<>();
+    List<String> removed = new ArrayList<>();
+    for (Sample sample : samples) {
+      if (MessageHandlerSolr.isIndexingCandidate(sample)) {
+        solrSamples.add(
+            MessageHandlerSolr.withIndexingTimes(
+                sampleToSolrSampleConverter.convert(sample),
+                pendingModifiedTimes.get(sample.getAccession())));
+      } else {
+        removed.add(sample.getAccession());
+      }
+    }
+
+    // expand ontology terms from OLS, once for each distinct iri in the batch
+    Set<String> iris = new HashSet<>();
+    for (SolrSample solrSample : solrSamples) {
+      for (List<String> attributeIris : solrSample.getAttributeIris().values()) {
+        iris.addAll(attributeIris);
+      }
+    }
+    Map<String, Set<String>> keywordsByIri = new HashMap<>();
+    for (String iri : iris) {
+      Set<String> keywords = new HashSet<>();
+      keywords.addAll(olsProcessor.ancestorsAndSynonyms("efo", iri));
+      keywords.addAll(olsProcessor.ancestorsAndSynonyms("NCBITaxon", iri));
+      keywordsByIri.put(iri, keywords);
+    }
+    for (SolrSample solrSample : solrSamples) {
+      for (List<String> attributeIris : solrSample.getAttributeIris().values()) {
+        for (String iri : attributeIris) {
+          solrSample.getKeywords().addAll(keywordsByIri.get(iri));
+        }
+      }
+    }
+
+    repository.deleteAllWithoutCommit(removed, commitWithin);
+    repository.saveAllWithoutCommit(solrSamples, commitWithin);
+  }
+}
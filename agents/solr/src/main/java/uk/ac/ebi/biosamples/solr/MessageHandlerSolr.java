@@ -19,6 +19,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import uk.ac.ebi.biosamples.MessageContent;
 import uk.ac.ebi.biosamples.Messaging;
@@ -30,6 +31,10 @@ import uk.ac.ebi.biosamples.solr.repo.SolrSampleRepository;
 import uk.ac.ebi.biosamples.solr.service.SampleToSolrSampleConverter;
 
 @Service
+@ConditionalOnProperty(
+    name = "biosamples.agent.solr.batch",
+    havingValue = "false",
+    matchIfMissing = true)
 public class MessageHandlerSolr {
   private static final Logger LOGGER = LoggerFactory.getLogger(MessageHandlerSolr.class);
 
@@ -54,26 +59,8 @@ public class MessageHandlerSolr {
 
   private void handleSample(Sample sample, String modifiedTime) {
     if (isIndexingCandidate(sample)) {
-      SolrSample solrSample = sampleToSolrSampleConverter.convert(sample);
-      // add the modified time to the solrSample
-      String indexedTime = ZonedDateTime.now(ZoneOffset.UTC).format(DateTimeFormatter.ISO_INSTANT);
-
-      solrSample =
-          SolrSample.build(
-              solrSample.getName(),
-              solrSample.getAccession(),
-              solrSample.getDomain(),
-              solrSample.getRelease(),
-              solrSample.getUpdate(),
-              modifiedTime,
-              indexedTime,
-              solrSample.getAttributeValues(),
-              solrSample.getAttributeIris(),
-              solrSample.getAttributeUnits(),
-              solrSample.getOutgoingRelationships(),
-              solrSample.getIncomingRelationships(),
-              solrSample.getExternalReferencesData(),
-              solrSample.getKeywords());
+      SolrSample solrSample =
+          withIndexingTimes(sampleToSolrSampleConverter.convert(sample), modifiedTime);
 
       // expand ontology terms from OLS
       for (List<String> iris : solrSample.getAttributeIris().values()) {
@@ -93,6 +80,27 @@ public class MessageHandlerSolr {
     }
   }
 
+  /** Adds the time the sample was modified and the time it is being indexed to the solrSample */
+  static SolrSample withIndexingTimes(SolrSample solrSample, String modifiedTime) {
+    String indexedTime = ZonedDateTime.now(ZoneOffset.UTC).format(DateTimeFormatter.ISO_INSTANT);
+
+    return SolrSample.build(
+        solrSample.getName(),
+        solrSample.getAccession(),
+        solrSample.getDomain(),
+        solrSample.getRelease(),
+        solrSample.getUpdate(),
+        modifiedTime,
+        indexedTime,
+        solrSample.getAttributeValues(),
+        solrSample.getAttributeIris(),
+        solrSample.getAttributeUnits(),
+        solrSample.getOutgoingRelationships(),
+        solrSample.getIncomingRelationships(),
+        solrSample.getExternalReferencesData(),
+        solrSample.getKeywords());
+  }
+
   static boolean isIndexingCandidate(Sample sample) {
     for (Attribute attribute : sample.getAttributes()) {
       if (attribute.getType().equals("INSDC status")) {
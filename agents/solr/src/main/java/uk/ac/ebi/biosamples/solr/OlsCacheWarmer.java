@@ -0,0 +1,115 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.solr;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.solr.core.query.Criteria;
+import org.springframework.data.solr.core.query.FacetQuery;
+import org.springframework.data.solr.core.query.SimpleFacetQuery;
+import org.springframework.data.solr.core.query.result.FacetFieldEntry;
+import org.springframework.data.solr.core.query.result.FacetPage;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.biosamples.ols.OlsProcessor;
+import uk.ac.ebi.biosamples.solr.repo.SolrSampleRepository;
+
+/**
+ * Looks up every ontology term already in the index so that the OLS cache is populated before
+ * messages start arriving, rather than each new term costing an OLS round trip during indexing.
+ */
+@Component
+public class OlsCacheWarmer {
+  private static final String ONTOLOGY_IRI_FIELD = "ontologyiri_ss";
+  private static final int FACET_PAGE_SIZE = 1000;
+  // matches the size of the http connection pool
+  private static final int THREAD_COUNT = 8;
+
+  private final Logger log = LoggerFactory.getLogger(getClass());
+
+  private final SolrSampleRepository repository;
+  private final OlsProcessor olsProcessor;
+
+  public OlsCacheWarmer(SolrSampleRepository repository, OlsProcessor olsProcessor) {
+    this.repository = repository;
+    this.olsProcessor = olsProcessor;
+  }
+
+  @Async
+  public void warmUp() throws InterruptedException {
+    log.info("Warming up OLS cache");
+    long startTime = System.nanoTime();
+    AtomicInteger count = new AtomicInteger();
+    ExecutorService executorService = Executors.newFixedThreadPool(THREAD_COUNT);
+    try {
+      int page = 0;
+      List<String> iris;
+      do {
+        iris = getOntologyIris(page++);
+        List<Future<?>> futures = new ArrayList<>();
+        for (String iri : iris) {
+          futures.add(executorService.submit(() -> lookup(iri, count)));
+        }
+        // wait for each page so the queue does not hold every iri in the index
+        for (Future<?> future : futures) {
+          try {
+            future.get();
+          } catch (Exception e) {
+            log.warn("Problem warming up OLS cache", e);
+          }
+        }
+      } while (iris.size() == FACET_PAGE_SIZE);
+    } finally {
+      executorService.shutdownNow();
+    }
+    log.info(
+        "Warmed up OLS cache with "
+            + count.get()
+            + " terms in "
+            + TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startTime)
+            + "s");
+  }
+
+  private void lookup(String iri, AtomicInteger count) {
+    try {
+      olsProcessor.ancestorsAndSynonyms("efo", iri);
+      olsProcessor.ancestorsAndSynonyms("NCBITaxon", iri);
+      count.incrementAndGet();
+    } catch (RuntimeException e) {
+      log.debug("Unable to warm up OLS cache for " + iri, e);
+    }
+  }
+
+  private List<String> getOntologyIris(int page) {
+    FacetQuery query = new SimpleFacetQuery();
+    query.addCriteria(new Criteria().expression("*:*"));
+    query.setRows(0);
+    FacetPage<?> facetPage =
+        repository.getFacets(
+            query,
+            Collections.singletonList(ONTOLOGY_IRI_FIELD),
+            new PageRequest(page, FACET_PAGE_SIZE));
+    List<String> iris = new ArrayList<>();
+    for (FacetFieldEntry entry : facetPage.getFacetResultPage(ONTOLOGY_IRI_FIELD)) {
+      iris.add(entry.getValue());
+    }
+    return iris;
+  }
+}
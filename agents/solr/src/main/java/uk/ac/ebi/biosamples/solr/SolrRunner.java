@@ -29,8 +29,14 @@ public class SolrRunner implements ApplicationRunner {
 
   @Autowired private BioSamplesProperties biosamplesProperties;
 
+  @Autowired private OlsCacheWarmer olsCacheWarmer;
+
   @Override
   public void run(ApplicationArguments args) throws Exception {
+    if (biosamplesProperties.getOlsCacheWarmup()) {
+      olsCacheWarmer.warmUp();
+    }
+
     // as long as there are messages to read, keep this thread alive
     // that will also keep the async message client alive too?
     Long messageCount = null;
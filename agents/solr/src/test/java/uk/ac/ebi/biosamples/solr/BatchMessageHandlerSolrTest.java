@@ -0,0 +1,123 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.solr;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.rabbitmq.client.Channel;
+import java.util.*;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import uk.ac.ebi.biosamples.BioSamplesProperties;
+import uk.ac.ebi.biosamples.MessageContent;
+import uk.ac.ebi.biosamples.model.Attribute;
+import uk.ac.ebi.biosamples.model.Sample;
+import uk.ac.ebi.biosamples.ols.OlsProcessor;
+import uk.ac.ebi.biosamples.service.ExternalReferenceService;
+import uk.ac.ebi.biosamples.solr.model.SolrSample;
+import uk.ac.ebi.biosamples.solr.repo.SolrSampleRepository;
+import uk.ac.ebi.biosamples.solr.service.SampleToSolrSampleConverter;
+
+public class BatchMessageHandlerSolrTest {
+  private static final String IRI = "http://purl.obolibrary.org/obo/NCBITaxon_9606";
+
+  private SolrSampleRepository repository;
+  private OlsProcessor olsProcessor;
+  private Channel channel;
+  private BatchMessageHandlerSolr handler;
+
+  @Before
+  public void setup() {
+    repository = mock(SolrSampleRepository.class);
+    olsProcessor = mock(OlsProcessor.class);
+    channel = mock(Channel.class);
+    when(olsProcessor.ancestorsAndSynonyms(anyString(), anyString()))
+        .thenReturn(Collections.singletonList("human"));
+
+    BioSamplesProperties bioSamplesProperties = mock(BioSamplesProperties.class);
+    when(bioSamplesProperties.getAgentSolrBatchSize()).thenReturn(2);
+    when(bioSamplesProperties.getAgentSolrBatchTimeout()).thenReturn(60000);
+    when(bioSamplesProperties.getAgentSolrCommitWithin()).thenReturn(5000);
+
+    handler =
+        new BatchMessageHandlerSolr(
+            repository,
+            new SampleToSolrSampleConverter(new ExternalReferenceService()),
+            olsProcessor,
+            bioSamplesProperties);
+  }
+
+  @Test
+  public void should_index_batch_once_with_deduplicated_samples() throws Exception {
+    Sample related = generateTestSample("SAMEA0003");
+    handler.handle(message(generateTestSample("SAMEA0001"), related), channel, 1);
+    verify(repository, never()).saveAllWithoutCommit(anyCollectionOf(SolrSample.class), anyInt());
+
+    handler.handle(message(generateTestSample("SAMEA0002"), related), channel, 2);
+
+    ArgumentCaptor<Collection> saved = ArgumentCaptor.forClass(Collection.class);
+    verify(repository).saveAllWithoutCommit(saved.capture(), eq(5000));
+    Set<String> accessions =
+        ((Collection<SolrSample>) saved.getValue())
+            .stream().map(SolrSample::getAccession).collect(Collectors.toSet());
+    assertEquals(new HashSet<>(Arrays.asList("SAMEA0001", "SAMEA0002", "SAMEA0003")), accessions);
+    for (SolrSample solrSample : (Collection<SolrSample>) saved.getValue()) {
+      assertEquals(Collections.singletonList("human"), solrSample.getKeywords());
+    }
+
+    verify(olsProcessor, times(1)).ancestorsAndSynonyms("efo", IRI);
+    verify(olsProcessor, times(1)).ancestorsAndSynonyms("NCBITaxon", IRI);
+    verify(channel).basicAck(2, true);
+  }
+
+  @Test
+  public void should_delete_suppressed_samples_within_commit_time() throws Exception {
+    Sample suppressed =
+        new Sample.Builder("name", "SAMEA0001")
+            .addAttribute(Attribute.build("INSDC status", "suppressed"))
+            .build();
+    handler.handle(message(suppressed), channel, 1);
+    handler.handle(message(suppressed), channel, 2);
+
+    verify(repository).deleteAllWithoutCommit(Collections.singletonList("SAMEA0001"), 5000);
+    verify(channel).basicAck(2, true);
+  }
+
+  @Test
+  public void should_reject_batch_when_indexing_fails() throws Exception {
+    doThrow(new RuntimeException("solr is down"))
+        .when(repository)
+        .saveAllWithoutCommit(anyCollectionOf(SolrSample.class), anyInt());
+
+    handler.handle(message(generateTestSample("SAMEA0001")), channel, 1);
+    handler.handle(message(generateTestSample("SAMEA0002")), channel, 2);
+
+    verify(channel).basicNack(2, true, false);
+    verify(channel, never()).basicAck(anyLong(), anyBoolean());
+  }
+
+  private MessageContent message(Sample sample, Sample... related) {
+    return MessageContent.build(sample, null, Arrays.asList(related), false);
+  }
+
+  private Sample generateTestSample(String accession) {
+    return new Sample.Builder("name", accession)
+        .addAttribute(Attribute.build("organism", "Homo sapiens", IRI, null))
+        .build();
+  }
+}
@@ -35,6 +35,7 @@ import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import uk.ac.ebi.biosamples.BioSamplesProperties;
 import uk.ac.ebi.biosamples.client.service.*;
+import uk.ac.ebi.biosamples.client.utils.LinkTemplateCache;
 import uk.ac.ebi.biosamples.model.Curation;
 import uk.ac.ebi.biosamples.model.CurationLink;
 import uk.ac.ebi.biosamples.model.Sample;
@@ -98,15 +99,20 @@ public class BioSamplesClient implements AutoCloseable {
 
     Traverson traverson = new Traverson(uri, MediaTypes.HAL_JSON);
     traverson.setRestOperations(restOperations);
+    LinkTemplateCache linkTemplateCache =
+        new LinkTemplateCache(
+            traverson,
+            restOperations,
+            bioSamplesProperties.getBiosamplesClientLinkCacheTtl() * 1000L);
 
     boolean isWebinSubmission = clientService instanceof WebinAuthClientService ? true : false;
 
     sampleRetrievalService =
-        new SampleRetrievalService(restOperations, traverson, threadPoolExecutor);
+        new SampleRetrievalService(restOperations, linkTemplateCache, threadPoolExecutor);
     samplePageRetrievalService =
         new SamplePageRetrievalService(
             restOperations,
-            traverson,
+            linkTemplateCache,
             threadPoolExecutor,
             bioSamplesProperties.getBiosamplesClientPagesize());
     sampleCursorRetrievalService =
@@ -118,22 +124,23 @@ public class BioSamplesClient implements AutoCloseable {
 
     sampleSubmissionService =
         new SampleSubmissionService(
-            restOperations, traverson, threadPoolExecutor, isWebinSubmission);
+            restOperations, linkTemplateCache, threadPoolExecutor, isWebinSubmission);
 
     sampleCertificationService =
         new SampleCertificationService(
-            restOperations, traverson, threadPoolExecutor, isWebinSubmission);
+            restOperations, linkTemplateCache, threadPoolExecutor, isWebinSubmission);
 
     sampleGroupSubmissionService =
-        new SampleGroupSubmissionService(restOperations, traverson, threadPoolExecutor);
+        new SampleGroupSubmissionService(restOperations, linkTemplateCache, threadPoolExecutor);
     curationRetrievalService =
         new CurationRetrievalService(
             restOperations,
             traverson,
+            linkTemplateCache,
             threadPoolExecutor,
             bioSamplesProperties.getBiosamplesClientPagesize());
     curationSubmissionService =
-        new CurationSubmissionService(restOperations, traverson, threadPoolExecutor);
+        new CurationSubmissionService(restOperations, linkTemplateCache, threadPoolExecutor);
 
     this.sampleValidator = sampleValidator;
 
@@ -224,6 +231,18 @@ public class BioSamplesClient implements AutoCloseable {
     return sampleCursorRetrievalService.fetchAll(text, filters);
   }
 
+  /**
+   * Fetch all the samples matching the search using several cursors over disjoint partitions of the
+   * results at once, for whole-archive iteration where a single cursor would be limited by one
+   * request at a time. The samples are returned in no particular order.
+   *
+   * @param partitions the number of cursors to use at once
+   */
+  public Iterable<Resource<Sample>> fetchSampleResourceAll(
+      String text, Collection<Filter> filters, int partitions) {
+    return sampleCursorRetrievalService.fetchAll(text, filters, null, partitions);
+  }
+
   public Iterable<Optional<Resource<Sample>>> fetchSampleResourceAll(Iterable<String> accessions)
       throws RestClientException {
     return sampleRetrievalService.fetchAll(accessions);
@@ -343,6 +362,47 @@ public class BioSamplesClient implements AutoCloseable {
     return curationSubmissionService.submit(curationLink, isWebin);
   }
 
+  /**
+   * Persists several curations of one sample in a single request
+   *
+   * @param accession the sample being curated
+   * @param curations the curations of that sample
+   * @param webinIdOrDomain the WEBIN ID or domain the curations are made in
+   * @param isWebin whether webinIdOrDomain is a WEBIN ID
+   * @return the persisted curation links
+   */
+  public Collection<Resource<CurationLink>> persistCurations(
+      String accession, Collection<Curation> curations, String webinIdOrDomain, boolean isWebin) {
+    log.trace(
+        "Persisting "
+            + curations.size()
+            + " curations on "
+            + accession
+            + " using "
+            + webinIdOrDomain);
+
+    List<CurationLink> curationLinks = new ArrayList<>(curations.size());
+    for (Curation curation : curations) {
+      curationLinks.add(buildCurationLink(accession, curation, webinIdOrDomain, isWebin));
+    }
+
+    return curationSubmissionService.submit(accession, curationLinks, isWebin);
+  }
+
+  /**
+   * Persists curation links on any number of samples in a single request
+   *
+   * @param curationLinks the curation links, each with its sample and WEBIN ID or domain
+   * @param isWebin whether the curation links are made with a WEBIN ID
+   * @return the persisted curation links
+   */
+  public Collection<Resource<CurationLink>> persistCurationLinks(
+      Collection<CurationLink> curationLinks, boolean isWebin) {
+    log.trace("Persisting " + curationLinks.size() + " curation links");
+
+    return curationSubmissionService.submitAll(curationLinks, isWebin);
+  }
+
   public Iterable<Resource<CurationLink>> fetchCurationLinksOfSample(String accession) {
     return curationRetrievalService.fetchCurationLinksOfSample(accession);
   }
@@ -10,18 +10,21 @@
 */
 package uk.ac.ebi.biosamples.client.service;
 
+import java.net.URI;
+import java.util.Collections;
 import java.util.concurrent.ExecutorService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.PagedResources;
 import org.springframework.hateoas.Resource;
-import org.springframework.hateoas.client.Hop;
 import org.springframework.hateoas.client.Traverson;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestOperations;
 import uk.ac.ebi.biosamples.client.utils.IterableResourceFetchAll;
+import uk.ac.ebi.biosamples.client.utils.LinkTemplateCache;
 import uk.ac.ebi.biosamples.model.Curation;
 import uk.ac.ebi.biosamples.model.CurationLink;
 
@@ -30,14 +33,20 @@ public class CurationRetrievalService {
   private Logger log = LoggerFactory.getLogger(getClass());
 
   private final Traverson traverson;
+  private final LinkTemplateCache linkTemplateCache;
   private final ExecutorService executor;
   private final RestOperations restOperations;
   private final int pageSize;
 
   public CurationRetrievalService(
-      RestOperations restOperations, Traverson traverson, ExecutorService executor, int pageSize) {
+      RestOperations restOperations,
+      Traverson traverson,
+      LinkTemplateCache linkTemplateCache,
+      ExecutorService executor,
+      int pageSize) {
     this.restOperations = restOperations;
     this.traverson = traverson;
+    this.linkTemplateCache = linkTemplateCache;
     this.executor = executor;
     this.pageSize = pageSize;
   }
@@ -66,15 +75,17 @@ public class CurationRetrievalService {
   public Iterable<Resource<CurationLink>> fetchCurationLinksOfSample(String accession, String jwt) {
     MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
     params.add("size", Integer.toString(pageSize));
+    Link curationLinks =
+        linkTemplateCache.get(
+            new String[] {"samples", "sample"},
+            Collections.singletonMap("accession", accession),
+            "curationLinks");
     return new IterableResourceFetchAll<CurationLink>(
         executor,
-        traverson,
+        URI.create(curationLinks.getHref()),
         restOperations,
         new ParameterizedTypeReference<PagedResources<Resource<CurationLink>>>() {},
         jwt,
-        params,
-        Hop.rel("samples"),
-        Hop.rel("sample").withParameter("accession", accession),
-        Hop.rel("curationLinks"));
+        params);
   }
 }
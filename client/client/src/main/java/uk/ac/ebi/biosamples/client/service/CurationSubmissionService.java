@@ -11,34 +11,42 @@
 package uk.ac.ebi.biosamples.client.service;
 
 import java.net.URI;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.concurrent.ExecutorService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.MediaTypes;
 import org.springframework.hateoas.Resource;
-import org.springframework.hateoas.client.Hop;
-import org.springframework.hateoas.client.Traverson;
+import org.springframework.hateoas.Resources;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.RequestEntity;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestOperations;
+import uk.ac.ebi.biosamples.client.utils.LinkTemplateCache;
 import uk.ac.ebi.biosamples.model.CurationLink;
 
 public class CurationSubmissionService {
 
   private final Logger log = LoggerFactory.getLogger(getClass());
 
-  private final Traverson traverson;
+  private static final String[] SAMPLE_RELS = {"samples", "sample"};
+
+  private final LinkTemplateCache linkTemplateCache;
   private final ExecutorService executor;
   private final RestOperations restOperations;
 
   public CurationSubmissionService(
-      RestOperations restOperations, Traverson traverson, ExecutorService executor) {
+      RestOperations restOperations,
+      LinkTemplateCache linkTemplateCache,
+      ExecutorService executor) {
     this.restOperations = restOperations;
-    this.traverson = traverson;
+    this.linkTemplateCache = linkTemplateCache;
     this.executor = executor;
   }
 
@@ -57,11 +65,7 @@ public class CurationSubmissionService {
 
     URI target =
         URI.create(
-            traverson
-                .follow("samples")
-                .follow(Hop.rel("sample").withParameter("accession", curationLink.getSample()))
-                .follow("curationLinks")
-                .asLink()
+            getSampleLink(curationLink.getSample(), "curationLinks")
                 .getHref()
                 .concat(addWebinRequestParam));
 
@@ -76,13 +80,101 @@ public class CurationSubmissionService {
     }
     RequestEntity<CurationLink> requestEntity = bodyBuilder.body(curationLink);
 
-    ResponseEntity<Resource<CurationLink>> responseEntity =
-        restOperations.exchange(
-            requestEntity, new ParameterizedTypeReference<Resource<CurationLink>>() {});
+    ResponseEntity<Resource<CurationLink>> responseEntity;
+    try {
+      responseEntity =
+          restOperations.exchange(
+              requestEntity, new ParameterizedTypeReference<Resource<CurationLink>>() {});
+    } catch (RestClientResponseException e) {
+      linkTemplateCache.refreshIfNotFound(e);
+      throw e;
+    }
 
     return responseEntity.getBody();
   }
 
+  /**
+   * Submits several curation links on the same sample in one request
+   *
+   * @param accession the sample all of the curation links are on
+   */
+  public Collection<Resource<CurationLink>> submit(
+      String accession, Collection<CurationLink> curationLinks, boolean isWebin)
+      throws RestClientException {
+    String addWebinRequestParam = "";
+
+    if (isWebin) {
+      addWebinRequestParam = "?authProvider=WEBIN";
+    }
+
+    URI target =
+        URI.create(
+            getSampleLink(accession, "curationLinks")
+                .getHref()
+                .concat("/batch")
+                .concat(addWebinRequestParam));
+
+    log.trace("POSTing " + curationLinks.size() + " curation links to " + target);
+
+    RequestEntity<Collection<CurationLink>> requestEntity =
+        RequestEntity.post(target)
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaTypes.HAL_JSON)
+            .body(curationLinks);
+
+    ResponseEntity<Resources<Resource<CurationLink>>> responseEntity;
+    try {
+      responseEntity =
+          restOperations.exchange(
+              requestEntity,
+              new ParameterizedTypeReference<Resources<Resource<CurationLink>>>() {});
+    } catch (RestClientResponseException e) {
+      linkTemplateCache.refreshIfNotFound(e);
+      throw e;
+    }
+
+    return responseEntity.getBody().getContent();
+  }
+
+  /**
+   * Submits curation links on any number of samples in one request
+   *
+   * @return the stored curation links, in the order they were submitted
+   */
+  public Collection<Resource<CurationLink>> submitAll(
+      Collection<CurationLink> curationLinks, boolean isWebin) throws RestClientException {
+    String addWebinRequestParam = "";
+
+    if (isWebin) {
+      addWebinRequestParam = "?authProvider=WEBIN";
+    }
+
+    URI target =
+        URI.create(
+            linkTemplateCache.get("bulkCurationLinks").getHref().concat(addWebinRequestParam));
+
+    log.trace("POSTing " + curationLinks.size() + " curation links to " + target);
+
+    RequestEntity<Collection<CurationLink>> requestEntity =
+        RequestEntity.post(target)
+            .contentType(MediaType.APPLICATION_JSON)
+            .accept(MediaTypes.HAL_JSON)
+            .body(curationLinks);
+
+    ResponseEntity<Resources<Resource<CurationLink>>> responseEntity;
+    try {
+      responseEntity =
+          restOperations.exchange(
+              requestEntity,
+              new ParameterizedTypeReference<Resources<Resource<CurationLink>>>() {});
+    } catch (RestClientResponseException e) {
+      linkTemplateCache.refreshIfNotFound(e);
+      throw e;
+    }
+
+    return responseEntity.getBody().getContent();
+  }
+
   public void deleteCurationLink(String sample, String hash) {
     deleteCurationLink(sample, hash, null);
   }
@@ -91,11 +183,8 @@ public class CurationSubmissionService {
 
     URI target =
         URI.create(
-            traverson
-                .follow("samples")
-                .follow(Hop.rel("sample").withParameter("accession", sample))
-                .follow(Hop.rel("curationLink").withParameter("hash", hash))
-                .asLink()
+            getSampleLink(sample, "curationLink")
+                .expand(Collections.singletonMap("hash", hash))
                 .getHref());
     log.trace("DELETEing " + target);
 
@@ -107,6 +196,16 @@ public class CurationSubmissionService {
       requestEntity = RequestEntity.delete(target).build();
     }
 
-    restOperations.exchange(requestEntity, Void.class);
+    try {
+      restOperations.exchange(requestEntity, Void.class);
+    } catch (RestClientResponseException e) {
+      linkTemplateCache.refreshIfNotFound(e);
+      throw e;
+    }
+  }
+
+  private Link getSampleLink(String accession, String rel) {
+    return linkTemplateCache.get(
+        SAMPLE_RELS, Collections.singletonMap("accession", accession), rel);
   }
 }
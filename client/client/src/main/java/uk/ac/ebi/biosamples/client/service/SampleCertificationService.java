@@ -18,9 +18,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.MediaTypes;
-import org.springframework.hateoas.PagedResources;
 import org.springframework.hateoas.Resource;
-import org.springframework.hateoas.client.Traverson;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.RequestEntity;
@@ -29,24 +27,25 @@ import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestOperations;
 import org.springframework.web.util.UriComponentsBuilder;
+import uk.ac.ebi.biosamples.client.utils.LinkTemplateCache;
 import uk.ac.ebi.biosamples.model.Sample;
 
 public class SampleCertificationService {
 
   private final Logger log = LoggerFactory.getLogger(getClass());
 
-  private final Traverson traverson;
+  private final LinkTemplateCache linkTemplateCache;
   private final ExecutorService executor;
   private final RestOperations restOperations;
   private final boolean isWebinSubmission;
 
   public SampleCertificationService(
       RestOperations restOperations,
-      Traverson traverson,
+      LinkTemplateCache linkTemplateCache,
       ExecutorService executor,
       boolean isWebinSubmission) {
     this.restOperations = restOperations;
-    this.traverson = traverson;
+    this.linkTemplateCache = linkTemplateCache;
     this.executor = executor;
     this.isWebinSubmission = isWebinSubmission;
   }
@@ -73,18 +72,7 @@ public class SampleCertificationService {
 
     @Override
     public Resource<Sample> call() {
-      PagedResources<Resource<Sample>> pagedSamples =
-          traverson
-              .follow("samples")
-              .toObject(new ParameterizedTypeReference<PagedResources<Resource<Sample>>>() {});
-      Link sampleLink = pagedSamples.getLink("sample");
-
-      if (sampleLink == null) {
-        log.warn("Problem handling page " + pagedSamples);
-        throw new NullPointerException("Unable to find sample link");
-      }
-
-      sampleLink = sampleLink.expand(sample.getAccession());
+      Link sampleLink = linkTemplateCache.get("samples", "sample").expand(sample.getAccession());
 
       URI uri = getSampleCertificationURI(sampleLink);
 
@@ -107,6 +95,7 @@ public class SampleCertificationService {
             restOperations.exchange(
                 requestEntity, new ParameterizedTypeReference<Resource<Sample>>() {});
       } catch (RestClientResponseException e) {
+        linkTemplateCache.refreshIfNotFound(e);
         log.error(
             "Unable to PUT to "
                 + uri
@@ -11,6 +11,7 @@
 package uk.ac.ebi.biosamples.client.service;
 
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +26,7 @@ import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestOperations;
 import uk.ac.ebi.biosamples.client.utils.IterableResourceFetchAll;
+import uk.ac.ebi.biosamples.client.utils.IterableResourceFetchAllPartitioned;
 import uk.ac.ebi.biosamples.model.Sample;
 import uk.ac.ebi.biosamples.model.StaticViewWrapper;
 import uk.ac.ebi.biosamples.model.filter.Filter;
@@ -91,6 +93,48 @@ public class SampleCursorRetrievalService {
         "cursor");
   }
 
+  /**
+   * Fetch all the samples matching the search by iterating over several disjoint partitions of the
+   * results concurrently, each with its own cursor. The samples are returned in no particular
+   * order.
+   *
+   * @param partitions the number of cursors to use at once
+   */
+  public Iterable<Resource<Sample>> fetchAll(
+      String text, Collection<Filter> filterCollection, String jwt, int partitions) {
+    if (partitions <= 1) {
+      return fetchAll(text, filterCollection, jwt);
+    }
+
+    List<Iterable<Resource<Sample>>> iterables = new ArrayList<>(partitions);
+    for (int i = 0; i < partitions; i++) {
+      MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
+      params.add("text", text);
+      for (Filter filter : filterCollection) {
+        params.add("filter", filter.getSerialization());
+      }
+      params.add("size", Integer.toString(pageSize));
+      params.add("partition", Integer.toString(i));
+      params.add("partitions", Integer.toString(partitions));
+
+      params = encodePlusInQueryParameters(params);
+
+      iterables.add(
+          new IterableResourceFetchAll<Sample>(
+              executor,
+              traverson,
+              restOperations,
+              parameterizedTypeReferencePagedResourcesSample,
+              jwt,
+              params,
+              "samples",
+              "cursor"));
+    }
+
+    // enough to hold about a page from each partition while the consumer catches up
+    return new IterableResourceFetchAllPartitioned<>(iterables, pageSize * partitions);
+  }
+
   // TODO to keep the + in a (not encoded) query parameter is to force encoding
   private MultiValueMap<String, String> encodePlusInQueryParameters(
       MultiValueMap<String, String> queryParameters) {
@@ -20,7 +20,6 @@ import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.MediaTypes;
 import org.springframework.hateoas.Resource;
-import org.springframework.hateoas.client.Traverson;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.RequestEntity;
@@ -29,19 +28,22 @@ import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestOperations;
 import org.springframework.web.util.UriComponentsBuilder;
+import uk.ac.ebi.biosamples.client.utils.LinkTemplateCache;
 import uk.ac.ebi.biosamples.model.Sample;
 
 public class SampleGroupSubmissionService {
   private static final Logger LOGGER = LoggerFactory.getLogger(SampleGroupSubmissionService.class);
 
-  private final Traverson traverson;
+  private final LinkTemplateCache linkTemplateCache;
   private final ExecutorService executor;
   private final RestOperations restOperations;
 
   public SampleGroupSubmissionService(
-      RestOperations restOperations, Traverson traverson, ExecutorService executor) {
+      RestOperations restOperations,
+      LinkTemplateCache linkTemplateCache,
+      ExecutorService executor) {
     this.restOperations = restOperations;
-    this.traverson = traverson;
+    this.linkTemplateCache = linkTemplateCache;
     this.executor = executor;
   }
 
@@ -83,7 +85,7 @@ public class SampleGroupSubmissionService {
     public Resource<Sample> call() throws Exception {
       boolean update = sample.getAccession() != null;
 
-      Link sampleLink = traverson.follow("groups").asLink();
+      Link sampleLink = linkTemplateCache.get("groups");
       URI uri = getSamplePersistURI(sampleLink, sample.getAccession());
 
       RequestEntity.BodyBuilder bodyBuilder =
@@ -100,6 +102,7 @@ public class SampleGroupSubmissionService {
             restOperations.exchange(
                 requestEntity, new ParameterizedTypeReference<Resource<Sample>>() {});
       } catch (RestClientResponseException e) {
+        linkTemplateCache.refreshIfNotFound(e);
         LOGGER.error(
             "Failed to persist sample group, uri: {}, body: {}, response: {}",
             uri,
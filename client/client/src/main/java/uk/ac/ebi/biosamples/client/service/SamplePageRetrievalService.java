@@ -22,7 +22,6 @@ import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.hateoas.MediaTypes;
 import org.springframework.hateoas.PagedResources;
 import org.springframework.hateoas.Resource;
-import org.springframework.hateoas.client.Traverson;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.RequestEntity;
@@ -31,6 +30,7 @@ import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestOperations;
 import org.springframework.web.util.UriComponentsBuilder;
+import uk.ac.ebi.biosamples.client.utils.LinkTemplateCache;
 import uk.ac.ebi.biosamples.model.Sample;
 import uk.ac.ebi.biosamples.model.filter.Filter;
 
@@ -45,15 +45,18 @@ public class SamplePageRetrievalService {
       parameterizedTypeReferencePagedResourcesSample =
           new ParameterizedTypeReference<PagedResources<Resource<Sample>>>() {};
 
-  private final Traverson traverson;
+  private final LinkTemplateCache linkTemplateCache;
   private final ExecutorService executor;
   private final RestOperations restOperations;
   private final int pageSize;
 
   public SamplePageRetrievalService(
-      RestOperations restOperations, Traverson traverson, ExecutorService executor, int pageSize) {
+      RestOperations restOperations,
+      LinkTemplateCache linkTemplateCache,
+      ExecutorService executor,
+      int pageSize) {
     this.restOperations = restOperations;
-    this.traverson = traverson;
+    this.linkTemplateCache = linkTemplateCache;
     this.executor = executor;
     this.pageSize = pageSize;
   }
@@ -77,7 +80,7 @@ public class SamplePageRetrievalService {
     params = encodePlusInQueryParameters(params);
 
     URI uri =
-        UriComponentsBuilder.fromUriString(traverson.follow("samples").asLink().getHref())
+        UriComponentsBuilder.fromUriString(linkTemplateCache.get("samples").getHref())
             .queryParams(params)
             .build()
             .toUri();
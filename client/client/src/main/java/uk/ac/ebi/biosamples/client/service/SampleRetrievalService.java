@@ -12,9 +12,11 @@ package uk.ac.ebi.biosamples.client.service;
 
 import java.net.URI;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Queue;
@@ -25,17 +27,17 @@ import java.util.concurrent.Future;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.MediaTypes;
 import org.springframework.hateoas.PagedResources;
 import org.springframework.hateoas.Resource;
-import org.springframework.hateoas.client.Hop;
-import org.springframework.hateoas.client.Traverson;
-import org.springframework.hateoas.client.Traverson.TraversalBuilder;
 import org.springframework.http.*;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestOperations;
+import org.springframework.web.util.UriComponentsBuilder;
+import uk.ac.ebi.biosamples.client.utils.LinkTemplateCache;
 import uk.ac.ebi.biosamples.model.Sample;
 import uk.ac.ebi.biosamples.model.StaticViewWrapper;
 
@@ -50,14 +52,16 @@ public class SampleRetrievalService {
       parameterizedTypeReferencePagedResourcesSample =
           new ParameterizedTypeReference<PagedResources<Resource<Sample>>>() {};
 
-  private final Traverson traverson;
+  private final LinkTemplateCache linkTemplateCache;
   private final ExecutorService executor;
   private final RestOperations restOperations;
 
   public SampleRetrievalService(
-      RestOperations restOperations, Traverson traverson, ExecutorService executor) {
+      RestOperations restOperations,
+      LinkTemplateCache linkTemplateCache,
+      ExecutorService executor) {
     this.restOperations = restOperations;
-    this.traverson = traverson;
+    this.linkTemplateCache = linkTemplateCache;
     this.executor = executor;
   }
 
@@ -120,29 +124,22 @@ public class SampleRetrievalService {
     @Override
     public Optional<Resource<Sample>> call() throws Exception {
 
-      URI uri;
+      Map<String, Object> parameters = new HashMap<>();
+      parameters.put("accession", accession);
+      parameters.put("curationrepo", staticView.getCurationRepositoryName());
+      Link sampleLink = linkTemplateCache.get("samples", "sample").expand(parameters);
 
+      URI uri;
       if (!curationDomains.isPresent()) {
-        uri =
-            URI.create(
-                traverson
-                    .follow("samples")
-                    .follow(
-                        Hop.rel("sample")
-                            .withParameter("accession", accession)
-                            .withParameter("curationrepo", staticView.getCurationRepositoryName()))
-                    .asLink()
-                    .getHref());
+        uri = URI.create(sampleLink.getHref());
       } else {
-        TraversalBuilder traversalBuilder =
-            traverson
-                .follow("samples")
-                .follow(Hop.rel("sample").withParameter("accession", accession));
+        // the same as following the curationDomain link of the sample for each domain
+        UriComponentsBuilder uriComponentsBuilder =
+            UriComponentsBuilder.fromUriString(sampleLink.getHref());
         for (String curationDomain : curationDomains.get()) {
-          traversalBuilder.follow(
-              Hop.rel("curationDomain").withParameter("curationdomain", curationDomain));
+          uriComponentsBuilder.queryParam("curationdomain", curationDomain);
         }
-        uri = URI.create(traversalBuilder.asLink().getHref());
+        uri = uriComponentsBuilder.build().encode().toUri();
       }
 
       log.trace("GETing " + uri);
@@ -162,6 +159,7 @@ public class SampleRetrievalService {
       } catch (HttpStatusCodeException e) {
         if (e.getStatusCode().equals(HttpStatus.FORBIDDEN)
             || e.getStatusCode().equals(HttpStatus.NOT_FOUND)) {
+          linkTemplateCache.refreshIfNotFound(e);
           return Optional.empty();
         } else {
           throw e;
@@ -19,9 +19,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.hateoas.Link;
 import org.springframework.hateoas.MediaTypes;
-import org.springframework.hateoas.PagedResources;
 import org.springframework.hateoas.Resource;
-import org.springframework.hateoas.client.Traverson;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.RequestEntity;
@@ -30,24 +28,25 @@ import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestOperations;
 import org.springframework.web.util.UriComponentsBuilder;
+import uk.ac.ebi.biosamples.client.utils.LinkTemplateCache;
 import uk.ac.ebi.biosamples.model.Sample;
 
 public class SampleSubmissionService {
 
   private final Logger log = LoggerFactory.getLogger(getClass());
 
-  private final Traverson traverson;
+  private final LinkTemplateCache linkTemplateCache;
   private final ExecutorService executor;
   private final RestOperations restOperations;
   private final boolean isWebinSubmission;
 
   public SampleSubmissionService(
       RestOperations restOperations,
-      Traverson traverson,
+      LinkTemplateCache linkTemplateCache,
       ExecutorService executor,
       boolean isWebinSubmission) {
     this.restOperations = restOperations;
-    this.traverson = traverson;
+    this.linkTemplateCache = linkTemplateCache;
     this.executor = executor;
     this.isWebinSubmission = isWebinSubmission;
   }
@@ -133,21 +132,12 @@ public class SampleSubmissionService {
       if (sample.getAccession() != null) {
         // samples with an existing accession should be PUT
 
-        // don't do all this in traverson because it will get the end and then use the self
-        // link
+        // don't follow the link to the sample because it will get the end and then use the
+        // self link
         // because we might PUT to something that doesn't exist (e.g. migration of data)
         // this will cause an error. So instead manually de-template the link without
         // getting it.
-        PagedResources<Resource<Sample>> pagedSamples =
-            traverson
-                .follow("samples")
-                .toObject(new ParameterizedTypeReference<PagedResources<Resource<Sample>>>() {});
-        Link sampleLink = pagedSamples.getLink("sample");
-        if (sampleLink == null) {
-          log.warn("Problem handling page " + pagedSamples);
-          throw new NullPointerException("Unable to find sample link");
-        }
-        sampleLink = sampleLink.expand(sample.getAccession());
+        Link sampleLink = linkTemplateCache.get("samples", "sample").expand(sample.getAccession());
         URI uri = getSamplePersistURI(sampleLink);
         log.trace("PUTing to " + uri + " " + sample);
 
@@ -166,6 +156,7 @@ public class SampleSubmissionService {
               restOperations.exchange(
                   requestEntity, new ParameterizedTypeReference<Resource<Sample>>() {});
         } catch (RestClientResponseException e) {
+          linkTemplateCache.refreshIfNotFound(e);
           log.error(
               "Unable to PUT to "
                   + uri
@@ -179,7 +170,7 @@ public class SampleSubmissionService {
 
       } else {
         // samples without an existing accession should be POST
-        Link sampleLink = traverson.follow("samples").asLink();
+        Link sampleLink = linkTemplateCache.get("samples");
         URI uri = getSamplePersistURI(sampleLink);
         log.trace("POSTing to " + uri + " " + sample);
 
@@ -198,6 +189,7 @@ public class SampleSubmissionService {
               restOperations.exchange(
                   requestEntity, new ParameterizedTypeReference<Resource<Sample>>() {});
         } catch (RestClientResponseException e) {
+          linkTemplateCache.refreshIfNotFound(e);
           log.error(
               "Unable to POST to "
                   + uri
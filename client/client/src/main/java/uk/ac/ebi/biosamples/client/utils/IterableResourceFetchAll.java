@@ -48,6 +48,7 @@ public class IterableResourceFetchAll<T> implements Iterable<Resource<T>> {
   private final Traverson traverson;
   private final RestOperations restOperations;
   private final Hop[] hops;
+  private final URI uri;
   private final ParameterizedTypeReference<PagedResources<Resource<T>>> parameterizedTypeReference;
   private final MultiValueMap<String, String> params;
   private final ExecutorService executor;
@@ -108,6 +109,7 @@ public class IterableResourceFetchAll<T> implements Iterable<Resource<T>> {
     this.traverson = traverson;
     this.restOperations = restOperations;
     this.hops = hops;
+    this.uri = null;
     this.parameterizedTypeReference = parameterizedTypeReference;
     this.params = params;
     this.jwt = null;
@@ -151,6 +153,29 @@ public class IterableResourceFetchAll<T> implements Iterable<Resource<T>> {
     this.traverson = traverson;
     this.restOperations = restOperations;
     this.hops = hops;
+    this.uri = null;
+    this.parameterizedTypeReference = parameterizedTypeReference;
+    this.params = params;
+    this.jwt = jwt;
+  }
+
+  /**
+   * Iterate over the pages starting from a known URI, instead of following links from the root.
+   *
+   * @param uri of the first page, without the params
+   */
+  public IterableResourceFetchAll(
+      ExecutorService executor,
+      URI uri,
+      RestOperations restOperations,
+      ParameterizedTypeReference<PagedResources<Resource<T>>> parameterizedTypeReference,
+      String jwt,
+      MultiValueMap<String, String> params) {
+    this.executor = executor;
+    this.traverson = null;
+    this.restOperations = restOperations;
+    this.hops = new Hop[0];
+    this.uri = uri;
     this.parameterizedTypeReference = parameterizedTypeReference;
     this.params = params;
     this.jwt = jwt;
@@ -158,28 +183,30 @@ public class IterableResourceFetchAll<T> implements Iterable<Resource<T>> {
 
   public Iterator<Resource<T>> iterator() {
 
-    TraversalBuilder traversonBuilder = null;
-    for (Hop hop : hops) {
-      if (traversonBuilder == null) {
-        traversonBuilder = traverson.follow(hop);
-      } else {
-        traversonBuilder.follow(hop);
+    String href;
+    if (uri != null) {
+      href = uri.toString();
+    } else {
+      TraversalBuilder traversonBuilder = null;
+      for (Hop hop : hops) {
+        if (traversonBuilder == null) {
+          traversonBuilder = traverson.follow(hop);
+        } else {
+          traversonBuilder.follow(hop);
+        }
       }
+      href = traversonBuilder.asLink().getHref();
     }
 
     // get the first page
-    URI uri =
-        UriComponentsBuilder.fromHttpUrl(traversonBuilder.asLink().getHref())
-            .queryParams(params)
-            .build()
-            .toUri();
+    URI pageUri = UriComponentsBuilder.fromHttpUrl(href).queryParams(params).build().toUri();
 
     MultiValueMap<String, String> headers = new LinkedMultiValueMap<>();
     headers.add(HttpHeaders.CONTENT_TYPE, MediaTypes.HAL_JSON.toString());
     if (jwt != null) {
       headers.set(HttpHeaders.AUTHORIZATION, "Bearer " + jwt);
     }
-    RequestEntity<Void> requestEntity = new RequestEntity<>(headers, HttpMethod.GET, uri);
+    RequestEntity<Void> requestEntity = new RequestEntity<>(headers, HttpMethod.GET, pageUri);
 
     ResponseEntity<PagedResources<Resource<T>>> responseEntity =
         restOperations.exchange(requestEntity, parameterizedTypeReference);
@@ -0,0 +1,144 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.client.utils;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.hateoas.Resource;
+
+/**
+ * Iterates over several independent partitions of a result at once, e.g. cursors over disjoint
+ * partitions of a search, and merges them into a single iterator.
+ *
+ * <p>Each partition is read on its own thread into a shared bounded queue, so at most capacity
+ * resources are held in memory while the consumer catches up. The order of the resources is only
+ * preserved within each partition.
+ */
+public class IterableResourceFetchAllPartitioned<T> implements Iterable<Resource<T>> {
+
+  private final List<Iterable<Resource<T>>> partitions;
+  private final int capacity;
+
+  public IterableResourceFetchAllPartitioned(List<Iterable<Resource<T>>> partitions, int capacity) {
+    if (partitions.isEmpty()) {
+      throw new IllegalArgumentException("At least one partition is required");
+    }
+    this.partitions = new ArrayList<>(partitions);
+    this.capacity = capacity;
+  }
+
+  @Override
+  public Iterator<Resource<T>> iterator() {
+    return new IteratorResourceFetchAllPartitioned<>(partitions, capacity);
+  }
+
+  private static class IteratorResourceFetchAllPartitioned<U> implements Iterator<Resource<U>> {
+
+    // marks the end of a partition in the queue
+    private static final Object END = new Object();
+
+    private Logger log = LoggerFactory.getLogger(getClass());
+
+    private final BlockingQueue<Object> queue;
+    private final ExecutorService executor;
+    private int remaining;
+    private Resource<U> next = null;
+
+    public IteratorResourceFetchAllPartitioned(
+        List<Iterable<Resource<U>>> partitions, int capacity) {
+      this.queue = new ArrayBlockingQueue<>(capacity);
+      this.remaining = partitions.size();
+
+      // daemon threads, so a consumer that stops early does not keep the application alive
+      AtomicInteger threadCount = new AtomicInteger(0);
+      this.executor =
+          Executors.newFixedThreadPool(
+              partitions.size(),
+              runnable -> {
+                Thread thread =
+                    new Thread(runnable, "partition-fetch-" + threadCount.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+              });
+      for (Iterable<Resource<U>> partition : partitions) {
+        executor.execute(() -> drain(partition));
+      }
+      executor.shutdown();
+    }
+
+    private void drain(Iterable<Resource<U>> partition) {
+      Object last = END;
+      try {
+        for (Resource<U> resource : partition) {
+          queue.put(resource);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException e) {
+        log.warn("Failed to fetch a partition", e);
+        last = e;
+      }
+
+      try {
+        queue.put(last);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    @Override
+    public synchronized boolean hasNext() {
+      while (next == null && remaining > 0) {
+        Object taken;
+        try {
+          taken = queue.take();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new RuntimeException(e);
+        }
+
+        if (taken == END) {
+          remaining -= 1;
+        } else if (taken instanceof RuntimeException) {
+          // one partition failed, so the whole result would be incomplete
+          remaining = 0;
+          executor.shutdownNow();
+          throw new RuntimeException((RuntimeException) taken);
+        } else {
+          @SuppressWarnings("unchecked")
+          Resource<U> resource = (Resource<U>) taken;
+          next = resource;
+        }
+      }
+      return next != null;
+    }
+
+    @Override
+    public synchronized Resource<U> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Resource<U> resource = next;
+      next = null;
+      return resource;
+    }
+  }
+}
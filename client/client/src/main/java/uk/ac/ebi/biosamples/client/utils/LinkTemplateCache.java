@@ -0,0 +1,158 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.client.utils;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.hateoas.client.Traverson;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.client.RestOperations;
+
+/**
+ * Discovers link templates from the HAL API once and keeps them, so that the URI of a resource can
+ * be built locally instead of following the links from the API root with a request per hop on every
+ * call.
+ *
+ * <p>Templates are discovered again once they are older than the time to live, or after {@link
+ * #refresh()} e.g. when a request to a URI built from them was not found.
+ */
+public class LinkTemplateCache {
+
+  // don't discover the templates again more often than this in ms, as most not found responses
+  // are for resources that really do not exist
+  private static final long MIN_REFRESH_INTERVAL = 60 * 1000;
+
+  private Logger log = LoggerFactory.getLogger(getClass());
+
+  private final Traverson traverson;
+  private final RestOperations restOperations;
+  private final long ttl;
+  // current time in ms
+  private final LongSupplier clock;
+
+  private final ConcurrentMap<String, CachedTemplate> templates = new ConcurrentHashMap<>();
+
+  /**
+   * @param traverson starting from the API root
+   * @param restOperations used to discover links on resources other than the root
+   * @param ttl time to live of the templates in ms
+   */
+  public LinkTemplateCache(Traverson traverson, RestOperations restOperations, long ttl) {
+    this(traverson, restOperations, ttl, System::currentTimeMillis);
+  }
+
+  LinkTemplateCache(
+      Traverson traverson, RestOperations restOperations, long ttl, LongSupplier clock) {
+    this.traverson = traverson;
+    this.restOperations = restOperations;
+    this.ttl = ttl;
+    this.clock = clock;
+  }
+
+  /**
+   * Template of the link reached by following the rels from the API root, e.g. "samples", "sample"
+   * for the template of every sample. The template is not expanded.
+   */
+  public Link get(String... rels) {
+    String key = String.join(" ", rels);
+    CachedTemplate cached = templates.get(key);
+    if (cached == null || cached.isExpired()) {
+      Link link = traverson.follow(rels).asTemplatedLink();
+      log.trace("Discovered template " + link.getHref() + " for " + key);
+      cached = new CachedTemplate(link.getHref());
+      templates.put(key, cached);
+    }
+    return new Link(cached.href, rels[rels.length - 1]);
+  }
+
+  /**
+   * Link with the given rel on the resource reached by the template of rels expanded with the
+   * parameters, e.g. the curation links of a sample.
+   *
+   * <p>The first time this fetches that resource to find the link. When the link is nested under
+   * the URI of the resource, it is kept relative to the template of rels so that it can be built
+   * for any other resource without fetching it. The returned link is only expanded with the
+   * parameters of the resource.
+   */
+  public Link get(String[] rels, Map<String, ?> parameters, String rel) {
+    Link resourceTemplate = get(rels);
+    Link resource = resourceTemplate.expand(parameters);
+
+    String key = String.join(" ", rels) + " > " + rel;
+    CachedTemplate cached = templates.get(key);
+    if (cached != null && !cached.isExpired()) {
+      return new Link(resource.getHref() + cached.href, rel);
+    }
+
+    Traverson resourceTraverson =
+        new Traverson(URI.create(resource.getHref()), MediaTypes.HAL_JSON);
+    resourceTraverson.setRestOperations(restOperations);
+    Link link = resourceTraverson.follow(rel).asTemplatedLink();
+
+    if (link.getHref().startsWith(resource.getHref())) {
+      String suffix = link.getHref().substring(resource.getHref().length());
+      log.trace("Discovered template " + resourceTemplate.getHref() + suffix + " for " + key);
+      templates.put(key, new CachedTemplate(suffix));
+    } else {
+      // not nested under the resource, so it can't be reused for other resources
+      log.debug("Unable to cache " + link.getHref() + " relative to " + resource.getHref());
+    }
+    return new Link(link.getHref(), rel);
+  }
+
+  /**
+   * Discover the templates again when they are next used, unless they were discovered very recently
+   *
+   * @return true if the templates will be discovered again
+   */
+  public boolean refresh() {
+    long now = clock.getAsLong();
+    boolean refreshed = false;
+    for (Map.Entry<String, CachedTemplate> entry : templates.entrySet()) {
+      if (now - entry.getValue().discovered > MIN_REFRESH_INTERVAL) {
+        templates.remove(entry.getKey(), entry.getValue());
+        refreshed = true;
+      }
+    }
+    if (refreshed) {
+      log.info("Link templates will be discovered again");
+    }
+    return refreshed;
+  }
+
+  /** Refresh the templates if the response shows that a URI built from them was not found */
+  public void refreshIfNotFound(RestClientResponseException e) {
+    if (e.getRawStatusCode() == HttpStatus.NOT_FOUND.value()) {
+      refresh();
+    }
+  }
+
+  private class CachedTemplate {
+    private final String href;
+    private final long discovered = clock.getAsLong();
+
+    private CachedTemplate(String href) {
+      this.href = href;
+    }
+
+    private boolean isExpired() {
+      return clock.getAsLong() - discovered > ttl;
+    }
+  }
+}
@@ -0,0 +1,137 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.client.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.jsonPath;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.hateoas.Resource;
+import org.springframework.hateoas.ResourceSupport;
+import org.springframework.hateoas.client.Traverson;
+import org.springframework.hateoas.hal.Jackson2HalModule;
+import org.springframework.hateoas.mvc.TypeConstrainedMappingJackson2HttpMessageConverter;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.biosamples.client.utils.LinkTemplateCache;
+import uk.ac.ebi.biosamples.model.Attribute;
+import uk.ac.ebi.biosamples.model.Curation;
+import uk.ac.ebi.biosamples.model.CurationLink;
+
+public class CurationSubmissionServiceTest {
+  private static final String ROOT = "http://localhost/biosamples";
+
+  private MockRestServiceServer server;
+  private CurationSubmissionService curationSubmissionService;
+
+  private final Curation curation =
+      Curation.build(
+          Attribute.build("organism", "human"), Attribute.build("organism", "Homo sapiens"));
+  private final List<CurationLink> curationLinks =
+      Arrays.asList(
+          CurationLink.build("SAMEA1", curation, "self.test", null, null),
+          CurationLink.build("SAMEA2", curation, "self.test", null, null));
+
+  @Before
+  public void setUp() {
+    // the hal+json converter the client's rest template is customized with
+    ObjectMapper mapper = new ObjectMapper();
+    mapper.registerModule(new Jackson2HalModule());
+    mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    MappingJackson2HttpMessageConverter halConverter =
+        new TypeConstrainedMappingJackson2HttpMessageConverter(ResourceSupport.class);
+    halConverter.setObjectMapper(mapper);
+    halConverter.setSupportedMediaTypes(Collections.singletonList(MediaTypes.HAL_JSON));
+    RestTemplate restTemplate = new RestTemplate();
+    restTemplate.getMessageConverters().add(0, halConverter);
+    server = MockRestServiceServer.bindTo(restTemplate).build();
+    Traverson traverson = new Traverson(URI.create(ROOT), MediaTypes.HAL_JSON);
+    traverson.setRestOperations(restTemplate);
+    LinkTemplateCache linkTemplateCache =
+        new LinkTemplateCache(traverson, restTemplate, TimeUnit.HOURS.toMillis(1));
+    curationSubmissionService =
+        new CurationSubmissionService(restTemplate, linkTemplateCache, null);
+  }
+
+  @Test
+  public void submitAll_test_posts_links_of_all_samples_in_one_request() {
+    expectBulkLinkDiscovery();
+    server
+        .expect(requestTo(ROOT + "/curationlinks/bulk"))
+        .andExpect(method(HttpMethod.POST))
+        .andExpect(jsonPath("$[0].sample").value("SAMEA1"))
+        .andExpect(jsonPath("$[1].sample").value("SAMEA2"))
+        .andRespond(
+            withStatus(HttpStatus.CREATED)
+                .contentType(MediaTypes.HAL_JSON)
+                .body(
+                    "{\"_embedded\":{\"curationLinks\":["
+                        + curationLinkJson("SAMEA1")
+                        + ","
+                        + curationLinkJson("SAMEA2")
+                        + "]}}"));
+
+    Collection<Resource<CurationLink>> stored =
+        curationSubmissionService.submitAll(curationLinks, false);
+
+    server.verify();
+    assertEquals(2, stored.size());
+    assertEquals("SAMEA2", stored.stream().skip(1).findFirst().get().getContent().getSample());
+  }
+
+  @Test
+  public void submitAll_test_asks_for_webin_authentication() {
+    expectBulkLinkDiscovery();
+    server
+        .expect(requestTo(ROOT + "/curationlinks/bulk?authProvider=WEBIN"))
+        .andExpect(method(HttpMethod.POST))
+        .andRespond(withStatus(HttpStatus.CREATED).contentType(MediaTypes.HAL_JSON).body("{}"));
+
+    curationSubmissionService.submitAll(curationLinks, true);
+
+    server.verify();
+  }
+
+  private void expectBulkLinkDiscovery() {
+    server
+        .expect(requestTo(ROOT))
+        .andExpect(method(HttpMethod.GET))
+        .andRespond(
+            withSuccess(
+                "{\"_links\":{\"bulkCurationLinks\":{\"href\":\""
+                    + ROOT
+                    + "/curationlinks/bulk\"}}}",
+                MediaTypes.HAL_JSON));
+  }
+
+  private String curationLinkJson(String accession) {
+    return "{\"sample\":\""
+        + accession
+        + "\",\"curation\":{\"attributesPre\":[],\"attributesPost\":[]},\"domain\":\"self.test\"}";
+  }
+}
@@ -0,0 +1,122 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.client.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Test;
+import org.springframework.hateoas.Resource;
+
+public class IterableResourceFetchAllPartitionedTest {
+
+  @Test
+  public void all_partitions_are_merged() {
+    List<Iterable<Resource<String>>> partitions =
+        Arrays.asList(partition("a", 100), partition("b", 0), partition("c", 250));
+
+    // a small capacity makes the partitions block on the consumer
+    List<String> merged = new ArrayList<>();
+    for (Resource<String> resource : new IterableResourceFetchAllPartitioned<>(partitions, 3)) {
+      merged.add(resource.getContent());
+    }
+
+    assertEquals(350, merged.size());
+    assertEquals(values("a", 100), filter(merged, "a"));
+    assertEquals(values("c", 250), filter(merged, "c"));
+  }
+
+  @Test
+  public void iterable_can_be_iterated_again() {
+    IterableResourceFetchAllPartitioned<String> iterable =
+        new IterableResourceFetchAllPartitioned<>(
+            Arrays.asList(partition("a", 10), partition("b", 10)), 5);
+
+    assertEquals(20, count(iterable));
+    assertEquals(20, count(iterable));
+  }
+
+  @Test
+  public void failed_partition_fails_the_iteration() {
+    Iterable<Resource<String>> failing =
+        () ->
+            new Iterator<Resource<String>>() {
+              private int count = 0;
+
+              @Override
+              public boolean hasNext() {
+                return true;
+              }
+
+              @Override
+              public Resource<String> next() {
+                if (count == 5) {
+                  throw new IllegalStateException("partition failed");
+                }
+                count += 1;
+                return new Resource<>("failing" + count);
+              }
+            };
+    IterableResourceFetchAllPartitioned<String> iterable =
+        new IterableResourceFetchAllPartitioned<>(Arrays.asList(partition("a", 50), failing), 2);
+
+    try {
+      count(iterable);
+      fail("Expected the failure of the partition to be propagated");
+    } catch (RuntimeException e) {
+      assertEquals("partition failed", e.getCause().getMessage());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void partitions_are_required() {
+    new IterableResourceFetchAllPartitioned<String>(Collections.emptyList(), 10);
+  }
+
+  private static Iterable<Resource<String>> partition(String prefix, int size) {
+    List<Resource<String>> resources = new ArrayList<>();
+    for (String value : values(prefix, size)) {
+      resources.add(new Resource<>(value));
+    }
+    return resources;
+  }
+
+  private static List<String> values(String prefix, int size) {
+    List<String> values = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      values.add(prefix + i);
+    }
+    return values;
+  }
+
+  private static List<String> filter(List<String> values, String prefix) {
+    List<String> filtered = new ArrayList<>();
+    for (String value : values) {
+      if (value.startsWith(prefix)) {
+        filtered.add(value);
+      }
+    }
+    return filtered;
+  }
+
+  private static int count(Iterable<Resource<String>> iterable) {
+    int count = 0;
+    for (Resource<String> ignored : iterable) {
+      count += 1;
+    }
+    return count;
+  }
+}
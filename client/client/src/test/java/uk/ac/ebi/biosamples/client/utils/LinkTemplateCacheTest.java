@@ -0,0 +1,178 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.client.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.hateoas.client.Traverson;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+public class LinkTemplateCacheTest {
+  private static final String ROOT = "http://localhost/biosamples";
+  private static final long TTL = TimeUnit.HOURS.toMillis(1);
+
+  private final AtomicLong now = new AtomicLong(1000000);
+  private MockRestServiceServer server;
+  private LinkTemplateCache linkTemplateCache;
+
+  @Before
+  public void setUp() {
+    RestTemplate restTemplate = new RestTemplate();
+    server = MockRestServiceServer.bindTo(restTemplate).build();
+    Traverson traverson = new Traverson(URI.create(ROOT), MediaTypes.HAL_JSON);
+    traverson.setRestOperations(restTemplate);
+    linkTemplateCache = new LinkTemplateCache(traverson, restTemplate, TTL, now::get);
+  }
+
+  @Test
+  public void template_is_discovered_once_until_it_expires() {
+    expectSampleTemplateDiscovery();
+    assertEquals(
+        ROOT + "/samples/{accession}", linkTemplateCache.get("samples", "sample").getHref());
+    assertEquals(
+        ROOT + "/samples/SAMEA1",
+        linkTemplateCache.get("samples", "sample").expand("SAMEA1").getHref());
+    now.addAndGet(TTL);
+    linkTemplateCache.get("samples", "sample");
+    server.verify();
+
+    server.reset();
+    expectSampleTemplateDiscovery();
+    now.addAndGet(1);
+    linkTemplateCache.get("samples", "sample");
+    server.verify();
+  }
+
+  @Test
+  public void not_found_refreshes_at_most_once_a_minute() {
+    expectSampleTemplateDiscovery();
+    linkTemplateCache.get("samples", "sample");
+
+    // just discovered, so a not found is for a sample that does not exist
+    linkTemplateCache.refreshIfNotFound(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+    assertFalse(linkTemplateCache.refresh());
+    linkTemplateCache.get("samples", "sample");
+    server.verify();
+
+    // other errors never refresh
+    now.addAndGet(TimeUnit.MINUTES.toMillis(2));
+    linkTemplateCache.refreshIfNotFound(
+        new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR));
+    linkTemplateCache.get("samples", "sample");
+    server.verify();
+
+    server.reset();
+    expectSampleTemplateDiscovery();
+    linkTemplateCache.refreshIfNotFound(new HttpClientErrorException(HttpStatus.NOT_FOUND));
+    linkTemplateCache.get("samples", "sample");
+    server.verify();
+    assertFalse(linkTemplateCache.refresh());
+  }
+
+  @Test
+  public void refresh_discovers_every_template_again() {
+    expectSampleTemplateDiscovery();
+    linkTemplateCache.get("samples", "sample");
+    server.verify();
+
+    now.addAndGet(TimeUnit.MINUTES.toMillis(2));
+    assertTrue(linkTemplateCache.refresh());
+    server.reset();
+    expectSampleTemplateDiscovery();
+    linkTemplateCache.get("samples", "sample");
+    server.verify();
+  }
+
+  @Test
+  public void nested_link_is_kept_relative_to_the_resource_template() {
+    expectSampleTemplateDiscovery();
+    expectGet(
+        ROOT + "/samples/SAMEA1",
+        links("curationLinks", ROOT + "/samples/SAMEA1/curationlinks{?page,size}"));
+
+    assertEquals(
+        ROOT + "/samples/SAMEA1/curationlinks{?page,size}",
+        linkTemplateCache
+            .get(
+                new String[] {"samples", "sample"},
+                Collections.singletonMap("accession", "SAMEA1"),
+                "curationLinks")
+            .getHref());
+    // built from the suffix without fetching the other sample
+    assertEquals(
+        ROOT + "/samples/SAMEA2/curationlinks{?page,size}",
+        linkTemplateCache
+            .get(
+                new String[] {"samples", "sample"},
+                Collections.singletonMap("accession", "SAMEA2"),
+                "curationLinks")
+            .getHref());
+    server.verify();
+  }
+
+  @Test
+  public void link_outside_the_resource_is_not_reused() {
+    expectSampleTemplateDiscovery();
+    expectGet(ROOT + "/samples/SAMEA1", links("curationLinks", ROOT + "/curationlinks/SAMEA1"));
+    expectGet(ROOT + "/samples/SAMEA2", links("curationLinks", ROOT + "/curationlinks/SAMEA2"));
+
+    assertEquals(
+        ROOT + "/curationlinks/SAMEA1",
+        linkTemplateCache
+            .get(
+                new String[] {"samples", "sample"},
+                Collections.singletonMap("accession", "SAMEA1"),
+                "curationLinks")
+            .getHref());
+    assertEquals(
+        ROOT + "/curationlinks/SAMEA2",
+        linkTemplateCache
+            .get(
+                new String[] {"samples", "sample"},
+                Collections.singletonMap("accession", "SAMEA2"),
+                "curationLinks")
+            .getHref());
+    server.verify();
+  }
+
+  private void expectSampleTemplateDiscovery() {
+    expectGet(ROOT, links("samples", ROOT + "/samples{?text,filter}"));
+    expectGet(ROOT + "/samples", links("sample", ROOT + "/samples/{accession}"));
+  }
+
+  private void expectGet(String uri, String body) {
+    server
+        .expect(requestTo(uri))
+        .andExpect(method(HttpMethod.GET))
+        .andRespond(withSuccess(body, MediaTypes.HAL_JSON));
+  }
+
+  private static String links(String rel, String href) {
+    return "{\"_links\":{\"" + rel + "\":{\"href\":\"" + href + "\",\"templated\":true}}}";
+  }
+}
@@ -35,6 +35,14 @@ public class MessageConfig {
         .build();
   }
 
+  // samples written by the webapp, to be fetched and sent for indexing by the webapp
+  @Bean
+  public Queue getQueueSampleChanged() {
+    return QueueBuilder.durable(Messaging.queueSampleChanged)
+        .withArgument("x-dead-letter-exchange", Messaging.exchangeDeadLetter)
+        .build();
+  }
+
   // this queue sets up a delay before messages are requeued on the original solr indexing queue
   // do not consume from this queue
   // instead, allow all messages to reach the end of their "lifetime" (time-to-live) and then
@@ -54,6 +62,11 @@ public class MessageConfig {
     return ExchangeBuilder.fanoutExchange(Messaging.exchangeForIndexingSolr).durable(true).build();
   }
 
+  @Bean
+  public Exchange getExchangeForSampleChanged() {
+    return ExchangeBuilder.fanoutExchange(Messaging.exchangeForSampleChanged).durable(true).build();
+  }
+
   @Bean
   public Exchange getExchangeDeadLetter() {
     return ExchangeBuilder.directExchange(Messaging.exchangeDeadLetter).durable(true).build();
@@ -69,6 +82,14 @@ public class MessageConfig {
         .noargs();
   }
 
+  @Bean
+  public Binding bindingForSampleChanged() {
+    return BindingBuilder.bind(getQueueSampleChanged())
+        .to(getExchangeForSampleChanged())
+        .with(Messaging.queueSampleChanged)
+        .noargs();
+  }
+
   // enable messaging in json
   // note that this class is not the same as the http MessageConverter class
   @Bean
@@ -14,6 +14,8 @@ public class Messaging {
 
   public static final String queueToBeIndexedSolr = "biosamples.tobeindexed.solr";
   public static final String exchangeForIndexingSolr = "biosamples.forindexing.solr";
+  public static final String queueSampleChanged = "biosamples.changed.core";
+  public static final String exchangeForSampleChanged = "biosamples.changed";
   public static final String queueRetryDeadLetter = "biosamples.deadletter.retry";
   public static final String exchangeDeadLetter = "biosamples.deadletter";
 }
@@ -0,0 +1,55 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A sample that has been written, sent by the webapp to have it and the samples it has or had
+ * relationships to fetched and sent for indexing.
+ */
+public class SampleChange {
+
+  private final String accession;
+  private final List<String> previousRelationshipTargets;
+
+  private SampleChange(String accession, List<String> previousRelationshipTargets) {
+    this.accession = accession;
+    this.previousRelationshipTargets = previousRelationshipTargets;
+  }
+
+  public String getAccession() {
+    return accession;
+  }
+
+  /** Targets of the relationships the sample had before it changed */
+  public List<String> getPreviousRelationshipTargets() {
+    return previousRelationshipTargets;
+  }
+
+  @Override
+  public String toString() {
+    return "SampleChange(" + accession + "," + previousRelationshipTargets + ")";
+  }
+
+  @JsonCreator
+  public static SampleChange build(
+      @JsonProperty("accession") String accession,
+      @JsonProperty("previousRelationshipTargets") List<String> previousRelationshipTargets) {
+    if (previousRelationshipTargets == null) {
+      previousRelationshipTargets = Collections.emptyList();
+    }
+    return new SampleChange(accession, previousRelationshipTargets);
+  }
+}
@@ -28,6 +28,7 @@ public class MongoProperties {
   @Value("${biosamples.accession.min:100000}")
   private int accessionMinimum;
 
+  // number of accessions each webapp reserves at a time
   @Value("${biosamples.accession.queuesize:100}")
   private int accessionQueueSize;
 
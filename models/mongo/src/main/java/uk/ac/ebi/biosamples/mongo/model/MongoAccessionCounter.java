@@ -0,0 +1,37 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.mongo.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * The next unreserved accession number for an accession prefix. Webapps reserve blocks of
+ * accessions by atomically incrementing this, so they never hand out the same accession.
+ */
+@Document
+public class MongoAccessionCounter {
+  @Id private final String prefix;
+  private final int next;
+
+  public MongoAccessionCounter(String prefix, int next) {
+    this.prefix = prefix;
+    this.next = next;
+  }
+
+  public String getPrefix() {
+    return prefix;
+  }
+
+  public int getNext() {
+    return next;
+  }
+}
@@ -0,0 +1,41 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.mongo.model;
+
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/** The last {@link MongoSampleChange} a consumer of the changes has processed. */
+@Document
+public class MongoChangeCheckpoint {
+  @Id private final String name;
+  private final long lastSequence;
+  private final Instant updated;
+
+  public MongoChangeCheckpoint(String name, long lastSequence, Instant updated) {
+    this.name = name;
+    this.lastSequence = lastSequence;
+    this.updated = updated;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public long getLastSequence() {
+    return lastSequence;
+  }
+
+  public Instant getUpdated() {
+    return updated;
+  }
+}
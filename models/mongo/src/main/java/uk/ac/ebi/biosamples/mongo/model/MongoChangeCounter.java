@@ -0,0 +1,37 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.mongo.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * The last sequence number handed out for a change log. Nodes reserve sequence numbers for the
+ * changes they record by atomically incrementing this, so the numbers are unique and ordered.
+ */
+@Document
+public class MongoChangeCounter {
+  @Id private final String name;
+  private final long last;
+
+  public MongoChangeCounter(String name, long last) {
+    this.name = name;
+    this.last = last;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public long getLast() {
+    return last;
+  }
+}
@@ -0,0 +1,57 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.mongo.model;
+
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Records that a sample, or something that its curated view is derived from, has changed. The id is
+ * a sequence number reserved from a {@link MongoChangeCounter} before the change is inserted, so
+ * changes are read back in the order they were recorded whatever the clocks of the nodes that
+ * recorded them.
+ */
+@Document
+public class MongoSampleChange {
+  // one week, in seconds
+  private static final int EXPIRY = 7 * 24 * 60 * 60;
+
+  @Id private final long sequence;
+
+  private final String accession;
+
+  @Indexed(background = true, expireAfterSeconds = EXPIRY)
+  private final Instant timestamp;
+
+  private MongoSampleChange(long sequence, String accession, Instant timestamp) {
+    this.sequence = sequence;
+    this.accession = accession;
+    this.timestamp = timestamp;
+  }
+
+  public long getSequence() {
+    return sequence;
+  }
+
+  public String getAccession() {
+    return accession;
+  }
+
+  public Instant getTimestamp() {
+    return timestamp;
+  }
+
+  public static MongoSampleChange build(long sequence, String accession) {
+    return new MongoSampleChange(sequence, accession, Instant.now());
+  }
+}
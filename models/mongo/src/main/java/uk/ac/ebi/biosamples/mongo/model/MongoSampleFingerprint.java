@@ -0,0 +1,44 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.mongo.model;
+
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Fingerprint of the content of a sample as it was last submitted by an import pipeline, so that
+ * the pipeline can skip samples that have not changed since.
+ */
+@Document
+public class MongoSampleFingerprint {
+  @Id private final String accession;
+  private final String hash;
+  private final Instant updated;
+
+  public MongoSampleFingerprint(String accession, String hash, Instant updated) {
+    this.accession = accession;
+    this.hash = hash;
+    this.updated = updated;
+  }
+
+  public String getAccession() {
+    return accession;
+  }
+
+  public String getHash() {
+    return hash;
+  }
+
+  public Instant getUpdated() {
+    return updated;
+  }
+}
@@ -10,9 +10,13 @@
 */
 package uk.ac.ebi.biosamples.mongo.repo;
 
+import java.util.Collection;
+import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import uk.ac.ebi.biosamples.mongo.model.MongoCurationLink;
 
 public interface MongoCurationLinkRepository extends MongoRepository<MongoCurationLink, String> {
@@ -20,4 +24,10 @@ public interface MongoCurationLinkRepository extends MongoRepository<MongoCurati
   Page<MongoCurationLink> findBySample(String sample, Pageable page);
 
   Page<MongoCurationLink> findByCurationHash(String hash, Pageable page);
+
+  List<MongoCurationLink> findBySampleIn(Collection<String> samples, Sort sort);
+
+  // only the sample and creation date, enough to tell if the curation of a sample has changed
+  @Query(value = "{ 'sample' : { $in : ?0 } }", fields = "{ 'sample' : 1, 'created' : 1 }")
+  List<MongoCurationLink> findCreatedBySampleIn(Collection<String> samples);
 }
@@ -10,6 +10,8 @@
 */
 package uk.ac.ebi.biosamples.mongo.repo;
 
+import java.util.Collection;
+import java.util.List;
 import uk.ac.ebi.biosamples.model.StaticViewWrapper;
 import uk.ac.ebi.biosamples.mongo.model.MongoSample;
 
@@ -23,4 +25,8 @@ public interface MongoSampleRepositoryCustom {
 
   public MongoSample findSampleFromCollection(
       String accession, StaticViewWrapper.StaticView collectionName);
+
+  // fetch a batch of samples in a single query, order is not guaranteed
+  public List<MongoSample> findSamplesFromCollection(
+      Collection<String> accessions, StaticViewWrapper.StaticView collectionName);
 }
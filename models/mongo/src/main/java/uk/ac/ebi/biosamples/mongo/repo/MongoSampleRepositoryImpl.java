@@ -10,7 +10,11 @@
 */
 package uk.ac.ebi.biosamples.mongo.repo;
 
+import java.util.Collection;
+import java.util.List;
 import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import uk.ac.ebi.biosamples.model.StaticViewWrapper;
 import uk.ac.ebi.biosamples.mongo.model.MongoSample;
 
@@ -44,4 +48,11 @@ public class MongoSampleRepositoryImpl implements MongoSampleRepositoryCustom {
     return mongoOperations.findById(
         accession, MongoSample.class, collectionName.getCollectionName());
   }
+
+  @Override
+  public List<MongoSample> findSamplesFromCollection(
+      Collection<String> accessions, StaticViewWrapper.StaticView collectionName) {
+    Query query = new Query(Criteria.where("_id").in(accessions));
+    return mongoOperations.find(query, MongoSample.class, collectionName.getCollectionName());
+  }
 }
@@ -10,50 +10,79 @@
 */
 package uk.ac.ebi.biosamples.mongo.service;
 
-import java.util.Iterator;
-import java.util.NoSuchElementException;
+import com.mongodb.BulkWriteError;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.stream.Stream;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.Sort;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import uk.ac.ebi.biosamples.model.Sample;
+import uk.ac.ebi.biosamples.mongo.model.MongoAccessionCounter;
 import uk.ac.ebi.biosamples.mongo.model.MongoRelationship;
 import uk.ac.ebi.biosamples.mongo.model.MongoSample;
 import uk.ac.ebi.biosamples.mongo.repo.MongoSampleRepository;
 
-// this needs to be the spring exception, not the mongo one
-
+/**
+ * Assigns new accessions to samples.
+ *
+ * <p>Each instance reserves a block of accessions at a time from a counter document shared by all
+ * webapps, and then hands them out from memory. A reserved block is only used by the instance that
+ * reserved it, so the only way an accession can collide is if a sample was stored with an explicit
+ * accession ahead of the counter. Accessions in a block that is not used up before shutdown are
+ * skipped.
+ */
 public class MongoAccessionService {
+  private static final int MAX_ATTEMPTS = 100;
+  private static final int DUPLICATE_KEY_ERROR = 11000;
 
   private Logger log = LoggerFactory.getLogger(getClass());
 
   private final MongoSampleRepository mongoSampleRepository;
   private final SampleToMongoSampleConverter sampleToMongoSampleConverter;
   private final MongoSampleToSampleConverter mongoSampleToSampleConverter;
+  private final MongoOperations mongoOperations;
   private final String prefix;
-  private final BlockingQueue<String> accessionCandidateQueue;
-  private int accessionCandidateCounter;
+  private final int minimumAccession;
+  private final int blockSize;
+
+  private final AtomicReference<AccessionBlock> currentBlock =
+      new AtomicReference<>(new AccessionBlock(0, 0));
+  private final AtomicLong blocksReserved = new AtomicLong();
+  private final AtomicLong accessionsGenerated = new AtomicLong();
+  private final AtomicLong collisions = new AtomicLong();
 
   public MongoAccessionService(
       MongoSampleRepository mongoSampleRepository,
       SampleToMongoSampleConverter sampleToMongoSampleConverter,
       MongoSampleToSampleConverter mongoSampleToSampleConverter,
+      MongoOperations mongoOperations,
       String prefix,
       int minimumAccession,
-      int queueSize) {
+      int blockSize) {
+    if (blockSize < 1) {
+      throw new IllegalArgumentException("blockSize must be at least 1");
+    }
     this.mongoSampleRepository = mongoSampleRepository;
     this.sampleToMongoSampleConverter = sampleToMongoSampleConverter;
     this.mongoSampleToSampleConverter = mongoSampleToSampleConverter;
+    this.mongoOperations = mongoOperations;
     this.prefix = prefix;
-    this.accessionCandidateCounter = minimumAccession;
-    this.accessionCandidateQueue = new LinkedBlockingQueue<>(queueSize);
+    this.minimumAccession = minimumAccession;
+    this.blockSize = blockSize;
   }
 
   public Sample generateAccession(Sample sample) {
@@ -62,31 +91,148 @@ public class MongoAccessionService {
     return mongoSampleToSampleConverter.convert(mongoSample);
   }
 
-  private MongoSample accessionAndInsert(MongoSample sample) {
-    log.trace("generating an accession");
-    MongoSample originalSample = sample;
-    // inspired by Optimistic Loops of
-    // https://docs.mongodb.com/v3.0/tutorial/create-an-auto-incrementing-field/
-    boolean success = false;
-    // TODO limit number of tries
-    while (!success) {
-      // TODO add a timeout here
+  /**
+   * Assigns accessions to all of the samples and inserts them with a single unordered bulk write.
+   * Samples whose accession turns out to be taken are accessioned again one at a time.
+   *
+   * @return the accessioned samples, in the same order
+   */
+  public List<Sample> generateAccessions(List<Sample> samples) {
+    List<MongoSample> originalSamples = new ArrayList<>(samples.size());
+    List<MongoSample> accessionedSamples = new ArrayList<>(samples.size());
+    for (Sample sample : samples) {
+      MongoSample mongoSample = sampleToMongoSampleConverter.convert(sample);
+      originalSamples.add(mongoSample);
+      accessionedSamples.add(prepare(mongoSample, prefix + nextAccessionNumber()));
+    }
+
+    if (!accessionedSamples.isEmpty()) {
       try {
-        sample = prepare(sample, accessionCandidateQueue.take());
-      } catch (InterruptedException e) {
-        throw new RuntimeException(e);
+        mongoOperations
+            .bulkOps(BulkOperations.BulkMode.UNORDERED, MongoSample.class)
+            .insert(accessionedSamples)
+            .execute();
+        accessionsGenerated.addAndGet(accessionedSamples.size());
+      } catch (BulkOperationException e) {
+        int inserted = accessionedSamples.size();
+        for (BulkWriteError error : e.getErrors()) {
+          if (error.getCode() != DUPLICATE_KEY_ERROR) {
+            throw e;
+          }
+        }
+        for (BulkWriteError error : e.getErrors()) {
+          collisions.incrementAndGet();
+          inserted--;
+          log.warn(
+              "Accession "
+                  + accessionedSamples.get(error.getIndex()).getAccession()
+                  + " is already assigned");
+          accessionedSamples.set(
+              error.getIndex(), accessionAndInsert(originalSamples.get(error.getIndex())));
+        }
+        accessionsGenerated.addAndGet(inserted);
       }
+    }
+
+    List<Sample> result = new ArrayList<>(accessionedSamples.size());
+    for (MongoSample mongoSample : accessionedSamples) {
+      result.add(mongoSampleToSampleConverter.convert(mongoSample));
+    }
+    return result;
+  }
 
+  private MongoSample accessionAndInsert(MongoSample sample) {
+    log.trace("generating an accession");
+    for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+      MongoSample accessioned = prepare(sample, prefix + nextAccessionNumber());
       try {
-        sample = mongoSampleRepository.insertNew(sample);
-        success = true;
+        accessioned = mongoSampleRepository.insertNew(accessioned);
+        accessionsGenerated.incrementAndGet();
+        log.debug("generated accession " + accessioned);
+        return accessioned;
       } catch (DuplicateKeyException e) {
-        success = false;
-        sample = originalSample;
+        // this needs to be the spring exception, not the mongo one
+        collisions.incrementAndGet();
+        log.warn("Accession " + accessioned.getAccession() + " is already assigned");
       }
     }
-    log.debug("generated accession " + sample);
-    return sample;
+    throw new IllegalStateException(
+        "Unable to generate an unused "
+            + prefix
+            + " accession after "
+            + MAX_ATTEMPTS
+            + " attempts");
+  }
+
+  /** Takes the next number in the current block, reserving a new block when it is used up. */
+  private int nextAccessionNumber() {
+    while (true) {
+      AccessionBlock block = currentBlock.get();
+      int accessionNumber = block.next.getAndIncrement();
+      if (accessionNumber < block.end) {
+        return accessionNumber;
+      }
+      synchronized (this) {
+        // another thread may have already replaced the block while this one was waiting
+        if (currentBlock.get() == block) {
+          currentBlock.set(reserveBlock());
+        }
+      }
+    }
+  }
+
+  private AccessionBlock reserveBlock() {
+    MongoAccessionCounter counter =
+        mongoOperations.findAndModify(
+            counterQuery(),
+            new Update().inc("next", blockSize),
+            FindAndModifyOptions.options().returnNew(true).upsert(true),
+            MongoAccessionCounter.class);
+    blocksReserved.incrementAndGet();
+    int start = counter.getNext() - blockSize;
+    log.info("Reserved accessions " + prefix + start + " to " + prefix + (counter.getNext() - 1));
+    return new AccessionBlock(start, counter.getNext());
+  }
+
+  /**
+   * Make sure the counter starts after both the minimum accession and every accession already
+   * assigned, so that blocks reserved from it do not collide. This is safe to run on any number of
+   * webapps at once, as the counter is only ever moved forwards.
+   */
+  @PostConstruct
+  public void initializeCounter() {
+    int next = minimumAccession;
+    Query highestQuery =
+        new Query(Criteria.where("accessionPrefix").is(prefix))
+            .with(new Sort(Sort.Direction.DESC, "accessionNumber"))
+            .limit(1);
+    MongoSample highest = mongoOperations.findOne(highestQuery, MongoSample.class);
+    if (highest != null && highest.getAccessionNumber() != null) {
+      next = Math.max(next, highest.getAccessionNumber() + 1);
+    }
+    mongoOperations.upsert(
+        counterQuery(), new Update().max("next", next), MongoAccessionCounter.class);
+    log.info("Accession counter for " + prefix + " is at least " + next);
+  }
+
+  private Query counterQuery() {
+    return new Query(Criteria.where("_id").is(prefix));
+  }
+
+  public String getPrefix() {
+    return prefix;
+  }
+
+  public long getBlocksReserved() {
+    return blocksReserved.get();
+  }
+
+  public long getAccessionsGenerated() {
+    return accessionsGenerated.get();
+  }
+
+  public long getCollisions() {
+    return collisions.get();
   }
 
   private MongoSample prepare(MongoSample sample, String accession) {
@@ -125,59 +271,13 @@ public class MongoAccessionService {
     return sample;
   }
 
-  @PostConstruct
-  @Scheduled(fixedDelay = 1000)
-  public synchronized void prepareAccessions() {
-    long startTime = System.nanoTime();
-
-    // check that all accessions are still available
-    Iterator<String> itCandidate = accessionCandidateQueue.iterator();
-    while (itCandidate.hasNext()) {
-      String accessionCandidate = itCandidate.next();
-      if (mongoSampleRepository.exists(accessionCandidate)) {
-        log.warn("Removing accession " + accessionCandidate + " from queue because now assigned");
-        itCandidate.remove();
-      }
-    }
+  private static class AccessionBlock {
+    private final AtomicInteger next;
+    private final int end;
 
-    Sort sort = new Sort(Sort.Direction.ASC, "accessionNumber");
-    try (Stream<MongoSample> stream =
-        mongoSampleRepository.findByAccessionPrefixIsAndAccessionNumberGreaterThanEqual(
-            prefix, accessionCandidateCounter, sort)) {
-      Iterator<MongoSample> streamIt = stream.iterator();
-      Integer streamAccessionNumber = null;
-      if (streamIt.hasNext()) {
-        streamAccessionNumber = streamIt.next().getAccessionNumber();
-      }
-      while (accessionCandidateQueue.remainingCapacity() > 0) {
-
-        if (streamAccessionNumber == null || streamAccessionNumber > accessionCandidateCounter) {
-          String accessionCandidate = prefix + accessionCandidateCounter;
-          if (accessionCandidateQueue.offer(accessionCandidate)) {
-            // successfully added, move to next
-            log.trace("Added to accession pool " + accessionCandidate);
-            accessionCandidateCounter += 1;
-          } else {
-            // failed, queue full
-            break;
-          }
-        } else {
-          // update stream to next accession
-          try {
-            streamAccessionNumber = streamIt.next().getAccessionNumber();
-            accessionCandidateCounter += 1;
-            log.trace("Updating stream to " + prefix + streamAccessionNumber);
-          } catch (NoSuchElementException e) {
-            // end of stream
-            streamAccessionNumber = null;
-            log.trace("Reached end of stream");
-          }
-          // move back and try again
-        }
-      }
+    private AccessionBlock(int start, int end) {
+      this.next = new AtomicInteger(start);
+      this.end = end;
     }
-
-    long endTime = System.nanoTime();
-    log.trace("Populated accession pool in " + ((endTime - startTime) / 1000000) + "ms");
   }
 }
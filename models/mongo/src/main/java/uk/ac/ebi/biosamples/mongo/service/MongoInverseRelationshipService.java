@@ -11,9 +11,13 @@
 package uk.ac.ebi.biosamples.mongo.service;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.query.BasicQuery;
+import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import uk.ac.ebi.biosamples.mongo.model.MongoRelationship;
@@ -34,30 +38,67 @@ public class MongoInverseRelationshipService {
       return mongoSample;
     }
 
-    Query query =
-        new BasicQuery("{'relationships.target':'" + accession + "'}", "{'relationships.$':1}");
-    for (MongoSample other : mongoTemplate.find(query, MongoSample.class)) {
-      for (MongoRelationship relationship : other.getRelationships()) {
-        if (relationship.getTarget().equals(accession)) {
-          mongoSample.getRelationships().add(relationship);
-        }
-      }
+    for (MongoRelationship relationship :
+        findInverseRelationships(Collections.singleton(accession))) {
+      mongoSample.getRelationships().add(relationship);
     }
     return mongoSample;
   }
 
+  /**
+   * Adds the inverse relationships to all of the provided samples using a single query, rather than
+   * one query per sample.
+   *
+   * @param mongoSamples
+   * @return
+   */
+  public Collection<MongoSample> addInverseRelationships(Collection<MongoSample> mongoSamples) {
+    Map<String, MongoSample> samplesByAccession = new HashMap<>();
+    for (MongoSample mongoSample : mongoSamples) {
+      if (mongoSample.getAccession() != null) {
+        samplesByAccession.put(mongoSample.getAccession(), mongoSample);
+      }
+    }
+    if (samplesByAccession.isEmpty()) {
+      return mongoSamples;
+    }
+
+    for (MongoRelationship relationship : findInverseRelationships(samplesByAccession.keySet())) {
+      samplesByAccession.get(relationship.getTarget()).getRelationships().add(relationship);
+    }
+    return mongoSamples;
+  }
+
   public List<String> getInverseRelationshipsTargets(String accession) {
     List<String> relTargetAccessionList = new ArrayList<>();
-    Query query =
-        new BasicQuery("{'relationships.target':'" + accession + "'}", "{'relationships.$':1}");
+    for (MongoRelationship relationship :
+        findInverseRelationships(Collections.singleton(accession))) {
+      relTargetAccessionList.add(relationship.getSource());
+    }
+    return relTargetAccessionList;
+  }
+
+  /**
+   * Finds all relationships that target any of the given accessions. This is a lookup on the
+   * relationships.target multikey index from the indexed MongoRelationship target, so costs one
+   * indexed query however many accessions are requested.
+   *
+   * @param accessions
+   * @return
+   */
+  private List<MongoRelationship> findInverseRelationships(Collection<String> accessions) {
+    // positional projection only returns the first match, so project all relationships
+    Query query = new Query(Criteria.where("relationships.target").in(accessions));
+    query.fields().include("relationships");
+
+    List<MongoRelationship> inverseRelationships = new ArrayList<>();
     for (MongoSample other : mongoTemplate.find(query, MongoSample.class)) {
       for (MongoRelationship relationship : other.getRelationships()) {
-        if (relationship.getTarget().equals(accession)) {
-          relTargetAccessionList.add(relationship.getSource());
+        if (accessions.contains(relationship.getTarget())) {
+          inverseRelationships.add(relationship);
         }
       }
     }
-
-    return relTargetAccessionList;
+    return inverseRelationships;
   }
 }
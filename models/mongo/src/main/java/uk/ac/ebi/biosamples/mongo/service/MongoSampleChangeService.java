@@ -0,0 +1,64 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.mongo.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import uk.ac.ebi.biosamples.mongo.model.MongoChangeCounter;
+import uk.ac.ebi.biosamples.mongo.model.MongoSampleChange;
+
+/** Records which samples have changed, for views that are derived from samples to catch up with. */
+@Service
+public class MongoSampleChangeService {
+  static final String COUNTER = "samplechange";
+
+  private final MongoOperations mongoOperations;
+
+  public MongoSampleChangeService(MongoOperations mongoOperations) {
+    this.mongoOperations = mongoOperations;
+  }
+
+  public void recordChanges(Collection<String> accessions) {
+    if (accessions.isEmpty()) {
+      return;
+    }
+    // reserve a sequence number for each change before inserting them
+    MongoChangeCounter counter =
+        mongoOperations.findAndModify(
+            counterQuery(),
+            new Update().inc("last", accessions.size()),
+            FindAndModifyOptions.options().returnNew(true).upsert(true),
+            MongoChangeCounter.class);
+    long sequence = counter.getLast() - accessions.size();
+    List<MongoSampleChange> changes = new ArrayList<>(accessions.size());
+    for (String accession : accessions) {
+      changes.add(MongoSampleChange.build(++sequence, accession));
+    }
+    mongoOperations.insert(changes, MongoSampleChange.class);
+  }
+
+  /** The sequence number of the last change recorded, or 0 if none have been. */
+  public long getLastSequence() {
+    MongoChangeCounter counter = mongoOperations.findOne(counterQuery(), MongoChangeCounter.class);
+    return counter == null ? 0 : counter.getLast();
+  }
+
+  private Query counterQuery() {
+    return new Query(Criteria.where("_id").is(COUNTER));
+  }
+}
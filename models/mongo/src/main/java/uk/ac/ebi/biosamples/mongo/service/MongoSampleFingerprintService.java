@@ -0,0 +1,127 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.mongo.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.hash.Hashing;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Service;
+import uk.ac.ebi.biosamples.model.Attribute;
+import uk.ac.ebi.biosamples.model.Sample;
+import uk.ac.ebi.biosamples.mongo.model.MongoSampleFingerprint;
+import uk.ac.ebi.biosamples.mongo.repo.MongoSampleFingerprintRepository;
+
+/**
+ * Lets import pipelines skip samples whose content has not changed since they last submitted them.
+ * Every write to a sample forgets its fingerprint, so a sample changed by anything else is
+ * submitted again by the next import.
+ *
+ * <p>The fingerprint leaves out the dates that change without the content changing: the update,
+ * create, submitted and reviewed dates, and the INSDC last update attribute copied from the update
+ * date. The release date is kept as it decides whether the sample is public.
+ */
+@Service
+public class MongoSampleFingerprintService {
+  private static final String INSDC_LAST_UPDATE = "INSDC last update";
+
+  private static final ObjectMapper OBJECT_MAPPER =
+      new ObjectMapper()
+          .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)
+          .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+  private final MongoSampleFingerprintRepository repository;
+  private final AtomicLong unchangedCount = new AtomicLong();
+  private final AtomicLong changedCount = new AtomicLong();
+
+  public MongoSampleFingerprintService(MongoSampleFingerprintRepository repository) {
+    this.repository = repository;
+  }
+
+  public String fingerprint(Sample sample) {
+    SortedSet<Attribute> attributes = new TreeSet<>();
+    for (Attribute attribute : sample.getAttributes()) {
+      if (!INSDC_LAST_UPDATE.equals(attribute.getType())) {
+        attributes.add(attribute);
+      }
+    }
+    Sample stable =
+        Sample.Builder.fromSample(sample)
+            .withUpdate(Instant.EPOCH)
+            .withCreate(Instant.EPOCH)
+            .withSubmitted(Instant.EPOCH)
+            .withNoReviewed()
+            .withAttributes(attributes)
+            .build();
+    try {
+      return Hashing.sha256().hashBytes(OBJECT_MAPPER.writeValueAsBytes(stable)).toString();
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException("Unable to fingerprint " + sample.getAccession(), e);
+    }
+  }
+
+  /**
+   * Looks up the recorded fingerprints of a batch of samples in one query.
+   *
+   * @param fingerprints the current fingerprint of each sample, by accession
+   * @return the accessions of the samples that were last recorded with the same fingerprint
+   */
+  public Set<String> findUnchanged(Map<String, String> fingerprints) {
+    Set<String> unchanged = new HashSet<>();
+    for (MongoSampleFingerprint existing : repository.findAll(fingerprints.keySet())) {
+      if (existing.getHash().equals(fingerprints.get(existing.getAccession()))) {
+        unchanged.add(existing.getAccession());
+      }
+    }
+    unchangedCount.addAndGet(unchanged.size());
+    changedCount.addAndGet(fingerprints.size() - unchanged.size());
+    return unchanged;
+  }
+
+  /** Records the fingerprints of a batch of samples once they have been submitted. */
+  public void record(Map<String, String> fingerprints) {
+    if (fingerprints.isEmpty()) {
+      return;
+    }
+    Instant now = Instant.now();
+    List<MongoSampleFingerprint> records = new ArrayList<>(fingerprints.size());
+    for (Map.Entry<String, String> fingerprint : fingerprints.entrySet()) {
+      records.add(new MongoSampleFingerprint(fingerprint.getKey(), fingerprint.getValue(), now));
+    }
+    repository.save(records);
+  }
+
+  /**
+   * Forgets a sample that has been written, so that the next import submits it even if it has not
+   * changed at the source. Import pipelines record the fingerprint again after their own writes.
+   */
+  public void forget(String accession) {
+    repository.delete(accession);
+  }
+
+  public long getUnchangedCount() {
+    return unchangedCount.get();
+  }
+
+  public long getChangedCount() {
+    return changedCount.get();
+  }
+}
@@ -0,0 +1,180 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.mongo.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteError;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import uk.ac.ebi.biosamples.model.Sample;
+import uk.ac.ebi.biosamples.model.SubmittedViaType;
+import uk.ac.ebi.biosamples.mongo.model.MongoAccessionCounter;
+import uk.ac.ebi.biosamples.mongo.model.MongoSample;
+import uk.ac.ebi.biosamples.mongo.repo.MongoSampleRepository;
+
+public class MongoAccessionServiceTest {
+  private static final int BLOCK_SIZE = 10;
+
+  private final MongoSampleRepository mongoSampleRepository = mock(MongoSampleRepository.class);
+  private final MongoOperations mongoOperations = mock(MongoOperations.class);
+  private final AtomicInteger counter = new AtomicInteger(100);
+  private final Set<String> inserted = ConcurrentHashMap.newKeySet();
+
+  private final SampleToMongoSampleConverter sampleToMongoSampleConverter =
+      mock(SampleToMongoSampleConverter.class);
+
+  private MongoAccessionService mongoAccessionService;
+
+  @Before
+  public void setUp() {
+    when(sampleToMongoSampleConverter.convert(any(Sample.class)))
+        .thenReturn(
+            MongoSample.build(
+                "test",
+                null,
+                "self.test",
+                null,
+                Instant.now(),
+                Instant.now(),
+                Instant.now(),
+                Instant.now(),
+                Instant.now(),
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                null,
+                SubmittedViaType.JSON_API));
+    when(mongoOperations.findAndModify(
+            any(Query.class),
+            any(Update.class),
+            any(FindAndModifyOptions.class),
+            eq(MongoAccessionCounter.class)))
+        .thenAnswer(invocation -> new MongoAccessionCounter("TEST", counter.addAndGet(BLOCK_SIZE)));
+    when(mongoSampleRepository.insertNew(any(MongoSample.class)))
+        .thenAnswer(
+            invocation -> {
+              MongoSample sample = (MongoSample) invocation.getArguments()[0];
+              if (!inserted.add(sample.getAccession())) {
+                throw new DuplicateKeyException(sample.getAccession());
+              }
+              return sample;
+            });
+
+    mongoAccessionService =
+        new MongoAccessionService(
+            mongoSampleRepository,
+            sampleToMongoSampleConverter,
+            mock(MongoSampleToSampleConverter.class),
+            mongoOperations,
+            "TEST",
+            100,
+            BLOCK_SIZE);
+  }
+
+  @Test
+  public void concurrent_accessioning_does_not_reuse_accessions() throws Exception {
+    ExecutorService executorService = Executors.newFixedThreadPool(8);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      futures.add(executorService.submit(() -> mongoAccessionService.generateAccession(null)));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executorService.shutdown();
+
+    assertEquals(1000, inserted.size());
+    assertEquals(1000, mongoAccessionService.getAccessionsGenerated());
+    assertEquals(0, mongoAccessionService.getCollisions());
+    assertEquals(1000 / BLOCK_SIZE, mongoAccessionService.getBlocksReserved());
+  }
+
+  @Test
+  public void accessions_stored_elsewhere_are_skipped() {
+    inserted.add("TEST100");
+    inserted.add("TEST101");
+
+    mongoAccessionService.generateAccession(null);
+
+    assertEquals(3, inserted.size());
+    assertEquals(2, mongoAccessionService.getCollisions());
+    assertEquals(1, mongoAccessionService.getBlocksReserved());
+  }
+
+  @Test
+  public void bulk_accessioning_retries_samples_that_collide() {
+    BulkOperations bulkOperations = mock(BulkOperations.class);
+    when(mongoOperations.bulkOps(any(BulkOperations.BulkMode.class), eq(MongoSample.class)))
+        .thenReturn(bulkOperations);
+    when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+    BulkOperationException duplicate = mock(BulkOperationException.class);
+    when(duplicate.getErrors())
+        .thenReturn(
+            Collections.singletonList(
+                new BulkWriteError(11000, "duplicate", new BasicDBObject(), 1)));
+    when(bulkOperations.execute()).thenThrow(duplicate);
+    MongoSampleToSampleConverter mongoSampleToSampleConverter =
+        mock(MongoSampleToSampleConverter.class);
+    when(mongoSampleToSampleConverter.convert(any(MongoSample.class)))
+        .thenAnswer(
+            invocation ->
+                new Sample.Builder(
+                        "test", ((MongoSample) invocation.getArguments()[0]).getAccession())
+                    .build());
+    mongoAccessionService =
+        new MongoAccessionService(
+            mongoSampleRepository,
+            sampleToMongoSampleConverter,
+            mongoSampleToSampleConverter,
+            mongoOperations,
+            "TEST",
+            100,
+            BLOCK_SIZE);
+
+    List<Sample> samples =
+        mongoAccessionService.generateAccessions(Arrays.asList(null, null, null));
+
+    assertEquals("TEST100", samples.get(0).getAccession());
+    assertEquals("TEST103", samples.get(1).getAccession());
+    assertEquals("TEST102", samples.get(2).getAccession());
+    assertEquals(3, mongoAccessionService.getAccessionsGenerated());
+    assertEquals(1, mongoAccessionService.getCollisions());
+  }
+}
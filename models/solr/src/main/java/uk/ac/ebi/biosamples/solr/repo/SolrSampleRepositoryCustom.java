@@ -10,7 +10,9 @@
 */
 package uk.ac.ebi.biosamples.solr.repo;
 
+import java.util.Collection;
 import java.util.List;
+import org.apache.solr.common.util.NamedList;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.solr.core.query.FacetQuery;
@@ -70,6 +72,23 @@ public interface SolrSampleRepositoryCustom {
   public FacetPage<?> getRangeFacets(
       FacetQuery query, List<String> facetFields, Pageable facetPageable);
 
+  /**
+   * Run the query without returning any documents, computing the facets described by a request to
+   * the JSON Facet API, and return the facets section of the response.
+   *
+   * @param query
+   * @param jsonFacet the value of the json.facet parameter
+   * @return
+   */
+  public NamedList<Object> getJsonFacets(Query query, String jsonFacet);
+
+  /**
+   * Version of the index currently searched, which changes whenever a commit opens a new searcher.
+   *
+   * @return
+   */
+  public long getIndexVersion();
+
   /**
    * Use a query object to get a page of results. This allows for more complicated query
    * construction compared to a simple string e.g. filtering
@@ -90,6 +109,39 @@ public interface SolrSampleRepositoryCustom {
 
   public SolrSample saveWithoutCommit(SolrSample entity);
 
+  /**
+   * Save many samples in a single update request, leaving Solr to commit them within the given time
+   * instead of committing explicitly
+   *
+   * @param entities
+   * @param commitWithinMs
+   */
+  public void saveAllWithoutCommit(Collection<SolrSample> entities, int commitWithinMs);
+
+  /**
+   * Delete many samples in a single update request, leaving Solr to commit the deletion within the
+   * given time instead of committing explicitly
+   *
+   * @param accessions
+   * @param commitWithinMs
+   */
+  public void deleteAllWithoutCommit(Collection<String> accessions, int commitWithinMs);
+
   public CursorArrayList<SolrSample> findByQueryCursorMark(
       Query query, String cursorMark, int size);
+
+  /**
+   * Use a query object to get a cursor page of results from one of several disjoint partitions of
+   * the results, split by a hash of the accession. Cursors over each partition can be iterated
+   * independently, and together they cover the whole result.
+   *
+   * @param query
+   * @param cursorMark
+   * @param size
+   * @param partition the partition to return, from 0 to partitions - 1
+   * @param partitions the total number of partitions
+   * @return
+   */
+  public CursorArrayList<SolrSample> findByQueryCursorMark(
+      Query query, String cursorMark, int size, int partition, int partitions);
 }
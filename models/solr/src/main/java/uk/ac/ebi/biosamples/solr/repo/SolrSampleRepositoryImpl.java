@@ -13,15 +13,21 @@ package uk.ac.ebi.biosamples.solr.repo;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import org.apache.solr.client.solrj.SolrClient;
 import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.common.params.CommonParams;
 import org.apache.solr.common.params.CursorMarkParams;
 import org.apache.solr.common.params.FacetParams;
+import org.apache.solr.common.params.ModifiableSolrParams;
+import org.apache.solr.common.util.NamedList;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.solr.core.QueryParsers;
@@ -161,6 +167,34 @@ public class SolrSampleRepositoryImpl implements SolrSampleRepositoryCustom {
     return null;
   }
 
+  @Override
+  @SuppressWarnings("unchecked")
+  public NamedList<Object> getJsonFacets(Query query, String jsonFacet) {
+    SolrQuery solrQuery = queryParsers.getForClass(query.getClass()).constructSolrQuery(query);
+    solrQuery.setRows(0);
+    solrQuery.set("json.facet", jsonFacet);
+
+    QueryResponse response =
+        solrTemplate.execute(solrClient -> solrClient.query("samples", solrQuery));
+    NamedList<Object> facets = (NamedList<Object>) response.getResponse().get("facets");
+    return facets == null ? new NamedList<>() : facets;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public long getIndexVersion() {
+    ModifiableSolrParams params = new ModifiableSolrParams();
+    params.set("show", "index");
+    params.set("numTerms", 0);
+    QueryRequest request = new QueryRequest(params);
+    request.setPath("/admin/luke");
+
+    NamedList<Object> response =
+        solrTemplate.execute(solrClient -> solrClient.request(request, "samples"));
+    NamedList<Object> index = (NamedList<Object>) response.get("index");
+    return ((Number) index.get("version")).longValue();
+  }
+
   @Override
   public Page<SolrSample> findByQuery(Query query) {
     return solrTemplate.query(query, SolrSample.class);
@@ -169,6 +203,16 @@ public class SolrSampleRepositoryImpl implements SolrSampleRepositoryCustom {
   @Override
   public CursorArrayList<SolrSample> findByQueryCursorMark(
       Query query, String cursorMark, int size) {
+    return findByQueryCursorMark(query, cursorMark, size, 0, 1);
+  }
+
+  @Override
+  public CursorArrayList<SolrSample> findByQueryCursorMark(
+      Query query, String cursorMark, int size, int partition, int partitions) {
+    if (partition < 0 || partition >= partitions) {
+      throw new IllegalArgumentException(
+          "partition must be between 0 and " + (partitions - 1) + " but was " + partition);
+    }
 
     // TODO this is a different set of query parsers than the solrOperation has itself
     SolrQuery solrQuery = queryParsers.getForClass(query.getClass()).constructSolrQuery(query);
@@ -176,6 +220,13 @@ public class SolrSampleRepositoryImpl implements SolrSampleRepositoryCustom {
     solrQuery.set(CursorMarkParams.CURSOR_MARK_PARAM, cursorMark);
     solrQuery.set(CommonParams.ROWS, size);
 
+    if (partitions > 1) {
+      // the hash query parser keeps the documents whose id hashes to this worker
+      solrQuery.addFilterQuery(
+          "{!hash workers=" + partitions + " worker=" + partition + " partitionKeys=id}");
+      solrQuery.set("partitionKeys", "id");
+    }
+
     QueryResponse response =
         solrTemplate.execute(
             new SolrCallback<QueryResponse>() {
@@ -205,4 +256,23 @@ public class SolrSampleRepositoryImpl implements SolrSampleRepositoryCustom {
     this.solrTemplate.saveBean(entity);
     return entity;
   }
+
+  @Override
+  public void saveAllWithoutCommit(Collection<SolrSample> entities, int commitWithinMs) {
+    Assert.notNull(entities, "Cannot save 'null' entities.");
+    if (!entities.isEmpty()) {
+      this.solrTemplate.saveBeans(entities, commitWithinMs);
+    }
+  }
+
+  @Override
+  public void deleteAllWithoutCommit(Collection<String> accessions, int commitWithinMs) {
+    Assert.notNull(accessions, "Cannot delete 'null' accessions.");
+    if (!accessions.isEmpty()) {
+      UpdateRequest request = new UpdateRequest();
+      request.deleteById(new ArrayList<>(accessions));
+      request.setCommitWithin(commitWithinMs);
+      solrTemplate.execute(solrClient -> solrClient.request(request, "samples"));
+    }
+  }
 }
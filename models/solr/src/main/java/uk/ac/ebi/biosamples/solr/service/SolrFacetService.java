@@ -10,20 +10,31 @@
 */
 package uk.ac.ebi.biosamples.solr.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.AbstractMap.SimpleEntry;
 import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import org.apache.solr.common.util.NamedList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.solr.core.query.*;
 import org.springframework.data.solr.core.query.result.FacetFieldEntry;
+import org.springframework.data.solr.core.query.result.SimpleFacetFieldEntry;
 import org.springframework.stereotype.Service;
 import uk.ac.ebi.biosamples.BioSamplesProperties;
 import uk.ac.ebi.biosamples.model.facet.Facet;
 import uk.ac.ebi.biosamples.model.facet.FacetHelper;
+import uk.ac.ebi.biosamples.model.facet.content.LabelCountEntry;
+import uk.ac.ebi.biosamples.model.facet.content.LabelCountListContent;
 import uk.ac.ebi.biosamples.model.filter.Filter;
 import uk.ac.ebi.biosamples.solr.model.field.SolrSampleField;
 import uk.ac.ebi.biosamples.solr.repo.SolrSampleRepository;
@@ -32,11 +43,21 @@ import uk.ac.ebi.biosamples.solr.repo.SolrSampleRepository;
 public class SolrFacetService {
 
   private static final int TIMEALLOWED = 30;
+  private static final int FACET_LIMIT = 10;
+  private static final String FACET_FIELDS = "facetfields_ss";
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
   private final SolrSampleRepository solrSampleRepository;
   private final SolrFieldService solrFieldService;
   private Logger log = LoggerFactory.getLogger(getClass());
   private final SolrFilterService solrFilterService;
 
+  // facets by normalised query, the index version is part of the key
+  private final Cache<String, List<Facet>> facetCache;
+  private final int facetCacheMaxEntries;
+  private final long indexCheckMillis;
+  private volatile long indexVersion = -1;
+  private volatile long indexCheckedAt = 0;
+
   public SolrFacetService(
       SolrSampleRepository solrSampleRepository,
       SolrFieldService solrFieldService,
@@ -45,6 +66,10 @@ public class SolrFacetService {
     this.solrSampleRepository = solrSampleRepository;
     this.solrFieldService = solrFieldService;
     this.solrFilterService = solrFilterService;
+    this.facetCacheMaxEntries = bioSamplesProperties.getFacetCacheMaxEntries();
+    this.indexCheckMillis =
+        TimeUnit.SECONDS.toMillis(bioSamplesProperties.getFacetCacheIndexCheck());
+    this.facetCache = Caffeine.newBuilder().maximumSize(facetCacheMaxEntries).build();
   }
 
   public List<Facet> getFacets1(
@@ -139,8 +164,6 @@ public class SolrFacetService {
       }
     }
 
-    List<Facet> facets = new ArrayList<>();
-
     // build a query out of the users string and any facets
     FacetQuery query = new SimpleFacetQuery();
     query.addCriteria(new Criteria().expression(searchTerm));
@@ -155,26 +178,129 @@ public class SolrFacetService {
     Optional<FilterQuery> optionalFilter = solrFilterService.getFilterQuery(filters);
     optionalFilter.ifPresent(query::addFilterQuery);
 
-    List<Entry<SolrSampleField, Long>> allFacetFields =
-        getFacetFields(facetFieldPageInfo, query, isLandingPage);
+    // without the version of the index there is no telling when cached facets become stale
+    long version = facetCacheMaxEntries == 0 ? -1 : getIndexVersion();
+    if (version < 0) {
+      return computeFacets(query, isLandingPage, facetFieldPageInfo, facetValuesPageInfo);
+    }
 
-    List<Entry<SolrSampleField, Long>> rangeFacetFields =
+    // the index version is part of the key so facets computed before a commit are not used after it
+    String cacheKey =
+        String.join(
+            "\n",
+            String.valueOf(version),
+            searchTerm.trim(),
+            filters.stream()
+                .map(Filter::getSerialization)
+                .sorted()
+                .collect(Collectors.joining("\t")),
+            domains.stream().sorted().collect(Collectors.joining("\t")),
+            facetFieldPageInfo.getOffset() + "+" + facetFieldPageInfo.getPageSize(),
+            facetValuesPageInfo.getOffset() + "+" + facetValuesPageInfo.getPageSize());
+    final boolean landingPage = isLandingPage;
+    List<Facet> facets =
+        facetCache.get(
+            cacheKey,
+            k -> computeFacets(query, landingPage, facetFieldPageInfo, facetValuesPageInfo));
+
+    return new ArrayList<>(facets);
+  }
+
+  /**
+   * Checks the version of the index at most once per check interval, dropping all cached facets
+   * when it has changed. The version is -1 until the next check after a failed one.
+   */
+  private long getIndexVersion() {
+    long now = System.currentTimeMillis();
+    if (now - indexCheckedAt >= indexCheckMillis) {
+      indexCheckedAt = now;
+      try {
+        long version = solrSampleRepository.getIndexVersion();
+        if (version != indexVersion) {
+          indexVersion = version;
+          facetCache.invalidateAll();
+        }
+      } catch (RuntimeException e) {
+        log.warn("Unable to check the version of the solr index", e);
+        indexVersion = -1;
+        facetCache.invalidateAll();
+      }
+    }
+    return indexVersion;
+  }
+
+  /**
+   * Computes the facets using the JSON Facet API. On the landing page the fields to show are known
+   * up front, so their values are requested in a single request. Otherwise the fields present in
+   * the results are requested first, together with the range fields which are always shown, and the
+   * values of the fields picked to be shown in a second request.
+   */
+  private List<Facet> computeFacets(
+      FacetQuery query,
+      boolean isLandingPage,
+      Pageable facetFieldPageInfo,
+      Pageable facetValuesPageInfo) {
+    List<SolrSampleField> rangeFacetFields =
         FacetHelper.RANGE_FACETING_FIELDS.stream()
-            .map(
-                s ->
-                    new SimpleEntry<>(
-                        this.solrFieldService.decodeField(s + FacetHelper.get_encoding_suffix(s)),
-                        0L))
+            .map(s -> this.solrFieldService.decodeField(s + FacetHelper.get_encoding_suffix(s)))
             .collect(Collectors.toList());
+    List<SolrSampleField> landingPageFacetFields = Collections.emptyList();
+    if (isLandingPage) {
+      landingPageFacetFields =
+          FacetHelper.FACETING_FIELDS.stream()
+              .limit(FACET_LIMIT)
+              .map(
+                  s ->
+                      this.solrFieldService.decodeField(
+                          SolrFieldService.encodeFieldName(s) + FacetHelper.get_encoding_suffix(s)))
+              .collect(Collectors.toList());
+    }
 
-    if (!allFacetFields.isEmpty()) {
-      allFacetFields
-          .get(0)
-          .getKey()
-          .getFacetCollectionStrategy()
-          .fetchFacetsUsing(
-              solrSampleRepository, query, allFacetFields, rangeFacetFields, facetValuesPageInfo)
-          .forEach(opt -> opt.ifPresent(facets::add));
+    List<SolrSampleField> requestedFields = new ArrayList<>(landingPageFacetFields);
+    requestedFields.addAll(rangeFacetFields);
+    Map<String, Object> jsonFacet = buildJsonFacet(requestedFields, facetValuesPageInfo);
+    if (!isLandingPage) {
+      jsonFacet.put(FACET_FIELDS, termsFacet(FACET_FIELDS, facetFieldPageInfo));
+    }
+    NamedList<Object> response = solrSampleRepository.getJsonFacets(query, toJson(jsonFacet));
+    Map<String, Optional<Facet>> facetsByField = readJsonFacets(response, requestedFields);
+
+    List<SolrSampleField> facetFields;
+    if (isLandingPage) {
+      // short-circuit for landing search page
+      facetFields = landingPageFacetFields;
+    } else {
+      List<FacetFieldEntry> fieldEntries = new ArrayList<>();
+      for (NamedList<Object> bucket : getBuckets(response.get(FACET_FIELDS))) {
+        fieldEntries.add(
+            new SimpleFacetFieldEntry(
+                new SimpleField(FACET_FIELDS),
+                bucket.get("val").toString(),
+                ((Number) bucket.get("count")).longValue()));
+      }
+      facetFields =
+          getDynamicFacetFields(fieldEntries).stream()
+              .map(Entry::getKey)
+              .collect(Collectors.toList());
+
+      List<SolrSampleField> missingFields =
+          facetFields.stream()
+              .filter(f -> !facetsByField.containsKey(f.getSolrLabel()))
+              .collect(Collectors.toList());
+      if (!missingFields.isEmpty()) {
+        NamedList<Object> missingResponse =
+            solrSampleRepository.getJsonFacets(
+                query, toJson(buildJsonFacet(missingFields, facetValuesPageInfo)));
+        facetsByField.putAll(readJsonFacets(missingResponse, missingFields));
+      }
+    }
+
+    List<Facet> facets = new ArrayList<>();
+    for (SolrSampleField field : facetFields) {
+      facetsByField.get(field.getSolrLabel()).ifPresent(facets::add);
+    }
+    for (SolrSampleField field : rangeFacetFields) {
+      facetsByField.get(field.getSolrLabel()).ifPresent(facets::add);
     }
 
     // Return the list of facets
@@ -184,36 +310,112 @@ public class SolrFacetService {
     return facets;
   }
 
-  private List<Entry<SolrSampleField, Long>> getFacetFields(
-      Pageable facetFieldPageInfo, FacetQuery query, boolean isLandingPage) {
-    int facetLimit = 10;
-    List<Entry<SolrSampleField, Long>> allFacetFields;
+  /**
+   * For each field a query facet counts the samples having it, with the values nested inside.
+   * Facets are named by position as the field names are not safe to use as keys.
+   */
+  private Map<String, Object> buildJsonFacet(
+      List<SolrSampleField> fields, Pageable facetValuesPageInfo) {
+    Map<String, Object> jsonFacet = new LinkedHashMap<>();
+    for (int i = 0; i < fields.size(); i++) {
+      String solrLabel = fields.get(i).getSolrLabel();
+      Map<String, Object> values;
+      if (FacetHelper.RANGE_FACETING_FIELDS.contains(fields.get(i).getReadableLabel())) {
+        values = rangeFacet(solrLabel);
+      } else {
+        values = termsFacet(solrLabel, facetValuesPageInfo);
+      }
 
-    // short-circuit for landing search page
-    if (isLandingPage) {
-      allFacetFields =
-          FacetHelper.FACETING_FIELDS.stream()
-              .limit(facetLimit)
-              .map(
-                  s ->
-                      new SimpleEntry<>(
-                          this.solrFieldService.decodeField(
-                              SolrFieldService.encodeFieldName(s)
-                                  + FacetHelper.get_encoding_suffix(s)),
-                          0L))
-              .collect(Collectors.toList());
-    } else {
-      allFacetFields = getDynamicFacetFields(facetFieldPageInfo, query, facetLimit);
+      Map<String, Object> fieldFacet = new LinkedHashMap<>();
+      fieldFacet.put("type", "query");
+      fieldFacet.put("q", solrLabel + ":[* TO *]");
+      fieldFacet.put("facet", Collections.singletonMap("values", values));
+      jsonFacet.put("f" + i, fieldFacet);
     }
+    return jsonFacet;
+  }
 
-    return allFacetFields;
+  private static Map<String, Object> termsFacet(String field, Pageable pageable) {
+    Map<String, Object> facet = new LinkedHashMap<>();
+    facet.put("type", "terms");
+    facet.put("field", field);
+    facet.put("offset", pageable.getOffset());
+    facet.put("limit", pageable.getPageSize());
+    facet.put("mincount", 1);
+    return facet;
+  }
+
+  // todo generalise range facets apart from dates and remove hardcoded date boundaries
+  private static Map<String, Object> rangeFacet(String field) {
+    LocalDateTime dateTime = LocalDateTime.now();
+    Map<String, Object> facet = new LinkedHashMap<>();
+    facet.put("type", "range");
+    facet.put("field", field);
+    facet.put(
+        "start", dateTime.minusYears(5).atZone(ZoneId.systemDefault()).toInstant().toString());
+    facet.put("end", dateTime.atZone(ZoneId.systemDefault()).toInstant().toString());
+    facet.put("gap", "+1YEAR");
+    facet.put("include", "all");
+    facet.put("mincount", 1);
+    return facet;
+  }
+
+  private Map<String, Optional<Facet>> readJsonFacets(
+      NamedList<Object> response, List<SolrSampleField> fields) {
+    Map<String, Optional<Facet>> facets = new HashMap<>();
+    for (int i = 0; i < fields.size(); i++) {
+      SolrSampleField solrSampleField = fields.get(i);
+      Object fieldFacet = response.get("f" + i);
+      long fieldCount = 0;
+      List<LabelCountEntry> listFacetContent = new ArrayList<>();
+      if (fieldFacet instanceof NamedList) {
+        NamedList<?> fieldFacetList = (NamedList<?>) fieldFacet;
+        fieldCount = ((Number) fieldFacetList.get("count")).longValue();
+        for (NamedList<Object> bucket : getBuckets(fieldFacetList.get("values"))) {
+          Object value = bucket.get("val");
+          listFacetContent.add(
+              LabelCountEntry.build(
+                  value instanceof Date ? ((Date) value).toInstant().toString() : value.toString(),
+                  ((Number) bucket.get("count")).longValue()));
+        }
+      }
+
+      if (fieldCount > 0 && !listFacetContent.isEmpty()) {
+        facets.put(
+            solrSampleField.getSolrLabel(),
+            Optional.of(
+                solrSampleField
+                    .getFacetBuilder(solrSampleField.getReadableLabel(), fieldCount)
+                    .withContent(new LabelCountListContent(listFacetContent))
+                    .build()));
+      } else {
+        facets.put(solrSampleField.getSolrLabel(), Optional.empty());
+      }
+    }
+    return facets;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<NamedList<Object>> getBuckets(Object facet) {
+    if (facet instanceof NamedList && ((NamedList<?>) facet).get("buckets") instanceof List) {
+      return (List<NamedList<Object>>) ((NamedList<?>) facet).get("buckets");
+    }
+    return Collections.emptyList();
+  }
+
+  private static String toJson(Map<String, Object> jsonFacet) {
+    try {
+      return OBJECT_MAPPER.writeValueAsString(jsonFacet);
+    } catch (JsonProcessingException e) {
+      // should never happen
+      throw new RuntimeException(e);
+    }
   }
 
   private List<Entry<SolrSampleField, Long>> getDynamicFacetFields(
-      Pageable facetFieldPageInfo, FacetQuery query, int facetLimit) {
+      List<FacetFieldEntry> facetFields) {
+    int facetLimit = FACET_LIMIT;
     List<Entry<SolrSampleField, Long>> allFacetFields = new ArrayList<>();
-    Page<FacetFieldEntry> facetFields =
-        solrSampleRepository.getFacetFields(query, facetFieldPageInfo);
     int facetCount = 0;
     for (FacetFieldEntry ffe : facetFields) {
       SolrSampleField solrSampleField = this.solrFieldService.decodeField(ffe.getValue());
@@ -108,10 +108,34 @@ public class SolrSampleService {
       Collection<String> domains,
       String cursorMark,
       int size) {
+    return fetchSolrSampleByText(searchTerm, filters, domains, cursorMark, size, 0, 1);
+  }
+
+  /**
+   * Fetch the solr samples of one partition of the query results, so that several cursors can
+   * iterate over all the results concurrently
+   *
+   * @param searchTerm the term to search for in solr
+   * @param filters a Collection of filters used in the solr query
+   * @param domains a Collection of domains used in the solr query
+   * @param cursorMark cursor serialization
+   * @param partition the partition to fetch, from 0 to partitions - 1
+   * @param partitions the number of partitions the results are split into
+   * @return a page of Samples full-filling the query
+   */
+  public CursorArrayList<SolrSample> fetchSolrSampleByText(
+      String searchTerm,
+      Collection<Filter> filters,
+      Collection<String> domains,
+      String cursorMark,
+      int size,
+      int partition,
+      int partitions) {
     Query query = buildQuery(searchTerm, filters, domains);
     query.addSort(new Sort("id")); // this must match the field in solr
 
-    return solrSampleRepository.findByQueryCursorMark(query, cursorMark, size);
+    return solrSampleRepository.findByQueryCursorMark(
+        query, cursorMark, size, partition, partitions);
   }
 
   private Query buildQuery(
@@ -0,0 +1,196 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.solr.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollection;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Instant;
+import java.util.*;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.solr.core.query.Query;
+import uk.ac.ebi.biosamples.BioSamplesProperties;
+import uk.ac.ebi.biosamples.model.facet.Facet;
+import uk.ac.ebi.biosamples.model.facet.content.LabelCountListContent;
+import uk.ac.ebi.biosamples.model.filter.Filter;
+import uk.ac.ebi.biosamples.solr.model.field.SolrSampleAttributeValueField;
+import uk.ac.ebi.biosamples.solr.model.field.SolrSampleDateField;
+import uk.ac.ebi.biosamples.solr.repo.SolrSampleRepository;
+
+public class SolrFacetServiceTest {
+  private static final String ORGANISM = SolrFieldService.encodeFieldName("organism") + "_av_ss";
+  private static final String MEDIUM =
+      SolrFieldService.encodeFieldName("culture medium") + "_av_ss";
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private SolrSampleRepository solrSampleRepository;
+  private SolrFacetService solrFacetService;
+
+  @Before
+  public void setUp() {
+    solrSampleRepository = mock(SolrSampleRepository.class);
+    when(solrSampleRepository.getIndexVersion()).thenReturn(1L);
+
+    SolrFilterService solrFilterService = mock(SolrFilterService.class);
+    when(solrFilterService.getPublicFilterQuery(anyCollection())).thenReturn(Optional.empty());
+    when(solrFilterService.getFilterQuery(anyCollection())).thenReturn(Optional.empty());
+
+    BioSamplesProperties bioSamplesProperties = mock(BioSamplesProperties.class);
+    when(bioSamplesProperties.getFacetCacheMaxEntries()).thenReturn(100);
+    when(bioSamplesProperties.getFacetCacheIndexCheck()).thenReturn(0);
+
+    solrFacetService =
+        new SolrFacetService(
+            solrSampleRepository,
+            new SolrFieldService(
+                Arrays.asList(new SolrSampleAttributeValueField(), new SolrSampleDateField())),
+            solrFilterService,
+            bioSamplesProperties);
+  }
+
+  @Test
+  public void landingPageFacetsComeFromOneCachedRequest() throws Exception {
+    NamedList<Object> response = new SimpleOrderedMap<>();
+    // organism is the first of the common fields, release the only range field after them
+    response.add("f0", fieldFacet(5, bucket("Homo sapiens", 3), bucket("Mus musculus", 2)));
+    response.add("f10", fieldFacet(5, bucket(Date.from(Instant.parse("2019-01-01T00:00:00Z")), 5)));
+    ArgumentCaptor<String> jsonFacet = ArgumentCaptor.forClass(String.class);
+    when(solrSampleRepository.getJsonFacets(any(Query.class), jsonFacet.capture()))
+        .thenReturn(response);
+
+    List<Facet> facets = getFacets(null);
+    assertEquals(facets.size(), getFacets("").size());
+
+    verify(solrSampleRepository, times(1)).getJsonFacets(any(Query.class), anyString());
+    JsonNode request = objectMapper.readTree(jsonFacet.getValue());
+    assertEquals(11, request.size());
+    assertEquals(ORGANISM + ":[* TO *]", request.get("f0").get("q").asText());
+    assertEquals("terms", request.get("f0").get("facet").get("values").get("type").asText());
+    assertEquals(10, request.get("f0").get("facet").get("values").get("limit").asInt());
+    assertEquals("range", request.get("f10").get("facet").get("values").get("type").asText());
+
+    Map<String, Facet> facetsByLabel = byLabel(facets);
+    assertEquals(2, facetsByLabel.size());
+    assertEquals(Long.valueOf(5), facetsByLabel.get("organism").getCount());
+    LabelCountListContent organisms =
+        (LabelCountListContent) facetsByLabel.get("organism").getContent();
+    assertEquals("Homo sapiens", organisms.get(0).getLabel());
+    assertEquals(3, organisms.get(0).getCount());
+    LabelCountListContent releases =
+        (LabelCountListContent) facetsByLabel.get("release").getContent();
+    assertEquals("2019-01-01 to 2020-01-01", releases.get(0).getLabel());
+  }
+
+  @Test
+  public void commitInvalidatesCachedFacets() {
+    when(solrSampleRepository.getJsonFacets(any(Query.class), anyString()))
+        .thenReturn(new SimpleOrderedMap<>());
+    when(solrSampleRepository.getIndexVersion()).thenReturn(1L, 1L, 2L);
+
+    getFacets(null);
+    getFacets(null);
+    getFacets(null);
+
+    verify(solrSampleRepository, times(2)).getJsonFacets(any(Query.class), anyString());
+  }
+
+  @Test
+  public void unknownIndexVersionBypassesTheCache() {
+    when(solrSampleRepository.getJsonFacets(any(Query.class), anyString()))
+        .thenReturn(new SimpleOrderedMap<>());
+    when(solrSampleRepository.getIndexVersion())
+        .thenReturn(1L)
+        .thenThrow(new RuntimeException("luke failed"));
+
+    getFacets(null);
+    getFacets(null);
+    getFacets(null);
+
+    verify(solrSampleRepository, times(3)).getJsonFacets(any(Query.class), anyString());
+  }
+
+  @Test
+  public void shownFieldsAreFetchedInOneMoreRequest() throws Exception {
+    NamedList<Object> fields = new SimpleOrderedMap<>();
+    fields.add("buckets", Arrays.asList(bucket(ORGANISM, 5), bucket(MEDIUM, 2)));
+    NamedList<Object> response = new SimpleOrderedMap<>();
+    response.add("f0", fieldFacet(5, bucket(Date.from(Instant.parse("2019-01-01T00:00:00Z")), 5)));
+    response.add("facetfields_ss", fields);
+    NamedList<Object> shownResponse = new SimpleOrderedMap<>();
+    shownResponse.add("f0", fieldFacet(5, bucket("Homo sapiens", 5)));
+    shownResponse.add("f1", fieldFacet(2, bucket("agar", 2)));
+    ArgumentCaptor<String> jsonFacet = ArgumentCaptor.forClass(String.class);
+    when(solrSampleRepository.getJsonFacets(any(Query.class), jsonFacet.capture()))
+        .thenReturn(response, shownResponse);
+
+    Map<String, Facet> facetsByLabel = byLabel(getFacets("cancer"));
+
+    verify(solrSampleRepository, times(2)).getJsonFacets(any(Query.class), anyString());
+    // only the range field is requested before the fields to show are known
+    JsonNode request = objectMapper.readTree(jsonFacet.getAllValues().get(0));
+    assertEquals(2, request.size());
+    assertEquals("range", request.get("f0").get("facet").get("values").get("type").asText());
+    assertEquals("terms", request.get("facetfields_ss").get("type").asText());
+    JsonNode shownRequest = objectMapper.readTree(jsonFacet.getAllValues().get(1));
+    assertEquals(2, shownRequest.size());
+    assertEquals(ORGANISM + ":[* TO *]", shownRequest.get("f0").get("q").asText());
+    assertEquals(MEDIUM + ":[* TO *]", shownRequest.get("f1").get("q").asText());
+    assertEquals(3, facetsByLabel.size());
+    assertEquals(Long.valueOf(5), facetsByLabel.get("organism").getCount());
+    assertEquals(Long.valueOf(2), facetsByLabel.get("culture medium").getCount());
+    assertEquals(Long.valueOf(5), facetsByLabel.get("release").getCount());
+  }
+
+  private List<Facet> getFacets(String text) {
+    return solrFacetService.getFacets(
+        text,
+        Collections.<Filter>emptyList(),
+        Collections.emptyList(),
+        new PageRequest(0, 10),
+        new PageRequest(0, 10));
+  }
+
+  private static Map<String, Facet> byLabel(List<Facet> facets) {
+    Map<String, Facet> facetsByLabel = new HashMap<>();
+    facets.forEach(facet -> facetsByLabel.put(facet.getLabel(), facet));
+    return facetsByLabel;
+  }
+
+  @SafeVarargs
+  private static NamedList<Object> fieldFacet(long count, NamedList<Object>... buckets) {
+    NamedList<Object> values = new SimpleOrderedMap<>();
+    values.add("buckets", Arrays.asList(buckets));
+    NamedList<Object> fieldFacet = new SimpleOrderedMap<>();
+    fieldFacet.add("count", count);
+    fieldFacet.add("values", values);
+    return fieldFacet;
+  }
+
+  private static NamedList<Object> bucket(Object value, long count) {
+    NamedList<Object> bucket = new SimpleOrderedMap<>();
+    bucket.add("val", value);
+    bucket.add("count", count);
+    return bucket;
+  }
+}
@@ -0,0 +1,78 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.clearinghouse;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+import uk.ac.ebi.biosamples.PipelinesProperties;
+
+@Service
+public class ClearinghouseLookupService {
+  private static final Logger LOG = LoggerFactory.getLogger(ClearinghouseLookupService.class);
+
+  private final RestTemplate restTemplate;
+  private final PipelinesProperties pipelinesProperties;
+
+  public ClearinghouseLookupService(
+      RestTemplate restTemplate, PipelinesProperties pipelinesProperties) {
+    this.restTemplate = restTemplate;
+    this.pipelinesProperties = pipelinesProperties;
+  }
+
+  /**
+   * Fetch the curations the clearinghouse holds for a sample. Samples the clearinghouse does not
+   * know about (404) give an empty list, any other failure is thrown to the caller.
+   */
+  public List<Map<String, String>> fetchCurations(String accession) {
+    URI uri =
+        UriComponentsBuilder.fromHttpUrl(pipelinesProperties.getClearinghouse())
+            .pathSegment(accession)
+            .build()
+            .encode()
+            .toUri();
+    RequestEntity<Void> requestEntity =
+        RequestEntity.get(uri).accept(MediaType.APPLICATION_JSON).build();
+
+    ResponseEntity<Map<String, Object>> responseEntity;
+    try {
+      responseEntity =
+          restTemplate.exchange(
+              requestEntity, new ParameterizedTypeReference<Map<String, Object>>() {});
+    } catch (HttpClientErrorException e) {
+      if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
+        LOG.trace("No clearinghouse curations for {}", accession);
+        return Collections.emptyList();
+      }
+      throw e;
+    }
+
+    Map<String, Object> body = responseEntity.getBody();
+    if (body == null || !(body.get("curations") instanceof List)) {
+      return Collections.emptyList();
+    }
+    @SuppressWarnings("unchecked")
+    List<Map<String, String>> curations = (List<Map<String, String>>) body.get("curations");
+    return curations;
+  }
+}
@@ -10,21 +10,14 @@
 */
 package uk.ac.ebi.biosamples.clearinghouse;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.Callable;
-import java.util.concurrent.Future;
+import java.util.Collections;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.hateoas.Resource;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.biosamples.PipelineExecutor;
 import uk.ac.ebi.biosamples.PipelineFutureCallback;
 import uk.ac.ebi.biosamples.PipelineResult;
 import uk.ac.ebi.biosamples.PipelinesProperties;
@@ -32,27 +25,27 @@ import uk.ac.ebi.biosamples.client.BioSamplesClient;
 import uk.ac.ebi.biosamples.model.Sample;
 import uk.ac.ebi.biosamples.utils.AdaptiveThreadPoolExecutor;
 import uk.ac.ebi.biosamples.utils.MailSender;
-import uk.ac.ebi.biosamples.utils.ThreadUtils;
 
 @Component
 public class ClearinghouseRunner implements ApplicationRunner {
   private static final Logger LOGGER = LoggerFactory.getLogger(ClearinghouseRunner.class);
-  private static final String CLEARINGHOUSE_API_ENDPOINT =
-      "https://www.ebi.ac.uk/ena/clearinghouse/api/curations/";
   private final BioSamplesClient bioSamplesClient;
+  private final ClearinghouseLookupService clearinghouseLookupService;
+  private final PipelinesProperties pipelinesProperties;
   private final String domain;
   private final PipelineFutureCallback pipelineFutureCallback;
 
-  @Autowired private RestTemplate restTemplate;
-
-  @Autowired private PipelinesProperties pipelinesProperties;
-
-  public ClearinghouseRunner(final BioSamplesClient bioSamplesClient) {
+  public ClearinghouseRunner(
+      final BioSamplesClient bioSamplesClient,
+      final ClearinghouseLookupService clearinghouseLookupService,
+      final PipelinesProperties pipelinesProperties) {
     if (bioSamplesClient.getPublicClient().isPresent()) {
       this.bioSamplesClient = bioSamplesClient.getPublicClient().get();
     } else {
       this.bioSamplesClient = bioSamplesClient;
     }
+    this.clearinghouseLookupService = clearinghouseLookupService;
+    this.pipelinesProperties = pipelinesProperties;
 
     this.pipelineFutureCallback = new PipelineFutureCallback();
 
@@ -70,8 +63,6 @@ public class ClearinghouseRunner implements ApplicationRunner {
     long startTime = System.nanoTime();
     int sampleCount = 0;
 
-    final Map<String, Future<PipelineResult>> futures = new HashMap<>();
-
     try (final AdaptiveThreadPoolExecutor executorService =
         AdaptiveThreadPoolExecutor.create(
             100,
@@ -81,29 +72,23 @@ public class ClearinghouseRunner implements ApplicationRunner {
             pipelinesProperties.getThreadCountMax())) {
       LOGGER.info("Starting clearinghouse pipeline");
 
-      for (final Resource<Sample> sampleResource : bioSamplesClient.fetchSampleResourceAll()) {
+      // the clearinghouse lookup runs inside each task so lookups for many samples are in flight
+      // at once, bounded by the pool size, while the window stops the cursor running ahead
+      final PipelineExecutor<PipelineResult> pipelineExecutor =
+          new PipelineExecutor<>(
+              "Clearinghouse",
+              executorService,
+              pipelinesProperties.getInFlightMax(),
+              pipelineFutureCallback);
+
+      for (final Resource<Sample> sampleResource :
+          bioSamplesClient.fetchSampleResourceAll(
+              "", Collections.emptyList(), pipelinesProperties.getCursorPartitions())) {
         final Sample sample = sampleResource.getContent();
 
-        try {
-          final ResponseEntity<Map> response =
-              restTemplate.getForEntity(
-                  CLEARINGHOUSE_API_ENDPOINT + sample.getAccession(), Map.class);
-
-          if (response.getStatusCode().is2xxSuccessful()) {
-            final Callable<PipelineResult> task =
-                new ClearninghouseCallable(
-                    bioSamplesClient, sample, domain, (List) response.getBody().get("curations"));
-
-            futures.put(sample.getAccession(), executorService.submit(task));
-          }
-        } catch (final HttpClientErrorException e) {
-          if (e.getStatusCode().value() != 404) {
-            LOGGER.error(
-                "Failed to retrieve curation from clearinghouse, sample: {}",
-                sample.getAccession(),
-                e);
-          }
-        }
+        pipelineExecutor.submit(
+            new ClearninghouseCallable(
+                bioSamplesClient, clearinghouseLookupService, sample, domain));
 
         sampleCount++;
 
@@ -112,8 +97,8 @@ public class ClearinghouseRunner implements ApplicationRunner {
         }
       }
 
-      LOGGER.info("waiting for futures");
-      ThreadUtils.checkAndCallbackFutures(futures, 0, pipelineFutureCallback);
+      LOGGER.info("waiting for remaining tasks");
+      pipelineExecutor.awaitCompletion();
 
     } catch (final Exception e) {
       LOGGER.error("Clearinghouse pipeline failed to finish successfully", e);
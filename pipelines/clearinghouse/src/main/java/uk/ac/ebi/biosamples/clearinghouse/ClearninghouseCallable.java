@@ -28,7 +28,7 @@ public class ClearninghouseCallable implements Callable<PipelineResult> {
   private final Sample sample;
   private final BioSamplesClient bioSamplesClient;
   private final String domain;
-  private final List<Map<String, String>> curations;
+  private final ClearinghouseLookupService clearinghouseLookupService;
 
   static final String[] NON_APPLICABLE_CURATION_VALUES = {
     "n/a",
@@ -47,13 +47,13 @@ public class ClearninghouseCallable implements Callable<PipelineResult> {
 
   public ClearninghouseCallable(
       final BioSamplesClient bioSamplesClient,
+      final ClearinghouseLookupService clearinghouseLookupService,
       final Sample sample,
-      final String domain,
-      final List<Map<String, String>> curations) {
+      final String domain) {
     this.bioSamplesClient = bioSamplesClient;
+    this.clearinghouseLookupService = clearinghouseLookupService;
     this.sample = sample;
     this.domain = domain;
-    this.curations = curations;
   }
 
   @Override
@@ -61,6 +61,9 @@ public class ClearninghouseCallable implements Callable<PipelineResult> {
     int appliedCurations = 0;
     boolean success = true;
     try {
+      final List<Map<String, String>> curations =
+          clearinghouseLookupService.fetchCurations(sample.getAccession());
+
       for (final Map<String, String> curationAsMap : curations) {
         String preAttrString = curationAsMap.get("attributePre");
         String preValString = curationAsMap.get("valuePre");
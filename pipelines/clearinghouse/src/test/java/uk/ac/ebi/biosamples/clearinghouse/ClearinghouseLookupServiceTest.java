@@ -0,0 +1,172 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.clearinghouse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+import uk.ac.ebi.biosamples.PipelineResult;
+import uk.ac.ebi.biosamples.PipelinesProperties;
+import uk.ac.ebi.biosamples.client.BioSamplesClient;
+import uk.ac.ebi.biosamples.model.Attribute;
+import uk.ac.ebi.biosamples.model.Curation;
+import uk.ac.ebi.biosamples.model.Sample;
+
+public class ClearinghouseLookupServiceTest {
+  private static final String CURATIONS =
+      "{\"curations\":["
+          + "{\"attributePre\":\"organism\",\"valuePre\":\"human\","
+          + "\"attributePost\":\"organism\",\"valuePost\":\"Homo sapiens\"},"
+          + "{\"attributePost\":\"sex\",\"valuePost\":\"n/a\"}]}";
+
+  private HttpServer server;
+  private final AtomicInteger requestCount = new AtomicInteger();
+  private ClearinghouseLookupService clearinghouseLookupService;
+
+  @Before
+  public void setUp() throws IOException {
+    // stands in for the clearinghouse, which only knows about SAMEA1 and fails for SAMEA500
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext(
+        "/curations/",
+        exchange -> {
+          requestCount.incrementAndGet();
+          String path = exchange.getRequestURI().getPath();
+          String accession = path.substring(path.lastIndexOf('/') + 1);
+          if ("SAMEA1".equals(accession)) {
+            byte[] body = CURATIONS.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+              out.write(body);
+            }
+          } else if ("SAMEA500".equals(accession)) {
+            exchange.sendResponseHeaders(500, -1);
+          } else {
+            exchange.sendResponseHeaders(404, -1);
+          }
+          exchange.close();
+        });
+    server.start();
+
+    PipelinesProperties pipelinesProperties = new PipelinesProperties();
+    ReflectionTestUtils.setField(
+        pipelinesProperties,
+        "clearinghouse",
+        "http://localhost:" + server.getAddress().getPort() + "/curations/");
+    clearinghouseLookupService =
+        new ClearinghouseLookupService(new RestTemplate(), pipelinesProperties);
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  @Test
+  public void fetchesCurationsForKnownSample() {
+    List<Map<String, String>> curations = clearinghouseLookupService.fetchCurations("SAMEA1");
+
+    assertEquals(2, curations.size());
+    assertEquals("Homo sapiens", curations.get(0).get("valuePost"));
+  }
+
+  @Test
+  public void unknownSampleIsEmpty() {
+    assertTrue(clearinghouseLookupService.fetchCurations("SAMEA2").isEmpty());
+  }
+
+  @Test(expected = HttpServerErrorException.class)
+  public void serverErrorIsThrown() {
+    clearinghouseLookupService.fetchCurations("SAMEA500");
+  }
+
+  @Test
+  public void callableAppliesLookedUpCurations() {
+    BioSamplesClient bioSamplesClient = mock(BioSamplesClient.class);
+    Sample sample = sample("SAMEA1");
+
+    PipelineResult result =
+        new ClearninghouseCallable(bioSamplesClient, clearinghouseLookupService, sample, "domain")
+            .call();
+
+    assertTrue(result.isSuccess());
+    assertEquals(1, result.getModifiedRecords());
+    verify(bioSamplesClient)
+        .persistCuration(
+            eq("SAMEA1"),
+            eq(
+                Curation.build(
+                    Attribute.build("organism", "human"),
+                    Attribute.build("organism", "Homo sapiens"))),
+            eq("domain"),
+            eq(false));
+    assertEquals(1, requestCount.get());
+  }
+
+  @Test
+  public void callableSkipsSampleUnknownToClearinghouse() {
+    BioSamplesClient bioSamplesClient = mock(BioSamplesClient.class);
+
+    PipelineResult result =
+        new ClearninghouseCallable(
+                bioSamplesClient, clearinghouseLookupService, sample("SAMEA2"), "domain")
+            .call();
+
+    assertTrue(result.isSuccess());
+    assertEquals(0, result.getModifiedRecords());
+    verify(bioSamplesClient, never())
+        .persistCuration(anyString(), any(Curation.class), anyString(), anyBoolean());
+  }
+
+  @Test
+  public void callableReportsFailedLookup() {
+    BioSamplesClient bioSamplesClient = mock(BioSamplesClient.class);
+
+    PipelineResult result =
+        new ClearninghouseCallable(
+                bioSamplesClient, clearinghouseLookupService, sample("SAMEA500"), "domain")
+            .call();
+
+    assertFalse(result.isSuccess());
+    verify(bioSamplesClient, times(0))
+        .persistCuration(anyString(), any(Curation.class), anyString(), anyBoolean());
+  }
+
+  private static Sample sample(String accession) {
+    return new Sample.Builder("test", accession)
+        .addAttribute(Attribute.build("organism", "human"))
+        .build();
+  }
+}
@@ -15,13 +15,14 @@ import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Future;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.hateoas.Resource;
 import org.springframework.stereotype.Component;
+import uk.ac.ebi.biosamples.CurationLinkBuffer;
+import uk.ac.ebi.biosamples.PipelineExecutor;
 import uk.ac.ebi.biosamples.PipelineFutureCallback;
 import uk.ac.ebi.biosamples.PipelineResult;
 import uk.ac.ebi.biosamples.PipelinesProperties;
@@ -33,7 +34,6 @@ import uk.ac.ebi.biosamples.service.AnalyticsService;
 import uk.ac.ebi.biosamples.utils.AdaptiveThreadPoolExecutor;
 import uk.ac.ebi.biosamples.utils.ArgUtils;
 import uk.ac.ebi.biosamples.utils.MailSender;
-import uk.ac.ebi.biosamples.utils.ThreadUtils;
 
 @Component
 public class CopydownApplicationRunner implements ApplicationRunner {
@@ -62,6 +62,10 @@ public class CopydownApplicationRunner implements ApplicationRunner {
     long sampleCount = 0;
     boolean isPassed = true;
 
+    CurationLinkBuffer curationLinkBuffer =
+        new CurationLinkBuffer(
+            bioSamplesClient, pipelinesProperties.getCurationLinksBatchSize(), false);
+
     try (final AdaptiveThreadPoolExecutor executorService =
         AdaptiveThreadPoolExecutor.create(
             100,
@@ -69,7 +73,12 @@ public class CopydownApplicationRunner implements ApplicationRunner {
             true,
             pipelinesProperties.getThreadCount(),
             pipelinesProperties.getThreadCountMax())) {
-      final Map<String, Future<PipelineResult>> futures = new HashMap<>();
+      final PipelineExecutor<PipelineResult> pipelineExecutor =
+          new PipelineExecutor<>(
+              "copydown",
+              executorService,
+              pipelinesProperties.getInFlightMax(),
+              pipelineFutureCallback);
 
       for (final Resource<Sample> sampleResource :
           bioSamplesClient.fetchSampleResourceAll("", filters)) {
@@ -83,14 +92,16 @@ public class CopydownApplicationRunner implements ApplicationRunner {
 
         final Callable<PipelineResult> task =
             new SampleCopydownCallable(
-                bioSamplesClient, sample, pipelinesProperties.getCopydownDomain());
+                bioSamplesClient,
+                curationLinkBuffer,
+                sample,
+                pipelinesProperties.getCopydownDomain());
 
-        futures.put(sample.getAccession(), executorService.submit(task));
+        pipelineExecutor.submit(task);
       }
 
-      LOG.info("waiting for futures");
-      // wait for anything to finish
-      ThreadUtils.checkAndCallbackFutures(futures, 0, pipelineFutureCallback);
+      LOG.info("waiting for remaining tasks");
+      pipelineExecutor.awaitCompletion();
     } catch (final Exception e) {
       LOG.error("Pipeline failed to finish successfully", e);
       isPassed = false;
@@ -101,6 +112,9 @@ public class CopydownApplicationRunner implements ApplicationRunner {
           isPassed);
       throw e;
     } finally {
+      curationLinkBuffer.close();
+      SampleCopydownCallable.failedQueue.addAll(curationLinkBuffer.getFailedAccessions());
+
       Instant endTime = Instant.now();
       LOG.info("Total samples processed {}", sampleCount);
       LOG.info("Total curation objects added {}", pipelineFutureCallback.getTotalCount());
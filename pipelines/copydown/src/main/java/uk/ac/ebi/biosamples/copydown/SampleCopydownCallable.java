@@ -19,6 +19,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.hateoas.Resource;
+import uk.ac.ebi.biosamples.CurationLinkBuffer;
 import uk.ac.ebi.biosamples.PipelineResult;
 import uk.ac.ebi.biosamples.client.BioSamplesClient;
 import uk.ac.ebi.biosamples.model.*;
@@ -31,13 +32,18 @@ public class SampleCopydownCallable implements Callable<PipelineResult> {
           "organism", "mixed sample", "http://purl.obolibrary.org/obo/NCBITaxon_1427524", null);
   private final Sample sample;
   private final BioSamplesClient bioSamplesClient;
+  private final CurationLinkBuffer curationLinkBuffer;
   private final String domain;
   private int curationCount;
   static final ConcurrentLinkedQueue<String> failedQueue = new ConcurrentLinkedQueue<>();
 
   public SampleCopydownCallable(
-      final BioSamplesClient bioSamplesClient, final Sample sample, final String domain) {
+      final BioSamplesClient bioSamplesClient,
+      final CurationLinkBuffer curationLinkBuffer,
+      final Sample sample,
+      final String domain) {
     this.bioSamplesClient = bioSamplesClient;
+    this.curationLinkBuffer = curationLinkBuffer;
     this.sample = sample;
     this.domain = domain;
     this.curationCount = 0;
@@ -128,7 +134,7 @@ public class SampleCopydownCallable implements Callable<PipelineResult> {
     postAttributes.add(organismValue);
     final Curation curation = Curation.build(Collections.emptyList(), postAttributes);
 
-    bioSamplesClient.persistCuration(sample.getAccession(), curation, domain, false);
+    curationLinkBuffer.add(sample.getAccession(), curation, domain);
     curationCount++;
   }
 
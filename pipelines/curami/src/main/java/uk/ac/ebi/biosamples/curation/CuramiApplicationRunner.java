@@ -16,7 +16,6 @@ import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,6 +24,8 @@ import org.springframework.boot.ApplicationRunner;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.hateoas.Resource;
 import org.springframework.stereotype.Component;
+import uk.ac.ebi.biosamples.CurationLinkBuffer;
+import uk.ac.ebi.biosamples.PipelineExecutor;
 import uk.ac.ebi.biosamples.PipelineFutureCallback;
 import uk.ac.ebi.biosamples.PipelineResult;
 import uk.ac.ebi.biosamples.PipelinesProperties;
@@ -39,7 +40,6 @@ import uk.ac.ebi.biosamples.service.AnalyticsService;
 import uk.ac.ebi.biosamples.utils.AdaptiveThreadPoolExecutor;
 import uk.ac.ebi.biosamples.utils.ArgUtils;
 import uk.ac.ebi.biosamples.utils.MailSender;
-import uk.ac.ebi.biosamples.utils.ThreadUtils;
 
 @Component
 public class CuramiApplicationRunner implements ApplicationRunner {
@@ -78,6 +78,10 @@ public class CuramiApplicationRunner implements ApplicationRunner {
     curationRules.putAll(loadCurationRulesToMemory());
     LOG.info("Found {} curation rules", curationRules.size());
 
+    CurationLinkBuffer curationLinkBuffer =
+        new CurationLinkBuffer(
+            bioSamplesClient, pipelinesProperties.getCurationLinksBatchSize(), false);
+
     try (AdaptiveThreadPoolExecutor executorService =
         AdaptiveThreadPoolExecutor.create(
             100,
@@ -86,8 +90,15 @@ public class CuramiApplicationRunner implements ApplicationRunner {
             pipelinesProperties.getThreadCount(),
             pipelinesProperties.getThreadCountMax())) {
 
-      Map<String, Future<PipelineResult>> futures = new HashMap<>();
-      for (Resource<Sample> sampleResource : bioSamplesClient.fetchSampleResourceAll("", filters)) {
+      PipelineExecutor<PipelineResult> pipelineExecutor =
+          new PipelineExecutor<>(
+              "curami",
+              executorService,
+              pipelinesProperties.getInFlightMax(),
+              pipelineFutureCallback);
+      for (Resource<Sample> sampleResource :
+          bioSamplesClient.fetchSampleResourceAll(
+              "", filters, pipelinesProperties.getCursorPartitions())) {
         LOG.trace("Handling {}", sampleResource);
         Sample sample = sampleResource.getContent();
         Objects.requireNonNull(sample);
@@ -95,8 +106,8 @@ public class CuramiApplicationRunner implements ApplicationRunner {
 
         Callable<PipelineResult> task =
             new SampleCuramiCallable(
-                bioSamplesClient, sample, pipelinesProperties.getCurationDomain(), curationRules);
-        futures.put(sample.getAccession(), executorService.submit(task));
+                curationLinkBuffer, sample, pipelinesProperties.getCurationDomain(), curationRules);
+        pipelineExecutor.submit(task);
 
         if (++sampleCount % 5000 == 0) {
           LOG.info("Scheduled sample count {}", sampleCount);
@@ -104,12 +115,15 @@ public class CuramiApplicationRunner implements ApplicationRunner {
       }
 
       LOG.info("Waiting for all scheduled tasks to finish");
-      ThreadUtils.checkAndCallbackFutures(futures, 0, pipelineFutureCallback);
+      pipelineExecutor.awaitCompletion();
     } catch (final Exception e) {
       LOG.error("Pipeline failed to finish successfully", e);
       isPassed = false;
       throw e;
     } finally {
+      curationLinkBuffer.close();
+      SampleCuramiCallable.failedQueue.addAll(curationLinkBuffer.getFailedAccessions());
+
       Instant endTime = Instant.now();
       LOG.info("Total samples processed {}", sampleCount);
       LOG.info("Total curation objects added {}", pipelineFutureCallback.getTotalCount());
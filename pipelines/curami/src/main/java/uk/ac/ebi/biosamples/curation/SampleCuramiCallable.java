@@ -18,8 +18,8 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.ac.ebi.biosamples.CurationLinkBuffer;
 import uk.ac.ebi.biosamples.PipelineResult;
-import uk.ac.ebi.biosamples.client.BioSamplesClient;
 import uk.ac.ebi.biosamples.model.Attribute;
 import uk.ac.ebi.biosamples.model.Curation;
 import uk.ac.ebi.biosamples.model.Sample;
@@ -29,16 +29,16 @@ public class SampleCuramiCallable implements Callable<PipelineResult> {
   static final ConcurrentLinkedQueue<String> failedQueue = new ConcurrentLinkedQueue<>();
 
   private final Sample sample;
-  private final BioSamplesClient bioSamplesClient;
+  private final CurationLinkBuffer curationLinkBuffer;
   private final String domain;
   private final Map<String, String> curationRules;
 
   public SampleCuramiCallable(
-      BioSamplesClient bioSamplesClient,
+      CurationLinkBuffer curationLinkBuffer,
       Sample sample,
       String domain,
       Map<String, String> curationRules) {
-    this.bioSamplesClient = bioSamplesClient;
+    this.curationLinkBuffer = curationLinkBuffer;
     this.sample = sample;
     this.domain = domain;
     this.curationRules = curationRules;
@@ -83,7 +83,7 @@ public class SampleCuramiCallable implements Callable<PipelineResult> {
                     a.getIri(),
                     a.getUnit()));
         LOG.info("New curation found {}", curation);
-        bioSamplesClient.persistCuration(sample.getAccession(), curation, domain, false);
+        curationLinkBuffer.add(sample.getAccession(), curation, domain);
         curations.add(curation);
       }
     }
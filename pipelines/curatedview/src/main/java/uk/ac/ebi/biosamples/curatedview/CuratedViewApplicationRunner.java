@@ -12,89 +12,68 @@ package uk.ac.ebi.biosamples.curatedview;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
-import org.springframework.data.mongodb.core.MongoOperations;
-import org.springframework.data.mongodb.core.query.Query;
-import org.springframework.data.util.CloseableIterator;
 import org.springframework.stereotype.Component;
 import uk.ac.ebi.biosamples.PipelinesProperties;
-import uk.ac.ebi.biosamples.client.BioSamplesClient;
-import uk.ac.ebi.biosamples.mongo.model.MongoSample;
-import uk.ac.ebi.biosamples.mongo.repo.MongoSampleRepository;
-import uk.ac.ebi.biosamples.mongo.service.SampleToMongoSampleConverter;
-import uk.ac.ebi.biosamples.utils.AdaptiveThreadPoolExecutor;
+import uk.ac.ebi.biosamples.service.CuratedViewMaterializer;
 import uk.ac.ebi.biosamples.utils.MailSender;
-import uk.ac.ebi.biosamples.utils.ThreadUtils;
 
+/**
+ * Brings the curated static view up to date with the recorded sample changes. Run with --rebuild to
+ * recompute every sample, and with biosamples.pipelines.curatedview.poll set to keep following
+ * changes instead of exiting once caught up.
+ */
 @Component
 public class CuratedViewApplicationRunner implements ApplicationRunner {
   private static final Logger LOG = LoggerFactory.getLogger(CuratedViewApplicationRunner.class);
 
-  private final BioSamplesClient bioSamplesClient;
   private final PipelinesProperties pipelinesProperties;
-  private final MongoSampleRepository repository;
-  private final SampleToMongoSampleConverter sampleToMongoSampleConverter;
-  private final MongoOperations mongoOperations;
+  private final CuratedViewMaterializer curatedViewMaterializer;
 
   public CuratedViewApplicationRunner(
-      BioSamplesClient bioSamplesClient,
-      PipelinesProperties pipelinesProperties,
-      MongoSampleRepository repository,
-      SampleToMongoSampleConverter sampleToMongoSampleConverter,
-      MongoOperations mongoOperations) {
-    this.bioSamplesClient = bioSamplesClient;
+      PipelinesProperties pipelinesProperties, CuratedViewMaterializer curatedViewMaterializer) {
     this.pipelinesProperties = pipelinesProperties;
-    this.repository = repository;
-    this.sampleToMongoSampleConverter = sampleToMongoSampleConverter;
-    this.mongoOperations = mongoOperations;
+    this.curatedViewMaterializer = curatedViewMaterializer;
   }
 
   @Override
   public void run(ApplicationArguments args) throws Exception {
-    Map<String, Future<Void>> futures = new HashMap<>();
     Instant startTime = Instant.now();
     LOG.info("Pipeline started at {}", startTime);
-    long sampleCount = 0;
+    long changeCount = 0;
     boolean isPassed = true;
 
-    try (AdaptiveThreadPoolExecutor executorService =
-        AdaptiveThreadPoolExecutor.create(
-            100,
-            10000,
-            true,
-            pipelinesProperties.getThreadCount(),
-            pipelinesProperties.getThreadCountMax())) {
-
-      try (CloseableIterator<MongoSample> it =
-          mongoOperations.stream(new Query(), MongoSample.class)) {
-        while (it.hasNext()) {
-          MongoSample mongoSample = it.next();
-          String accession = mongoSample.getAccession();
-          LOG.trace("Handling {}", accession);
-
-          Callable<Void> task =
-              new CuratedViewCallable(
-                  accession, repository, sampleToMongoSampleConverter, bioSamplesClient);
-          futures.put(accession, executorService.submit(task));
+    try {
+      if (args.containsOption("rebuild")) {
+        LOG.info("Recorded changes for {} samples to rebuild", curatedViewMaterializer.rebuild());
+      }
 
-          if (++sampleCount % 5000 == 0) {
-            LOG.info("Scheduled {} samples for processing", sampleCount);
+      while (true) {
+        int changes =
+            curatedViewMaterializer.materializeChanges(
+                pipelinesProperties.getCuratedViewBatchSize());
+        changeCount += changes;
+        if (changes == 0) {
+          if (curatedViewMaterializer.isWaitingForMissingChange()) {
+            // another node is still writing a change, or failed to, so wait rather than stop
+            TimeUnit.SECONDS.sleep(1);
+            continue;
           }
+          if (pipelinesProperties.getCuratedViewPoll() <= 0) {
+            break;
+          }
+          TimeUnit.SECONDS.sleep(pipelinesProperties.getCuratedViewPoll());
+        } else {
+          LOG.info(
+              "Processed {} changes, {} seconds behind",
+              changeCount,
+              curatedViewMaterializer.getLag().getSeconds());
         }
-        LOG.info("Waiting for all scheduled tasks to finish");
-        ThreadUtils.checkFutures(futures, 0);
       }
-
     } catch (final Exception e) {
       LOG.error("Pipeline failed to finish successfully", e);
       isPassed = false;
@@ -105,26 +84,13 @@ public class CuratedViewApplicationRunner implements ApplicationRunner {
           isPassed);
       throw e;
     } finally {
-      final ConcurrentLinkedQueue<String> failureQueue = CuratedViewCallable.failedQueue;
-      if (failureQueue.size() > 0) {
-        final List<String> fails = new LinkedList<>();
-
-        while (failureQueue.peek() != null) {
-          fails.add(failureQueue.poll());
-        }
-
-        final String failures = "Failed files (" + fails.size() + ") " + String.join(" , ", fails);
-
-        MailSender.sendEmail("Curated View", failures, isPassed);
-      }
-
-      logPipelineStat(startTime, sampleCount);
+      logPipelineStat(startTime, changeCount);
     }
   }
 
-  private void logPipelineStat(Instant startTime, long sampleCount) {
+  private void logPipelineStat(Instant startTime, long changeCount) {
     Instant endTime = Instant.now();
-    LOG.info("Total samples processed {}", sampleCount);
+    LOG.info("Total changes processed {}", changeCount);
     LOG.info("Pipeline finished at {}", endTime);
     LOG.info(
         "Pipeline total running time {} seconds",
@@ -15,7 +15,6 @@ import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Future;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -24,6 +23,7 @@ import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.hateoas.Resource;
 import org.springframework.stereotype.Component;
+import uk.ac.ebi.biosamples.PipelineExecutor;
 import uk.ac.ebi.biosamples.PipelineFutureCallback;
 import uk.ac.ebi.biosamples.PipelineResult;
 import uk.ac.ebi.biosamples.PipelinesProperties;
@@ -34,11 +34,9 @@ import uk.ac.ebi.biosamples.model.Sample;
 import uk.ac.ebi.biosamples.model.filter.Filter;
 import uk.ac.ebi.biosamples.ols.OlsProcessor;
 import uk.ac.ebi.biosamples.service.AnalyticsService;
-import uk.ac.ebi.biosamples.service.CurationApplicationService;
 import uk.ac.ebi.biosamples.utils.AdaptiveThreadPoolExecutor;
 import uk.ac.ebi.biosamples.utils.ArgUtils;
 import uk.ac.ebi.biosamples.utils.MailSender;
-import uk.ac.ebi.biosamples.utils.ThreadUtils;
 
 @Component
 public class CurationApplicationRunner implements ApplicationRunner {
@@ -46,7 +44,6 @@ public class CurationApplicationRunner implements ApplicationRunner {
   private final BioSamplesClient bioSamplesClient;
   private final PipelinesProperties pipelinesProperties;
   private final OlsProcessor olsProcessor;
-  private final CurationApplicationService curationApplicationService;
   private final AnalyticsService analyticsService;
   private final PipelineFutureCallback pipelineFutureCallback;
 
@@ -56,12 +53,10 @@ public class CurationApplicationRunner implements ApplicationRunner {
       @Qualifier("AAPCLIENT") BioSamplesClient bioSamplesClient,
       PipelinesProperties pipelinesProperties,
       OlsProcessor olsProcessor,
-      CurationApplicationService curationApplicationService,
       AnalyticsService analyticsService) {
     this.bioSamplesClient = bioSamplesClient;
     this.pipelinesProperties = pipelinesProperties;
     this.olsProcessor = olsProcessor;
-    this.curationApplicationService = curationApplicationService;
     this.analyticsService = analyticsService;
     this.pipelineFutureCallback = new PipelineFutureCallback();
   }
@@ -81,7 +76,12 @@ public class CurationApplicationRunner implements ApplicationRunner {
             pipelinesProperties.getThreadCount(),
             pipelinesProperties.getThreadCountMax())) {
 
-      Map<String, Future<PipelineResult>> futures = new HashMap<>();
+      PipelineExecutor<PipelineResult> pipelineExecutor =
+          new PipelineExecutor<>(
+              "curation",
+              executorService,
+              pipelinesProperties.getInFlightMax(),
+              pipelineFutureCallback);
       for (Resource<Sample> sampleResource : bioSamplesClient.fetchSampleResourceAll("", filters)) {
         LOG.trace("Handling {}", sampleResource);
         Sample sample = sampleResource.getContent();
@@ -94,19 +94,17 @@ public class CurationApplicationRunner implements ApplicationRunner {
                 bioSamplesClient,
                 sample,
                 olsProcessor,
-                curationApplicationService,
                 pipelinesProperties.getCurationDomain(),
                 iriUrlValidatorService);
         sampleCount++;
         if (sampleCount % 10000 == 0) {
           LOG.info("{} scheduled for processing", sampleCount);
         }
-        futures.put(sample.getAccession(), executorService.submit(task));
+        pipelineExecutor.submit(task);
       }
 
-      LOG.info("waiting for futures");
-      // wait for anything to finish
-      ThreadUtils.checkAndCallbackFutures(futures, 0, pipelineFutureCallback);
+      LOG.info("waiting for remaining tasks");
+      pipelineExecutor.awaitCompletion();
     } catch (final Exception e) {
       LOG.error("Pipeline failed to finish successfully", e);
       isPassed = false;
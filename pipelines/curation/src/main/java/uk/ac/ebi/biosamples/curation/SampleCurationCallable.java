@@ -13,6 +13,7 @@ package uk.ac.ebi.biosamples.curation;
 import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import uk.ac.ebi.biosamples.PipelineResult;
@@ -22,14 +23,12 @@ import uk.ac.ebi.biosamples.model.Attribute;
 import uk.ac.ebi.biosamples.model.Curation;
 import uk.ac.ebi.biosamples.model.Sample;
 import uk.ac.ebi.biosamples.ols.OlsProcessor;
-import uk.ac.ebi.biosamples.service.CurationApplicationService;
 
 public class SampleCurationCallable implements Callable<PipelineResult> {
   private Logger log = LoggerFactory.getLogger(getClass());
   private final Sample sample;
   private final BioSamplesClient bioSamplesClient;
   private final OlsProcessor olsProcessor;
-  private final CurationApplicationService curationApplicationService;
   private final IriUrlValidatorService iriUrlValidatorService;
   private final String domain;
   private int curationCount;
@@ -48,19 +47,26 @@ public class SampleCurationCallable implements Callable<PipelineResult> {
     "not_applicable"
   };
 
+  private static final Set<String> NON_APPLICABLE_SYNONYM_SET =
+      new HashSet<>(Arrays.asList(NON_APPLICABLE_SYNONYMS));
+
+  private static final Pattern BR_TAG = Pattern.compile("\\s*</?[bB][rR]? ?/?>\\s*");
+  private static final Pattern P_TAG = Pattern.compile("\\s*</?[pP] ?/?>\\s*");
+  private static final Pattern I_TAG = Pattern.compile("\\s*</?[iI] ?/?>\\s*");
+  private static final Pattern REPEATED_SPACES = Pattern.compile(" {2,}");
+  private static final Pattern SHORTCODE = Pattern.compile("^[A-Za-z]+[_:\\-][0-9]+$");
+
   public static final ConcurrentLinkedQueue<String> failedQueue = new ConcurrentLinkedQueue<>();
 
   public SampleCurationCallable(
       BioSamplesClient bioSamplesClient,
       Sample sample,
       OlsProcessor olsProcessor,
-      CurationApplicationService curationApplicationService,
       String domain,
       IriUrlValidatorService iriUrlValidatorService) {
     this.bioSamplesClient = bioSamplesClient;
     this.sample = sample;
     this.olsProcessor = olsProcessor;
-    this.curationApplicationService = curationApplicationService;
     this.domain = domain;
     this.iriUrlValidatorService = iriUrlValidatorService;
     this.curationCount = 0;
@@ -70,19 +76,13 @@ public class SampleCurationCallable implements Callable<PipelineResult> {
   public PipelineResult call() {
     boolean success = true;
     try {
-      Sample last;
-      Sample curated = sample;
-
-      do {
-        last = curated;
-        curated = curate(last);
-      } while (!last.equals(curated));
-
-      do {
-        last = curated;
-        curated = ols(last);
-      } while (!last.equals(curated));
+      List<Curation> curations = curate(sample);
 
+      // all of the curations of a sample go in one request
+      if (!curations.isEmpty()) {
+        bioSamplesClient.persistCurations(sample.getAccession(), curations, domain, false);
+        curationCount += curations.size();
+      }
     } catch (Exception e) {
       log.warn("Encountered exception with " + sample.getAccession(), e);
       failedQueue.add(sample.getAccession());
@@ -92,111 +92,92 @@ public class SampleCurationCallable implements Callable<PipelineResult> {
     return new PipelineResult(sample.getAccession(), curationCount, success);
   }
 
-  public Sample curate(Sample sample) {
-    for (Attribute attribute : sample.getAttributes()) {
-      // clean unexpected characters
-      String newType = cleanString(attribute.getType());
-      String newValue = cleanString(attribute.getValue());
+  /**
+   * Runs every rule over each attribute of the sample in a single pass
+   *
+   * @return one curation for each attribute that the rules change or remove
+   */
+  public List<Curation> curate(Sample sample) {
+    List<Curation> curations = new ArrayList<>();
 
-      // if the clean type or value would be empty, curate to an non attribute
-      if (newType.length() == 0 || newValue.length() == 0) {
-        Curation curation =
-            Curation.build(Collections.singleton(attribute), Collections.emptyList());
+    for (Attribute attribute : sample.getAttributes()) {
+      Attribute curated = curate(attribute);
+
+      if (curated == null) {
+        curations.add(Curation.build(Collections.singleton(attribute), Collections.emptyList()));
+      } else if (!curated.equals(attribute)) {
+        curations.add(
+            Curation.build(
+                Collections.singleton(attribute), Collections.singleton(curated), null, null));
+      }
+    }
+    // TODO validate existing ontology terms against OLS
 
-        bioSamplesClient.persistCuration(sample.getAccession(), curation, domain, false);
-        sample = curationApplicationService.applyCurationToSample(sample, curation);
-        curationCount++;
+    // TODO turn attributes with biosample accessions into relationships
 
-        return sample;
-      }
+    // TODO split number+unit attributes
 
-      if (!attribute.getType().equals(newType) || !attribute.getValue().equals(newValue)) {
-        Attribute newAttribute =
-            Attribute.build(
-                newType, newValue, attribute.getTag(), attribute.getIri(), attribute.getUnit());
-        Curation curation = Curation.build(attribute, newAttribute);
+    // TODO lowercase attribute types
+    // TODO lowercase relationship types
+    return curations;
+  }
 
-        bioSamplesClient.persistCuration(sample.getAccession(), curation, domain, false);
-        sample = curationApplicationService.applyCurationToSample(sample, curation);
-        curationCount++;
+  /**
+   * Applies the rules to an attribute one after another, each to the output of the one before
+   *
+   * @return the curated attribute, or null if the attribute should be removed
+   */
+  private Attribute curate(Attribute attribute) {
+    // clean unexpected characters
+    String type = clean(attribute.getType());
+    String value = clean(attribute.getValue());
+
+    // if the clean type or value would be empty, curate to an non attribute
+    if (type.length() == 0 || value.length() == 0) {
+      return null;
+    }
 
-        return sample;
-      }
+    // if no information content, remove
+    if (isNotApplicableSynonym(value)) {
+      return null;
+    }
 
-      // if no information content, remove
-      if (isNotApplicableSynonym(attribute.getValue())) {
-        Curation curation = Curation.build(attribute, null);
+    // if it has a unit, make sure it is clean
+    String unit = attribute.getUnit();
+    if (unit != null) {
+      unit = correctUnit(unit);
+    }
 
-        bioSamplesClient.persistCuration(sample.getAccession(), curation, domain, false);
-        sample = curationApplicationService.applyCurationToSample(sample, curation);
-        curationCount++;
+    // if it is an organism with a single numeric IRI, assume NCBI taxon
+    SortedSet<String> iris = attribute.getIri();
+    if (type.toLowerCase().equals("organism") && iris.size() == 1) {
+      Integer taxId = null;
 
-        return sample;
+      try {
+        taxId = Integer.parseInt(iris.first());
+      } catch (NumberFormatException ignored) {
       }
 
-      // if it has a unit, make sure it is clean
-      if (attribute.getUnit() != null) {
-        String newUnit = correctUnit(attribute.getUnit());
-
-        if (!attribute.getUnit().equals(newUnit)) {
-          Attribute newAttribute =
-              Attribute.build(
-                  attribute.getType(),
-                  attribute.getValue(),
-                  attribute.getTag(),
-                  attribute.getIri(),
-                  newUnit);
-          Curation curation = Curation.build(attribute, newAttribute);
-
-          bioSamplesClient.persistCuration(sample.getAccession(), curation, domain, false);
-          sample = curationApplicationService.applyCurationToSample(sample, curation);
-          curationCount++;
-
-          return sample;
-        }
+      if (taxId != null) {
+        iris = new TreeSet<>();
+        iris.add("http://purl.obolibrary.org/obo/NCBITaxon_" + taxId);
+        // TODO check this IRI exists via OLS
       }
+    }
 
-      // if it is an organism with a single numeric IRI, assume NCBI taxon
-      if (attribute.getType().toLowerCase().equals("organism") && attribute.getIri().size() == 1) {
-        Integer taxId = null;
-
-        try {
-          taxId = Integer.parseInt(attribute.getIri().first());
-        } catch (NumberFormatException ignored) {
-        }
-
-        if (taxId != null) {
-          SortedSet<String> iris = new TreeSet<>();
-
-          iris.add("http://purl.obolibrary.org/obo/NCBITaxon_" + taxId);
-          // TODO check this IRI exists via OLS
-
-          Attribute newAttribute =
-              Attribute.build(
-                  attribute.getType(),
-                  attribute.getValue(),
-                  attribute.getTag(),
-                  iris,
-                  attribute.getUnit());
-          Curation curation = Curation.build(attribute, newAttribute);
+    return ols(Attribute.build(type, value, attribute.getTag(), iris, unit));
+  }
 
-          bioSamplesClient.persistCuration(sample.getAccession(), curation, domain, false);
-          sample = curationApplicationService.applyCurationToSample(sample, curation);
-          curationCount++;
+  private String clean(String string) {
+    String cleaned = cleanString(string);
 
-          return sample;
-        }
-      }
+    while (!cleaned.equals(string)) {
+      string = cleaned;
+      cleaned = cleanString(string);
     }
-    // TODO validate existing ontology terms against OLS
-
-    // TODO turn attributes with biosample accessions into relationships
-
-    // TODO split number+unit attributes
 
-    // TODO lowercase attribute types
-    // TODO lowercase relationship types
-    return sample;
+    // the original string when it was already clean
+    return string;
   }
 
   public String cleanString(String string) {
@@ -206,50 +187,66 @@ public class SampleCurationCallable implements Callable<PipelineResult> {
     // purge all strange characters not-quite-whitespace
     // note, you can find these unicode codes by pasting u"the character"
     // into python
-    string = string.replaceAll("\"", "");
-    string = string.replaceAll("\n", "");
-    string = string.replaceAll("\t", "");
-    string = string.replaceAll("\u2011", "-"); // hypen
-    string = string.replaceAll("\u2012", "-"); // hypen
-    string = string.replaceAll("\u2013", "-"); // hypen
-    string = string.replaceAll("\u2014", "-"); // hypen
-    string = string.replaceAll("\u2015", "-"); // hypen
-    string = string.replaceAll("\u2009", " "); // thin space
-    string = string.replaceAll("\u00A0", " "); // non-breaking space
-    string = string.replaceAll("\uff09", ") "); // full-width right
-    // parenthesis
-    string = string.replaceAll("\uff08", " ("); // full-width left
-    // parenthesis
+    StringBuilder sb = new StringBuilder(string.length());
+    for (int i = 0; i < string.length(); i++) {
+      char current = string.charAt(i);
+      switch (current) {
+        case '"':
+        case '\n':
+        case '\t':
+          break;
+        case '\u2011': // hypen
+        case '\u2012': // hypen
+        case '\u2013': // hypen
+        case '\u2014': // hypen
+        case '\u2015': // hypen
+          sb.append('-');
+          break;
+        case '\u2009': // thin space
+        case '\u00A0': // non-breaking space
+          sb.append(' ');
+          break;
+        case '\uff09': // full-width right parenthesis
+          sb.append(") ");
+          break;
+        case '\uff08': // full-width left parenthesis
+          sb.append(" (");
+          break;
+        default:
+          sb.append(current);
+      }
+    }
+    string = sb.toString();
 
     // replace underscores with spaces
     // string = string.replaceAll("_", " ");
     // this is a significant change, so leave it undone for the moment....
 
     // <br> or <b>
-    string = string.replaceAll("\\s*</?[bB][rR]? ?/?>\\s*", " ");
+    string = BR_TAG.matcher(string).replaceAll(" ");
     // <p>
-    string = string.replaceAll("\\s*</?[pP] ?/?>\\s*", " ");
+    string = P_TAG.matcher(string).replaceAll(" ");
     // <i>
-    string = string.replaceAll("\\s*</?[iI] ?/?>\\s*", " ");
+    string = I_TAG.matcher(string).replaceAll(" ");
 
     // trim extra whitespace at start and end
     string = string.trim();
 
     // XML/HTML automatically replaces consecutive spaces with single spaces
     // TODO use regex for any series of whitespace characters or equivalent
-    while (string.contains("  ")) {
-      string = string.replace("  ", " ");
-    }
+    string = REPEATED_SPACES.matcher(string).replaceAll(" ");
 
     // some UTF-8 hacks
     // TODO replace with code from Solr UTF-8 plugin
-    string = string.replaceAll("ÃƒÂ¼", "ü");
+    if (string.contains("ÃƒÂ¼")) {
+      string = string.replace("ÃƒÂ¼", "ü");
+    }
 
     // also strip UTF-8 control characters that invalidate XML
     // from
     // http://blog.mark-mclaren.info/2007/02/invalid-xml-characters-when-valid-utf8_5873.html
     // TODO check for valid UTF-8 but invalid JSON characters
-    StringBuilder sb = new StringBuilder(); // Used to hold the output.
+    sb = new StringBuilder(string.length()); // Used to hold the output.
     char current; // Used to reference the current character.
     for (int i = 0; i < string.length(); i++) {
       current = string.charAt(i); // NOTE: No IndexOutOfBoundsException
@@ -266,16 +263,10 @@ public class SampleCurationCallable implements Callable<PipelineResult> {
     return sb.toString();
   }
 
-  private static boolean stringContainsItemFromList(String value) {
-    return Arrays.stream(SampleCurationCallable.NON_APPLICABLE_SYNONYMS)
-        .parallel()
-        .anyMatch(value::equals);
-  }
-
   public static boolean isNotApplicableSynonym(String string) {
     String lsString = string.toLowerCase().trim();
 
-    return stringContainsItemFromList(lsString);
+    return NON_APPLICABLE_SYNONYM_SET.contains(lsString);
   }
 
   private String correctUnit(String unit) {
@@ -401,60 +392,56 @@ public class SampleCurationCallable implements Callable<PipelineResult> {
     }
   }
 
-  private Sample ols(Sample sample) {
-    for (final Attribute attribute : sample.getAttributes()) {
-      final Set<String> iriSet = new TreeSet<>(attribute.getIri());
+  /**
+   * Maps ontology shortcodes to full IRIs through OLS and drops IRI URLs that cannot be resolved,
+   * repeating until the IRIs of the attribute stop changing
+   */
+  private Attribute ols(Attribute attribute) {
+    boolean changed;
+
+    do {
+      changed = false;
 
       for (String iri : attribute.getIri()) {
         log.trace("Checking iri " + iri);
+        Attribute mapped = null;
 
-        if (iri.matches("^[A-Za-z]+[_:\\-][0-9]+$")) {
+        if (SHORTCODE.matcher(iri).matches()) {
           log.trace("Querying OLS for iri " + iri);
           final Optional<String> iriResult = olsProcessor.queryOlsForShortcode(iri);
 
           if (iriResult.isPresent()) {
             log.trace("Mapped " + iri + " to " + iriResult.get());
-            final Attribute mapped =
+            mapped =
                 Attribute.build(
                     attribute.getType(),
                     attribute.getValue(),
                     attribute.getTag(),
                     iriResult.get(),
                     null);
-            final Curation curation =
-                Curation.build(
-                    Collections.singleton(attribute), Collections.singleton(mapped), null, null);
-
-            // save the curation back in biosamples
-            bioSamplesClient.persistCuration(sample.getAccession(), curation, domain, false);
-            sample = curationApplicationService.applyCurationToSample(sample, curation);
-
-            return sample;
           }
         }
         // Validate the IRI URL and do a HTTP call for URL's matching the less common
         // pattern,
-        // remove URL's as Curation objects for any thats doesn't return back a 2xx response
+        // remove URL's for any thats doesn't return back a 2xx response
         else if (iriUrlValidatorService.checkUrlForPattern(iri)) {
           if (!iriUrlValidatorService.validateIri(iri)) {
+            final SortedSet<String> iriSet = new TreeSet<>(attribute.getIri());
             iriSet.remove(iri);
-            final Attribute mapped =
+            mapped =
                 Attribute.build(
                     attribute.getType(), attribute.getValue(), attribute.getTag(), iriSet, null);
-            final Curation curation =
-                Curation.build(
-                    Collections.singleton(attribute), Collections.singleton(mapped), null, null);
-
-            // save the curation back in biosamples
-            bioSamplesClient.persistCuration(sample.getAccession(), curation, domain, false);
-            sample = curationApplicationService.applyCurationToSample(sample, curation);
-
-            return sample;
           }
         }
+
+        if (mapped != null && !mapped.equals(attribute)) {
+          attribute = mapped;
+          changed = true;
+          break;
+        }
       }
-    }
+    } while (changed);
 
-    return sample;
+    return attribute;
   }
 }
@@ -90,6 +90,16 @@ public class MockBioSamplesClient extends BioSamplesClient {
     return mock(Resource.class);
   }
 
+  @Override
+  public Collection<Resource<CurationLink>> persistCurations(
+      String accession, Collection<Curation> curations, String webinIdOrDomain, boolean isWebin) {
+    List<Resource<CurationLink>> resources = new ArrayList<>();
+    for (Curation curation : curations) {
+      resources.add(persistCuration(accession, curation, webinIdOrDomain, isWebin));
+    }
+    return resources;
+  }
+
   private String explainCuration(Curation curation) {
     return StringEscapeUtils.escapeCsv(curation.toString());
   }
@@ -24,6 +24,9 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import org.junit.Before;
 import org.junit.Test;
@@ -38,12 +41,15 @@ import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestTemplate;
 import uk.ac.ebi.biosamples.curation.service.IriUrlValidatorService;
 import uk.ac.ebi.biosamples.model.Attribute;
+import uk.ac.ebi.biosamples.model.Curation;
 import uk.ac.ebi.biosamples.model.Sample;
 import uk.ac.ebi.biosamples.ols.OlsProcessor;
 import uk.ac.ebi.biosamples.service.CurationApplicationService;
 
 @RunWith(SpringRunner.class)
-@SpringBootTest(classes = TestApplication.class)
+@SpringBootTest(
+    classes = TestApplication.class,
+    properties = {"biosamples.ols.cache.dir="})
 @AutoConfigureWebClient
 public class SampleCurationCallableTest {
 
@@ -78,12 +84,7 @@ public class SampleCurationCallableTest {
         .andRespond(withSuccess(expectedResponse, MediaType.APPLICATION_JSON));
     SampleCurationCallable sampleCurationCallable =
         new SampleCurationCallable(
-            mockBioSamplesClient,
-            sample,
-            olsProcessor,
-            curationApplicationService,
-            null,
-            new IriUrlValidatorService());
+            mockBioSamplesClient, sample, olsProcessor, null, new IriUrlValidatorService());
     sampleCurationCallable.call();
     Sample curatedSample =
         curationApplicationService.applyAllCurationToSample(
@@ -105,12 +106,7 @@ public class SampleCurationCallableTest {
     assertTrue(hasAttribute(sample.getAttributes(), attributeName));
     SampleCurationCallable sampleCurationCallable =
         new SampleCurationCallable(
-            mockBioSamplesClient,
-            sample,
-            olsProcessor,
-            curationApplicationService,
-            null,
-            new IriUrlValidatorService());
+            mockBioSamplesClient, sample, olsProcessor, null, new IriUrlValidatorService());
     sampleCurationCallable.call();
     Sample curatedSample =
         curationApplicationService.applyAllCurationToSample(
@@ -128,12 +124,7 @@ public class SampleCurationCallableTest {
     assertTrue(hasAttribute(sample.getAttributes(), attributeName));
     SampleCurationCallable sampleCurationCallable =
         new SampleCurationCallable(
-            mockBioSamplesClient,
-            sample,
-            olsProcessor,
-            curationApplicationService,
-            null,
-            new IriUrlValidatorService());
+            mockBioSamplesClient, sample, olsProcessor, null, new IriUrlValidatorService());
     sampleCurationCallable.call();
     Sample curatedSample =
         curationApplicationService.applyAllCurationToSample(
@@ -141,6 +132,40 @@ public class SampleCurationCallableTest {
     assertTrue(hasAttribute(curatedSample.getAttributes(), attributeName));
   }
 
+  @Test
+  public void given_attribute_with_several_problems_ensure_one_curation() {
+    Attribute dirty = Attribute.build("\"organism\"", "Homo\u00A0 sapiens", null, "9606", "n/a");
+    Attribute missing = Attribute.build("disease", "N/A");
+    Attribute clean = Attribute.build("sex", "female");
+    Sample sample =
+        new Sample.Builder("test", "SAMEA1")
+            .withAttributes(Arrays.asList(dirty, missing, clean))
+            .build();
+    SampleCurationCallable sampleCurationCallable =
+        new SampleCurationCallable(
+            mockBioSamplesClient, sample, olsProcessor, null, new IriUrlValidatorService());
+
+    List<Curation> curations = sampleCurationCallable.curate(sample);
+
+    assertEquals(2, curations.size());
+    assertTrue(
+        curations.contains(
+            Curation.build(
+                Collections.singleton(dirty),
+                Collections.singleton(
+                    Attribute.build(
+                        "organism",
+                        "Homo sapiens",
+                        null,
+                        "http://purl.obolibrary.org/obo/NCBITaxon_9606",
+                        null)),
+                null,
+                null)));
+    assertTrue(
+        curations.contains(
+            Curation.build(Collections.singleton(missing), Collections.emptyList())));
+  }
+
   private boolean hasAttribute(Set<Attribute> attributes, String name) {
     boolean found = false;
     for (Attribute attribute : attributes) {
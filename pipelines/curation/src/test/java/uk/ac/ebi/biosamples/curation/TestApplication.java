@@ -26,6 +26,7 @@ import org.springframework.web.client.RestTemplate;
 import uk.ac.ebi.biosamples.BioSamplesProperties;
 import uk.ac.ebi.biosamples.client.BioSamplesClient;
 import uk.ac.ebi.biosamples.client.service.AapClientService;
+import uk.ac.ebi.biosamples.ols.OlsCache;
 import uk.ac.ebi.biosamples.ols.OlsProcessor;
 import uk.ac.ebi.biosamples.service.CurationApplicationService;
 import uk.ac.ebi.biosamples.service.SampleValidator;
@@ -75,7 +76,12 @@ public class TestApplication {
 
   @Bean
   public OlsProcessor olsProcessor() {
-    return new OlsProcessor(restTemplate(), bioSamplesProperties());
+    return new OlsProcessor(restTemplate(), bioSamplesProperties(), olsCache());
+  }
+
+  @Bean
+  public OlsCache olsCache() {
+    return new OlsCache(bioSamplesProperties());
   }
 
   @Bean
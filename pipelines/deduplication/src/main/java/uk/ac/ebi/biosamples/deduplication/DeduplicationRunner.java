@@ -18,6 +18,8 @@ import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
 
 @Component
 public class DeduplicationRunner implements ApplicationRunner {
@@ -40,7 +42,11 @@ public class DeduplicationRunner implements ApplicationRunner {
         try (AdaptiveThreadPoolExecutor executorService = AdaptiveThreadPoolExecutor.create(100, 10000, true,
                 pipelinesProperties.getThreadCount(), pipelinesProperties.getThreadCountMax())) {
 
-            mappingList.forEach(pair -> executorService.submit(() -> checkDuplicates(pair)));
+            if (args.containsOption("join")) {
+                joinDuplicates(mappingList, executorService);
+            } else {
+                mappingList.forEach(pair -> executorService.submit(() -> checkDuplicates(pair)));
+            }
         } catch (final Exception e) {
             log.error("Pipeline failed to finish successfully", e);
             isPassed = false;
@@ -50,11 +56,57 @@ public class DeduplicationRunner implements ApplicationRunner {
         }
     }
 
+    /*
+     * Instead of a full-text search per SRS id, scan all samples once to map the SRS ids from the ERAPRO list to
+     * the samples referring to them, then only fetch and handle the groups that have more than one sample.
+     */
+    private void joinDuplicates(final List<DeduplicationDao.RowMapping> mappingList, final ExecutorService executorService) {
+        final EnaIdIndex enaIdIndex = new EnaIdIndex(
+                mappingList.stream().map(DeduplicationDao.RowMapping::getEnaId).collect(Collectors.toList()));
+        long sampleCount = 0;
+
+        for (Resource<Sample> sampleResource : bioSamplesClient.fetchSampleResourceAll("", Collections.emptyList(),
+                pipelinesProperties.getCursorPartitions())) {
+            enaIdIndex.add(sampleResource.getContent());
+
+            if (++sampleCount % 100000 == 0) {
+                log.info("Indexed " + sampleCount + " samples");
+            }
+        }
+
+        int groupCount = 0;
+
+        for (DeduplicationDao.RowMapping pair : mappingList) {
+            final Set<String> accessions = new HashSet<>(enaIdIndex.getAccessions(pair.getEnaId()));
+            accessions.add(pair.getBioSampleId());
+
+            if (accessions.size() > 1) {
+                groupCount++;
+                executorService.submit(() -> checkDuplicates(pair, accessions));
+            }
+        }
+
+        log.info("Found " + groupCount + " candidate duplicate groups in " + sampleCount + " samples");
+    }
+
+    private void checkDuplicates(final DeduplicationDao.RowMapping pair, final Set<String> accessions) {
+        final List<Sample> enaAeSamples = new ArrayList<>();
+
+        accessions.forEach(accession -> bioSamplesClient.fetchSampleResource(accession)
+                .ifPresent(sampleResource -> enaAeSamples.add(sampleResource.getContent())));
+
+        handleDuplicates(pair, enaAeSamples);
+    }
+
     private void checkDuplicates(final DeduplicationDao.RowMapping pair) {
         final String enaId = pair.getEnaId();
         final Iterator<Resource<Sample>> it = bioSamplesClient.fetchSampleResourceAll(enaId).iterator();
-        final List<Sample> enaAeSamples = evaluateIterablesToFindPair(it, pair);
 
+        handleDuplicates(pair, evaluateIterablesToFindPair(it, pair));
+    }
+
+    private void handleDuplicates(final DeduplicationDao.RowMapping pair, final List<Sample> enaAeSamples) {
+        final String enaId = pair.getEnaId();
         Sample enaSample = null, aeSample = null;
         int enaAeSamplesCount = enaAeSamples.size();
 
@@ -0,0 +1,64 @@
+package uk.ac.ebi.biosamples.deduplication;
+
+import uk.ac.ebi.biosamples.model.Attribute;
+import uk.ac.ebi.biosamples.model.ExternalReference;
+import uk.ac.ebi.biosamples.model.Sample;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maps ENA sample ids (SRS...) to the accessions of the BioSamples samples that refer to them, built
+ * from one pass over all samples instead of one search per ENA id. Only the ids given up front are
+ * tracked, so the index stays the size of the ERAPRO list rather than of BioSamples.
+ *
+ * <p>A sample is indexed under the same conditions as the search based check accepts it: an external
+ * reference that contains the SRS id, or an ArrayExpress external reference on a sample that mentions
+ * the SRS id.
+ */
+class EnaIdIndex {
+    private static final Pattern ENA_ID = Pattern.compile("SRS\\d+");
+
+    private final Map<String, Set<String>> accessionsByEnaId = new HashMap<>();
+
+    EnaIdIndex(Collection<String> enaIds) {
+        enaIds.forEach(enaId -> accessionsByEnaId.put(enaId, new HashSet<>()));
+    }
+
+    void add(final Sample sample) {
+        boolean isArrayExpress = false;
+
+        for (ExternalReference externalReference : sample.getExternalReferences()) {
+            addMatches(externalReference.getUrl(), sample.getAccession());
+            isArrayExpress |= externalReference.getUrl().contains("arrayexpress");
+        }
+
+        // ArrayExpress samples only mention the SRS id in their attributes, which the full-text search used to find
+        if (isArrayExpress) {
+            for (Attribute attribute : sample.getAttributes()) {
+                addMatches(attribute.getValue(), sample.getAccession());
+            }
+        }
+    }
+
+    Set<String> getAccessions(final String enaId) {
+        return accessionsByEnaId.getOrDefault(enaId, Collections.emptySet());
+    }
+
+    private void addMatches(final String text, final String accession) {
+        if (text == null) {
+            return;
+        }
+
+        final Matcher matcher = ENA_ID.matcher(text);
+
+        while (matcher.find()) {
+            final Set<String> accessions = accessionsByEnaId.get(matcher.group());
+
+            if (accessions != null) {
+                accessions.add(accession);
+            }
+        }
+    }
+}
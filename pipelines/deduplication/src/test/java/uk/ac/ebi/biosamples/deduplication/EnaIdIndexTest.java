@@ -0,0 +1,72 @@
+package uk.ac.ebi.biosamples.deduplication;
+
+import org.junit.Test;
+import uk.ac.ebi.biosamples.model.Attribute;
+import uk.ac.ebi.biosamples.model.ExternalReference;
+import uk.ac.ebi.biosamples.model.Sample;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EnaIdIndexTest {
+    private final EnaIdIndex enaIdIndex = new EnaIdIndex(Arrays.asList("SRS100", "SRS200"));
+
+    @Test
+    public void external_reference_containing_the_ena_id_is_indexed() {
+        enaIdIndex.add(new Sample.Builder("ena", "SAMEA1")
+                .addExternalReference(ExternalReference.build("https://www.ebi.ac.uk/ena/browser/view/SRS100"))
+                .build());
+
+        assertEquals(Collections.singleton("SAMEA1"), enaIdIndex.getAccessions("SRS100"));
+        assertTrue(enaIdIndex.getAccessions("SRS200").isEmpty());
+    }
+
+    @Test
+    public void arrayexpress_sample_mentioning_the_ena_id_is_indexed() {
+        enaIdIndex.add(new Sample.Builder("ae", "SAMEA2")
+                .addExternalReference(ExternalReference.build("https://www.ebi.ac.uk/arrayexpress/experiments/E-MTAB-1"))
+                .addAttribute(Attribute.build("ENA sample", "SRS200"))
+                .build());
+
+        assertEquals(Collections.singleton("SAMEA2"), enaIdIndex.getAccessions("SRS200"));
+    }
+
+    @Test
+    public void attributes_of_other_samples_are_not_indexed() {
+        enaIdIndex.add(new Sample.Builder("ena", "SAMEA3")
+                .addExternalReference(ExternalReference.build("https://www.ebi.ac.uk/ena/browser/view/SRS999"))
+                .addAttribute(Attribute.build("SRA accession", "SRS100"))
+                .build());
+        enaIdIndex.add(new Sample.Builder("other", "SAMEA4")
+                .addAttribute(Attribute.build("description", "derived from SRS100"))
+                .build());
+
+        assertTrue(enaIdIndex.getAccessions("SRS100").isEmpty());
+    }
+
+    @Test
+    public void samples_referring_to_the_same_ena_id_are_grouped() {
+        enaIdIndex.add(new Sample.Builder("ena", "SAMEA5")
+                .addExternalReference(ExternalReference.build("https://www.ebi.ac.uk/ena/browser/view/SRS100"))
+                .build());
+        enaIdIndex.add(new Sample.Builder("ae", "SAMEA6")
+                .addExternalReference(ExternalReference.build("https://www.ebi.ac.uk/arrayexpress/experiments/E-MTAB-1"))
+                .addAttribute(Attribute.build("ENA sample", "SRS100"))
+                .build());
+
+        assertEquals(new HashSet<>(Arrays.asList("SAMEA5", "SAMEA6")), enaIdIndex.getAccessions("SRS100"));
+    }
+
+    @Test
+    public void untracked_ena_ids_are_ignored() {
+        enaIdIndex.add(new Sample.Builder("ena", "SAMEA7")
+                .addExternalReference(ExternalReference.build("https://www.ebi.ac.uk/ena/browser/view/SRS300"))
+                .build());
+
+        assertTrue(enaIdIndex.getAccessions("SRS300").isEmpty());
+    }
+}
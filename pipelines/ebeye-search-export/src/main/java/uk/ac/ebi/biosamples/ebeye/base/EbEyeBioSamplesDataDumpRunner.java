@@ -10,20 +10,26 @@
 */
 package uk.ac.ebi.biosamples.ebeye.base;
 
-import com.mongodb.*;
 import java.io.File;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicReference;
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Marshaller;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.hateoas.Resource;
 import org.springframework.stereotype.Component;
+import uk.ac.ebi.biosamples.PipelinesProperties;
 import uk.ac.ebi.biosamples.client.BioSamplesClient;
 import uk.ac.ebi.biosamples.ebeye.gen.*;
+import uk.ac.ebi.biosamples.ebeye.util.SampleToEntryConverter;
 import uk.ac.ebi.biosamples.model.Sample;
 
 /*@Component
@@ -271,14 +277,17 @@ public class EbEyeBioSamplesDataDumpRunner implements ApplicationRunner {
   }
 }*/
 
-// One time run for COVID-19 only
+// One time run for COVID-19 only, or a streaming export of all public samples with --stream
 
 @Component
 public class EbEyeBioSamplesDataDumpRunner implements ApplicationRunner {
-  public static final String ENA_LC = "ena";
-  public static final String ENA_UC = "ENA";
+  private static final int DEFAULT_ENTRIES_PER_FILE = 100000;
+  private static final Logger log = LoggerFactory.getLogger(EbEyeBioSamplesDataDumpRunner.class);
   @Autowired BioSamplesClient bioSamplesClient;
   @Autowired EbeyeBioSamplesDataDumpGeneratorDao ebeyeBioSamplesDataDumpGeneratorDao;
+  @Autowired SampleToEntryConverter sampleToEntryConverter;
+  @Autowired EbEyeSampleExporter ebEyeSampleExporter;
+  @Autowired PipelinesProperties pipelinesProperties;
 
   public List<Sample> getSamplesList() {
     Iterable<Resource<Sample>> sampleResources =
@@ -318,13 +327,10 @@ public class EbEyeBioSamplesDataDumpRunner implements ApplicationRunner {
     databaseType.setRelease("BioSamples COVID-19 Samples Release");
     databaseType.setReleaseDate(new Date().toString());
 
-    AtomicReference<EntriesType> entriesType = new AtomicReference<>(new EntriesType());
+    EntriesType entriesType = new EntriesType();
 
-    samples.forEach(
-        sample -> {
-          entriesType.set(getEntries(sample, entriesType.get()));
-          databaseType.setEntries(entriesType.get());
-        });
+    samples.forEach(sample -> entriesType.getEntry().add(sampleToEntryConverter.convert(sample)));
+    databaseType.setEntries(entriesType);
 
     JAXBContext context = JAXBContext.newInstance(DatabaseType.class);
 
@@ -332,129 +338,58 @@ public class EbEyeBioSamplesDataDumpRunner implements ApplicationRunner {
     jaxbMarshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
 
     jaxbMarshaller.marshal(databaseType, f);
-    jaxbMarshaller.marshal(databaseType, System.out);
-  }
-
-  private EntriesType getEntries(Sample sample, EntriesType entriesType) {
-    EntryType entryType = new EntryType();
-
-    getEntry(sample, entryType);
-    entriesType.getEntry().add(entryType);
-
-    return entriesType;
-  }
-
-  private void getEntry(Sample sample, EntryType entryType) {
-    entryType.setId(sample.getAccession());
-    entryType.setName(sample.getName());
-
-    AdditionalFieldsType additionalFieldsType = new AdditionalFieldsType();
-
-    getAdditionalFields(sample, entryType, additionalFieldsType);
-    entryType.setAdditionalFields(additionalFieldsType);
-
-    entryType.setDates(getDates(sample));
-    entryType.setCrossReferences(getCrossReferences(sample));
-  }
-
-  private CrossReferencesType getCrossReferences(Sample sample) {
-    CrossReferencesType crossReferencesType = new CrossReferencesType();
-
-    sample
-        .getExternalReferences()
-        .forEach(
-            extRef -> {
-              RefType refType = new RefType();
-
-              final String url = extRef.getUrl();
-
-              if (url.contains(ENA_LC) || url.contains(ENA_UC)) {
-                refType.setDbname(ENA_UC);
-                refType.setDbkey(extractEnaAccession(url));
-              }
-
-              crossReferencesType.getRef().add(refType);
-            });
-
-    crossReferencesType.getRef().add(getTaxonomyCrossReference(sample.getTaxId()));
-
-    return crossReferencesType;
   }
 
-  private RefType getTaxonomyCrossReference(int taxId) {
-    RefType refType = new RefType();
-
-    refType.setDbname("TAXONOMY");
-    refType.setDbkey(String.valueOf(taxId));
+  @Override
+  public void run(ApplicationArguments args) throws Exception {
+    if (args.containsOption("stream")) {
+      exportPublicSamples(args);
+      return;
+    }
 
-    return refType;
-  }
+    File f = new File("biosd-dump_cv_19.xml");
+    List<Sample> samplesList = getSamplesList();
 
-  private String extractEnaAccession(String url) {
-    return url.substring(36);
+    convertSampleToXml(samplesList, f);
   }
 
-  private DatesType getDates(Sample sample) {
-    DatesType datesType = new DatesType();
-    DateType dateTypeRelease = new DateType();
-
-    dateTypeRelease.setType("release_date");
-    dateTypeRelease.setValue(sample.getReleaseDate());
-
-    DateType dateTypeUpdate = new DateType();
-
-    dateTypeUpdate.setType("update_date");
-    dateTypeUpdate.setValue(sample.getUpdateDate());
-
-    datesType.getDate().add(dateTypeRelease);
-    datesType.getDate().add(dateTypeUpdate);
+  /**
+   * Exports every public sample, optionally only those released between --from (inclusive) and
+   * --until (exclusive), as ISO dates.
+   */
+  private void exportPublicSamples(ApplicationArguments args) throws Exception {
+    Criteria criteria = Criteria.where("release").lte(new Date());
 
-    return datesType;
-  }
+    if (args.containsOption("from") || args.containsOption("until")) {
+      Criteria releaseRange = Criteria.where("release");
 
-  private AdditionalFieldsType getAdditionalFields(
-      Sample sample, EntryType entryType, AdditionalFieldsType additionalFieldsType) {
-    sample
-        .getAttributes()
-        .forEach(
-            attribute -> {
-              FieldType fieldType = new FieldType();
+      if (args.containsOption("from")) {
+        releaseRange = releaseRange.gte(toDate(args.getOptionValues("from").get(0)));
+      }
+      if (args.containsOption("until")) {
+        releaseRange = releaseRange.lt(toDate(args.getOptionValues("until").get(0)));
+      }
 
-              if (attribute.getType().equals("description")) {
-                entryType.setDescription(attribute.getValue());
-              } else {
-                if (attribute.getType().equalsIgnoreCase("host")) {
-                  fieldType.setName(
-                      removeOtherSpecialCharactersFromAttributeNames(
-                          removeSpacesFromAttributeNames("host_scientific_name")));
-                  fieldType.setValue(attribute.getValue());
-                  additionalFieldsType.getFieldOrHierarchicalField().add(fieldType);
-                } else {
-                  fieldType.setName(
-                      removeOtherSpecialCharactersFromAttributeNames(
-                          removeSpacesFromAttributeNames(attribute.getType())));
-                  fieldType.setValue(attribute.getValue());
-                  additionalFieldsType.getFieldOrHierarchicalField().add(fieldType);
-                }
-              }
-            });
+      criteria = new Criteria().andOperator(criteria, releaseRange);
+    }
 
-    return additionalFieldsType;
-  }
+    int entriesPerFile = DEFAULT_ENTRIES_PER_FILE;
+    if (args.containsOption("entriesPerFile")) {
+      entriesPerFile = Integer.parseInt(args.getOptionValues("entriesPerFile").get(0));
+    }
 
-  private String removeSpacesFromAttributeNames(String type) {
-    return type.trim().replaceAll(" ", "_");
-  }
+    long count =
+        ebEyeSampleExporter.export(
+            new Query(criteria),
+            "biosd-dump",
+            entriesPerFile,
+            "BioSamples Full Samples Release",
+            Math.max(1, pipelinesProperties.getThreadCount()));
 
-  private String removeOtherSpecialCharactersFromAttributeNames(String type) {
-    return type.trim().replaceAll("[^a-zA-Z0-9\\s+_-]", "");
+    log.info("Finished exporting " + count + " samples");
   }
 
-  @Override
-  public void run(ApplicationArguments args) throws Exception {
-    File f = new File("biosd-dump_cv_19.xml");
-    List<Sample> samplesList = getSamplesList();
-
-    convertSampleToXml(samplesList, f);
+  private static Date toDate(String isoDate) {
+    return Date.from(LocalDate.parse(isoDate).atStartOfDay(ZoneOffset.UTC).toInstant());
   }
 }
@@ -0,0 +1,142 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.ebeye.base;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.biosamples.ebeye.gen.EntryType;
+
+/**
+ * Writes EB-eye dump files one entry at a time, so only the entry being written is held in memory.
+ * Output goes to gzipped files named prefix_1.xml.gz, prefix_2.xml.gz and so on, starting a new
+ * file every entriesPerFile entries. Each file is a complete database document; its entry_count is
+ * written after the entries, which the schema allows as database is an xs:all.
+ */
+public class EbEyeDumpWriter implements Closeable {
+  private static final Logger log = LoggerFactory.getLogger(EbEyeDumpWriter.class);
+  private static final JAXBContext CONTEXT;
+
+  static {
+    try {
+      CONTEXT = JAXBContext.newInstance(EntryType.class);
+    } catch (JAXBException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private final String filePrefix;
+  private final int entriesPerFile;
+  private final String release;
+  private final Marshaller marshaller;
+  private final XMLOutputFactory xmlOutputFactory = XMLOutputFactory.newInstance();
+  private final List<File> files = new ArrayList<>();
+
+  private OutputStream outputStream;
+  private XMLStreamWriter xmlStreamWriter;
+  private int fileEntryCount = 0;
+  private long entryCount = 0;
+
+  public EbEyeDumpWriter(String filePrefix, int entriesPerFile, String release)
+      throws JAXBException {
+    if (entriesPerFile < 1) {
+      throw new IllegalArgumentException("entriesPerFile must be at least 1");
+    }
+    this.filePrefix = filePrefix;
+    this.entriesPerFile = entriesPerFile;
+    this.release = release;
+    this.marshaller = CONTEXT.createMarshaller();
+    this.marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+  }
+
+  public void write(EntryType entry) throws IOException, XMLStreamException, JAXBException {
+    if (xmlStreamWriter == null) {
+      openFile();
+    }
+
+    marshaller.marshal(entry, xmlStreamWriter);
+    fileEntryCount++;
+    entryCount++;
+
+    if (fileEntryCount >= entriesPerFile) {
+      closeFile();
+    }
+  }
+
+  public long getEntryCount() {
+    return entryCount;
+  }
+
+  public List<File> getFiles() {
+    return files;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      closeFile();
+    } catch (XMLStreamException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private void openFile() throws IOException, XMLStreamException {
+    File file = new File(filePrefix + "_" + (files.size() + 1) + ".xml.gz");
+    log.info("Writing to " + file.getPath());
+
+    outputStream =
+        new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(file)), 64 * 1024);
+    xmlStreamWriter = xmlOutputFactory.createXMLStreamWriter(outputStream, "UTF-8");
+    files.add(file);
+    fileEntryCount = 0;
+
+    xmlStreamWriter.writeStartDocument("UTF-8", "1.0");
+    xmlStreamWriter.writeStartElement("database");
+    writeElement("name", "BioSamples");
+    writeElement("description", "EBI BioSamples Database");
+    writeElement("release", release);
+    writeElement("release_date", new Date().toString());
+    xmlStreamWriter.writeStartElement("entries");
+  }
+
+  private void closeFile() throws IOException, XMLStreamException {
+    if (xmlStreamWriter == null) {
+      return;
+    }
+
+    try {
+      xmlStreamWriter.writeEndElement();
+      writeElement("entry_count", String.valueOf(fileEntryCount));
+      xmlStreamWriter.writeEndElement();
+      xmlStreamWriter.writeEndDocument();
+      xmlStreamWriter.close();
+    } finally {
+      xmlStreamWriter = null;
+      outputStream.close();
+    }
+  }
+
+  private void writeElement(String name, String value) throws XMLStreamException {
+    xmlStreamWriter.writeStartElement(name);
+    xmlStreamWriter.writeCharacters(value);
+    xmlStreamWriter.writeEndElement();
+  }
+}
@@ -0,0 +1,154 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.ebeye.base;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCursor;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import uk.ac.ebi.biosamples.ebeye.gen.EntryType;
+import uk.ac.ebi.biosamples.ebeye.util.SampleToEntryConverter;
+import uk.ac.ebi.biosamples.model.Sample;
+import uk.ac.ebi.biosamples.mongo.model.MongoSample;
+import uk.ac.ebi.biosamples.service.SampleReadService;
+
+/**
+ * Exports samples straight from a mongo cursor. The accessions are read from the samples
+ * collection, which unlike the curated view is always complete, and each batch of them is fetched
+ * with its curation and inverse relationships and converted to entries on a pool of threads. The
+ * entries are written in cursor order by an {@link EbEyeDumpWriter}, with at most a fixed number of
+ * batches in flight, so memory use does not grow with the export.
+ *
+ * <p>A sample that fails to convert is logged and left out, rather than failing the whole export.
+ */
+@Service
+public class EbEyeSampleExporter {
+  private static final Logger log = LoggerFactory.getLogger(EbEyeSampleExporter.class);
+  private static final int BATCH_SIZE = 100;
+  private static final int BATCHES_IN_FLIGHT_PER_THREAD = 2;
+
+  private final MongoOperations mongoOperations;
+  private final SampleReadService sampleReadService;
+  private final SampleToEntryConverter sampleToEntryConverter;
+
+  public EbEyeSampleExporter(
+      MongoOperations mongoOperations,
+      SampleReadService sampleReadService,
+      SampleToEntryConverter sampleToEntryConverter) {
+    this.mongoOperations = mongoOperations;
+    this.sampleReadService = sampleReadService;
+    this.sampleToEntryConverter = sampleToEntryConverter;
+  }
+
+  /**
+   * @param query selects the samples to export
+   * @param filePrefix passed to {@link EbEyeDumpWriter}
+   * @param entriesPerFile passed to {@link EbEyeDumpWriter}
+   * @param release the release name written to each file
+   * @param threadCount the number of threads converting samples
+   * @return the number of entries written
+   */
+  public long export(
+      Query query, String filePrefix, int entriesPerFile, String release, int threadCount)
+      throws Exception {
+    final int maxInFlight = threadCount * BATCHES_IN_FLIGHT_PER_THREAD;
+    final Deque<Future<List<EntryType>>> inFlight = new ArrayDeque<>(maxInFlight);
+    final ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+    final AtomicLong skipped = new AtomicLong();
+
+    try (EbEyeDumpWriter writer = new EbEyeDumpWriter(filePrefix, entriesPerFile, release);
+        DBCursor cursor =
+            mongoOperations
+                .getCollection(mongoOperations.getCollectionName(MongoSample.class))
+                .find(query.getQueryObject(), new BasicDBObject("_id", 1))) {
+      List<String> accessions = new ArrayList<>(BATCH_SIZE);
+      while (cursor.hasNext()) {
+        accessions.add((String) cursor.next().get("_id"));
+
+        if (accessions.size() == BATCH_SIZE) {
+          inFlight.add(submit(executorService, accessions, skipped));
+          accessions = new ArrayList<>(BATCH_SIZE);
+        }
+        if (inFlight.size() >= maxInFlight) {
+          writeNext(writer, inFlight);
+        }
+      }
+      if (!accessions.isEmpty()) {
+        inFlight.add(submit(executorService, accessions, skipped));
+      }
+
+      while (!inFlight.isEmpty()) {
+        writeNext(writer, inFlight);
+      }
+
+      log.info(
+          "Exported "
+              + writer.getEntryCount()
+              + " samples to "
+              + writer.getFiles()
+              + ", skipped "
+              + skipped.get()
+              + " that could not be converted");
+
+      return writer.getEntryCount();
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private Future<List<EntryType>> submit(
+      ExecutorService executorService, List<String> accessions, AtomicLong skipped) {
+    return executorService.submit(
+        () -> {
+          List<EntryType> entries = new ArrayList<>(accessions.size());
+          for (Sample sample : sampleReadService.fetchAll(accessions, Optional.empty())) {
+            try {
+              entries.add(sampleToEntryConverter.convert(sample));
+            } catch (RuntimeException e) {
+              log.warn("Skipping " + sample.getAccession() + " that could not be converted", e);
+              skipped.incrementAndGet();
+            }
+          }
+          return entries;
+        });
+  }
+
+  private void writeNext(EbEyeDumpWriter writer, Deque<Future<List<EntryType>>> inFlight)
+      throws Exception {
+    List<EntryType> entries;
+    try {
+      entries = inFlight.remove().get();
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    }
+
+    for (EntryType entry : entries) {
+      writer.write(entry);
+
+      if (writer.getEntryCount() % 100000 == 0) {
+        log.info("Exported " + writer.getEntryCount() + " samples");
+      }
+    }
+  }
+}
@@ -0,0 +1,129 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.ebeye.util;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Service;
+import uk.ac.ebi.biosamples.ebeye.gen.*;
+import uk.ac.ebi.biosamples.model.Sample;
+
+@Service
+public class SampleToEntryConverter implements Converter<Sample, EntryType> {
+  public static final String ENA_LC = "ena";
+  public static final String ENA_UC = "ENA";
+
+  @Override
+  public EntryType convert(Sample sample) {
+    EntryType entryType = new EntryType();
+
+    entryType.setId(sample.getAccession());
+    entryType.setName(sample.getName());
+    entryType.setAdditionalFields(getAdditionalFields(sample, entryType));
+    entryType.setDates(getDates(sample));
+    entryType.setCrossReferences(getCrossReferences(sample));
+
+    return entryType;
+  }
+
+  private CrossReferencesType getCrossReferences(Sample sample) {
+    CrossReferencesType crossReferencesType = new CrossReferencesType();
+
+    sample
+        .getExternalReferences()
+        .forEach(
+            extRef -> {
+              RefType refType = new RefType();
+
+              final String url = extRef.getUrl();
+
+              if (url.contains(ENA_LC) || url.contains(ENA_UC)) {
+                refType.setDbname(ENA_UC);
+                refType.setDbkey(extractEnaAccession(url));
+              }
+
+              crossReferencesType.getRef().add(refType);
+            });
+
+    crossReferencesType.getRef().add(getTaxonomyCrossReference(sample.getTaxId()));
+
+    return crossReferencesType;
+  }
+
+  private RefType getTaxonomyCrossReference(int taxId) {
+    RefType refType = new RefType();
+
+    refType.setDbname("TAXONOMY");
+    refType.setDbkey(String.valueOf(taxId));
+
+    return refType;
+  }
+
+  private String extractEnaAccession(String url) {
+    return url.substring(36);
+  }
+
+  private DatesType getDates(Sample sample) {
+    DatesType datesType = new DatesType();
+    DateType dateTypeRelease = new DateType();
+
+    dateTypeRelease.setType("release_date");
+    dateTypeRelease.setValue(sample.getReleaseDate());
+
+    DateType dateTypeUpdate = new DateType();
+
+    dateTypeUpdate.setType("update_date");
+    dateTypeUpdate.setValue(sample.getUpdateDate());
+
+    datesType.getDate().add(dateTypeRelease);
+    datesType.getDate().add(dateTypeUpdate);
+
+    return datesType;
+  }
+
+  private AdditionalFieldsType getAdditionalFields(Sample sample, EntryType entryType) {
+    AdditionalFieldsType additionalFieldsType = new AdditionalFieldsType();
+
+    sample
+        .getAttributes()
+        .forEach(
+            attribute -> {
+              FieldType fieldType = new FieldType();
+
+              if (attribute.getType().equals("description")) {
+                entryType.setDescription(attribute.getValue());
+              } else {
+                if (attribute.getType().equalsIgnoreCase("host")) {
+                  fieldType.setName(
+                      removeOtherSpecialCharactersFromAttributeNames(
+                          removeSpacesFromAttributeNames("host_scientific_name")));
+                  fieldType.setValue(attribute.getValue());
+                  additionalFieldsType.getFieldOrHierarchicalField().add(fieldType);
+                } else {
+                  fieldType.setName(
+                      removeOtherSpecialCharactersFromAttributeNames(
+                          removeSpacesFromAttributeNames(attribute.getType())));
+                  fieldType.setValue(attribute.getValue());
+                  additionalFieldsType.getFieldOrHierarchicalField().add(fieldType);
+                }
+              }
+            });
+
+    return additionalFieldsType;
+  }
+
+  private String removeSpacesFromAttributeNames(String type) {
+    return type.trim().replaceAll(" ", "_");
+  }
+
+  private String removeOtherSpecialCharactersFromAttributeNames(String type) {
+    return type.trim().replaceAll("[^a-zA-Z0-9\\s+_-]", "");
+  }
+}
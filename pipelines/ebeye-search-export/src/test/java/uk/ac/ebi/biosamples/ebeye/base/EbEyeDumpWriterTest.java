@@ -0,0 +1,88 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.ebeye.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+import uk.ac.ebi.biosamples.ebeye.gen.EntryType;
+
+public class EbEyeDumpWriterTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void starts_a_new_file_every_entries_per_file() throws Exception {
+    String prefix = new File(folder.getRoot(), "dump").getPath();
+    List<File> files;
+    try (EbEyeDumpWriter writer = new EbEyeDumpWriter(prefix, 2, "test")) {
+      for (int i = 1; i <= 5; i++) {
+        writer.write(entry("SAMEA" + i));
+      }
+      assertEquals(5, writer.getEntryCount());
+      files = writer.getFiles();
+    }
+
+    assertEquals(3, files.size());
+    assertEquals(prefix + "_1.xml.gz", files.get(0).getPath());
+    assertEntries(files.get(0), "SAMEA1", "SAMEA2");
+    assertEntries(files.get(1), "SAMEA3", "SAMEA4");
+    assertEntries(files.get(2), "SAMEA5");
+  }
+
+  @Test
+  public void writes_no_file_without_entries() throws Exception {
+    try (EbEyeDumpWriter writer =
+        new EbEyeDumpWriter(new File(folder.getRoot(), "dump").getPath(), 2, "test")) {
+      assertTrue(writer.getFiles().isEmpty());
+    }
+    assertEquals(0, folder.getRoot().list().length);
+  }
+
+  private static EntryType entry(String accession) {
+    EntryType entry = new EntryType();
+    entry.setId(accession);
+    entry.setName(accession);
+    return entry;
+  }
+
+  /** Checks the file is a complete document with the entries and their count. */
+  static void assertEntries(File file, String... accessions) throws Exception {
+    Document document;
+    try (InputStream inputStream = new GZIPInputStream(new FileInputStream(file))) {
+      document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(inputStream);
+    }
+    assertEquals("database", document.getDocumentElement().getTagName());
+    assertEquals(
+        String.valueOf(accessions.length),
+        document.getElementsByTagName("entry_count").item(0).getTextContent());
+    assertEquals(accessions.length, document.getElementsByTagName("entry").getLength());
+    for (int i = 0; i < accessions.length; i++) {
+      assertEquals(
+          accessions[i],
+          document
+              .getElementsByTagName("entry")
+              .item(i)
+              .getAttributes()
+              .getNamedItem("id")
+              .getNodeValue());
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.ebeye.base;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import uk.ac.ebi.biosamples.ebeye.util.SampleToEntryConverter;
+import uk.ac.ebi.biosamples.model.ExternalReference;
+import uk.ac.ebi.biosamples.model.Sample;
+import uk.ac.ebi.biosamples.mongo.model.MongoSample;
+import uk.ac.ebi.biosamples.service.SampleReadService;
+
+public class EbEyeSampleExporterTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final List<String> accessions = new ArrayList<>();
+  private MongoOperations mongoOperations;
+  private SampleReadService sampleReadService;
+  private EbEyeSampleExporter exporter;
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    mongoOperations = mock(MongoOperations.class);
+    DBCollection collection = mock(DBCollection.class);
+    when(mongoOperations.getCollectionName(MongoSample.class)).thenReturn("mongoSample");
+    when(mongoOperations.getCollection("mongoSample")).thenReturn(collection);
+    when(collection.find(any(DBObject.class), eq(new BasicDBObject("_id", 1))))
+        .thenAnswer(invocation -> cursor(accessions));
+
+    sampleReadService = mock(SampleReadService.class);
+    when(sampleReadService.fetchAll(anyListOf(String.class), eq(Optional.empty())))
+        .thenAnswer(
+            invocation -> {
+              List<Sample> samples = new ArrayList<>();
+              for (String accession : (List<String>) invocation.getArguments()[0]) {
+                samples.add(sample(accession));
+              }
+              return samples;
+            });
+
+    exporter =
+        new EbEyeSampleExporter(mongoOperations, sampleReadService, new SampleToEntryConverter());
+  }
+
+  @Test
+  public void exports_every_sample_in_cursor_order() throws Exception {
+    for (int i = 1; i <= 250; i++) {
+      accessions.add("SAMEA" + i);
+    }
+    String prefix = new File(folder.getRoot(), "dump").getPath();
+
+    assertEquals(250, exporter.export(query(), prefix, 1000, "test", 3));
+
+    EbEyeDumpWriterTest.assertEntries(
+        new File(prefix + "_1.xml.gz"), accessions.toArray(new String[0]));
+  }
+
+  @Test
+  public void sample_that_fails_to_convert_is_skipped() throws Exception {
+    accessions.addAll(Arrays.asList("SAMEA1", "SAMEA2", "SAMEA3"));
+    // too short for the ENA accession to be extracted from it
+    when(sampleReadService.fetchAll(anyListOf(String.class), eq(Optional.empty())))
+        .thenReturn(
+            Arrays.asList(
+                sample("SAMEA1"),
+                new Sample.Builder("SAMEA2", "SAMEA2")
+                    .withExternalReferences(
+                        Collections.singletonList(ExternalReference.build("https://ena/SAMEA2")))
+                    .build(),
+                sample("SAMEA3")));
+    String prefix = new File(folder.getRoot(), "dump").getPath();
+
+    assertEquals(2, exporter.export(query(), prefix, 1000, "test", 1));
+
+    EbEyeDumpWriterTest.assertEntries(new File(prefix + "_1.xml.gz"), "SAMEA1", "SAMEA3");
+  }
+
+  private static Query query() {
+    return new Query(Criteria.where("release").exists(true));
+  }
+
+  private static Sample sample(String accession) {
+    return new Sample.Builder(accession, accession).build();
+  }
+
+  private static DBCursor cursor(List<String> accessions) {
+    DBCursor cursor = mock(DBCursor.class);
+    int[] position = {0};
+    when(cursor.hasNext()).thenAnswer(invocation -> position[0] < accessions.size());
+    when(cursor.next())
+        .thenAnswer(invocation -> new BasicDBObject("_id", accessions.get(position[0]++)));
+    return cursor;
+  }
+}
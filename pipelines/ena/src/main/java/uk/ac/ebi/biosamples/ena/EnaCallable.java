@@ -42,6 +42,7 @@ public class EnaCallable implements Callable<Void> {
   private final EnaElementConverter enaElementConverter;
   private String webinId;
   private Set<AbstractData> amrData;
+  private final SampleDBBean prefetchedSampleDBBean;
   private boolean suppressionHandler;
   private boolean killedHandler;
   private boolean bsdAuthority;
@@ -57,6 +58,36 @@ public class EnaCallable implements Callable<Void> {
       boolean killedHandler,
       boolean bsdAuthority,
       Set<AbstractData> amrData) {
+    this(
+        sampleAccession,
+        bioSamplesClient,
+        enaXmlEnhancer,
+        enaElementConverter,
+        eraProDao,
+        webinId,
+        suppressionHandler,
+        killedHandler,
+        bsdAuthority,
+        amrData,
+        null);
+  }
+
+  /**
+   * @param prefetchedSampleDBBean the ERAPRO data of the sample if it was already fetched as part
+   *     of a batch, or null to query ERAPRO for it
+   */
+  public EnaCallable(
+      String sampleAccession,
+      BioSamplesClient bioSamplesClient,
+      EnaXmlEnhancer enaXmlEnhancer,
+      EnaElementConverter enaElementConverter,
+      EraProDao eraProDao,
+      String webinId,
+      boolean suppressionHandler,
+      boolean killedHandler,
+      boolean bsdAuthority,
+      Set<AbstractData> amrData,
+      SampleDBBean prefetchedSampleDBBean) {
     this.sampleAccession = sampleAccession;
     this.bioSamplesClient = bioSamplesClient;
     this.enaXmlEnhancer = enaXmlEnhancer;
@@ -67,6 +98,7 @@ public class EnaCallable implements Callable<Void> {
     this.killedHandler = killedHandler;
     this.bsdAuthority = bsdAuthority;
     this.amrData = amrData;
+    this.prefetchedSampleDBBean = prefetchedSampleDBBean;
   }
 
   @Override
@@ -92,7 +124,10 @@ public class EnaCallable implements Callable<Void> {
     if (bsdAuthority) {
       handleBsdAuthoritySamples();
     } else {
-      final SampleDBBean sampleDBBean = eraProDao.getAllSampleData(this.sampleAccession);
+      final SampleDBBean sampleDBBean =
+          prefetchedSampleDBBean != null
+              ? prefetchedSampleDBBean
+              : eraProDao.getAllSampleData(this.sampleAccession);
 
       if (sampleDBBean != null) {
         handleEnaSample(sampleDBBean);
@@ -103,7 +138,10 @@ public class EnaCallable implements Callable<Void> {
   }
 
   private void handleBsdAuthoritySamples() {
-    final String sraAccession = eraProDao.getSraAccession(this.sampleAccession);
+    final String sraAccession =
+        prefetchedSampleDBBean != null
+            ? prefetchedSampleDBBean.getSraAccession()
+            : eraProDao.getSraAccession(this.sampleAccession);
 
     if (sraAccession != null) {
       try {
@@ -67,4 +67,32 @@ public class EnaCallableFactory {
         bsdAuthority,
         amrData);
   }
+
+  /**
+   * Builds callable for an ENA sample whose ERAPRO data was fetched as part of a batch
+   *
+   * @param accession The accession passed
+   * @param sampleDBBean The ERAPRO data of the sample
+   * @param bsdAuthority Indicates its running for samples submitted through BioSamples
+   * @param amrData The AMR {@link AbstractData} of the sample
+   * @return the callable, {@link EnaCallable}
+   */
+  public Callable<Void> build(
+      String accession,
+      SampleDBBean sampleDBBean,
+      boolean bsdAuthority,
+      Set<AbstractData> amrData) {
+    return new EnaCallable(
+        accession,
+        bioSamplesClient,
+        enaXmlEnhancer,
+        enaElementConverter,
+        eraProDao,
+        webinId,
+        false,
+        false,
+        bsdAuthority,
+        amrData,
+        sampleDBBean);
+  }
 }
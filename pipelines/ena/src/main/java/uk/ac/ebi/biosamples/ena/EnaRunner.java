@@ -140,10 +140,12 @@ public class EnaRunner implements ApplicationRunner {
 
     if (pipelinesProperties.getThreadCount() == 0) {
       final EraRowBsdSamplesCallbackHandler eraRowBsdSamplesCallbackHandler =
-          new EraRowBsdSamplesCallbackHandler(null, enaCallableFactory, futures);
+          new EraRowBsdSamplesCallbackHandler(
+              null, enaCallableFactory, eraProDao, getBatchSize(), futures);
 
       eraProDao.doSampleCallbackBsdAuthoritySamples(
           fromDate, toDate, eraRowBsdSamplesCallbackHandler);
+      eraRowBsdSamplesCallbackHandler.flush();
     } else {
       try (final AdaptiveThreadPoolExecutor executorService =
           AdaptiveThreadPoolExecutor.create(
@@ -153,10 +155,12 @@ public class EnaRunner implements ApplicationRunner {
               pipelinesProperties.getThreadCount(),
               pipelinesProperties.getThreadCountMax())) {
         final EraRowBsdSamplesCallbackHandler eraRowBsdSamplesCallbackHandler =
-            new EraRowBsdSamplesCallbackHandler(executorService, enaCallableFactory, futures);
+            new EraRowBsdSamplesCallbackHandler(
+                executorService, enaCallableFactory, eraProDao, getBatchSize(), futures);
 
         eraProDao.doSampleCallbackBsdAuthoritySamples(
             fromDate, toDate, eraRowBsdSamplesCallbackHandler);
+        eraRowBsdSamplesCallbackHandler.flush();
 
         log.info("waiting for futures"); // wait for anything to finish
         ThreadUtils.checkFutures(futures, 0);
@@ -173,9 +177,11 @@ public class EnaRunner implements ApplicationRunner {
 
     if (pipelinesProperties.getThreadCount() == 0) {
       final EraRowCallbackHandler eraRowCallbackHandler =
-          new EraRowCallbackHandler(null, enaCallableFactory, futures, sampleToAmrMap);
+          new EraRowCallbackHandler(
+              null, enaCallableFactory, eraProDao, getBatchSize(), futures, sampleToAmrMap);
 
       eraProDao.doSampleCallback(fromDate, toDate, eraRowCallbackHandler);
+      eraRowCallbackHandler.flush();
 
       final NcbiRowCallbackHandler ncbiRowCallbackHandler =
           new NcbiRowCallbackHandler(null, ncbiCallableFactory, futures);
@@ -191,9 +197,16 @@ public class EnaRunner implements ApplicationRunner {
               pipelinesProperties.getThreadCountMax())) {
 
         final EraRowCallbackHandler eraRowCallbackHandler =
-            new EraRowCallbackHandler(executorService, enaCallableFactory, futures, sampleToAmrMap);
+            new EraRowCallbackHandler(
+                executorService,
+                enaCallableFactory,
+                eraProDao,
+                getBatchSize(),
+                futures,
+                sampleToAmrMap);
 
         eraProDao.doSampleCallback(fromDate, toDate, eraRowCallbackHandler);
+        eraRowCallbackHandler.flush();
 
         final NcbiRowCallbackHandler ncbiRowCallbackHandler =
             new NcbiRowCallbackHandler(executorService, ncbiCallableFactory, futures);
@@ -410,16 +423,23 @@ public class EnaRunner implements ApplicationRunner {
   private static class EraRowCallbackHandler implements RowCallbackHandler {
     private final AdaptiveThreadPoolExecutor executorService;
     private final EnaCallableFactory enaCallableFactory;
+    private final EraProDao eraProDao;
+    private final int batchSize;
     private final Map<String, Future<Void>> futures;
     private final Map<String, Set<AbstractData>> sampleToAmrMap;
+    private final Set<String> batch = new LinkedHashSet<>();
 
     public EraRowCallbackHandler(
         final AdaptiveThreadPoolExecutor executorService,
         final EnaCallableFactory enaCallableFactory,
+        final EraProDao eraProDao,
+        final int batchSize,
         final Map<String, Future<Void>> futures,
         final Map<String, Set<AbstractData>> sampleToAmrMap) {
       this.executorService = executorService;
       this.enaCallableFactory = enaCallableFactory;
+      this.eraProDao = eraProDao;
+      this.batchSize = batchSize;
       this.sampleToAmrMap = sampleToAmrMap;
       this.futures = futures;
     }
@@ -454,11 +474,6 @@ public class EnaRunner implements ApplicationRunner {
       final String sampleAccession = rs.getString("BIOSAMPLE_ID");
       final int statusID = rs.getInt("STATUS_ID");
       final ENAStatus enaStatus = ENAStatus.valueOf(statusID);
-      Set<AbstractData> amrData = new HashSet<>();
-
-      if (sampleToAmrMap.containsKey(sampleAccession)) {
-        amrData = sampleToAmrMap.get(sampleAccession);
-      }
 
       switch (enaStatus) {
         case PUBLIC:
@@ -467,33 +482,11 @@ public class EnaRunner implements ApplicationRunner {
           log.info(
               String.format(
                   "%s is being handled as status is %s", sampleAccession, enaStatus.name()));
-          Callable<Void> callable;
           // update if sample already exists else import
+          batch.add(sampleAccession);
 
-          if (amrData.size() > 0) {
-            callable = enaCallableFactory.build(sampleAccession, false, false, false, amrData);
-          } else {
-            callable = enaCallableFactory.build(sampleAccession, false, false, false, null);
-          }
-
-          if (executorService == null) {
-            try {
-              callable.call();
-            } catch (RuntimeException e) {
-              throw e;
-            } catch (Exception e) {
-              throw new RuntimeException(e);
-            }
-          } else {
-            futures.put(sampleAccession, executorService.submit(callable));
-
-            try {
-              ThreadUtils.checkFutures(futures, 100);
-            } catch (ExecutionException e) {
-              throw new RuntimeException(e.getCause());
-            } catch (InterruptedException e) {
-              throw new RuntimeException(e);
-            }
+          if (batch.size() >= batchSize) {
+            flush();
           }
 
           break;
@@ -510,6 +503,50 @@ public class EnaRunner implements ApplicationRunner {
                   "%s would be ignored  as status is %s", sampleAccession, enaStatus.name()));
       }
     }
+
+    /** Fetches the ERAPRO data of the samples collected so far and hands them on */
+    public void flush() {
+      final Map<String, SampleDBBean> sampleDBBeans = eraProDao.getAllSampleData(batch);
+
+      for (final String sampleAccession : batch) {
+        final SampleDBBean sampleDBBean = sampleDBBeans.get(sampleAccession);
+
+        if (sampleDBBean == null) {
+          log.info(String.format("%s not found in ERAPRO, skipping", sampleAccession));
+          continue;
+        }
+
+        Set<AbstractData> amrData = sampleToAmrMap.get(sampleAccession);
+        if (amrData != null && amrData.isEmpty()) {
+          amrData = null;
+        }
+
+        final Callable<Void> callable =
+            enaCallableFactory.build(sampleAccession, sampleDBBean, false, amrData);
+
+        if (executorService == null) {
+          try {
+            callable.call();
+          } catch (RuntimeException e) {
+            throw e;
+          } catch (Exception e) {
+            throw new RuntimeException(e);
+          }
+        } else {
+          futures.put(sampleAccession, executorService.submit(callable));
+
+          try {
+            ThreadUtils.checkFutures(futures, 100);
+          } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+          } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+          }
+        }
+      }
+
+      batch.clear();
+    }
   }
 
   private static class NcbiRowCallbackHandler implements RowCallbackHandler {
@@ -558,36 +595,70 @@ public class EnaRunner implements ApplicationRunner {
   private static class EraRowBsdSamplesCallbackHandler implements RowCallbackHandler {
     private final AdaptiveThreadPoolExecutor executorService;
     private final EnaCallableFactory enaCallableFactory;
+    private final EraProDao eraProDao;
+    private final int batchSize;
     private final Map<String, Future<Void>> futures;
+    private final Set<String> batch = new LinkedHashSet<>();
 
     public EraRowBsdSamplesCallbackHandler(
         final AdaptiveThreadPoolExecutor executorService,
         final EnaCallableFactory enaCallableFactory,
+        final EraProDao eraProDao,
+        final int batchSize,
         final Map<String, Future<Void>> futures) {
       this.executorService = executorService;
       this.enaCallableFactory = enaCallableFactory;
+      this.eraProDao = eraProDao;
+      this.batchSize = batchSize;
       this.futures = futures;
     }
 
     @Override
     public void processRow(ResultSet rs) throws SQLException {
-      final String sampleAccession = rs.getString("BIOSAMPLE_ID");
+      batch.add(rs.getString("BIOSAMPLE_ID"));
 
-      Callable<Void> callable = enaCallableFactory.build(sampleAccession, false, false, true, null);
-      if (executorService == null) {
-        try {
-          callable.call();
-        } catch (RuntimeException e) {
-          throw e;
-        } catch (Exception e) {
-          throw new RuntimeException(e);
+      if (batch.size() >= batchSize) {
+        flush();
+      }
+    }
+
+    /** Fetches the SRA accessions of the samples collected so far and hands them on */
+    public void flush() {
+      final Map<String, String> sraAccessions = eraProDao.getSraAccessions(batch);
+
+      for (final String sampleAccession : batch) {
+        final String sraAccession = sraAccessions.get(sampleAccession);
+
+        if (sraAccession == null) {
+          continue;
+        }
+
+        final SampleDBBean sampleDBBean = new SampleDBBean();
+        sampleDBBean.setSraAccession(sraAccession);
+
+        Callable<Void> callable =
+            enaCallableFactory.build(sampleAccession, sampleDBBean, true, null);
+        if (executorService == null) {
+          try {
+            callable.call();
+          } catch (RuntimeException e) {
+            throw e;
+          } catch (Exception e) {
+            throw new RuntimeException(e);
+          }
+        } else {
+          futures.put(sampleAccession, executorService.submit(callable));
         }
-      } else {
-        futures.put(sampleAccession, executorService.submit(callable));
       }
+
+      batch.clear();
     }
   }
 
+  private int getBatchSize() {
+    return Math.max(1, Math.min(pipelinesProperties.getEnaBatchSize(), EraProDao.MAX_IN_LIST_SIZE));
+  }
+
   private boolean isFirstDayOfTheWeek() {
     Calendar calendar = Calendar.getInstance();
     calendar.setTime(new Date());
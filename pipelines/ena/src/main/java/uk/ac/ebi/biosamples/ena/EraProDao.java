@@ -10,11 +10,9 @@
 */
 package uk.ac.ebi.biosamples.ena;
 
+import java.sql.PreparedStatement;
 import java.time.LocalDate;
-import java.util.Date;
-import java.util.List;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,6 +33,9 @@ public class EraProDao {
 
   private static final String STATUS_CLAUSE = "STATUS_ID IN (4, 5, 6, 7, 8)";
 
+  // oracle rejects IN lists longer than this
+  public static final int MAX_IN_LIST_SIZE = 1000;
+
   /**
    * Return a set of BioSamples accessions that have been updated or made public within the
    * specified date range
@@ -154,6 +155,60 @@ public class EraProDao {
     return null;
   }
 
+  /**
+   * Fetches everything {@link #getAllSampleData(String)} does for a batch of accessions in one
+   * query. The SAMPLE_XML is kept as a String, to be parsed by the callable that handles the sample
+   * rather than on the thread reading the results. Accessions with no row, or with more than one,
+   * are left out of the result.
+   *
+   * @param biosampleAccessions at most {@link #MAX_IN_LIST_SIZE} accessions
+   * @return the sample data by accession
+   */
+  public Map<String, SampleDBBean> getAllSampleData(Collection<String> biosampleAccessions) {
+    String sql =
+        "SELECT BIOSAMPLE_ID, SAMPLE_ID, SAMPLE_XML, "
+            + "to_char(LAST_UPDATED, 'YYYY-MM-DD\"T\"HH24:MI:SS\"Z\"') AS LAST_UPDATED, "
+            + "to_char(FIRST_PUBLIC, 'YYYY-MM-DD\"T\"HH24:MI:SS\"Z\"') AS FIRST_PUBLIC,  "
+            + " to_char(FIRST_CREATED, 'YYYY-MM-DD\"T\"HH24:MI:SS\"Z\"') AS FIRST_CREATED, "
+            + "STATUS_ID, "
+            + "SUBMISSION_ACCOUNT_ID "
+            + "FROM SAMPLE "
+            + "WHERE BIOSAMPLE_ID IN ("
+            + placeholders(biosampleAccessions.size())
+            + ") "
+            + "AND SAMPLE_ID LIKE 'ERS%'";
+
+    Map<String, SampleDBBean> samples = new HashMap<>();
+    Set<String> duplicates = new HashSet<>();
+    queryBatch(
+        sql,
+        biosampleAccessions,
+        rs -> {
+          final String accession = rs.getString("BIOSAMPLE_ID");
+          final SampleDBBean sampleBean = new SampleDBBean();
+
+          sampleBean.setSampleXml(rs.getString("SAMPLE_XML"));
+          sampleBean.setSraAccession(rs.getString("SAMPLE_ID"));
+          sampleBean.setFirstPublic(rs.getString("FIRST_PUBLIC"));
+          sampleBean.setLastUpdate(rs.getString("LAST_UPDATED"));
+          sampleBean.setFirstCreated(rs.getString("FIRST_CREATED"));
+          sampleBean.setStatus(rs.getInt("STATUS_ID"));
+          sampleBean.setSubmissionAccountId(rs.getString("SUBMISSION_ACCOUNT_ID"));
+
+          if (samples.put(accession, sampleBean) != null) {
+            duplicates.add(accession);
+          }
+        });
+
+    for (String accession : duplicates) {
+      log.error(
+          "Result set size expected is 1 and got more that that for " + accession + ", skipping");
+      samples.remove(accession);
+    }
+
+    return samples;
+  }
+
   public void getEnaDatabaseSample(String enaAccession, RowCallbackHandler rch) {
     String query =
         "select BIOSAMPLE_ID,\n"
@@ -188,6 +243,55 @@ public class EraProDao {
     else return null;
   }
 
+  /**
+   * Fetches the SRA accession for a batch of accessions in one query, like {@link
+   * #getSraAccession(String)}.
+   *
+   * @param sampleAccessions at most {@link #MAX_IN_LIST_SIZE} accessions
+   * @return the SRA accessions by accession, without the accessions that have none
+   */
+  public Map<String, String> getSraAccessions(Collection<String> sampleAccessions) {
+    String sql =
+        "SELECT BIOSAMPLE_ID, SAMPLE_ID FROM SAMPLE WHERE BIOSAMPLE_ID IN ("
+            + placeholders(sampleAccessions.size())
+            + ")";
+
+    Map<String, String> sraAccessions = new HashMap<>();
+    queryBatch(
+        sql,
+        sampleAccessions,
+        rs -> sraAccessions.putIfAbsent(rs.getString("BIOSAMPLE_ID"), rs.getString("SAMPLE_ID")));
+
+    return sraAccessions;
+  }
+
+  private void queryBatch(String sql, Collection<String> accessions, RowCallbackHandler rch) {
+    if (accessions.size() > MAX_IN_LIST_SIZE) {
+      throw new IllegalArgumentException(
+          "At most " + MAX_IN_LIST_SIZE + " accessions can be fetched at once");
+    }
+    if (accessions.isEmpty()) {
+      return;
+    }
+
+    jdbcTemplate.query(
+        con -> {
+          PreparedStatement ps = con.prepareStatement(sql);
+          // the whole batch in one round trip
+          ps.setFetchSize(accessions.size());
+          int i = 1;
+          for (String accession : accessions) {
+            ps.setString(i++, accession);
+          }
+          return ps;
+        },
+        rch);
+  }
+
+  private static String placeholders(int count) {
+    return String.join(",", Collections.nCopies(count, "?"));
+  }
+
   RowMapper<SampleDBBean> insdcRowMapper =
       (rs, rowNum) -> {
         final SampleDBBean sampleBean = new SampleDBBean();
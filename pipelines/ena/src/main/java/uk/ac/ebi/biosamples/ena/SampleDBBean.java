@@ -19,6 +19,7 @@ import uk.ac.ebi.biosamples.model.Sample;
  */
 public class SampleDBBean {
   private String sampleXml;
+  private String sraAccession;
   private String firstPublic;
   private String lastUpdate;
   private String firstCreated;
@@ -34,6 +35,14 @@ public class SampleDBBean {
     this.sampleXml = sampleXml;
   }
 
+  public String getSraAccession() {
+    return sraAccession;
+  }
+
+  public void setSraAccession(String sraAccession) {
+    this.sraAccession = sraAccession;
+  }
+
   public String getFirstPublic() {
     return firstPublic;
   }
@@ -14,6 +14,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.FileOutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.util.Collections;
 import java.util.zip.GZIPOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,6 +22,7 @@ import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.hateoas.Resource;
 import org.springframework.stereotype.Component;
+import uk.ac.ebi.biosamples.PipelinesProperties;
 import uk.ac.ebi.biosamples.client.BioSamplesClient;
 import uk.ac.ebi.biosamples.model.Sample;
 import uk.ac.ebi.biosamples.utils.MailSender;
@@ -31,8 +33,12 @@ public class ExportRunner implements ApplicationRunner {
   private final Logger log = LoggerFactory.getLogger(getClass());
   private final BioSamplesClient bioSamplesClient;
   private final ObjectMapper objectMapper;
+  private final PipelinesProperties pipelinesProperties;
 
-  public ExportRunner(BioSamplesClient bioSamplesClient, ObjectMapper objectMapper) {
+  public ExportRunner(
+      BioSamplesClient bioSamplesClient,
+      ObjectMapper objectMapper,
+      PipelinesProperties pipelinesProperties) {
     // ensure the client is public
     if (bioSamplesClient.getPublicClient().isPresent()) {
       this.bioSamplesClient = bioSamplesClient.getPublicClient().get();
@@ -40,6 +46,7 @@ public class ExportRunner implements ApplicationRunner {
       this.bioSamplesClient = bioSamplesClient;
     }
     this.objectMapper = objectMapper;
+    this.pipelinesProperties = pipelinesProperties;
   }
 
   @Override
@@ -56,7 +63,9 @@ public class ExportRunner implements ApplicationRunner {
               : new OutputStreamWriter(
                   new GZIPOutputStream(new FileOutputStream(jsonSampleFilename)), "UTF-8"); ) {
         jsonSampleWriter.write("[\n");
-        for (Resource<Sample> sampleResource : bioSamplesClient.fetchSampleResourceAll()) {
+        for (Resource<Sample> sampleResource :
+            bioSamplesClient.fetchSampleResourceAll(
+                "", Collections.emptyList(), pipelinesProperties.getCursorPartitions())) {
           log.trace("Handling " + sampleResource);
           Sample sample = sampleResource.getContent();
           if (sample == null) {
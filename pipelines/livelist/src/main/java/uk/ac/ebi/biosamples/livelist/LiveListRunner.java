@@ -16,6 +16,7 @@ import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.Collections;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -27,6 +28,7 @@ import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.hateoas.Resource;
 import org.springframework.stereotype.Component;
+import uk.ac.ebi.biosamples.PipelinesProperties;
 import uk.ac.ebi.biosamples.client.BioSamplesClient;
 import uk.ac.ebi.biosamples.model.Sample;
 import uk.ac.ebi.biosamples.utils.MailSender;
@@ -35,17 +37,20 @@ import uk.ac.ebi.biosamples.utils.MailSender;
 public class LiveListRunner implements ApplicationRunner {
   private static final Logger LOGGER = LoggerFactory.getLogger(LiveListRunner.class);
   private final BioSamplesClient bioSamplesClient;
+  private final PipelinesProperties pipelinesProperties;
   private static final String SUPPRESSED = "suppressed";
   private static final String KILLED = "killed";
 
   @Autowired private LiveListPipelineDao liveListPipelineDao;
 
-  public LiveListRunner(final BioSamplesClient bioSamplesClient) {
+  public LiveListRunner(
+      final BioSamplesClient bioSamplesClient, final PipelinesProperties pipelinesProperties) {
     if (bioSamplesClient.getPublicClient().isPresent()) {
       this.bioSamplesClient = bioSamplesClient.getPublicClient().get();
     } else {
       this.bioSamplesClient = bioSamplesClient;
     }
+    this.pipelinesProperties = pipelinesProperties;
   }
 
   @Override
@@ -76,7 +81,9 @@ public class LiveListRunner implements ApplicationRunner {
                   StandardCharsets.UTF_8)) {
         LOGGER.info("Starting live list export");
 
-        for (Resource<Sample> sampleResource : bioSamplesClient.fetchSampleResourceAll()) {
+        for (Resource<Sample> sampleResource :
+            bioSamplesClient.fetchSampleResourceAll(
+                "", Collections.emptyList(), pipelinesProperties.getCursorPartitions())) {
           Sample sample = sampleResource.getContent();
 
           if (Instant.now().isAfter(sample.getRelease())) {
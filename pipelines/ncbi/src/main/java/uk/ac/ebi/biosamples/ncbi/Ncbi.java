@@ -15,6 +15,7 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
@@ -24,7 +25,6 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPInputStream;
-import org.dom4j.Element;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,14 +35,18 @@ import org.springframework.hateoas.Resource;
 import org.springframework.stereotype.Component;
 import uk.ac.ebi.biosamples.PipelinesProperties;
 import uk.ac.ebi.biosamples.client.BioSamplesClient;
+import uk.ac.ebi.biosamples.model.PipelineAnalytics;
 import uk.ac.ebi.biosamples.model.Sample;
 import uk.ac.ebi.biosamples.model.structured.AbstractData;
+import uk.ac.ebi.biosamples.mongo.service.MongoSampleFingerprintService;
 import uk.ac.ebi.biosamples.service.AmrDataLoaderService;
+import uk.ac.ebi.biosamples.service.AnalyticsService;
 import uk.ac.ebi.biosamples.service.FilterBuilder;
 import uk.ac.ebi.biosamples.utils.AdaptiveThreadPoolExecutor;
 import uk.ac.ebi.biosamples.utils.MailSender;
 import uk.ac.ebi.biosamples.utils.ThreadUtils;
 import uk.ac.ebi.biosamples.utils.XmlFragmenter;
+import uk.ac.ebi.biosamples.utils.XmlStreamFragmenter;
 
 @Component
 @Profile("!test")
@@ -50,8 +54,11 @@ public class Ncbi implements ApplicationRunner {
   private Logger log = LoggerFactory.getLogger(getClass());
   private final PipelinesProperties pipelinesProperties;
   private final XmlFragmenter xmlFragmenter;
+  private final XmlStreamFragmenter xmlStreamFragmenter;
   private final NcbiFragmentCallback sampleCallback;
   private final BioSamplesClient bioSamplesClient;
+  private final MongoSampleFingerprintService fingerprintService;
+  private final AnalyticsService analyticsService;
 
   @Autowired private AmrDataLoaderService amrDataLoaderService;
 
@@ -60,16 +67,23 @@ public class Ncbi implements ApplicationRunner {
   public Ncbi(
       PipelinesProperties pipelinesProperties,
       XmlFragmenter xmlFragmenter,
+      XmlStreamFragmenter xmlStreamFragmenter,
       NcbiFragmentCallback sampleCallback,
-      BioSamplesClient bioSamplesClient) {
+      BioSamplesClient bioSamplesClient,
+      MongoSampleFingerprintService fingerprintService,
+      AnalyticsService analyticsService) {
     this.pipelinesProperties = pipelinesProperties;
     this.xmlFragmenter = xmlFragmenter;
+    this.xmlStreamFragmenter = xmlStreamFragmenter;
     this.sampleCallback = sampleCallback;
     this.bioSamplesClient = bioSamplesClient;
+    this.fingerprintService = fingerprintService;
+    this.analyticsService = analyticsService;
   }
 
   @Override
   public void run(ApplicationArguments args) {
+    Instant startTime = Instant.now();
     boolean isPassed = true;
     boolean includeAmr = true;
 
@@ -134,14 +148,14 @@ public class Ncbi implements ApplicationRunner {
                     true,
                     pipelinesProperties.getThreadCount(),
                     pipelinesProperties.getThreadCountMax());
-            Map<Element, Future<Void>> futures = new LinkedHashMap<>();
+            Map<Object, Future<Void>> futures = new LinkedHashMap<>();
 
             sampleCallback.setExecutorService(executorService);
             sampleCallback.setFutures(futures);
             sampleCallback.setSampleToAmrMap(sampleToAmrMap);
 
             // this does the actual processing
-            xmlFragmenter.handleStream(is, "UTF-8", sampleCallback);
+            handleStream(is);
 
             log.info("waiting for futures");
 
@@ -155,11 +169,12 @@ public class Ncbi implements ApplicationRunner {
         } else {
           // do all on master thread
           // this does the actual processing
-          xmlFragmenter.handleStream(is, "UTF-8", sampleCallback);
+          handleStream(is);
         }
       }
       log.info("Handled new and updated NCBI samples");
       log.info("Number of accession from NCBI = " + sampleCallback.getAccessions().size());
+      logChanges(startTime, fromDate, toDate);
       // remove old NCBI samples no longer present
       // get all existing NCBI samples
       makingNcbiSamplesPrivate();
@@ -172,6 +187,30 @@ public class Ncbi implements ApplicationRunner {
     }
   }
 
+  private void handleStream(InputStream is) throws Exception {
+    if (pipelinesProperties.getNcbiStream()) {
+      xmlStreamFragmenter.handleStream(is, "UTF-8", sampleCallback);
+    } else {
+      xmlFragmenter.handleStream(is, "UTF-8", sampleCallback);
+    }
+    sampleCallback.flush();
+  }
+
+  private void logChanges(Instant startTime, LocalDate fromDate, LocalDate toDate) {
+    long unchanged = fingerprintService.getUnchangedCount();
+    long changed = fingerprintService.getChangedCount();
+    log.info("Number of NCBI samples submitted as new or changed = " + changed);
+    log.info("Number of NCBI samples skipped as unchanged = " + unchanged);
+
+    PipelineAnalytics pipelineAnalytics =
+        new PipelineAnalytics("ncbi", startTime, Instant.now(), unchanged + changed, changed);
+    pipelineAnalytics.setDateRange(
+        DateTimeFormatter.ISO_LOCAL_DATE.format(fromDate)
+            + " : "
+            + DateTimeFormatter.ISO_LOCAL_DATE.format(toDate));
+    analyticsService.persistPipelineAnalytics(pipelineAnalytics);
+  }
+
   private void makingNcbiSamplesPrivate() {
     // Run every Monday as this scans through all samples, not required to run each day
     if (isFirstDayOfTheWeek()) {
@@ -240,6 +279,7 @@ public class Ncbi implements ApplicationRunner {
                   .build();
           // persist the now private sample
           log.info("Making private " + sample.getAccession());
+          // this forgets its fingerprint, so it is submitted again if it comes back
           bioSamplesClient.persistSampleResource(newSample);
         }
       }
@@ -10,7 +10,11 @@
 */
 package uk.ac.ebi.biosamples.ncbi;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
@@ -20,31 +24,93 @@ import org.slf4j.LoggerFactory;
 import uk.ac.ebi.biosamples.client.BioSamplesClient;
 import uk.ac.ebi.biosamples.model.Sample;
 import uk.ac.ebi.biosamples.model.structured.AbstractData;
+import uk.ac.ebi.biosamples.mongo.service.MongoSampleFingerprintService;
 import uk.ac.ebi.biosamples.ncbi.service.NcbiSampleConversionService;
 
 public class NcbiElementCallable implements Callable<Void> {
   private Logger log = LoggerFactory.getLogger(getClass());
-  private final Element sampleElem;
+  private final List<Element> sampleElems;
   private final String domain;
   private final BioSamplesClient bioSamplesClient;
   private final NcbiSampleConversionService ncbiSampleConversionService;
   private final Map<String, Set<AbstractData>> sampleToAmrMap;
+  private final MongoSampleFingerprintService fingerprintService;
 
   public NcbiElementCallable(
       NcbiSampleConversionService ncbiSampleConversionService,
       BioSamplesClient bioSamplesClient,
       Element sampleElem,
       String domain,
-      Map<String, Set<AbstractData>> sampleToAmrMap) {
+      Map<String, Set<AbstractData>> sampleToAmrMap,
+      MongoSampleFingerprintService fingerprintService) {
+    this(
+        ncbiSampleConversionService,
+        bioSamplesClient,
+        Collections.singletonList(sampleElem),
+        domain,
+        sampleToAmrMap,
+        fingerprintService);
+  }
+
+  /**
+   * @param sampleElems a batch of samples, whose fingerprints are looked up together
+   * @param fingerprintService if not null, samples that have not changed since they were last
+   *     submitted are skipped
+   */
+  public NcbiElementCallable(
+      NcbiSampleConversionService ncbiSampleConversionService,
+      BioSamplesClient bioSamplesClient,
+      List<Element> sampleElems,
+      String domain,
+      Map<String, Set<AbstractData>> sampleToAmrMap,
+      MongoSampleFingerprintService fingerprintService) {
     this.ncbiSampleConversionService = ncbiSampleConversionService;
     this.bioSamplesClient = bioSamplesClient;
-    this.sampleElem = sampleElem;
+    this.sampleElems = sampleElems;
     this.domain = domain;
     this.sampleToAmrMap = sampleToAmrMap;
+    this.fingerprintService = fingerprintService;
   }
 
   @Override
   public Void call() throws Exception {
+    List<Sample> samples = new ArrayList<>(sampleElems.size());
+    for (Element sampleElem : sampleElems) {
+      samples.add(convert(sampleElem));
+    }
+
+    Map<String, String> fingerprints = new HashMap<>();
+    Set<String> unchanged = Collections.emptySet();
+    if (fingerprintService != null) {
+      for (Sample sample : samples) {
+        fingerprints.put(sample.getAccession(), fingerprintService.fingerprint(sample));
+      }
+      unchanged = fingerprintService.findUnchanged(fingerprints);
+    }
+
+    Map<String, String> submitted = new HashMap<>();
+    try {
+      for (Sample sample : samples) {
+        if (unchanged.contains(sample.getAccession())) {
+          log.trace("Element callable skipping unchanged " + sample.getAccession());
+          continue;
+        }
+        // now pass it along to the actual submission process
+        bioSamplesClient.persistSampleResource(sample);
+        submitted.put(sample.getAccession(), fingerprints.get(sample.getAccession()));
+      }
+    } finally {
+      if (fingerprintService != null) {
+        fingerprintService.record(submitted);
+      }
+    }
+
+    log.trace("Element callable finished");
+
+    return null;
+  }
+
+  private Sample convert(Element sampleElem) {
     Set<AbstractData> amrData = new HashSet<>();
     String accession = sampleElem.attributeValue("accession");
 
@@ -59,14 +125,7 @@ public class NcbiElementCallable implements Callable<Void> {
         this.ncbiSampleConversionService.convertNcbiXmlElementToSample(sampleElem, amrData);
 
     // Attach the domain
-    Sample sample = Sample.Builder.fromSample(sampleWithoutDomain).withDomain(domain).build();
-
-    // now pass it along to the actual submission process
-    bioSamplesClient.persistSampleResource(sample);
-
-    log.trace("Element callable finished");
-
-    return null;
+    return Sample.Builder.fromSample(sampleWithoutDomain).withDomain(domain).build();
   }
 
   /**
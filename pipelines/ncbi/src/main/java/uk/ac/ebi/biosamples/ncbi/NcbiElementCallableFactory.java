@@ -10,6 +10,7 @@
 */
 package uk.ac.ebi.biosamples.ncbi;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import org.dom4j.Element;
@@ -17,6 +18,7 @@ import org.springframework.stereotype.Service;
 import uk.ac.ebi.biosamples.PipelinesProperties;
 import uk.ac.ebi.biosamples.client.BioSamplesClient;
 import uk.ac.ebi.biosamples.model.structured.AbstractData;
+import uk.ac.ebi.biosamples.mongo.service.MongoSampleFingerprintService;
 import uk.ac.ebi.biosamples.ncbi.service.NcbiSampleConversionService;
 
 @Service
@@ -27,17 +29,23 @@ public class NcbiElementCallableFactory {
 
   private final NcbiSampleConversionService conversionService;
 
+  private final MongoSampleFingerprintService fingerprintService;
+
   public NcbiElementCallableFactory(
       NcbiSampleConversionService conversionService,
       BioSamplesClient bioSamplesClient,
-      PipelinesProperties pipelinesProperties) {
+      PipelinesProperties pipelinesProperties,
+      MongoSampleFingerprintService fingerprintService) {
     this.conversionService = conversionService;
     this.bioSamplesClient = bioSamplesClient;
     this.domain = pipelinesProperties.getNcbiDomain();
+    this.fingerprintService =
+        pipelinesProperties.getNcbiSkipUnchanged() ? fingerprintService : null;
   }
 
-  public NcbiElementCallable build(Element element, Map<String, Set<AbstractData>> sampleToAmrMap) {
+  public NcbiElementCallable build(
+      List<Element> elements, Map<String, Set<AbstractData>> sampleToAmrMap) {
     return new NcbiElementCallable(
-        conversionService, bioSamplesClient, element, domain, sampleToAmrMap);
+        conversionService, bioSamplesClient, elements, domain, sampleToAmrMap, fingerprintService);
   }
 }
@@ -26,9 +26,13 @@ import uk.ac.ebi.biosamples.PipelinesProperties;
 import uk.ac.ebi.biosamples.model.structured.AbstractData;
 import uk.ac.ebi.biosamples.utils.ThreadUtils;
 import uk.ac.ebi.biosamples.utils.XmlFragmenter.ElementCallback;
+import uk.ac.ebi.biosamples.utils.XmlStreamFragmenter;
+import uk.ac.ebi.biosamples.utils.XmlStreamFragmenter.FragmentCallback;
 
 @Component
-public class NcbiFragmentCallback implements ElementCallback {
+public class NcbiFragmentCallback implements ElementCallback, FragmentCallback {
+  // samples are submitted in batches, so that their fingerprints are looked up together
+  private static final int BATCH_SIZE = 100;
   private Logger log = LoggerFactory.getLogger(getClass());
   private final NcbiElementCallableFactory ncbiElementCallableFactory;
   private final PipelinesProperties pipelinesProperties;
@@ -36,8 +40,10 @@ public class NcbiFragmentCallback implements ElementCallback {
   private LocalDate fromDate;
   private LocalDate toDate;
   private ExecutorService executorService;
-  private Map<Element, Future<Void>> futures;
+  private Map<Object, Future<Void>> futures;
   private Map<String, Set<AbstractData>> sampleToAmrMap = new HashMap<>();
+  private List<Element> elements = new ArrayList<>(BATCH_SIZE);
+  private List<String> fragments = new ArrayList<>(BATCH_SIZE);
 
   private NcbiFragmentCallback(
       NcbiElementCallableFactory ncbiElementCallableFactory,
@@ -70,11 +76,11 @@ public class NcbiFragmentCallback implements ElementCallback {
     this.executorService = executorService;
   }
 
-  public Map<Element, Future<Void>> getFutures() {
+  public Map<Object, Future<Void>> getFutures() {
     return futures;
   }
 
-  public void setFutures(Map<Element, Future<Void>> futures) {
+  public void setFutures(Map<Object, Future<Void>> futures) {
     this.futures = futures;
   }
 
@@ -90,8 +96,57 @@ public class NcbiFragmentCallback implements ElementCallback {
   public void handleElement(Element element) throws InterruptedException, ExecutionException {
     log.trace("Handling element");
 
-    Callable<Void> callable = ncbiElementCallableFactory.build(element, sampleToAmrMap);
+    elements.add(element);
+    if (elements.size() >= BATCH_SIZE) {
+      submitElements();
+    }
+  }
+
+  @Override
+  public void handleFragment(String fragment) throws InterruptedException, ExecutionException {
+    log.trace("Handling fragment");
+
+    fragments.add(fragment);
+    if (fragments.size() >= BATCH_SIZE) {
+      submitFragments();
+    }
+  }
+
+  /** Submits the last batch, which is less than a full one, once the whole file has been read. */
+  public void flush() throws InterruptedException, ExecutionException {
+    submitElements();
+    submitFragments();
+  }
+
+  private void submitElements() throws InterruptedException, ExecutionException {
+    if (elements.isEmpty()) {
+      return;
+    }
+    List<Element> batch = elements;
+    elements = new ArrayList<>(BATCH_SIZE);
+    submit(batch.get(0), ncbiElementCallableFactory.build(batch, sampleToAmrMap));
+  }
+
+  private void submitFragments() throws InterruptedException, ExecutionException {
+    if (fragments.isEmpty()) {
+      return;
+    }
+    List<String> batch = fragments;
+    fragments = new ArrayList<>(BATCH_SIZE);
+    // parsed on the worker thread, leaving the reading thread to read
+    submit(
+        batch.get(0),
+        () -> {
+          List<Element> parsed = new ArrayList<>(batch.size());
+          for (String fragment : batch) {
+            parsed.add(XmlStreamFragmenter.parseFragment(fragment));
+          }
+          return ncbiElementCallableFactory.build(parsed, sampleToAmrMap).call();
+        });
+  }
 
+  private void submit(Object key, Callable<Void> callable)
+      throws InterruptedException, ExecutionException {
     if (executorService == null) {
       try {
         callable.call();
@@ -101,7 +156,7 @@ public class NcbiFragmentCallback implements ElementCallback {
     } else {
       Future<Void> future = executorService.submit(callable);
       if (futures != null) {
-        futures.put(element, future);
+        futures.put(key, future);
       }
       ThreadUtils.checkFutures(futures, 100);
     }
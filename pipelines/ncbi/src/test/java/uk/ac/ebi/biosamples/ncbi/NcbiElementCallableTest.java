@@ -11,8 +11,14 @@
 package uk.ac.ebi.biosamples.ncbi;
 
 import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -28,6 +34,8 @@ import org.springframework.test.context.junit4.SpringRunner;
 import uk.ac.ebi.biosamples.client.BioSamplesClient;
 import uk.ac.ebi.biosamples.model.Attribute;
 import uk.ac.ebi.biosamples.model.Sample;
+import uk.ac.ebi.biosamples.mongo.repo.MongoSampleFingerprintRepository;
+import uk.ac.ebi.biosamples.mongo.service.MongoSampleFingerprintService;
 import uk.ac.ebi.biosamples.ncbi.service.NcbiSampleConversionService;
 import uk.ac.ebi.biosamples.utils.TaxonomyService;
 import uk.ac.ebi.biosamples.utils.XmlPathBuilder;
@@ -40,6 +48,8 @@ public class NcbiElementCallableTest {
   @MockBean(name = "AAPCLIENT")
   BioSamplesClient bioSamplesClient;
 
+  @MockBean MongoSampleFingerprintRepository fingerprintRepository;
+
   TestUtilities testUtils = new TestUtilities();
   TaxonomyService taxonService = new TaxonomyService();
 
@@ -65,7 +75,7 @@ public class NcbiElementCallableTest {
         new NcbiSampleConversionService(taxonService);
     NcbiElementCallable callable =
         new NcbiElementCallable(
-            ncbiSampleConversionService, bioSamplesClient, sample, "test", new HashMap<>());
+            ncbiSampleConversionService, bioSamplesClient, sample, "test", new HashMap<>(), null);
     callable.call();
 
     Sample sample = generatedSample.getValue();
@@ -91,7 +101,7 @@ public class NcbiElementCallableTest {
         new NcbiSampleConversionService(taxonService);
     NcbiElementCallable callable =
         new NcbiElementCallable(
-            ncbiSampleConversionService, bioSamplesClient, sample, "test", null);
+            ncbiSampleConversionService, bioSamplesClient, sample, "test", null, null);
     callable.call();
 
     Sample sample = generatedSample.getValue();
@@ -106,4 +116,44 @@ public class NcbiElementCallableTest {
             .anyMatch(organism -> organism.getValue().equals("Oryza sativa Japonica Group")));
     assertThat(organisms.stream().anyMatch(organism -> organism.getValue().equals("Oryza sativa")));
   }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void should_only_submit_sample_when_it_has_changed() throws Exception {
+    NcbiSampleConversionService ncbiSampleConversionService =
+        new NcbiSampleConversionService(taxonService);
+    MongoSampleFingerprintService fingerprintService =
+        new MongoSampleFingerprintService(fingerprintRepository);
+    when(fingerprintRepository.findAll(any(Iterable.class))).thenReturn(Collections.emptyList());
+    new NcbiElementCallable(
+            ncbiSampleConversionService,
+            bioSamplesClient,
+            sample,
+            "test",
+            new HashMap<>(),
+            fingerprintService)
+        .call();
+
+    ArgumentCaptor<Iterable> fingerprints = ArgumentCaptor.forClass(Iterable.class);
+    verify(bioSamplesClient, times(1)).persistSampleResource(any(Sample.class));
+    verify(fingerprintRepository).save(fingerprints.capture());
+
+    // converting the same element again is recognised as unchanged, looking the whole batch up
+    // at once
+    when(fingerprintRepository.findAll(Collections.singleton("SAMN04192108")))
+        .thenReturn(fingerprints.getValue());
+    new NcbiElementCallable(
+            ncbiSampleConversionService,
+            bioSamplesClient,
+            sample,
+            "test",
+            new HashMap<>(),
+            fingerprintService)
+        .call();
+
+    verify(bioSamplesClient, times(1)).persistSampleResource(any(Sample.class));
+    verify(fingerprintRepository, never()).findOne(anyString());
+    assertThat(fingerprintService.getChangedCount()).isEqualTo(1);
+    assertThat(fingerprintService.getUnchangedCount()).isEqualTo(1);
+  }
 }
@@ -92,7 +92,9 @@ public class NeoExportRunner implements ApplicationRunner {
             pipelinesProperties.getThreadCountMax())) {
 
       Map<String, Future<PipelineResult>> futures = new HashMap<>();
-      for (Resource<Sample> sampleResource : bioSamplesClient.fetchSampleResourceAll("", filters)) {
+      for (Resource<Sample> sampleResource :
+          bioSamplesClient.fetchSampleResourceAll(
+              "", filters, pipelinesProperties.getCursorPartitions())) {
         LOG.trace("Handling {}", sampleResource);
         Sample sample = sampleResource.getContent();
         Objects.requireNonNull(sample);
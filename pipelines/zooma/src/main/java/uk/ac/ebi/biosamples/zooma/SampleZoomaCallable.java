@@ -19,6 +19,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import uk.ac.ebi.biosamples.CurationLinkBuffer;
 import uk.ac.ebi.biosamples.PipelineResult;
 import uk.ac.ebi.biosamples.client.BioSamplesClient;
 import uk.ac.ebi.biosamples.model.Attribute;
@@ -33,6 +34,7 @@ public class SampleZoomaCallable implements Callable<PipelineResult> {
   private Logger log = LoggerFactory.getLogger(getClass());
   private final Sample sample;
   private final BioSamplesClient bioSamplesClient;
+  private final CurationLinkBuffer curationLinkBuffer;
   private final ZoomaProcessor zoomaProcessor;
   private final CurationApplicationService curationApplicationService;
   private final String domain;
@@ -41,11 +43,13 @@ public class SampleZoomaCallable implements Callable<PipelineResult> {
 
   public SampleZoomaCallable(
       BioSamplesClient bioSamplesClient,
+      CurationLinkBuffer curationLinkBuffer,
       Sample sample,
       ZoomaProcessor zoomaProcessor,
       CurationApplicationService curationApplicationService,
       String domain) {
     this.bioSamplesClient = bioSamplesClient;
+    this.curationLinkBuffer = curationLinkBuffer;
     this.sample = sample;
     this.zoomaProcessor = zoomaProcessor;
     this.curationApplicationService = curationApplicationService;
@@ -163,7 +167,7 @@ public class SampleZoomaCallable implements Callable<PipelineResult> {
                   Collections.singleton(attribute), Collections.singleton(mapped), null, null);
 
           // save the curation back in biosamples
-          bioSamplesClient.persistCuration(sample.getAccession(), curation, domain, false);
+          curationLinkBuffer.add(sample.getAccession(), curation, domain);
           sample = curationApplicationService.applyCurationToSample(sample, curation);
           curationCount++;
         }
@@ -13,18 +13,17 @@ package uk.ac.ebi.biosamples.zooma;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.Callable;
-import java.util.concurrent.Future;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.hateoas.Resource;
 import org.springframework.stereotype.Component;
+import uk.ac.ebi.biosamples.CurationLinkBuffer;
+import uk.ac.ebi.biosamples.PipelineExecutor;
 import uk.ac.ebi.biosamples.PipelineFutureCallback;
 import uk.ac.ebi.biosamples.PipelineResult;
 import uk.ac.ebi.biosamples.PipelinesProperties;
@@ -37,7 +36,6 @@ import uk.ac.ebi.biosamples.service.CurationApplicationService;
 import uk.ac.ebi.biosamples.utils.AdaptiveThreadPoolExecutor;
 import uk.ac.ebi.biosamples.utils.ArgUtils;
 import uk.ac.ebi.biosamples.utils.MailSender;
-import uk.ac.ebi.biosamples.utils.ThreadUtils;
 
 @Component
 public class ZoomaApplicationRunner implements ApplicationRunner {
@@ -71,6 +69,10 @@ public class ZoomaApplicationRunner implements ApplicationRunner {
     long sampleCount = 0;
     boolean isPassed = true;
 
+    CurationLinkBuffer curationLinkBuffer =
+        new CurationLinkBuffer(
+            bioSamplesClient, pipelinesProperties.getCurationLinksBatchSize(), false);
+
     try (AdaptiveThreadPoolExecutor executorService =
         AdaptiveThreadPoolExecutor.create(
             100,
@@ -79,7 +81,12 @@ public class ZoomaApplicationRunner implements ApplicationRunner {
             pipelinesProperties.getThreadCount(),
             pipelinesProperties.getThreadCountMax())) {
 
-      Map<String, Future<PipelineResult>> futures = new HashMap<>();
+      PipelineExecutor<PipelineResult> pipelineExecutor =
+          new PipelineExecutor<>(
+              "zooma",
+              executorService,
+              pipelinesProperties.getInFlightMax(),
+              pipelineFutureCallback);
 
       for (Resource<Sample> sampleResource : bioSamplesClient.fetchSampleResourceAll("", filters)) {
         LOG.trace("Handling " + sampleResource);
@@ -91,22 +98,25 @@ public class ZoomaApplicationRunner implements ApplicationRunner {
         Callable<PipelineResult> task =
             new SampleZoomaCallable(
                 bioSamplesClient,
+                curationLinkBuffer,
                 sample,
                 zoomaProcessor,
                 curationApplicationService,
                 pipelinesProperties.getZoomaDomain());
         sampleCount++;
 
-        futures.put(sample.getAccession(), executorService.submit(task));
+        pipelineExecutor.submit(task);
       }
 
-      LOG.info("waiting for futures");
-      // wait for anything to finish
-      ThreadUtils.checkAndCallbackFutures(futures, 0, pipelineFutureCallback);
+      LOG.info("waiting for remaining tasks");
+      pipelineExecutor.awaitCompletion();
     } catch (final Exception e) {
       LOG.error("Pipeline failed to finish successfully", e);
       isPassed = false;
     } finally {
+      curationLinkBuffer.close();
+      SampleZoomaCallable.failedQueue.addAll(curationLinkBuffer.getFailedAccessions());
+
       Instant endTime = Instant.now();
       LOG.info("Total samples processed {}", sampleCount);
       LOG.info("Total curation objects added {}", pipelineFutureCallback.getTotalCount());
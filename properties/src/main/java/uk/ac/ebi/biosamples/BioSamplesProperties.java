@@ -20,6 +20,18 @@ public class BioSamplesProperties {
   @Value("${biosamples.agent.solr.stayalive:false}")
   private Boolean agentSolrStayalive;
 
+  // only used when biosamples.agent.solr.batch is true
+  @Value("${biosamples.agent.solr.batch.size:500}")
+  private int agentSolrBatchSize;
+
+  // in milliseconds
+  @Value("${biosamples.agent.solr.batch.timeout:1000}")
+  private int agentSolrBatchTimeout;
+
+  // in milliseconds
+  @Value("${biosamples.agent.solr.commitwithin:5000}")
+  private int agentSolrCommitWithin;
+
   @Value("${biosamples.client.uri:http://localhost:8081}")
   private URI biosamplesClientUri;
 
@@ -30,6 +42,10 @@ public class BioSamplesProperties {
   @Value("${biosamples.client.timeout:60000}")
   private int biosamplesClientTimeout;
 
+  // in seconds, how long the client keeps link templates discovered from the API
+  @Value("${biosamples.client.linkcache.ttl:3600}")
+  private int biosamplesClientLinkCacheTtl;
+
   @Value("${biosamples.client.connectioncount.max:8}")
   private int connectionCountMax;
 
@@ -87,6 +103,28 @@ public class BioSamplesProperties {
   @Value("${biosamples.ols:https://www.ebi.ac.uk/ols}")
   private String ols;
 
+  @Value("${biosamples.ols.cache.maxentries:100000}")
+  private int olsCacheMaxEntries;
+
+  // in seconds
+  @Value("${biosamples.ols.cache.ttl:604800}")
+  private int olsCacheTtl;
+
+  // in seconds, for terms that OLS does not know
+  @Value("${biosamples.ols.cache.notfound.ttl:86400}")
+  private int olsCacheNotFoundTtl;
+
+  // directory to keep ontology lookups in across restarts, empty to only cache in memory
+  @Value("${biosamples.ols.cache.dir:}")
+  private String olsCacheDir;
+
+  // number of lookups to keep in the cache directory, the oldest are deleted beyond this
+  @Value("${biosamples.ols.cache.dir.maxentries:100000}")
+  private int olsCacheDirMaxEntries;
+
+  @Value("${biosamples.ols.cache.warmup:false}")
+  private boolean olsCacheWarmup;
+
   @Value("${biosamples.webapp.sampletab.uri:http://localhost:8082/biosamples/sampletab}")
   private URI biosamplesWebappSampletabUri;
 
@@ -102,6 +140,31 @@ public class BioSamplesProperties {
   @Value("${biosamples.webapp.core.page.threadcount.max:128}")
   private int webappCorePageThreadCountMax;
 
+  // threads prefetching the next page of concurrent bulk downloads
+  @Value("${biosamples.webapp.core.download.threadcount:16}")
+  private int webappCoreDownloadThreadCount;
+
+  // threads accessioning the samples of bulk-accession requests, shared by all requests
+  @Value("${biosamples.webapp.core.bulkaccession.threadcount:8}")
+  private int webappCoreBulkAccessionThreadCount;
+
+  // chunks of 1000 samples being accessioned or waiting for a thread, further requests are rejected
+  @Value("${biosamples.webapp.core.bulkaccession.queuesize:100}")
+  private int webappCoreBulkAccessionQueueSize;
+
+  // threads checking the checklist schemas of certifications, shared by all requests
+  @Value("${biosamples.webapp.core.certification.threadcount:4}")
+  private int webappCoreCertificationThreadCount;
+
+  // threads fetching written samples and sending them with their related samples to be indexed
+  @Value("${biosamples.webapp.core.postwrite.threadcount:4}")
+  private int webappCorePostWriteThreadCount;
+
+  // written samples each node takes from the queue at a time, changes to the same sample among
+  // them are processed once
+  @Value("${biosamples.webapp.core.postwrite.prefetch:250}")
+  private int webappCorePostWritePrefetch;
+
   // in seconds
   @Value("${biosamples.webapp.core.page.cache.maxage:300}")
   private int webappCorePageCacheMaxAge;
@@ -110,6 +173,27 @@ public class BioSamplesProperties {
   @Value("${biosamples.webapp.core.facet.cache.maxage:86400}")
   private int webappCoreFacetCacheMaxAge;
 
+  // number of curated samples to keep in memory, 0 to disable
+  @Value("${biosamples.curation.cache.maxentries:10000}")
+  private int curationCacheMaxEntries;
+
+  // number of facet results to keep in memory, 0 to disable
+  @Value("${biosamples.facet.cache.maxentries:1000}")
+  private int facetCacheMaxEntries;
+
+  // in seconds, how often the solr index version is checked to drop facets from before a commit
+  @Value("${biosamples.facet.cache.indexcheck:10}")
+  private int facetCacheIndexCheck;
+
+  // number of single-sample lookups to keep in memory, 0 to disable
+  @Value("${biosamples.sample.cache.maxentries:10000}")
+  private int sampleCacheMaxEntries;
+
+  // in seconds, kept short as only writes through this node evict, so entries can miss writes
+  // made by other nodes and pipelines for up to this long
+  @Value("${biosamples.sample.cache.ttl:5}")
+  private int sampleCacheTtl;
+
   @Value("${biosamples.schema.validator.uri:http://localhost:8085/validate}")
   private URI biosamplesSchemaValidatorServiceUri;
 
@@ -142,6 +226,10 @@ public class BioSamplesProperties {
     return biosamplesClientPagesize;
   }
 
+  public int getBiosamplesClientLinkCacheTtl() {
+    return biosamplesClientLinkCacheTtl;
+  }
+
   public int getBiosamplesClientTimeout() {
     return biosamplesClientTimeout;
   }
@@ -198,10 +286,46 @@ public class BioSamplesProperties {
     return agentSolrStayalive;
   }
 
+  public int getAgentSolrBatchSize() {
+    return agentSolrBatchSize;
+  }
+
+  public int getAgentSolrBatchTimeout() {
+    return agentSolrBatchTimeout;
+  }
+
+  public int getAgentSolrCommitWithin() {
+    return agentSolrCommitWithin;
+  }
+
   public String getOls() {
     return ols;
   }
 
+  public int getOlsCacheMaxEntries() {
+    return olsCacheMaxEntries;
+  }
+
+  public int getOlsCacheTtl() {
+    return olsCacheTtl;
+  }
+
+  public int getOlsCacheNotFoundTtl() {
+    return olsCacheNotFoundTtl;
+  }
+
+  public String getOlsCacheDir() {
+    return olsCacheDir;
+  }
+
+  public int getOlsCacheDirMaxEntries() {
+    return olsCacheDirMaxEntries;
+  }
+
+  public boolean getOlsCacheWarmup() {
+    return olsCacheWarmup;
+  }
+
   public int getBiosamplesCorePageThreadCount() {
     return webappCorePageThreadCount;
   }
@@ -210,10 +334,54 @@ public class BioSamplesProperties {
     return webappCorePageThreadCountMax;
   }
 
+  public int getBiosamplesCoreDownloadThreadCount() {
+    return webappCoreDownloadThreadCount;
+  }
+
+  public int getBiosamplesCoreBulkAccessionThreadCount() {
+    return webappCoreBulkAccessionThreadCount;
+  }
+
+  public int getBiosamplesCoreBulkAccessionQueueSize() {
+    return webappCoreBulkAccessionQueueSize;
+  }
+
+  public int getBiosamplesCoreCertificationThreadCount() {
+    return webappCoreCertificationThreadCount;
+  }
+
+  public int getBiosamplesCorePostWriteThreadCount() {
+    return webappCorePostWriteThreadCount;
+  }
+
+  public int getBiosamplesCorePostWritePrefetch() {
+    return webappCorePostWritePrefetch;
+  }
+
   public int getBiosamplesCorePageCacheMaxAge() {
     return webappCorePageCacheMaxAge;
   }
 
+  public int getCurationCacheMaxEntries() {
+    return curationCacheMaxEntries;
+  }
+
+  public int getFacetCacheMaxEntries() {
+    return facetCacheMaxEntries;
+  }
+
+  public int getFacetCacheIndexCheck() {
+    return facetCacheIndexCheck;
+  }
+
+  public int getSampleCacheMaxEntries() {
+    return sampleCacheMaxEntries;
+  }
+
+  public int getSampleCacheTtl() {
+    return sampleCacheTtl;
+  }
+
   public int getBiosamplesCoreFacetCacheMaxAge() {
     return webappCoreFacetCacheMaxAge;
   }
@@ -0,0 +1,261 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.service;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyHandler;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import uk.ac.ebi.biosamples.model.Relationship;
+import uk.ac.ebi.biosamples.model.Sample;
+import uk.ac.ebi.biosamples.model.StaticViewWrapper;
+import uk.ac.ebi.biosamples.mongo.model.MongoChangeCheckpoint;
+import uk.ac.ebi.biosamples.mongo.model.MongoSample;
+import uk.ac.ebi.biosamples.mongo.model.MongoSampleChange;
+import uk.ac.ebi.biosamples.mongo.service.MongoSampleChangeService;
+import uk.ac.ebi.biosamples.mongo.service.SampleToMongoSampleConverter;
+
+/**
+ * Keeps the curated static view up to date by replaying the {@link MongoSampleChange} log from the
+ * last change it processed. Each batch of changes is recomputed from the dynamic view, together
+ * with the samples they have relationships to, and written with one bulk upsert.
+ *
+ * <p>Changes are read in the order of their sequence numbers. A node reserves the numbers before it
+ * inserts the changes, so a missing number is usually a change that is still being written. The
+ * checkpoint is not moved past it until it turns up or has been missing for a while, e.g. because
+ * the node failed before inserting it.
+ */
+@Service
+public class CuratedViewMaterializer {
+  private static final Logger LOGGER = LoggerFactory.getLogger(CuratedViewMaterializer.class);
+
+  static final String CHECKPOINT = "curatedview";
+  private static final int REBUILD_BATCH_SIZE = 1000;
+
+  private final MongoOperations mongoOperations;
+  private final SampleReadService sampleReadService;
+  private final SampleToMongoSampleConverter sampleToMongoSampleConverter;
+  private final MongoSampleChangeService mongoSampleChangeService;
+
+  // how long a missing sequence number is waited for before the changes after it are processed
+  Duration gapTimeout = Duration.ofMinutes(1);
+  private long gapSequence = -1;
+  private long gapSeenAt;
+
+  public CuratedViewMaterializer(
+      MongoOperations mongoOperations,
+      SampleReadService sampleReadService,
+      SampleToMongoSampleConverter sampleToMongoSampleConverter,
+      MongoSampleChangeService mongoSampleChangeService) {
+    this.mongoOperations = mongoOperations;
+    this.sampleReadService = sampleReadService;
+    this.sampleToMongoSampleConverter = sampleToMongoSampleConverter;
+    this.mongoSampleChangeService = mongoSampleChangeService;
+  }
+
+  /**
+   * Materializes the next batch of changes and moves the checkpoint past them.
+   *
+   * @param batchSize maximum number of changes to read
+   * @return the number of changes processed, zero once it has caught up
+   */
+  public int materializeChanges(int batchSize) {
+    long checkpoint = getCheckpoint();
+    Query query = afterQuery(checkpoint).limit(batchSize);
+    List<MongoSampleChange> changes =
+        getContiguous(mongoOperations.find(query, MongoSampleChange.class), checkpoint);
+    if (changes.isEmpty()) {
+      return 0;
+    }
+
+    Set<String> accessions = new LinkedHashSet<>();
+    for (MongoSampleChange change : changes) {
+      accessions.add(change.getAccession());
+    }
+
+    // the samples they have relationships to show them as inverse relationships
+    List<Sample> samples = sampleReadService.fetchAll(accessions, Optional.empty());
+    Set<String> targets = new LinkedHashSet<>();
+    for (Sample sample : samples) {
+      for (Relationship relationship : sample.getRelationships()) {
+        if (sample.getAccession().equals(relationship.getSource())
+            && !accessions.contains(relationship.getTarget())) {
+          targets.add(relationship.getTarget());
+        }
+      }
+    }
+    if (!targets.isEmpty()) {
+      samples = new ArrayList<>(samples);
+      samples.addAll(sampleReadService.fetchAll(targets, Optional.empty()));
+    }
+
+    if (!samples.isEmpty()) {
+      upsert(samples);
+    }
+
+    long lastSequence = changes.get(changes.size() - 1).getSequence();
+    mongoOperations.save(new MongoChangeCheckpoint(CHECKPOINT, lastSequence, Instant.now()));
+    LOGGER.debug(
+        "Materialized {} changes as {} samples up to {}",
+        changes.size(),
+        samples.size(),
+        lastSequence);
+    return changes.size();
+  }
+
+  /** Returns the changes up to the first sequence number that is still missing. */
+  private List<MongoSampleChange> getContiguous(List<MongoSampleChange> changes, long checkpoint) {
+    long expected = checkpoint + 1;
+    int end = 0;
+    while (end < changes.size()) {
+      long sequence = changes.get(end).getSequence();
+      if (sequence != expected && !isGapExpired(expected)) {
+        break;
+      }
+      expected = sequence + 1;
+      end++;
+    }
+    return changes.subList(0, end);
+  }
+
+  private boolean isGapExpired(long sequence) {
+    long now = System.nanoTime();
+    if (sequence != gapSequence) {
+      gapSequence = sequence;
+      gapSeenAt = now;
+    }
+    if (now - gapSeenAt < gapTimeout.toNanos()) {
+      return false;
+    }
+    LOGGER.warn("Change {} has been missing for {}, skipping it", sequence, gapTimeout);
+    return true;
+  }
+
+  /**
+   * Whether the last call to {@link #materializeChanges(int)} stopped before changes that were
+   * already recorded, to wait for a missing one.
+   */
+  public boolean isWaitingForMissingChange() {
+    return gapSequence == getCheckpoint() + 1;
+  }
+
+  private void upsert(List<Sample> samples) {
+    List<String> fieldNames = new ArrayList<>();
+    MongoPersistentEntity<?> entity =
+        mongoOperations.getConverter().getMappingContext().getPersistentEntity(MongoSample.class);
+    entity.doWithProperties(
+        (PropertyHandler<MongoPersistentProperty>)
+            property -> {
+              if (!property.isIdProperty()) {
+                fieldNames.add(property.getFieldName());
+              }
+            });
+
+    BulkOperations bulkOperations =
+        mongoOperations.bulkOps(
+            BulkOperations.BulkMode.UNORDERED,
+            MongoSample.class,
+            StaticViewWrapper.StaticView.SAMPLES_CURATED.getCollectionName());
+    for (Sample sample : samples) {
+      DBObject dbObject = new BasicDBObject();
+      mongoOperations.getConverter().write(sampleToMongoSampleConverter.convert(sample), dbObject);
+
+      // replace the whole document, including fields that are now empty and so not written
+      Update update = new Update();
+      for (String key : dbObject.keySet()) {
+        if (!"_id".equals(key)) {
+          update.set(key, dbObject.get(key));
+        }
+      }
+      for (String fieldName : fieldNames) {
+        if (!dbObject.containsField(fieldName)) {
+          update.unset(fieldName);
+        }
+      }
+      bulkOperations.upsert(new Query(Criteria.where("_id").is(sample.getAccession())), update);
+    }
+    bulkOperations.execute();
+  }
+
+  /** How long the oldest change that has not been materialized yet has been waiting. */
+  public Duration getLag() {
+    MongoSampleChange oldest =
+        mongoOperations.findOne(afterQuery(getCheckpoint()), MongoSampleChange.class);
+    if (oldest == null) {
+      return Duration.ZERO;
+    }
+    return Duration.between(oldest.getTimestamp(), Instant.now());
+  }
+
+  /**
+   * Number of changes that have not been materialized yet, worked out from the sequence numbers
+   * rather than by counting them.
+   */
+  public long getPending() {
+    return Math.max(0, mongoSampleChangeService.getLastSequence() - getCheckpoint());
+  }
+
+  private long getCheckpoint() {
+    MongoChangeCheckpoint checkpoint =
+        mongoOperations.findById(CHECKPOINT, MongoChangeCheckpoint.class);
+    return checkpoint == null ? 0 : checkpoint.getLastSequence();
+  }
+
+  private Query afterQuery(long checkpoint) {
+    return new Query(Criteria.where("_id").gt(checkpoint))
+        .with(new Sort(Sort.Direction.ASC, "_id"));
+  }
+
+  /**
+   * Records a change for every sample, so the following calls to {@link #materializeChanges(int)}
+   * recompute the whole curated view.
+   *
+   * @return the number of samples
+   */
+  public long rebuild() {
+    long count = 0;
+    List<String> accessions = new ArrayList<>(REBUILD_BATCH_SIZE);
+    try (DBCursor cursor =
+        mongoOperations
+            .getCollection(mongoOperations.getCollectionName(MongoSample.class))
+            .find(new BasicDBObject(), new BasicDBObject("_id", 1))) {
+      while (cursor.hasNext()) {
+        accessions.add((String) cursor.next().get("_id"));
+        if (accessions.size() == REBUILD_BATCH_SIZE) {
+          mongoSampleChangeService.recordChanges(accessions);
+          count += accessions.size();
+          accessions.clear();
+        }
+      }
+    }
+    mongoSampleChangeService.recordChanges(accessions);
+    count += accessions.size();
+    return count;
+  }
+}
@@ -10,16 +10,19 @@
 */
 package uk.ac.ebi.biosamples.service;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.time.Instant;
 import java.util.*;
+import javax.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import uk.ac.ebi.biosamples.BioSamplesProperties;
 import uk.ac.ebi.biosamples.model.*;
 import uk.ac.ebi.biosamples.mongo.model.MongoCuration;
 import uk.ac.ebi.biosamples.mongo.model.MongoCurationLink;
@@ -41,6 +44,19 @@ public class CurationReadService {
 
   @Autowired private MongoCurationToCurationConverter mongoCurationToCurationConverter;
 
+  @Autowired private BioSamplesProperties bioSamplesProperties;
+
+  // curated samples by accession, checked against the curation links before use
+  private Cache<String, CuratedSample> curatedSampleCache;
+
+  @PostConstruct
+  public void init() {
+    curatedSampleCache =
+        CacheBuilder.newBuilder()
+            .maximumSize(bioSamplesProperties.getCurationCacheMaxEntries())
+            .build();
+  }
+
   public Page<Curation> getPage(Pageable pageable) {
     Page<MongoCuration> pageNeoCuration = mongoCurationRepository.findAll(pageable);
     Page<Curation> pageCuration = pageNeoCuration.map(mongoCurationToCurationConverter);
@@ -158,41 +174,230 @@ public class CurationReadService {
   }
 
   public Sample applyAllCurationToSample(Sample sample, Optional<List<String>> curationDomains) {
+    return applyAllCurationToSamples(Collections.singletonList(sample), curationDomains).get(0);
+  }
+
+  /**
+   * Applies all curation to a batch of samples. The returned samples are in the same order as the
+   * provided samples.
+   *
+   * <p>The creation dates of the curation links of every sample are read with one small projection
+   * query. Samples without curation are returned as they are, and samples whose curated form is
+   * cached for the same uncurated sample and curation links are served from the cache. The curation
+   * links of the remaining samples are then fetched with one more query.
+   *
+   * @param samples
+   * @param curationDomains
+   * @return
+   */
+  public List<Sample> applyAllCurationToSamples(
+      List<Sample> samples, Optional<List<String>> curationDomains) {
     // short-circuit if no curation domains specified
-    if (curationDomains.isPresent() && curationDomains.get().isEmpty()) {
-      return sample;
+    if (samples.isEmpty() || (curationDomains.isPresent() && curationDomains.get().isEmpty())) {
+      return samples;
     }
 
-    // Try to apply curations in the order of creation date.
-    // Because of the index in creation date mongo returns in that order
-    Set<CurationLink> curationLinks = new LinkedHashSet<>();
-    int pageNo = 0;
-    Page<CurationLink> page;
-    do {
-      Pageable pageable = new PageRequest(pageNo, 1000, Sort.Direction.ASC, "created");
-      page = getCurationLinksForSample(sample.getAccession(), pageable);
-      for (CurationLink curationLink : page) {
-        if (curationDomains.isPresent()) {
-          // curation domains restricted, curation must be part of that domain
-          if (curationDomains.get().contains(curationLink.getDomain())) {
-            curationLinks.add(curationLink);
-          }
-        } else {
-          // no curation domain restriction, use all
-          curationLinks.add(curationLink);
+    Set<String> accessions = new HashSet<>();
+    for (Sample sample : samples) {
+      accessions.add(sample.getAccession());
+    }
+
+    Map<String, CurationVersion> curationVersions = new HashMap<>();
+    for (MongoCurationLink mongoCurationLink :
+        mongoCurationLinkRepository.findCreatedBySampleIn(accessions)) {
+      curationVersions
+          .computeIfAbsent(mongoCurationLink.getSample(), k -> new CurationVersion())
+          .add(mongoCurationLink.getCreated());
+    }
+
+    Map<String, Sample> curatedSamples = new HashMap<>();
+    Set<String> uncachedAccessions = new HashSet<>();
+    for (Sample sample : samples) {
+      CurationVersion curationVersion = curationVersions.get(sample.getAccession());
+      if (curationVersion == null) {
+        curatedSamples.put(sample.getAccession(), sample);
+        continue;
+      }
+      CuratedSample cached = curatedSampleCache.getIfPresent(sample.getAccession());
+      if (cached != null && cached.isCurationOf(sample, curationDomains, curationVersion)) {
+        curatedSamples.put(sample.getAccession(), cached.curated);
+      } else {
+        uncachedAccessions.add(sample.getAccession());
+      }
+    }
+
+    if (!uncachedAccessions.isEmpty()) {
+      // Try to apply curations in the order of creation date.
+      // Because of the index in creation date mongo returns in that order
+      Map<String, List<CurationLink>> curationLinksBySample = new HashMap<>();
+      for (MongoCurationLink mongoCurationLink :
+          mongoCurationLinkRepository.findBySampleIn(
+              uncachedAccessions, new Sort(Sort.Direction.ASC, "created"))) {
+        CurationLink curationLink =
+            mongoCurationLinkToCurationLinkConverter.convert(mongoCurationLink);
+        if (isInCurationDomains(curationLink, curationDomains)) {
+          curationLinksBySample
+              .computeIfAbsent(curationLink.getSample(), k -> new ArrayList<>())
+              .add(curationLink);
         }
       }
-      pageNo += 1;
-    } while (pageNo < page.getTotalPages());
-
-    for (CurationLink curation : curationLinks) {
-      try {
-        sample = applyCurationLinkToSample(sample, curation);
-      } catch (IllegalArgumentException e) {
-        log.trace(e.getMessage());
+
+      for (Sample sample : samples) {
+        if (uncachedAccessions.contains(sample.getAccession())) {
+          Sample curated =
+              applyCurationLinksToSample(
+                  sample,
+                  curationLinksBySample.getOrDefault(
+                      sample.getAccession(), Collections.emptyList()));
+          curatedSampleCache.put(
+              sample.getAccession(),
+              new CuratedSample(
+                  sample, curationDomains, curationVersions.get(sample.getAccession()), curated));
+          curatedSamples.put(sample.getAccession(), curated);
+        }
+      }
+    }
+
+    List<Sample> orderedSamples = new ArrayList<>(samples.size());
+    for (Sample sample : samples) {
+      orderedSamples.add(curatedSamples.get(sample.getAccession()));
+    }
+    return orderedSamples;
+  }
+
+  /** Removes the curated form of a sample from the cache, e.g. when its curation changes. */
+  public void evictCuratedSample(String accession) {
+    curatedSampleCache.invalidate(accession);
+  }
+
+  /**
+   * Applies the curation links in order to a single working copy of the sample's attributes,
+   * external references and relationships, and builds the curated sample once at the end.
+   *
+   * <p>This has the same result as calling applyCurationLinkToSample for each link and skipping
+   * those that cannot be applied, without building a new sample for every link.
+   */
+  private Sample applyCurationLinksToSample(Sample sample, Collection<CurationLink> curationLinks) {
+    SortedSet<Attribute> attributes = new TreeSet<>(sample.getAttributes());
+    SortedSet<ExternalReference> externalReferences = new TreeSet<>(sample.getExternalReferences());
+    SortedSet<Relationship> relationships = new TreeSet<>(sample.getRelationships());
+
+    CurationLink lastApplied = null;
+    for (CurationLink curationLink : curationLinks) {
+      Curation curation = curationLink.getCuration();
+      if (isApplicable(attributes, curation.getAttributesPre(), curation.getAttributesPost())
+          && isApplicable(
+              externalReferences,
+              curation.getExternalReferencesPre(),
+              curation.getExternalReferencesPost())
+          && isApplicable(
+              relationships, curation.getRelationshipsPre(), curation.getRelationshipsPost())) {
+        apply(attributes, curation.getAttributesPre(), curation.getAttributesPost());
+        apply(
+            externalReferences,
+            curation.getExternalReferencesPre(),
+            curation.getExternalReferencesPost());
+        apply(relationships, curation.getRelationshipsPre(), curation.getRelationshipsPost());
+        lastApplied = curationLink;
+      } else {
+        log.trace("Failed to apply curation " + curation + " to sample " + sample.getAccession());
+      }
+    }
+
+    if (lastApplied == null) {
+      return sample;
+    }
+
+    // update the sample's reviewed date
+    Instant reviewed = lastApplied.getCreated();
+    if (reviewed != null && sample.getUpdate().isAfter(reviewed)) {
+      reviewed = sample.getUpdate();
+    }
+
+    return Sample.Builder.fromSample(sample)
+        .withReviewed(reviewed)
+        .withAttributes(attributes)
+        .withExternalReferences(externalReferences)
+        .withRelationships(relationships)
+        .build();
+  }
+
+  // every pre-curation thing must be present, and no post-curation thing may remain after removal
+  private static <T> boolean isApplicable(Set<T> current, Set<T> pre, Set<T> post) {
+    if (!current.containsAll(pre)) {
+      return false;
+    }
+    for (T t : post) {
+      if (current.contains(t) && !pre.contains(t)) {
+        return false;
       }
     }
+    return true;
+  }
 
-    return sample;
+  private static <T> void apply(Set<T> current, Set<T> pre, Set<T> post) {
+    current.removeAll(pre);
+    current.addAll(post);
+  }
+
+  private boolean isInCurationDomains(
+      CurationLink curationLink, Optional<List<String>> curationDomains) {
+    // no curation domain restriction, use all
+    // otherwise curation domains restricted, curation must be part of that domain
+    return !curationDomains.isPresent() || curationDomains.get().contains(curationLink.getDomain());
+  }
+
+  /** The number and latest creation date of the curation links of a sample. */
+  private static class CurationVersion {
+    private int count = 0;
+    private Instant latest = null;
+
+    private void add(Instant created) {
+      count += 1;
+      if (created != null && (latest == null || created.isAfter(latest))) {
+        latest = created;
+      }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o == this) return true;
+      if (!(o instanceof CurationVersion)) {
+        return false;
+      }
+      CurationVersion other = (CurationVersion) o;
+      return count == other.count && Objects.equals(latest, other.latest);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(count, latest);
+    }
+  }
+
+  private static class CuratedSample {
+    private final Sample uncurated;
+    private final Optional<List<String>> curationDomains;
+    private final CurationVersion curationVersion;
+    private final Sample curated;
+
+    private CuratedSample(
+        Sample uncurated,
+        Optional<List<String>> curationDomains,
+        CurationVersion curationVersion,
+        Sample curated) {
+      this.uncurated = uncurated;
+      this.curationDomains = curationDomains;
+      this.curationVersion = curationVersion;
+      this.curated = curated;
+    }
+
+    private boolean isCurationOf(
+        Sample sample, Optional<List<String>> curationDomains, CurationVersion curationVersion) {
+      // inverse relationships are part of the uncurated sample, so compare the whole sample
+      return this.curationVersion.equals(curationVersion)
+          && this.curationDomains.equals(curationDomains)
+          && this.uncurated.equals(sample);
+    }
   }
 }
@@ -0,0 +1,128 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Service;
+import uk.ac.ebi.biosamples.BioSamplesProperties;
+import uk.ac.ebi.biosamples.model.Sample;
+import uk.ac.ebi.biosamples.model.StaticViewWrapper;
+
+/**
+ * Per-node {@link SampleCache} bounded by number of accessions and by time since they were cached.
+ *
+ * <p>A load that started before an eviction of the same accession is not cached, so a read racing
+ * with a write cannot put the old version of a sample back.
+ *
+ * <p>Only writes made through this node evict entries. Writes by other webapp nodes, the curated
+ * view materializer or the pipelines are not seen until the entry expires, so with more than one
+ * writer the time to live bounds how stale reads and access checks on cached samples can be. Keep
+ * it at a few seconds, or disable the cache, in multi-node deployments.
+ */
+@Service
+public class InMemorySampleCache implements SampleCache {
+
+  private final boolean enabled;
+  private final Cache<String, Map<Variant, Sample>> cache;
+  private final LongAdder hitCount = new LongAdder();
+  private final LongAdder missCount = new LongAdder();
+
+  public InMemorySampleCache(BioSamplesProperties bioSamplesProperties) {
+    enabled = bioSamplesProperties.getSampleCacheMaxEntries() > 0;
+    cache =
+        CacheBuilder.newBuilder()
+            .maximumSize(bioSamplesProperties.getSampleCacheMaxEntries())
+            .expireAfterWrite(bioSamplesProperties.getSampleCacheTtl(), TimeUnit.SECONDS)
+            .recordStats()
+            .build();
+  }
+
+  @Override
+  public Optional<Sample> get(
+      String accession,
+      Optional<List<String>> curationDomains,
+      StaticViewWrapper.StaticView staticView,
+      Supplier<Optional<Sample>> loader) {
+    if (!enabled) {
+      return loader.get();
+    }
+
+    Variant variant = new Variant(curationDomains, staticView);
+    Map<Variant, Sample> variants =
+        cache.asMap().computeIfAbsent(accession, k -> new ConcurrentHashMap<>());
+
+    Sample sample = variants.get(variant);
+    if (sample != null) {
+      hitCount.increment();
+      return Optional.of(sample);
+    }
+    missCount.increment();
+
+    Optional<Sample> loaded = loader.get();
+    if (loaded.isPresent()) {
+      // if the accession was evicted while loading this goes into a detached map and is dropped
+      variants.put(variant, loaded.get());
+    } else if (variants.isEmpty()) {
+      cache.asMap().remove(accession, variants);
+    }
+    return loaded;
+  }
+
+  @Override
+  public void evict(String accession) {
+    cache.invalidate(accession);
+  }
+
+  @Override
+  public long size() {
+    return cache.size();
+  }
+
+  @Override
+  public CacheStats stats() {
+    return new CacheStats(hitCount.sum(), missCount.sum(), 0, 0, 0, cache.stats().evictionCount());
+  }
+
+  private static class Variant {
+    private final Optional<List<String>> curationDomains;
+    private final StaticViewWrapper.StaticView staticView;
+
+    private Variant(
+        Optional<List<String>> curationDomains, StaticViewWrapper.StaticView staticView) {
+      this.curationDomains = curationDomains;
+      this.staticView = staticView;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Variant)) return false;
+      Variant other = (Variant) o;
+      return Objects.equals(curationDomains, other.curationDomains)
+          && staticView == other.staticView;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(curationDomains, staticView);
+    }
+  }
+}
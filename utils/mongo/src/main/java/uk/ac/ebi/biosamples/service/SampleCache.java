@@ -0,0 +1,58 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.service;
+
+import com.google.common.cache.CacheStats;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+import uk.ac.ebi.biosamples.model.Sample;
+import uk.ac.ebi.biosamples.model.StaticViewWrapper;
+
+/**
+ * Cache-aside store for single samples as returned by {@link SampleReadService}. Entries are held
+ * per accession so that everything cached for a sample, whatever curation domains or static view it
+ * was read with, can be dropped whenever that sample is written to.
+ *
+ * <p>The default implementation is {@link InMemorySampleCache}, which is not evicted by writes from
+ * other nodes; declare a {@code @Primary} bean of this type to share the cache between nodes
+ * instead.
+ */
+public interface SampleCache {
+
+  /**
+   * Returns the cached sample, or calls the loader and caches its result if it is present.
+   *
+   * @param accession
+   * @param curationDomains
+   * @param staticView
+   * @param loader
+   * @return
+   */
+  Optional<Sample> get(
+      String accession,
+      Optional<List<String>> curationDomains,
+      StaticViewWrapper.StaticView staticView,
+      Supplier<Optional<Sample>> loader);
+
+  void evict(String accession);
+
+  default void evictAll(Collection<String> accessions) {
+    for (String accession : accessions) {
+      evict(accession);
+    }
+  }
+
+  long size();
+
+  CacheStats stats();
+}
@@ -10,7 +10,12 @@
 */
 package uk.ac.ebi.biosamples.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
@@ -45,6 +50,7 @@ public class SampleReadService {
 
   private final CurationReadService curationReadService;
   private final MongoInverseRelationshipService mongoInverseRelationshipService;
+  private final SampleCache sampleCache;
 
   private final ExecutorService executorService;
 
@@ -53,11 +59,13 @@ public class SampleReadService {
       MongoSampleToSampleConverter mongoSampleToSampleConverter,
       CurationReadService curationReadService,
       MongoInverseRelationshipService mongoInverseRelationshipService,
+      SampleCache sampleCache,
       BioSamplesProperties bioSamplesProperties) {
     this.mongoSampleRepository = mongoSampleRepository;
     this.mongoSampleToSampleConverter = mongoSampleToSampleConverter;
     this.curationReadService = curationReadService;
     this.mongoInverseRelationshipService = mongoInverseRelationshipService;
+    this.sampleCache = sampleCache;
     executorService =
         AdaptiveThreadPoolExecutor.create(
             10000,
@@ -115,15 +123,49 @@ public class SampleReadService {
     return Optional.of(sample);
   }
 
+  /**
+   * Fetches a single sample through the {@link SampleCache}. Anything that writes to a sample, its
+   * curation links or its relationships must evict it from the cache.
+   *
+   * @param accession
+   * @param curationDomains
+   * @param staticViews
+   * @return
+   */
   public Optional<Sample> fetch(
       String accession,
       Optional<List<String>> curationDomains,
       StaticViewWrapper.StaticView staticViews) {
+    return sampleCache.get(
+        accession,
+        curationDomains,
+        staticViews,
+        () -> fetchUncached(accession, curationDomains, staticViews));
+  }
 
+  /**
+   * Fetches a single sample from the database, bypassing the {@link SampleCache}
+   *
+   * @param accession
+   * @param curationDomains
+   * @param staticViews
+   * @return
+   */
+  public Optional<Sample> fetchUncached(
+      String accession,
+      Optional<List<String>> curationDomains,
+      StaticViewWrapper.StaticView staticViews) {
     Sample sample;
     MongoSample mongoSample =
         mongoSampleRepository.findSampleFromCollection(accession, staticViews);
 
+    // the curated view is materialized shortly after a sample is written, so until then it is
+    // computed like the dynamic view
+    if (mongoSample == null && !staticViews.equals(StaticViewWrapper.StaticView.SAMPLES_DYNAMIC)) {
+      staticViews = StaticViewWrapper.StaticView.SAMPLES_DYNAMIC;
+      mongoSample = mongoSampleRepository.findSampleFromCollection(accession, staticViews);
+    }
+
     if (mongoSample == null) {
       LOGGER.warn("failed to retrieve sample with accession {}", accession);
       sample = null;
@@ -140,6 +182,94 @@ public class SampleReadService {
     return sample == null ? Optional.empty() : Optional.of(sample);
   }
 
+  /**
+   * Fetches a batch of samples using a fixed number of queries regardless of the number of
+   * accessions: one for the samples, one for their inverse relationships and one for their curation
+   * links. Samples are returned in the order of the provided accessions, and accessions that do not
+   * exist are omitted.
+   *
+   * @param accessions
+   * @param curationDomains
+   * @param staticViews
+   * @return
+   */
+  public List<Sample> fetchAll(
+      Collection<String> accessions,
+      Optional<List<String>> curationDomains,
+      StaticViewWrapper.StaticView staticViews) {
+    if (accessions.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    long startTime, endTime;
+
+    startTime = System.nanoTime();
+    List<MongoSample> mongoSamples =
+        mongoSampleRepository.findSamplesFromCollection(accessions, staticViews);
+    endTime = System.nanoTime();
+    LOGGER.trace(
+        "Got "
+            + mongoSamples.size()
+            + " mongo samples in "
+            + ((endTime - startTime) / 1000000)
+            + "ms");
+
+    boolean dynamic = staticViews.equals(StaticViewWrapper.StaticView.SAMPLES_DYNAMIC);
+    if (dynamic) {
+      startTime = System.nanoTime();
+      mongoInverseRelationshipService.addInverseRelationships(mongoSamples);
+      endTime = System.nanoTime();
+      LOGGER.trace("Got inverse relationships in " + ((endTime - startTime) / 1000000) + "ms");
+    }
+
+    List<Sample> samples = new ArrayList<>(mongoSamples.size());
+    for (MongoSample mongoSample : mongoSamples) {
+      samples.add(mongoSampleToSampleConverter.convert(mongoSample));
+    }
+
+    if (dynamic) {
+      startTime = System.nanoTime();
+      samples = curationReadService.applyAllCurationToSamples(samples, curationDomains);
+      endTime = System.nanoTime();
+      LOGGER.trace("Applied curation in " + ((endTime - startTime) / 1000000) + "ms");
+    }
+
+    // mongo does not preserve the order of an $in query so restore the requested order
+    Map<String, Sample> samplesByAccession = new HashMap<>();
+    for (Sample sample : samples) {
+      samplesByAccession.put(sample.getAccession(), sample);
+    }
+
+    // samples that are not in the curated view yet are computed like the dynamic view
+    if (!dynamic && samplesByAccession.size() < accessions.size()) {
+      List<String> missing = new ArrayList<>();
+      for (String accession : accessions) {
+        if (!samplesByAccession.containsKey(accession)) {
+          missing.add(accession);
+        }
+      }
+      for (Sample sample :
+          fetchAll(missing, curationDomains, StaticViewWrapper.StaticView.SAMPLES_DYNAMIC)) {
+        samplesByAccession.put(sample.getAccession(), sample);
+      }
+    }
+    List<Sample> orderedSamples = new ArrayList<>(accessions.size());
+    for (String accession : accessions) {
+      Sample sample = samplesByAccession.get(accession);
+      if (sample == null) {
+        LOGGER.warn("failed to retrieve sample with accession {}", accession);
+      } else {
+        orderedSamples.add(sample);
+      }
+    }
+    return orderedSamples;
+  }
+
+  public List<Sample> fetchAll(
+      Collection<String> accessions, Optional<List<String>> curationDomains) {
+    return fetchAll(accessions, curationDomains, StaticViewWrapper.StaticView.SAMPLES_DYNAMIC);
+  }
+
   public Future<Optional<Sample>> fetchAsync(
       String accession, Optional<List<String>> curationDomains) {
     return executorService.submit(new FetchCallable(accession, this, curationDomains));
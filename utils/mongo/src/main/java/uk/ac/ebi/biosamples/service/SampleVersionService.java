@@ -0,0 +1,134 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.service;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import uk.ac.ebi.biosamples.mongo.model.MongoCurationLink;
+import uk.ac.ebi.biosamples.mongo.model.MongoSample;
+import uk.ac.ebi.biosamples.mongo.repo.MongoCurationLinkRepository;
+
+/**
+ * Computes a version stamp for the dynamically curated view of a sample from projections of the
+ * sample, its curation links and the samples with relationships to it, without fetching and
+ * curating the sample itself. The stamp changes whenever any of those is written, so it can be used
+ * to answer conditional requests.
+ */
+@Service
+public class SampleVersionService {
+
+  private final MongoOperations mongoOperations;
+  private final MongoCurationLinkRepository mongoCurationLinkRepository;
+
+  public SampleVersionService(
+      MongoOperations mongoOperations, MongoCurationLinkRepository mongoCurationLinkRepository) {
+    this.mongoOperations = mongoOperations;
+    this.mongoCurationLinkRepository = mongoCurationLinkRepository;
+  }
+
+  /**
+   * @param accession
+   * @param curationDomains as requested, they are part of the stamp as they change what is applied
+   * @param variant anything else the representation depends on, e.g. the requested media type
+   * @return empty if the sample does not exist
+   */
+  public Optional<SampleVersion> fetchVersion(
+      String accession, Optional<List<String>> curationDomains, String variant) {
+    Query sampleQuery = new Query(Criteria.where("_id").is(accession));
+    sampleQuery.fields().include("update").include("release");
+    MongoSample mongoSample = mongoOperations.findOne(sampleQuery, MongoSample.class);
+    if (mongoSample == null || mongoSample.getUpdate() == null) {
+      return Optional.empty();
+    }
+
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putString(accession, StandardCharsets.UTF_8).putChar('\n');
+    hasher.putString(variant, StandardCharsets.UTF_8).putChar('\n');
+    hasher.putBoolean(curationDomains.isPresent());
+    for (String curationDomain : curationDomains.orElse(Collections.emptyList())) {
+      hasher.putString(curationDomain, StandardCharsets.UTF_8).putChar('\n');
+    }
+
+    Instant lastModified = mongoSample.getUpdate();
+    hasher.putLong(mongoSample.getUpdate().toEpochMilli());
+    hasher.putLong(mongoSample.getRelease() == null ? 0 : mongoSample.getRelease().toEpochMilli());
+
+    // the ids of the links are hashes of their content, so a removed link changes the stamp too
+    Map<String, Instant> curationLinks = new TreeMap<>();
+    for (MongoCurationLink mongoCurationLink :
+        mongoCurationLinkRepository.findCreatedBySampleIn(Collections.singleton(accession))) {
+      curationLinks.put(mongoCurationLink.getHash(), mongoCurationLink.getCreated());
+    }
+    lastModified = addToStamp(hasher, curationLinks, lastModified);
+
+    // inverse relationships come from other samples, which are updated when their relationships are
+    Query inverseQuery = new Query(Criteria.where("relationships.target").is(accession));
+    inverseQuery.fields().include("update");
+    Map<String, Instant> inverseSources = new TreeMap<>();
+    for (MongoSample other : mongoOperations.find(inverseQuery, MongoSample.class)) {
+      inverseSources.put(other.getAccession(), other.getUpdate());
+    }
+    lastModified = addToStamp(hasher, inverseSources, lastModified);
+
+    return Optional.of(
+        new SampleVersion(hasher.hash().toString(), lastModified, mongoSample.getRelease()));
+  }
+
+  private static Instant addToStamp(
+      Hasher hasher, Map<String, Instant> versions, Instant lastModified) {
+    hasher.putInt(versions.size());
+    for (Map.Entry<String, Instant> version : versions.entrySet()) {
+      hasher.putString(version.getKey(), StandardCharsets.UTF_8).putChar('\n');
+      if (version.getValue() != null) {
+        hasher.putLong(version.getValue().toEpochMilli());
+        if (version.getValue().isAfter(lastModified)) {
+          lastModified = version.getValue();
+        }
+      }
+    }
+    return lastModified;
+  }
+
+  public static class SampleVersion {
+    private final String etag;
+    private final Instant lastModified;
+    private final Instant release;
+
+    public SampleVersion(String etag, Instant lastModified, Instant release) {
+      this.etag = etag;
+      this.lastModified = lastModified;
+      this.release = release;
+    }
+
+    public String getEtag() {
+      return etag;
+    }
+
+    public Instant getLastModified() {
+      return lastModified;
+    }
+
+    public Instant getRelease() {
+      return release;
+    }
+  }
+}
@@ -0,0 +1,131 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import uk.ac.ebi.biosamples.mongo.model.MongoChangeCheckpoint;
+import uk.ac.ebi.biosamples.mongo.model.MongoSampleChange;
+import uk.ac.ebi.biosamples.mongo.service.MongoSampleChangeService;
+import uk.ac.ebi.biosamples.mongo.service.SampleToMongoSampleConverter;
+
+public class CuratedViewMaterializerTest {
+  private MongoOperations mongoOperations;
+  private MongoSampleChangeService mongoSampleChangeService;
+  private CuratedViewMaterializer curatedViewMaterializer;
+
+  private final List<MongoSampleChange> changes = new ArrayList<>();
+  private MongoChangeCheckpoint checkpoint;
+
+  @Before
+  public void setUp() {
+    mongoOperations = mock(MongoOperations.class);
+    SampleReadService sampleReadService = mock(SampleReadService.class);
+    mongoSampleChangeService = mock(MongoSampleChangeService.class);
+    curatedViewMaterializer =
+        new CuratedViewMaterializer(
+            mongoOperations,
+            sampleReadService,
+            mock(SampleToMongoSampleConverter.class),
+            mongoSampleChangeService);
+
+    when(sampleReadService.fetchAll(anyCollectionOf(String.class), eq(Optional.empty())))
+        .thenReturn(Collections.emptyList());
+    when(mongoOperations.find(any(Query.class), eq(MongoSampleChange.class)))
+        .thenAnswer(
+            invocation -> {
+              List<MongoSampleChange> after = new ArrayList<>();
+              for (MongoSampleChange change : changes) {
+                if (checkpoint == null || change.getSequence() > checkpoint.getLastSequence()) {
+                  after.add(change);
+                }
+              }
+              return after;
+            });
+    when(mongoOperations.findById(CuratedViewMaterializer.CHECKPOINT, MongoChangeCheckpoint.class))
+        .thenAnswer(invocation -> checkpoint);
+    doAnswer(
+            invocation -> {
+              checkpoint = (MongoChangeCheckpoint) invocation.getArguments()[0];
+              return null;
+            })
+        .when(mongoOperations)
+        .save(any(MongoChangeCheckpoint.class));
+  }
+
+  @Test
+  public void contiguousChangesAreMaterialized() {
+    record(1, 2, 3);
+
+    assertEquals(3, curatedViewMaterializer.materializeChanges(10));
+    assertEquals(3, checkpoint.getLastSequence());
+    assertEquals(0, curatedViewMaterializer.materializeChanges(10));
+    assertFalse(curatedViewMaterializer.isWaitingForMissingChange());
+  }
+
+  @Test
+  public void missingChangeHoldsBackTheChangesAfterIt() {
+    record(1, 2, 4, 5);
+
+    assertEquals(2, curatedViewMaterializer.materializeChanges(10));
+    assertEquals(2, checkpoint.getLastSequence());
+    assertEquals(0, curatedViewMaterializer.materializeChanges(10));
+    assertTrue(curatedViewMaterializer.isWaitingForMissingChange());
+
+    record(3);
+    changes.sort((a, b) -> Long.compare(a.getSequence(), b.getSequence()));
+
+    assertEquals(3, curatedViewMaterializer.materializeChanges(10));
+    assertEquals(5, checkpoint.getLastSequence());
+    assertFalse(curatedViewMaterializer.isWaitingForMissingChange());
+  }
+
+  @Test
+  public void missingChangeIsSkippedOnceItTimesOut() {
+    curatedViewMaterializer.gapTimeout = Duration.ZERO;
+    record(1, 3);
+
+    assertEquals(2, curatedViewMaterializer.materializeChanges(10));
+    assertEquals(3, checkpoint.getLastSequence());
+  }
+
+  @Test
+  public void pendingIsWorkedOutFromTheSequence() {
+    when(mongoSampleChangeService.getLastSequence()).thenReturn(5L);
+    record(1, 2);
+    curatedViewMaterializer.materializeChanges(10);
+
+    assertEquals(3, curatedViewMaterializer.getPending());
+  }
+
+  private void record(long... sequences) {
+    for (long sequence : sequences) {
+      changes.add(MongoSampleChange.build(sequence, "SAMEA" + sequence));
+    }
+  }
+}
@@ -21,10 +21,9 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
+import uk.ac.ebi.biosamples.BioSamplesProperties;
 import uk.ac.ebi.biosamples.model.*;
 import uk.ac.ebi.biosamples.mongo.model.MongoCurationLink;
 import uk.ac.ebi.biosamples.mongo.repo.MongoCurationLinkRepository;
@@ -36,6 +35,7 @@ import uk.ac.ebi.biosamples.mongo.service.MongoCurationToCurationConverter;
 @RunWith(SpringRunner.class)
 @SpringBootTest(
     classes = {
+      BioSamplesProperties.class,
       CurationReadService.class,
       MongoCurationLinkToCurationLinkConverter.class,
       MongoCurationToCurationConverter.class
@@ -56,8 +56,10 @@ public class CurationReadServiceTest {
   public void setup() {
     List<MongoCurationLink> mongoCurationLinks =
         convertToMongoCurationList(getCurationLinksForTest());
-    Mockito.when(mongoCurationLinkRepository.findBySample(Mockito.anyString(), Mockito.any()))
-        .thenReturn(new PageImpl<>(mongoCurationLinks, new PageRequest(0, 10), 1));
+    Mockito.when(mongoCurationLinkRepository.findCreatedBySampleIn(Mockito.any()))
+        .thenReturn(mongoCurationLinks);
+    Mockito.when(mongoCurationLinkRepository.findBySampleIn(Mockito.any(), Mockito.any()))
+        .thenReturn(mongoCurationLinks);
   }
 
   @Test
@@ -137,6 +139,72 @@ public class CurationReadServiceTest {
     }
   }
 
+  @Test
+  public void applyAllCurationToSamples_test_keeps_order_and_uncurated_samples() {
+    Sample originalSample = getSampleForTest();
+    Sample uncuratedSample =
+        Sample.Builder.fromSample(originalSample).withAccession("SAMN0002").build();
+
+    List<Sample> curatedSamples =
+        curationReadService.applyAllCurationToSamples(
+            Arrays.asList(uncuratedSample, originalSample), Optional.empty());
+
+    Assert.assertEquals(2, curatedSamples.size());
+    Assert.assertEquals(uncuratedSample, curatedSamples.get(0));
+    Assert.assertEquals("SAMN0001", curatedSamples.get(1).getAccession());
+    Assert.assertTrue(
+        curatedSamples
+            .get(1)
+            .getAttributes()
+            .contains(Attribute.build("NewCuration", "new value", "iri", "unit")));
+  }
+
+  @Test
+  public void applyAllCurationToSample_test_cached_until_curation_changes() {
+    Sample originalSample =
+        Sample.Builder.fromSample(getSampleForTest()).withAccession("SAMN0003").build();
+    List<MongoCurationLink> mongoCurationLinks =
+        convertToMongoCurationList(
+            Collections.singletonList(
+                CurationLink.build(
+                    "SAMN0003",
+                    Curation.build(null, Attribute.build("Cached", "first")),
+                    "self.domain",
+                    null,
+                    Instant.now())));
+    Mockito.when(mongoCurationLinkRepository.findCreatedBySampleIn(Mockito.any()))
+        .thenReturn(mongoCurationLinks);
+    Mockito.when(mongoCurationLinkRepository.findBySampleIn(Mockito.any(), Mockito.any()))
+        .thenReturn(mongoCurationLinks);
+
+    Sample first = curationReadService.applyAllCurationToSample(originalSample, Optional.empty());
+    Sample second = curationReadService.applyAllCurationToSample(originalSample, Optional.empty());
+    Assert.assertSame(first, second);
+    Mockito.verify(mongoCurationLinkRepository, Mockito.times(1))
+        .findBySampleIn(Mockito.any(), Mockito.any());
+
+    // a new curation link changes the version of the curation, so the cache is not used
+    List<MongoCurationLink> newMongoCurationLinks = new ArrayList<>(mongoCurationLinks);
+    newMongoCurationLinks.addAll(
+        convertToMongoCurationList(
+            Collections.singletonList(
+                CurationLink.build(
+                    "SAMN0003",
+                    Curation.build(
+                        Attribute.build("Cached", "first"), Attribute.build("Cached", "second")),
+                    "self.domain",
+                    null,
+                    Instant.now().plusSeconds(5)))));
+    Mockito.when(mongoCurationLinkRepository.findCreatedBySampleIn(Mockito.any()))
+        .thenReturn(newMongoCurationLinks);
+    Mockito.when(mongoCurationLinkRepository.findBySampleIn(Mockito.any(), Mockito.any()))
+        .thenReturn(newMongoCurationLinks);
+
+    Sample third = curationReadService.applyAllCurationToSample(originalSample, Optional.empty());
+    Assert.assertTrue(third.getAttributes().contains(Attribute.build("Cached", "second")));
+    Assert.assertFalse(third.getAttributes().contains(Attribute.build("Cached", "first")));
+  }
+
   private List<CurationLink> getCurationLinksForTest() {
     List<CurationLink> curationLinks = new ArrayList<>();
 
@@ -144,49 +212,53 @@ public class CurationReadServiceTest {
     Attribute attributePost = Attribute.build("Organism", "Homo sapiens", "iri", "unit");
     Curation curation = Curation.build(attributePre, attributePost);
     CurationLink curationLink =
-        CurationLink.build("SAMN001", curation, "self.domain", null, Instant.now());
+        CurationLink.build("SAMN0001", curation, "self.domain", null, Instant.now());
     curationLinks.add(curationLink);
 
     attributePre = Attribute.build("Organism", "Homo sapiens", "iri", "unit");
     attributePost = Attribute.build("organism", "Bos taurus", "iri", "unit");
     curation = Curation.build(attributePre, attributePost);
     curationLink =
-        CurationLink.build("SAMN001", curation, "self.domain", null, Instant.now().plusSeconds(5));
+        CurationLink.build("SAMN0001", curation, "self.domain", null, Instant.now().plusSeconds(5));
     curationLinks.add(curationLink);
 
     attributePre = Attribute.build("Organism", "Homo sapiens", "iri", "unit");
     attributePost = Attribute.build("organism", "should not be this", "iri", "unit");
     curation = Curation.build(attributePre, attributePost);
     curationLink =
-        CurationLink.build("SAMN001", curation, "self.domain", null, Instant.now().plusSeconds(7));
+        CurationLink.build("SAMN0001", curation, "self.domain", null, Instant.now().plusSeconds(7));
     curationLinks.add(curationLink);
 
     attributePre = Attribute.build("Weird", "weired value");
     attributePost = null;
     curation = Curation.build(attributePre, attributePost);
     curationLink =
-        CurationLink.build("SAMN001", curation, "self.domain", null, Instant.now().plusSeconds(10));
+        CurationLink.build(
+            "SAMN0001", curation, "self.domain", null, Instant.now().plusSeconds(10));
     curationLinks.add(curationLink);
 
     attributePre = null;
     attributePost = Attribute.build("NewCuration", "new value", "iri", "unit");
     curation = Curation.build(attributePre, attributePost);
     curationLink =
-        CurationLink.build("SAMN001", curation, "self.domain", null, Instant.now().plusSeconds(15));
+        CurationLink.build(
+            "SAMN0001", curation, "self.domain", null, Instant.now().plusSeconds(15));
     curationLinks.add(curationLink);
 
     attributePre = Attribute.build("CurationDomain", "domain-a");
     attributePost = Attribute.build("CurationDomain", "domain-b");
     curation = Curation.build(attributePre, attributePost);
     curationLink =
-        CurationLink.build("SAMN001", curation, "self.domain", null, Instant.now().plusSeconds(20));
+        CurationLink.build(
+            "SAMN0001", curation, "self.domain", null, Instant.now().plusSeconds(20));
     curationLinks.add(curationLink);
 
     attributePre = Attribute.build("CurationDomain", "domain-a");
     attributePost = Attribute.build("CurationDomain", "domain-c");
     curation = Curation.build(attributePre, attributePost);
     curationLink =
-        CurationLink.build("SAMN001", curation, "self.domain", null, Instant.now().plusSeconds(25));
+        CurationLink.build(
+            "SAMN0001", curation, "self.domain", null, Instant.now().plusSeconds(25));
     curationLinks.add(curationLink);
 
     ExternalReference externalReferencePre = ExternalReference.build("www.ebi.ac.uk/test/1");
@@ -198,7 +270,8 @@ public class CurationReadServiceTest {
             Collections.singletonList(externalReferencePre),
             Collections.singletonList(externalReferencePost));
     curationLink =
-        CurationLink.build("SAMN001", curation, "self.domain", null, Instant.now().plusSeconds(40));
+        CurationLink.build(
+            "SAMN0001", curation, "self.domain", null, Instant.now().plusSeconds(40));
     curationLinks.add(curationLink);
 
     externalReferencePre = ExternalReference.build("www.ebi.ac.uk/test/a");
@@ -210,7 +283,8 @@ public class CurationReadServiceTest {
             Collections.singletonList(externalReferencePre),
             Collections.singletonList(externalReferencePost));
     curationLink =
-        CurationLink.build("SAMN001", curation, "self.domain", null, Instant.now().plusSeconds(45));
+        CurationLink.build(
+            "SAMN0001", curation, "self.domain", null, Instant.now().plusSeconds(45));
     curationLinks.add(curationLink);
 
     externalReferencePre = ExternalReference.build("www.ebi.ac.uk/test/1");
@@ -222,19 +296,22 @@ public class CurationReadServiceTest {
             Collections.singletonList(externalReferencePre),
             Collections.singletonList(externalReferencePost));
     curationLink =
-        CurationLink.build("SAMN001", curation, "self.domain", null, Instant.now().plusSeconds(50));
+        CurationLink.build(
+            "SAMN0001", curation, "self.domain", null, Instant.now().plusSeconds(50));
     curationLinks.add(curationLink);
 
     externalReferencePost = ExternalReference.build("www.ebi.ac.uk/test/new");
     curation = Curation.build(null, null, null, Collections.singletonList(externalReferencePost));
     curationLink =
-        CurationLink.build("SAMN001", curation, "self.domain", null, Instant.now().plusSeconds(55));
+        CurationLink.build(
+            "SAMN0001", curation, "self.domain", null, Instant.now().plusSeconds(55));
     curationLinks.add(curationLink);
 
     externalReferencePre = ExternalReference.build("www.ebi.ac.uk/test/delete");
     curation = Curation.build(null, null, Collections.singletonList(externalReferencePre), null);
     curationLink =
-        CurationLink.build("SAMN001", curation, "self.domain", null, Instant.now().plusSeconds(60));
+        CurationLink.build(
+            "SAMN0001", curation, "self.domain", null, Instant.now().plusSeconds(60));
     curationLinks.add(curationLink);
 
     return curationLinks;
@@ -0,0 +1,103 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.service;
+
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import uk.ac.ebi.biosamples.BioSamplesProperties;
+import uk.ac.ebi.biosamples.model.Sample;
+import uk.ac.ebi.biosamples.model.StaticViewWrapper.StaticView;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {BioSamplesProperties.class, InMemorySampleCache.class})
+public class InMemorySampleCacheTest {
+
+  @Autowired private InMemorySampleCache sampleCache;
+
+  @Test
+  public void get_test_loads_once_per_view_until_evicted() {
+    Sample sample = new Sample.Builder("name", "SAMEA0001").build();
+    AtomicInteger loads = new AtomicInteger();
+
+    for (int i = 0; i < 3; i++) {
+      sampleCache.get(
+          "SAMEA0001",
+          Optional.empty(),
+          StaticView.SAMPLES_DYNAMIC,
+          () -> {
+            loads.incrementAndGet();
+            return Optional.of(sample);
+          });
+    }
+    Assert.assertEquals(1, loads.get());
+
+    sampleCache.get(
+        "SAMEA0001",
+        Optional.of(Collections.singletonList("self.domain")),
+        StaticView.SAMPLES_DYNAMIC,
+        () -> {
+          loads.incrementAndGet();
+          return Optional.of(sample);
+        });
+    Assert.assertEquals(2, loads.get());
+
+    sampleCache.evict("SAMEA0001");
+    sampleCache.get(
+        "SAMEA0001",
+        Optional.empty(),
+        StaticView.SAMPLES_DYNAMIC,
+        () -> {
+          loads.incrementAndGet();
+          return Optional.of(sample);
+        });
+    Assert.assertEquals(3, loads.get());
+  }
+
+  @Test
+  public void get_test_does_not_cache_load_that_raced_with_eviction() {
+    Sample stale = new Sample.Builder("stale", "SAMEA0002").build();
+    Sample fresh = new Sample.Builder("fresh", "SAMEA0002").build();
+
+    sampleCache.get(
+        "SAMEA0002",
+        Optional.empty(),
+        StaticView.SAMPLES_DYNAMIC,
+        () -> {
+          // a write to the sample lands while it is being read
+          sampleCache.evict("SAMEA0002");
+          return Optional.of(stale);
+        });
+
+    Optional<Sample> sample =
+        sampleCache.get(
+            "SAMEA0002", Optional.empty(), StaticView.SAMPLES_DYNAMIC, () -> Optional.of(fresh));
+    Assert.assertEquals("fresh", sample.get().getName());
+  }
+
+  @Test
+  public void get_test_does_not_cache_missing_samples() {
+    sampleCache.get("SAMEA0003", Optional.empty(), StaticView.SAMPLES_DYNAMIC, Optional::empty);
+    Optional<Sample> sample =
+        sampleCache.get(
+            "SAMEA0003",
+            Optional.empty(),
+            StaticView.SAMPLES_DYNAMIC,
+            () -> Optional.of(new Sample.Builder("name", "SAMEA0003").build()));
+    Assert.assertTrue(sample.isPresent());
+  }
+}
@@ -0,0 +1,136 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import uk.ac.ebi.biosamples.model.Attribute;
+import uk.ac.ebi.biosamples.model.Curation;
+import uk.ac.ebi.biosamples.mongo.model.MongoCurationLink;
+import uk.ac.ebi.biosamples.mongo.model.MongoSample;
+import uk.ac.ebi.biosamples.mongo.repo.MongoCurationLinkRepository;
+
+public class SampleVersionServiceTest {
+  private static final String ACCESSION = "SAMEA123456";
+  private static final Instant UPDATE = Instant.parse("2020-01-01T00:00:00Z");
+  private static final Instant RELEASE = Instant.parse("2019-01-01T00:00:00Z");
+
+  private MongoOperations mongoOperations;
+  private MongoCurationLinkRepository mongoCurationLinkRepository;
+  private SampleVersionService sampleVersionService;
+
+  private final List<MongoCurationLink> curationLinks = new ArrayList<>();
+  private final List<MongoSample> inverseSources = new ArrayList<>();
+
+  @Before
+  public void setUp() {
+    mongoOperations = mock(MongoOperations.class);
+    mongoCurationLinkRepository = mock(MongoCurationLinkRepository.class);
+    sampleVersionService = new SampleVersionService(mongoOperations, mongoCurationLinkRepository);
+
+    MongoSample sample = mongoSample(ACCESSION, UPDATE);
+    when(sample.getRelease()).thenReturn(RELEASE);
+    when(mongoOperations.findOne(any(Query.class), eq(MongoSample.class))).thenReturn(sample);
+    when(mongoOperations.find(any(Query.class), eq(MongoSample.class))).thenReturn(inverseSources);
+    when(mongoCurationLinkRepository.findCreatedBySampleIn(Collections.singleton(ACCESSION)))
+        .thenReturn(curationLinks);
+  }
+
+  @Test
+  public void missingSampleHasNoVersion() {
+    when(mongoOperations.findOne(any(Query.class), eq(MongoSample.class))).thenReturn(null);
+
+    assertFalse(sampleVersionService.fetchVersion(ACCESSION, Optional.empty(), "").isPresent());
+  }
+
+  @Test
+  public void versionIsStableWhileNothingChanges() {
+    SampleVersionService.SampleVersion first = fetchVersion();
+    SampleVersionService.SampleVersion second = fetchVersion();
+
+    assertEquals(first.getEtag(), second.getEtag());
+    assertEquals(UPDATE, first.getLastModified());
+    assertEquals(RELEASE, first.getRelease());
+  }
+
+  @Test
+  public void newCurationLinkChangesVersion() {
+    SampleVersionService.SampleVersion before = fetchVersion();
+
+    Instant created = UPDATE.plusSeconds(60);
+    curationLinks.add(
+        MongoCurationLink.build(
+            ACCESSION,
+            Curation.build(
+                Attribute.build("organism", "human"), Attribute.build("organism", "9606")),
+            "self.test",
+            null,
+            created));
+    SampleVersionService.SampleVersion after = fetchVersion();
+
+    assertNotEquals(before.getEtag(), after.getEtag());
+    assertEquals(created, after.getLastModified());
+  }
+
+  @Test
+  public void updatedInverseRelationshipSourceChangesVersion() {
+    inverseSources.add(mongoSample("SAMEA1", UPDATE.minusSeconds(60)));
+    SampleVersionService.SampleVersion before = fetchVersion();
+
+    inverseSources.set(0, mongoSample("SAMEA1", UPDATE.plusSeconds(60)));
+    SampleVersionService.SampleVersion after = fetchVersion();
+
+    assertNotEquals(before.getEtag(), after.getEtag());
+    assertEquals(UPDATE, before.getLastModified());
+    assertEquals(UPDATE.plusSeconds(60), after.getLastModified());
+  }
+
+  @Test
+  public void curationDomainsAndVariantChangeVersion() {
+    String etag = fetchVersion().getEtag();
+
+    assertNotEquals(
+        etag,
+        sampleVersionService
+            .fetchVersion(ACCESSION, Optional.of(Collections.emptyList()), "hal")
+            .get()
+            .getEtag());
+    assertNotEquals(
+        etag,
+        sampleVersionService.fetchVersion(ACCESSION, Optional.empty(), "xml").get().getEtag());
+  }
+
+  private SampleVersionService.SampleVersion fetchVersion() {
+    return sampleVersionService.fetchVersion(ACCESSION, Optional.empty(), "hal").get();
+  }
+
+  private static MongoSample mongoSample(String accession, Instant update) {
+    MongoSample mongoSample = mock(MongoSample.class);
+    when(mongoSample.getAccession()).thenReturn(accession);
+    when(mongoSample.getUpdate()).thenReturn(update);
+    return mongoSample;
+  }
+}
@@ -0,0 +1,231 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.ols;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import uk.ac.ebi.biosamples.BioSamplesProperties;
+
+/**
+ * Two tier cache of OLS lookups. The first tier is a bounded in-memory cache, the second is an
+ * optional directory with one file per lookup so that a restarted process does not have to query
+ * OLS again for every term. Terms that OLS does not know are cached too, for a shorter time.
+ *
+ * <p>The directory is pruned when it is opened and whenever it grows past its maximum number of
+ * entries, removing expired entries and then the least recently written.
+ *
+ * <p>Failures of the disk tier are logged and otherwise ignored, it only ever makes lookups slower.
+ */
+@Service
+public class OlsCache {
+  private final Logger log = LoggerFactory.getLogger(getClass());
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final Cache<String, Entry> memoryCache;
+  private final Path directory;
+  private final long maxDirectoryEntries;
+  private final AtomicLong directoryEntries = new AtomicLong();
+  private final long ttl;
+  private final long notFoundTtl;
+
+  public OlsCache(BioSamplesProperties bioSamplesProperties) {
+    memoryCache =
+        CacheBuilder.newBuilder().maximumSize(bioSamplesProperties.getOlsCacheMaxEntries()).build();
+    String cacheDir = bioSamplesProperties.getOlsCacheDir();
+    directory = cacheDir == null || cacheDir.trim().isEmpty() ? null : Paths.get(cacheDir);
+    maxDirectoryEntries = bioSamplesProperties.getOlsCacheDirMaxEntries();
+    ttl = bioSamplesProperties.getOlsCacheTtl();
+    notFoundTtl = bioSamplesProperties.getOlsCacheNotFoundTtl();
+    if (directory != null) {
+      prune();
+    }
+  }
+
+  /**
+   * Returns the cached values for the key, or calls the loader and caches what it returns. The
+   * loader should return an empty optional when OLS does not know the key. Exceptions thrown by the
+   * loader are not cached.
+   *
+   * @param namespace type of lookup, e.g. the ontology that is being searched
+   * @param key
+   * @param loader
+   * @return
+   */
+  public Optional<List<String>> get(
+      String namespace, String key, Supplier<Optional<? extends Collection<String>>> loader) {
+    String cacheKey = namespace + " " + key;
+    Instant now = Instant.now();
+
+    Entry entry = memoryCache.getIfPresent(cacheKey);
+    if (entry == null || entry.isExpired(now)) {
+      entry = read(namespace, cacheKey);
+      if (entry == null || entry.isExpired(now)) {
+        Optional<? extends Collection<String>> values = loader.get();
+        entry =
+            values
+                .map(v -> new Entry(cacheKey, new ArrayList<>(v), now.plusSeconds(ttl)))
+                .orElseGet(() -> new Entry(cacheKey, null, now.plusSeconds(notFoundTtl)));
+        write(namespace, entry);
+      }
+      memoryCache.put(cacheKey, entry);
+    }
+    return Optional.ofNullable(entry.values);
+  }
+
+  public boolean contains(String namespace, String key) {
+    String cacheKey = namespace + " " + key;
+    Instant now = Instant.now();
+    Entry entry = memoryCache.getIfPresent(cacheKey);
+    if (entry == null) {
+      entry = read(namespace, cacheKey);
+    }
+    return entry != null && !entry.isExpired(now);
+  }
+
+  private Path getPath(String namespace, String cacheKey) {
+    String hash = Hashing.sha256().hashString(cacheKey, StandardCharsets.UTF_8).toString();
+    return directory.resolve(namespace).resolve(hash.substring(0, 2)).resolve(hash + ".json");
+  }
+
+  private Entry read(String namespace, String cacheKey) {
+    if (directory == null) {
+      return null;
+    }
+    try {
+      Entry entry = objectMapper.readValue(getPath(namespace, cacheKey).toFile(), Entry.class);
+      // guard against hash collisions
+      return cacheKey.equals(entry.key) ? entry : null;
+    } catch (NoSuchFileException | FileNotFoundException e) {
+      return null;
+    } catch (IOException e) {
+      log.warn("Unable to read cached OLS lookup " + cacheKey, e);
+      return null;
+    }
+  }
+
+  private void write(String namespace, Entry entry) {
+    if (directory == null) {
+      return;
+    }
+    try {
+      Path path = getPath(namespace, entry.key);
+      Files.createDirectories(path.getParent());
+      // write to a temporary file first so readers never see a partial entry
+      Path temp = Files.createTempFile(path.getParent(), "ols", ".tmp");
+      objectMapper.writeValue(temp.toFile(), entry);
+      boolean added = !Files.exists(path);
+      Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      if (added && directoryEntries.incrementAndGet() > maxDirectoryEntries) {
+        prune();
+      }
+    } catch (IOException e) {
+      log.warn("Unable to write cached OLS lookup " + entry.key, e);
+    }
+  }
+
+  /**
+   * Deletes the entries in the directory that are older than any time to live, then the oldest
+   * remaining entries until it is down to 90% of its maximum so it is not pruned again straight
+   * away.
+   */
+  synchronized void prune() {
+    Map<Path, Long> lastModified = new HashMap<>();
+    try (Stream<Path> paths = Files.walk(directory)) {
+      for (Path path : (Iterable<Path>) paths::iterator) {
+        if (path.getFileName().toString().endsWith(".json")) {
+          lastModified.put(path, Files.getLastModifiedTime(path).toMillis());
+        }
+      }
+    } catch (NoSuchFileException e) {
+      directoryEntries.set(0);
+      return;
+    } catch (IOException | UncheckedIOException e) {
+      log.warn("Unable to list cached OLS lookups in " + directory, e);
+      return;
+    }
+
+    List<Path> oldestFirst = new ArrayList<>(lastModified.keySet());
+    oldestFirst.sort(Comparator.comparing(lastModified::get));
+    long expiredBefore = Instant.now().minusSeconds(Math.max(ttl, notFoundTtl)).toEpochMilli();
+    long target = maxDirectoryEntries * 9 / 10;
+    long remaining = oldestFirst.size();
+    for (Path path : oldestFirst) {
+      if (remaining <= target && lastModified.get(path) >= expiredBefore) {
+        break;
+      }
+      try {
+        Files.deleteIfExists(path);
+        remaining--;
+      } catch (IOException e) {
+        log.warn("Unable to delete cached OLS lookup " + path, e);
+      }
+    }
+    directoryEntries.set(remaining);
+    log.debug("Pruned cached OLS lookups in {} to {} entries", directory, remaining);
+  }
+
+  static class Entry {
+    @JsonProperty("key")
+    final String key;
+
+    /** null if OLS does not know the key */
+    @JsonProperty("values")
+    final List<String> values;
+
+    @JsonProperty("expires")
+    final long expires;
+
+    private Entry(String key, List<String> values, Instant expires) {
+      this(key, values, expires.toEpochMilli());
+    }
+
+    @JsonCreator
+    Entry(
+        @JsonProperty("key") String key,
+        @JsonProperty("values") List<String> values,
+        @JsonProperty("expires") long expires) {
+      this.key = key;
+      this.values = values;
+      this.expires = expires;
+    }
+
+    boolean isExpired(Instant now) {
+      return now.toEpochMilli() >= expires;
+    }
+  }
+}
@@ -17,7 +17,6 @@ import java.net.URI;
 import java.util.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -41,9 +40,13 @@ public class OlsProcessor {
 
   private final BioSamplesProperties bioSamplesProperties;
 
-  public OlsProcessor(RestTemplate restTemplate, BioSamplesProperties bioSamplesProperties) {
+  private final OlsCache olsCache;
+
+  public OlsProcessor(
+      RestTemplate restTemplate, BioSamplesProperties bioSamplesProperties, OlsCache olsCache) {
     this.restTemplate = restTemplate;
     this.bioSamplesProperties = bioSamplesProperties;
+    this.olsCache = olsCache;
   }
 
   /**
@@ -51,14 +54,12 @@ public class OlsProcessor {
    * @param iri must be unencoded
    * @return
    */
-  @Cacheable("ols_ancestors_synonyms")
   public Collection<String> ancestorsAndSynonyms(String ontology, String iri) {
-    Set<String> synonyms = new HashSet<>();
     if (ontology == null || ontology.trim().length() == 0) {
-      return synonyms;
+      return Collections.emptySet();
     }
     if (iri == null || iri.trim().length() == 0) {
-      return synonyms;
+      return Collections.emptySet();
     }
 
     // check if the iri is a full iri with all the necessary parts
@@ -68,9 +69,19 @@ public class OlsProcessor {
         || iriComponents.getHost() == null
         || iriComponents.getPath() == null) {
       // incomplete iri (e.g. 9606, EFO_12345) don't bother to check
-      return synonyms;
+      return Collections.emptySet();
     }
 
+    // terms OLS does not know are cached as not found so they are not asked for again
+    return olsCache
+        .get("ancestors-" + ontology, iri, () -> fetchAncestorsAndSynonyms(ontology, iri))
+        .<Collection<String>>map(LinkedHashSet::new)
+        .orElse(Collections.emptySet());
+  }
+
+  private Optional<Set<String>> fetchAncestorsAndSynonyms(String ontology, String iri) {
+    Set<String> synonyms = new LinkedHashSet<>();
+
     // TODO do more by hal links, needs OLS to support
     // build has to flag this iri as having already been encoded
     UriComponents uriComponents =
@@ -104,10 +115,11 @@ public class OlsProcessor {
           ClientUtils.<Void, JsonNode>doRetryQuery(
               requestEntity, restTemplate, 5, new ParameterizedTypeReference<JsonNode>() {});
     } catch (HttpStatusCodeException e) {
-      // if we get a 404, return an empty list
+      // if we get a 404, the term is not in that ontology
       if (e.getStatusCode() == HttpStatus.NOT_FOUND) {
-        return Collections.emptyList();
+        return Optional.empty();
       }
+      throw e;
     }
 
     JsonNode n = responseEntity.getBody();
@@ -134,11 +146,16 @@ public class OlsProcessor {
       }
     }
 
-    return synonyms;
+    return Optional.of(synonyms);
   }
 
-  // @Cacheable("ols_short")
   public Optional<String> queryOlsForShortcode(String shortcode) {
+    return olsCache
+        .get("shortcode", shortcode, () -> fetchIriForShortcode(shortcode))
+        .flatMap(iris -> iris.stream().findFirst());
+  }
+
+  private Optional<List<String>> fetchIriForShortcode(String shortcode) {
     log.trace("OLS getting : " + shortcode);
 
     // TODO do more by hal links, needs OLS to support
@@ -195,7 +212,10 @@ public class OlsProcessor {
         }
       }
     }
-    return Optional.ofNullable(iri);
+    if (iri == null) {
+      return Optional.empty();
+    }
+    return Optional.of(Collections.singletonList(iri));
   }
 
   public Optional<OlsResult> queryForOlsObject(String shortcode) {
@@ -0,0 +1,112 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.ols;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import uk.ac.ebi.biosamples.BioSamplesProperties;
+
+public class OlsCacheTest {
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private OlsCache createCache(String dir, int notFoundTtl) {
+    return createCache(dir, notFoundTtl, 100);
+  }
+
+  private OlsCache createCache(String dir, int notFoundTtl, int maxDirectoryEntries) {
+    BioSamplesProperties bioSamplesProperties = mock(BioSamplesProperties.class);
+    when(bioSamplesProperties.getOlsCacheMaxEntries()).thenReturn(100);
+    when(bioSamplesProperties.getOlsCacheDirMaxEntries()).thenReturn(maxDirectoryEntries);
+    when(bioSamplesProperties.getOlsCacheTtl()).thenReturn(3600);
+    when(bioSamplesProperties.getOlsCacheNotFoundTtl()).thenReturn(notFoundTtl);
+    when(bioSamplesProperties.getOlsCacheDir()).thenReturn(dir);
+    return new OlsCache(bioSamplesProperties);
+  }
+
+  @Test
+  public void lookups_are_persisted_across_instances() throws Exception {
+    String dir = temporaryFolder.getRoot().getAbsolutePath();
+    AtomicInteger calls = new AtomicInteger();
+
+    Optional<List<String>> first =
+        createCache(dir, 3600)
+            .get(
+                "efo",
+                "http://www.ebi.ac.uk/efo/EFO_0000001",
+                () -> {
+                  calls.incrementAndGet();
+                  return Optional.of(Arrays.asList("a", "b"));
+                });
+    Optional<List<String>> second =
+        createCache(dir, 3600)
+            .get(
+                "efo",
+                "http://www.ebi.ac.uk/efo/EFO_0000001",
+                () -> {
+                  calls.incrementAndGet();
+                  return Optional.of(Collections.emptyList());
+                });
+
+    assertEquals(1, calls.get());
+    assertEquals(Arrays.asList("a", "b"), first.get());
+    assertEquals(first, second);
+  }
+
+  @Test
+  public void not_found_lookups_are_cached_until_they_expire() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+
+    OlsCache olsCache = createCache("", 3600);
+    olsCache.get("efo", "unknown", () -> notFound(calls));
+    assertFalse(olsCache.get("efo", "unknown", () -> notFound(calls)).isPresent());
+    assertTrue(olsCache.contains("efo", "unknown"));
+    assertEquals(1, calls.get());
+
+    OlsCache expiringCache = createCache("", 0);
+    expiringCache.get("efo", "unknown", () -> notFound(calls));
+    expiringCache.get("efo", "unknown", () -> notFound(calls));
+    assertEquals(3, calls.get());
+  }
+
+  @Test
+  public void directory_is_pruned_to_its_maximum_entries() throws Exception {
+    String dir = temporaryFolder.getRoot().getAbsolutePath();
+    OlsCache olsCache = createCache(dir, 3600, 10);
+    for (int i = 0; i < 11; i++) {
+      olsCache.get("efo", "term" + i, () -> Optional.of(Collections.singletonList("a")));
+    }
+
+    try (Stream<Path> paths = Files.walk(temporaryFolder.getRoot().toPath())) {
+      assertEquals(9, paths.filter(path -> path.toString().endsWith(".json")).count());
+    }
+  }
+
+  private Optional<List<String>> notFound(AtomicInteger calls) {
+    calls.incrementAndGet();
+    return Optional.empty();
+  }
+}
@@ -37,7 +37,9 @@ import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestTemplate;
 
 @RunWith(SpringRunner.class)
-@SpringBootTest(classes = TestApplication.class)
+@SpringBootTest(
+    classes = TestApplication.class,
+    properties = {"biosamples.ols.cache.dir="})
 @AutoConfigureWebClient
 public class OlsProcessorTest {
 
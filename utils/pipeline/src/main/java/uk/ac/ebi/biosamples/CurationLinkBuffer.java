@@ -0,0 +1,118 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.biosamples.client.BioSamplesClient;
+import uk.ac.ebi.biosamples.model.Curation;
+import uk.ac.ebi.biosamples.model.CurationLink;
+
+/**
+ * Collects the curations made by pipeline tasks and persists them a batch at a time through the
+ * bulk curation links endpoint, instead of a request per curation.
+ *
+ * <p>Thread safe, so one buffer can be shared by all tasks of a pipeline run. A batch is sent by
+ * the task that fills it, and the rest once the run is closed. A batch that fails is logged and its
+ * samples are reported by {@link #getFailedAccessions()}, so one failure does not fail the task
+ * that happened to send it.
+ */
+public class CurationLinkBuffer implements AutoCloseable {
+  private static final Logger LOG = LoggerFactory.getLogger(CurationLinkBuffer.class);
+
+  private final BioSamplesClient bioSamplesClient;
+  private final int batchSize;
+  private final boolean isWebin;
+
+  private final Queue<String> failedAccessions = new ConcurrentLinkedQueue<>();
+  private final AtomicLong persistedCount = new AtomicLong();
+  private List<CurationLink> buffer;
+
+  /**
+   * @param batchSize number of curation links sent in each request
+   * @param isWebin whether the curations are made with a WEBIN ID rather than a domain
+   */
+  public CurationLinkBuffer(BioSamplesClient bioSamplesClient, int batchSize, boolean isWebin) {
+    if (batchSize < 1) throw new IllegalArgumentException("batchSize must be at least 1");
+    this.bioSamplesClient = bioSamplesClient;
+    this.batchSize = batchSize;
+    this.isWebin = isWebin;
+    this.buffer = new ArrayList<>(batchSize);
+  }
+
+  /** Adds a curation of a sample, sending the batch if this fills it */
+  public void add(String accession, Curation curation, String webinIdOrDomain) {
+    CurationLink curationLink =
+        isWebin
+            ? CurationLink.build(accession, curation, null, webinIdOrDomain, null)
+            : CurationLink.build(accession, curation, webinIdOrDomain, null, null);
+    List<CurationLink> batch = null;
+    synchronized (this) {
+      buffer.add(curationLink);
+      if (buffer.size() >= batchSize) {
+        batch = buffer;
+        buffer = new ArrayList<>(batchSize);
+      }
+    }
+    if (batch != null) {
+      send(batch);
+    }
+  }
+
+  /** Sends the curations added so far */
+  public void flush() {
+    List<CurationLink> batch;
+    synchronized (this) {
+      if (buffer.isEmpty()) {
+        return;
+      }
+      batch = buffer;
+      buffer = new ArrayList<>(batchSize);
+    }
+    send(batch);
+  }
+
+  @Override
+  public void close() {
+    flush();
+  }
+
+  private void send(List<CurationLink> batch) {
+    try {
+      bioSamplesClient.persistCurationLinks(batch, isWebin);
+      persistedCount.addAndGet(batch.size());
+    } catch (RuntimeException e) {
+      Set<String> accessions = new LinkedHashSet<>();
+      for (CurationLink curationLink : batch) {
+        accessions.add(curationLink.getSample());
+      }
+      LOG.error("Failed to persist " + batch.size() + " curations on " + accessions, e);
+      failedAccessions.addAll(accessions);
+    }
+  }
+
+  /** Samples with curations in a batch that failed to persist */
+  public Queue<String> getFailedAccessions() {
+    return failedAccessions;
+  }
+
+  /** Number of curations persisted so far */
+  public long getPersistedCount() {
+    return persistedCount.get();
+  }
+}
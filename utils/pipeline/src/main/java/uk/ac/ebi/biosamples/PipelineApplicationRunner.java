@@ -13,11 +13,8 @@ package uk.ac.ebi.biosamples;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.Callable;
-import java.util.concurrent.Future;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.ApplicationArguments;
@@ -30,7 +27,6 @@ import uk.ac.ebi.biosamples.model.filter.Filter;
 import uk.ac.ebi.biosamples.utils.AdaptiveThreadPoolExecutor;
 import uk.ac.ebi.biosamples.utils.ArgUtils;
 import uk.ac.ebi.biosamples.utils.MailSender;
-import uk.ac.ebi.biosamples.utils.ThreadUtils;
 
 public abstract class PipelineApplicationRunner implements ApplicationRunner {
   protected final Logger LOG = LoggerFactory.getLogger(getClass());
@@ -67,8 +63,15 @@ public abstract class PipelineApplicationRunner implements ApplicationRunner {
             pipelinesProperties.getThreadCount(),
             pipelinesProperties.getThreadCountMax())) {
 
-      Map<String, Future<PipelineResult>> futures = new HashMap<>();
-      for (Resource<Sample> sampleResource : bioSamplesClient.fetchSampleResourceAll("", filters)) {
+      PipelineExecutor<PipelineResult> pipelineExecutor =
+          new PipelineExecutor<>(
+              getPipelineName(),
+              executorService,
+              pipelinesProperties.getInFlightMax(),
+              pipelineFutureCallback);
+      for (Resource<Sample> sampleResource :
+          bioSamplesClient.fetchSampleResourceAll(
+              "", filters, pipelinesProperties.getCursorPartitions())) {
         Sample sample = Objects.requireNonNull(sampleResource.getContent());
         LOG.trace("Handling {}", sample);
 
@@ -77,11 +80,11 @@ public abstract class PipelineApplicationRunner implements ApplicationRunner {
         if (sampleCount % 10000 == 0) {
           LOG.info("{} samples scheduled for processing", sampleCount);
         }
-        futures.put(sample.getAccession(), executorService.submit(task));
+        pipelineExecutor.submit(task);
       }
 
-      LOG.info("waiting for futures to finish");
-      ThreadUtils.checkAndCallbackFutures(futures, 0, pipelineFutureCallback);
+      LOG.info("waiting for remaining tasks");
+      pipelineExecutor.awaitCompletion();
     } catch (final Exception e) {
       LOG.error("Pipeline failed to finish successfully", e);
       MailSender.sendEmail(
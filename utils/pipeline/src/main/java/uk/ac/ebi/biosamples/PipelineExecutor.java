@@ -0,0 +1,138 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import uk.ac.ebi.biosamples.utils.ThreadUtils;
+
+/**
+ * Runs pipeline tasks on an executor with a bounded number of tasks in flight. Submitting blocks
+ * once the window is full until a task completes, and results are passed to the callback in the
+ * order they complete, so memory does not grow with the number of samples processed. The first task
+ * that fails aborts the run, its exception is thrown from submit or awaitCompletion.
+ *
+ * <p>Not thread safe: tasks must be submitted and drained from a single thread, which is also the
+ * thread the callback is called on.
+ */
+public class PipelineExecutor<T> {
+  private static final Logger LOG = LoggerFactory.getLogger(PipelineExecutor.class);
+  private static final long REPORT_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+
+  private final String name;
+  private final CompletionService<T> completionService;
+  private final int maxInFlight;
+  private final ThreadUtils.Callback<T> callback;
+
+  private final long startTime = System.nanoTime();
+  private long submittedCount = 0;
+  private long completedCount = 0;
+  private long lastReportTime = startTime;
+  private long lastReportCount = 0;
+
+  public PipelineExecutor(
+      String name,
+      ExecutorService executorService,
+      int maxInFlight,
+      ThreadUtils.Callback<T> callback) {
+    if (maxInFlight < 1) throw new IllegalArgumentException("maxInFlight must be at least 1");
+    this.name = name;
+    this.completionService = new ExecutorCompletionService<>(executorService);
+    this.maxInFlight = maxInFlight;
+    this.callback = callback;
+  }
+
+  /**
+   * Submits a task, first waiting for one to complete if the window is full. Results of any tasks
+   * that have completed in the meantime are passed to the callback.
+   *
+   * @throws ExecutionException if a completed task threw an exception
+   */
+  public void submit(Callable<T> task) throws InterruptedException, ExecutionException {
+    while (getInFlightCount() >= maxInFlight) {
+      complete(completionService.take());
+    }
+    completionService.submit(task);
+    submittedCount++;
+
+    Future<T> future;
+    while ((future = completionService.poll()) != null) {
+      complete(future);
+    }
+  }
+
+  /**
+   * Waits for all submitted tasks to complete, passing their results to the callback.
+   *
+   * @throws ExecutionException if a completed task threw an exception
+   */
+  public void awaitCompletion() throws InterruptedException, ExecutionException {
+    while (getInFlightCount() > 0) {
+      complete(completionService.take());
+    }
+    LOG.info(
+        "{}: {} tasks completed, {} per second overall",
+        name,
+        completedCount,
+        String.format("%.1f", getThroughput()));
+  }
+
+  private void complete(Future<T> future) throws InterruptedException, ExecutionException {
+    completedCount++;
+    try {
+      callback.call(future.get());
+    } finally {
+      report();
+    }
+  }
+
+  private void report() {
+    long now = System.nanoTime();
+    if (now - lastReportTime >= REPORT_INTERVAL) {
+      double recentThroughput =
+          (completedCount - lastReportCount) * 1e9 / (double) (now - lastReportTime);
+      LOG.info(
+          "{}: {} tasks completed ({} per second), {} in flight",
+          name,
+          completedCount,
+          String.format("%.1f", recentThroughput),
+          getInFlightCount());
+      lastReportTime = now;
+      lastReportCount = completedCount;
+    }
+  }
+
+  public long getSubmittedCount() {
+    return submittedCount;
+  }
+
+  public long getCompletedCount() {
+    return completedCount;
+  }
+
+  /** Number of tasks submitted whose result has not been passed to the callback yet. */
+  public long getInFlightCount() {
+    return submittedCount - completedCount;
+  }
+
+  /** Tasks completed per second since this executor was created. */
+  public double getThroughput() {
+    long elapsed = System.nanoTime() - startTime;
+    return elapsed == 0 ? 0 : completedCount * 1e9 / elapsed;
+  }
+}
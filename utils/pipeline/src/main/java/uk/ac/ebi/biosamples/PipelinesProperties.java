@@ -25,6 +25,14 @@ public class PipelinesProperties {
   @Value("${biosamples.pipelines.threadcount.max:8}")
   private int threadCountMax;
 
+  // number of samples submitted to the pool whose results have not been consumed yet
+  @Value("${biosamples.pipelines.inflight.max:1000}")
+  private int inFlightMax;
+
+  // cursors over disjoint partitions of the samples used at once when iterating over all of them
+  @Value("${biosamples.pipelines.cursor.partitions:4}")
+  private int cursorPartitions;
+
   @Value("${biosamples.pipelines.connectioncount.max:8}")
   private int connectionCountMax;
 
@@ -43,18 +51,35 @@ public class PipelinesProperties {
   @Value("${biosamples.pipelines.zooma:https://www.ebi.ac.uk/spot/zooma}")
   private String zooma;
 
+  // curations are looked up by appending the sample accession to this url
+  @Value(
+      "${biosamples.pipelines.clearinghouse:https://www.ebi.ac.uk/ena/clearinghouse/api/curations/}")
+  private String clearinghouse;
+
   @Value("${biosamples.pipelines.ncbi.domain:self.BiosampleImportNCBI}")
   private String ncbiDomain;
 
   @Value("${biosamples.pipelines.ncbi.controlledaccess:true}")
   private Boolean ncbiControlledAccess;
 
+  // skip samples that have not changed since they were last imported
+  @Value("${biosamples.pipelines.ncbi.skipunchanged:true}")
+  private Boolean ncbiSkipUnchanged;
+
+  // read biosample_set.xml with XmlStreamFragmenter, parsing each sample on the worker threads
+  @Value("${biosamples.pipelines.ncbi.stream:true}")
+  private Boolean ncbiStream;
+
   @Value("${biosamples.pipelines.ena.domain:self.BiosampleImportENA}")
   private String enaDomain;
 
   @Value("${biosamples.pipelines.ena.webin_id:Webin-40894}")
   private String proxyWebinId;
 
+  // samples fetched from ERAPRO per query
+  @Value("${biosamples.pipelines.ena.batchsize:500}")
+  private int enaBatchSize;
+
   @Value("${biosamples.pipelines.accession.domain:self.BiosampleImportAcccession}")
   private String accessionDomain;
 
@@ -67,6 +92,18 @@ public class PipelinesProperties {
   @Value("${biosamples.pipelines.copydown.domain:self.BiosampleCopydown}")
   private String copydownDomain;
 
+  // number of curations persisted at a time by the curation pipelines
+  @Value("${biosamples.pipelines.curationlinks.batchsize:500}")
+  private int curationLinksBatchSize;
+
+  // number of changes materialized into the curated view at a time
+  @Value("${biosamples.pipelines.curatedview.batchsize:1000}")
+  private int curatedViewBatchSize;
+
+  // in seconds, keep polling for changes this often once caught up, or exit if 0
+  @Value("${biosamples.pipelines.curatedview.poll:0}")
+  private int curatedViewPoll;
+
   @Value("${biosamples.schemaValidator:http://localhost:3020/validate}")
   private String schemaValidator;
 
@@ -89,6 +126,18 @@ public class PipelinesProperties {
     return ncbiControlledAccess;
   }
 
+  public Boolean getNcbiSkipUnchanged() {
+    return ncbiSkipUnchanged;
+  }
+
+  public Boolean getNcbiStream() {
+    return ncbiStream;
+  }
+
+  public int getEnaBatchSize() {
+    return enaBatchSize;
+  }
+
   public String getEnaDomain() {
     return enaDomain;
   }
@@ -97,6 +146,10 @@ public class PipelinesProperties {
     return accessionDomain;
   }
 
+  public int getCurationLinksBatchSize() {
+    return curationLinksBatchSize;
+  }
+
   public String getCurationDomain() {
     return curationDomain;
   }
@@ -117,6 +170,14 @@ public class PipelinesProperties {
     return threadCountMax;
   }
 
+  public int getCursorPartitions() {
+    return cursorPartitions;
+  }
+
+  public int getInFlightMax() {
+    return inFlightMax;
+  }
+
   public int getConnectionCountMax() {
     return connectionCountMax;
   }
@@ -141,6 +202,10 @@ public class PipelinesProperties {
     return zooma;
   }
 
+  public String getClearinghouse() {
+    return clearinghouse;
+  }
+
   public String getSchemaValidator() {
     return schemaValidator;
   }
@@ -148,4 +213,12 @@ public class PipelinesProperties {
   public String getSchemaStore() {
     return schemaStore;
   }
+
+  public int getCuratedViewBatchSize() {
+    return curatedViewBatchSize;
+  }
+
+  public int getCuratedViewPoll() {
+    return curatedViewPoll;
+  }
 }
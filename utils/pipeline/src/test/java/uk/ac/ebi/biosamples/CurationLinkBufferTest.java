@@ -0,0 +1,125 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples;
+
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import uk.ac.ebi.biosamples.client.BioSamplesClient;
+import uk.ac.ebi.biosamples.model.Attribute;
+import uk.ac.ebi.biosamples.model.Curation;
+import uk.ac.ebi.biosamples.model.CurationLink;
+
+public class CurationLinkBufferTest {
+  private final Curation curation =
+      Curation.build(
+          Attribute.build("organism", "human"), Attribute.build("organism", "Homo sapiens"));
+
+  private final List<List<CurationLink>> batches = Collections.synchronizedList(new ArrayList<>());
+  private BioSamplesClient bioSamplesClient;
+
+  @Before
+  public void setUp() {
+    bioSamplesClient = mock(BioSamplesClient.class);
+    doAnswer(
+            invocation -> {
+              @SuppressWarnings("unchecked")
+              Collection<CurationLink> curationLinks =
+                  (Collection<CurationLink>) invocation.getArguments()[0];
+              batches.add(new ArrayList<>(curationLinks));
+              return Collections.emptyList();
+            })
+        .when(bioSamplesClient)
+        .persistCurationLinks(anyCollectionOf(CurationLink.class), anyBoolean());
+  }
+
+  @Test
+  public void add_test_sends_full_batches_and_the_rest_on_close() {
+    try (CurationLinkBuffer curationLinkBuffer =
+        new CurationLinkBuffer(bioSamplesClient, 2, false)) {
+      curationLinkBuffer.add("SAMEA1", curation, "self.test");
+      Assert.assertTrue(batches.isEmpty());
+      curationLinkBuffer.add("SAMEA2", curation, "self.test");
+      curationLinkBuffer.add("SAMEA3", curation, "self.test");
+      Assert.assertEquals(1, batches.size());
+    }
+
+    Assert.assertEquals(2, batches.size());
+    Assert.assertEquals(Arrays.asList("SAMEA1", "SAMEA2"), samples(batches.get(0)));
+    Assert.assertEquals(Collections.singletonList("SAMEA3"), samples(batches.get(1)));
+    Assert.assertEquals("self.test", batches.get(0).get(0).getDomain());
+  }
+
+  @Test
+  public void add_test_reports_samples_of_failed_batch() {
+    doAnswer(
+            invocation -> {
+              throw new IllegalStateException("bulk request failed");
+            })
+        .when(bioSamplesClient)
+        .persistCurationLinks(anyCollectionOf(CurationLink.class), anyBoolean());
+
+    CurationLinkBuffer curationLinkBuffer = new CurationLinkBuffer(bioSamplesClient, 2, false);
+    curationLinkBuffer.add("SAMEA1", curation, "self.test");
+    curationLinkBuffer.add("SAMEA1", curation, "self.test");
+    curationLinkBuffer.add("SAMEA2", curation, "self.test");
+    curationLinkBuffer.close();
+
+    Assert.assertEquals(
+        Arrays.asList("SAMEA1", "SAMEA2"),
+        new ArrayList<>(curationLinkBuffer.getFailedAccessions()));
+    Assert.assertEquals(0, curationLinkBuffer.getPersistedCount());
+  }
+
+  @Test
+  public void add_test_sends_each_curation_once_from_many_threads() throws Exception {
+    CurationLinkBuffer curationLinkBuffer = new CurationLinkBuffer(bioSamplesClient, 7, true);
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    for (int i = 0; i < 100; i++) {
+      String accession = "SAMEA" + i;
+      executorService.submit(() -> curationLinkBuffer.add(accession, curation, "Webin-1"));
+    }
+    executorService.shutdown();
+    Assert.assertTrue(executorService.awaitTermination(10, TimeUnit.SECONDS));
+    curationLinkBuffer.close();
+
+    List<String> sent = new ArrayList<>();
+    for (List<CurationLink> batch : batches) {
+      Assert.assertTrue(batch.size() <= 7);
+      sent.addAll(samples(batch));
+    }
+    Assert.assertEquals(100, sent.size());
+    Assert.assertEquals(100, sent.stream().distinct().count());
+    Assert.assertEquals(100, curationLinkBuffer.getPersistedCount());
+    Assert.assertEquals("Webin-1", batches.get(0).get(0).getWebinSubmissionAccountId());
+  }
+
+  private List<String> samples(List<CurationLink> curationLinks) {
+    List<String> samples = new ArrayList<>();
+    for (CurationLink curationLink : curationLinks) {
+      samples.add(curationLink.getSample());
+    }
+    return samples;
+  }
+}
@@ -0,0 +1,76 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PipelineExecutorTest {
+  private final ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+  @After
+  public void shutdown() {
+    executorService.shutdownNow();
+  }
+
+  @Test
+  public void submit_test_keeps_in_flight_tasks_within_window() throws Exception {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    List<Integer> results = new ArrayList<>();
+    PipelineExecutor<Integer> pipelineExecutor =
+        new PipelineExecutor<>("test", executorService, 2, results::add);
+
+    for (int i = 0; i < 20; i++) {
+      int value = i;
+      pipelineExecutor.submit(
+          () -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            Thread.sleep(5);
+            running.decrementAndGet();
+            return value;
+          });
+      Assert.assertTrue(pipelineExecutor.getInFlightCount() <= 2);
+    }
+    pipelineExecutor.awaitCompletion();
+
+    Assert.assertTrue(maxRunning.get() <= 2);
+    Assert.assertEquals(20, results.size());
+    Assert.assertEquals(20, pipelineExecutor.getCompletedCount());
+    Assert.assertEquals(0, pipelineExecutor.getInFlightCount());
+  }
+
+  @Test
+  public void submit_test_throws_failed_task() throws Exception {
+    PipelineExecutor<Integer> pipelineExecutor =
+        new PipelineExecutor<>("test", executorService, 1, result -> {});
+
+    try {
+      // the failure is thrown from whichever call sees the task complete first
+      pipelineExecutor.submit(
+          () -> {
+            throw new IllegalStateException("failed");
+          });
+      pipelineExecutor.submit(() -> 1);
+      pipelineExecutor.awaitCompletion();
+      Assert.fail("Expected the failure of the first task to be thrown");
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+  }
+}
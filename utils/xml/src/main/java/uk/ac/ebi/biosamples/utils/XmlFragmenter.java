@@ -38,7 +38,7 @@ import org.xml.sax.helpers.DefaultHandler;
 public class XmlFragmenter {
   private SAXParserFactory factory = SAXParserFactory.newInstance();
 
-  private XmlFragmenter() {}
+  XmlFragmenter() {}
 
   public void handleStream(InputStream inputStream, String encoding, ElementCallback... callback)
       throws ParserConfigurationException, SAXException, IOException {
@@ -0,0 +1,290 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.utils;
+
+import java.io.InputStream;
+import java.io.StringReader;
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.dom4j.DocumentException;
+import org.dom4j.Element;
+import org.dom4j.io.SAXReader;
+import org.springframework.stereotype.Service;
+import org.xml.sax.Attributes;
+
+/**
+ * Reads an input stream of XML (with StAX) and calls a provided handler with the text of each
+ * element of interest. Unlike {@link XmlFragmenter} no DOM is built while reading, so the handler
+ * can pass the fragment to other threads to be parsed with {@link #parseFragment(String)} and
+ * processed, leaving the reading thread to only copy the fragments out.
+ */
+@Service
+public class XmlStreamFragmenter {
+  // creating a reader looks up and configures a new SAX parser, so each thread keeps its own
+  private static final ThreadLocal<SAXReader> SAX_READER = ThreadLocal.withInitial(SAXReader::new);
+
+  private final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+
+  public XmlStreamFragmenter() {
+    inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+  }
+
+  public void handleStream(InputStream inputStream, String encoding, FragmentCallback callback)
+      throws XMLStreamException {
+    XMLStreamReader reader = inputFactory.createXMLStreamReader(inputStream, encoding);
+    Attributes attributes = new ReaderAttributes(reader);
+    // copied by hand rather than with an XMLStreamWriter, as it is most of the reading thread's
+    // work
+    StringBuilder fragment = new StringBuilder();
+    int depth = 0;
+
+    try {
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+          case XMLStreamConstants.START_ELEMENT:
+            if (depth == 0
+                && callback.isBlockStart(
+                    nonNull(reader.getNamespaceURI()),
+                    reader.getLocalName(),
+                    qName(reader.getPrefix(), reader.getLocalName()),
+                    attributes)) {
+              fragment.setLength(0);
+              depth = 1;
+              appendStartElement(reader, fragment);
+            } else if (depth > 0) {
+              depth++;
+              appendStartElement(reader, fragment);
+            }
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            if (depth > 0) {
+              fragment.append("</");
+              appendQName(reader.getPrefix(), reader.getLocalName(), fragment);
+              fragment.append('>');
+              if (--depth == 0) {
+                try {
+                  callback.handleFragment(fragment.toString());
+                } catch (Exception e) {
+                  throw new RuntimeException(e);
+                }
+              }
+            }
+            break;
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.SPACE:
+          case XMLStreamConstants.CDATA:
+            if (depth > 0) {
+              appendEscaped(
+                  reader.getTextCharacters(),
+                  reader.getTextStart(),
+                  reader.getTextLength(),
+                  fragment);
+            }
+            break;
+          default:
+            // comments, processing instructions and the document itself are not copied
+        }
+      }
+    } finally {
+      reader.close();
+    }
+  }
+
+  private static void appendStartElement(XMLStreamReader reader, StringBuilder fragment) {
+    fragment.append('<');
+    appendQName(reader.getPrefix(), reader.getLocalName(), fragment);
+    for (int i = 0; i < reader.getNamespaceCount(); i++) {
+      fragment.append(" xmlns");
+      String prefix = reader.getNamespacePrefix(i);
+      if (prefix != null && !prefix.isEmpty()) {
+        fragment.append(':').append(prefix);
+      }
+      appendAttributeValue(reader.getNamespaceURI(i), fragment);
+    }
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      fragment.append(' ');
+      appendQName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i), fragment);
+      appendAttributeValue(reader.getAttributeValue(i), fragment);
+    }
+    fragment.append('>');
+  }
+
+  private static void appendQName(String prefix, String localName, StringBuilder fragment) {
+    if (prefix != null && !prefix.isEmpty()) {
+      fragment.append(prefix).append(':');
+    }
+    fragment.append(localName);
+  }
+
+  private static void appendAttributeValue(String value, StringBuilder fragment) {
+    fragment.append("=\"");
+    String text = nonNull(value);
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '"') {
+        fragment.append("&quot;");
+      } else {
+        appendEscaped(c, fragment);
+      }
+    }
+    fragment.append('"');
+  }
+
+  private static void appendEscaped(char[] text, int start, int length, StringBuilder fragment) {
+    for (int i = start; i < start + length; i++) {
+      appendEscaped(text[i], fragment);
+    }
+  }
+
+  private static void appendEscaped(char c, StringBuilder fragment) {
+    switch (c) {
+      case '&':
+        fragment.append("&amp;");
+        break;
+      case '<':
+        fragment.append("&lt;");
+        break;
+      case '>':
+        fragment.append("&gt;");
+        break;
+      case '\r':
+        // kept as a reference, as the parser would otherwise normalise it to a line feed
+        fragment.append("&#13;");
+        break;
+      default:
+        fragment.append(c);
+    }
+  }
+
+  /** Parses a fragment passed to {@link FragmentCallback#handleFragment(String)}. */
+  public static Element parseFragment(String fragment) throws DocumentException {
+    return SAX_READER.get().read(new StringReader(fragment)).getRootElement();
+  }
+
+  private static String nonNull(String value) {
+    return value == null ? XMLConstants.NULL_NS_URI : value;
+  }
+
+  private static String qName(String prefix, String localName) {
+    StringBuilder qName = new StringBuilder();
+    appendQName(prefix, localName, qName);
+    return qName.toString();
+  }
+
+  /** SAX view of the attributes of the current element, so block start checks can be shared. */
+  private static class ReaderAttributes implements Attributes {
+    private final XMLStreamReader reader;
+
+    private ReaderAttributes(XMLStreamReader reader) {
+      this.reader = reader;
+    }
+
+    @Override
+    public int getLength() {
+      return reader.getAttributeCount();
+    }
+
+    @Override
+    public String getURI(int index) {
+      return nonNull(reader.getAttributeNamespace(index));
+    }
+
+    @Override
+    public String getLocalName(int index) {
+      return reader.getAttributeLocalName(index);
+    }
+
+    @Override
+    public String getQName(int index) {
+      return qName(reader.getAttributePrefix(index), reader.getAttributeLocalName(index));
+    }
+
+    @Override
+    public String getType(int index) {
+      return reader.getAttributeType(index);
+    }
+
+    @Override
+    public String getValue(int index) {
+      return reader.getAttributeValue(index);
+    }
+
+    @Override
+    public int getIndex(String uri, String localName) {
+      for (int i = 0; i < getLength(); i++) {
+        if (getURI(i).equals(nonNull(uri)) && getLocalName(i).equals(localName)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    public int getIndex(String qName) {
+      for (int i = 0; i < getLength(); i++) {
+        if (getQName(i).equals(qName)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    public String getType(String uri, String localName) {
+      int index = getIndex(uri, localName);
+      return index < 0 ? null : getType(index);
+    }
+
+    @Override
+    public String getType(String qName) {
+      int index = getIndex(qName);
+      return index < 0 ? null : getType(index);
+    }
+
+    @Override
+    public String getValue(String uri, String localName) {
+      int index = getIndex(uri, localName);
+      return index < 0 ? null : getValue(index);
+    }
+
+    @Override
+    public String getValue(String qName) {
+      int index = getIndex(qName);
+      return index < 0 ? null : getValue(index);
+    }
+  }
+
+  public interface FragmentCallback {
+    /**
+     * This function is passed the XML text of an element of interest for further processing.
+     *
+     * @param fragment
+     * @throws Exception
+     */
+    public void handleFragment(String fragment) throws Exception;
+
+    /**
+     * This functions determines if an element is of interest and should be handled once it has been
+     * read.
+     *
+     * @param uri
+     * @param localName
+     * @param qName
+     * @param attributes only valid during the call
+     * @return
+     */
+    public boolean isBlockStart(String uri, String localName, String qName, Attributes attributes);
+  }
+}
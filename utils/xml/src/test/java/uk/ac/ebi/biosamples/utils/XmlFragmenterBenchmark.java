@@ -0,0 +1,158 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.utils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.dom4j.Element;
+import org.xml.sax.Attributes;
+
+/**
+ * Compares the throughput of {@link XmlFragmenter} and {@link XmlStreamFragmenter} on a synthetic
+ * NCBI biosample_set.xml. The DOM fragmenter builds every element on the reading thread, while the
+ * stream fragmenter hands fragments to a pool to be parsed, as the NCBI import does. With 0 threads
+ * only the reading thread is measured, which bounds the stream fragmenter's throughput once there
+ * are enough threads to parse and convert the fragments.
+ *
+ * <p>Run with: java -cp ... uk.ac.ebi.biosamples.utils.XmlFragmenterBenchmark [samples] [threads]
+ */
+public class XmlFragmenterBenchmark {
+  private static final int WARMUP_ROUNDS = 3;
+  private static final int ROUNDS = 5;
+
+  public static void main(String[] args) throws Exception {
+    int samples = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+    int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+    byte[] xml = bioSampleSet(samples).getBytes(StandardCharsets.UTF_8);
+    System.out.println(
+        "Synthetic biosample set of " + samples + " samples, " + xml.length / 1024 + " KiB");
+
+    for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+      String label = round < WARMUP_ROUNDS ? "warmup " : "";
+      report(label + "dom          ", samples, runDom(xml));
+      report(label + "stream       ", samples, runStream(xml, threads));
+      report(label + "stream (read)", samples, runStream(xml, 0));
+    }
+  }
+
+  private static void report(String label, int samples, long nanos) {
+    System.out.printf(
+        "%s %8.0f samples/s%n", label, samples / (nanos / (double) TimeUnit.SECONDS.toNanos(1)));
+  }
+
+  private static long runDom(byte[] xml) throws Exception {
+    AtomicLong attributes = new AtomicLong();
+    long start = System.nanoTime();
+    new XmlFragmenter()
+        .handleStream(
+            new ByteArrayInputStream(xml),
+            "UTF-8",
+            new XmlFragmenter.ElementCallback() {
+              @Override
+              public void handleElement(Element e) {
+                attributes.addAndGet(countAttributes(e));
+              }
+
+              @Override
+              public boolean isBlockStart(
+                  String uri, String localName, String qName, Attributes attributes) {
+                return qName.equals("BioSample");
+              }
+            });
+    return System.nanoTime() - start;
+  }
+
+  private static long runStream(byte[] xml, int threads) throws Exception {
+    AtomicLong attributes = new AtomicLong();
+    ExecutorService executorService = threads > 0 ? Executors.newFixedThreadPool(threads) : null;
+    long start = System.nanoTime();
+    new XmlStreamFragmenter()
+        .handleStream(
+            new ByteArrayInputStream(xml),
+            "UTF-8",
+            new XmlStreamFragmenter.FragmentCallback() {
+              @Override
+              public void handleFragment(String fragment) {
+                if (executorService == null) {
+                  return;
+                }
+                executorService.submit(
+                    () ->
+                        attributes.addAndGet(
+                            countAttributes(XmlStreamFragmenter.parseFragment(fragment))));
+              }
+
+              @Override
+              public boolean isBlockStart(
+                  String uri, String localName, String qName, Attributes attributes) {
+                return qName.equals("BioSample");
+              }
+            });
+    if (executorService != null) {
+      executorService.shutdown();
+      executorService.awaitTermination(1, TimeUnit.HOURS);
+    }
+    return System.nanoTime() - start;
+  }
+
+  // stands in for the conversion, which walks the element in the same way
+  private static int countAttributes(Element element) {
+    return XmlPathBuilder.of(element).path("Attributes").elements("Attribute").size();
+  }
+
+  /** Builds a biosample_set.xml in the shape NCBI publishes it, with every tenth sample private. */
+  static String bioSampleSet(int samples) {
+    StringBuilder xml = new StringBuilder();
+    xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<BioSampleSet>\n");
+    for (int i = 0; i < samples; i++) {
+      String accession = String.format("SAMN%08d", i);
+      xml.append("<BioSample access=\"")
+          .append(i % 10 == 9 ? "private" : "public")
+          .append("\" publication_date=\"2019-01-01T00:00:00.000\"")
+          .append(" last_update=\"2019-06-01T00:00:00.000\"")
+          .append(" submission_date=\"2018-12-01T00:00:00.000\" id=\"")
+          .append(i)
+          .append("\" accession=\"")
+          .append(accession)
+          .append("\">\n  <Ids>\n    <Id db=\"BioSample\" is_primary=\"1\">")
+          .append(accession)
+          .append("</Id>\n    <Id db_label=\"Sample name\">sample ")
+          .append(i)
+          .append("</Id>\n  </Ids>\n  <Description>\n    <Title>Synthetic sample ")
+          .append(i)
+          .append(" &amp; friends</Title>\n")
+          .append("    <Organism taxonomy_id=\"9606\" taxonomy_name=\"Homo sapiens\">")
+          .append("<OrganismName>Homo sapiens</OrganismName></Organism>\n")
+          .append("  </Description>\n  <Owner><Name>EMBL-EBI</Name></Owner>\n")
+          .append("  <Models><Model>Generic</Model></Models>\n")
+          .append("  <Package display_name=\"Generic\">Generic.1.0</Package>\n  <Attributes>\n");
+      for (int j = 0; j < 20; j++) {
+        xml.append("    <Attribute attribute_name=\"attribute ")
+            .append(j)
+            .append("\" harmonized_name=\"attribute_")
+            .append(j)
+            .append("\">value ")
+            .append(i * 20 + j)
+            .append(" &lt;")
+            .append(j)
+            .append("&gt;</Attribute>\n");
+      }
+      xml.append("  </Attributes>\n  <Links/>\n")
+          .append("  <Status status=\"live\" when=\"2019-01-01T00:00:00.000\"/>\n</BioSample>\n");
+    }
+    xml.append("</BioSampleSet>\n");
+    return xml.toString();
+  }
+}
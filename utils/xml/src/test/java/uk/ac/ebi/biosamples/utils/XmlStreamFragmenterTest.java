@@ -0,0 +1,72 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.utils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.dom4j.Element;
+import org.junit.Assert;
+import org.junit.Test;
+import org.xml.sax.Attributes;
+
+public class XmlStreamFragmenterTest {
+
+  @Test
+  public void fragments_are_the_same_as_the_dom_fragmenter() throws Exception {
+    byte[] xml = XmlFragmenterBenchmark.bioSampleSet(50).getBytes(StandardCharsets.UTF_8);
+
+    List<String> expected = new ArrayList<>();
+    new XmlFragmenter()
+        .handleStream(
+            new ByteArrayInputStream(xml),
+            "UTF-8",
+            new XmlFragmenter.ElementCallback() {
+              @Override
+              public void handleElement(Element e) {
+                expected.add(e.asXML());
+              }
+
+              @Override
+              public boolean isBlockStart(
+                  String uri, String localName, String qName, Attributes attributes) {
+                return isPublicBioSample(qName, attributes);
+              }
+            });
+
+    List<String> actual = new ArrayList<>();
+    new XmlStreamFragmenter()
+        .handleStream(
+            new ByteArrayInputStream(xml),
+            "UTF-8",
+            new XmlStreamFragmenter.FragmentCallback() {
+              @Override
+              public void handleFragment(String fragment) throws Exception {
+                actual.add(XmlStreamFragmenter.parseFragment(fragment).asXML());
+              }
+
+              @Override
+              public boolean isBlockStart(
+                  String uri, String localName, String qName, Attributes attributes) {
+                return isPublicBioSample(qName, attributes);
+              }
+            });
+
+    // every tenth sample is private
+    Assert.assertEquals(45, expected.size());
+    Assert.assertEquals(expected, actual);
+  }
+
+  private static boolean isPublicBioSample(String qName, Attributes attributes) {
+    return qName.equals("BioSample") && "public".equals(attributes.getValue("", "access"));
+  }
+}
@@ -13,11 +13,16 @@ package uk.ac.ebi.biosamples;
 import com.github.benmanes.caffeine.cache.CaffeineSpec;
 import java.util.concurrent.Executor;
 import javax.servlet.Filter;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.boot.web.support.SpringBootServletInitializer;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
+import org.springframework.data.mongodb.core.MongoOperations;
 import org.springframework.data.rest.core.mapping.RepositoryDetectionStrategy;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.xml.Jaxb2RootElementHttpMessageConverter;
@@ -67,6 +72,25 @@ public class Application extends SpringBootServletInitializer {
     return ex;
   }
 
+  /**
+   * Listener container for {@link uk.ac.ebi.biosamples.service.SampleChangeListener}, which
+   * acknowledges each change once the sample has been sent to be indexed. The prefetch bounds the
+   * changes held by this node while they wait for a thread.
+   */
+  @Bean
+  public SimpleRabbitListenerContainerFactory sampleChangeListenerContainerFactory(
+      SimpleRabbitListenerContainerFactoryConfigurer configurer,
+      ConnectionFactory connectionFactory,
+      BioSamplesProperties bioSamplesProperties) {
+    SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+    configurer.configure(factory, connectionFactory);
+    factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+    factory.setConcurrentConsumers(1);
+    factory.setMaxConcurrentConsumers(1);
+    factory.setPrefetchCount(bioSamplesProperties.getBiosamplesCorePostWritePrefetch());
+    return factory;
+  }
+
   @Bean
   public RepositoryDetectionStrategy repositoryDetectionStrategy() {
     return RepositoryDetectionStrategy.RepositoryDetectionStrategies.ANNOTATED;
@@ -93,11 +117,13 @@ public class Application extends SpringBootServletInitializer {
       MongoSampleRepository mongoSampleRepository,
       SampleToMongoSampleConverter sampleToMongoSampleConverter,
       MongoSampleToSampleConverter mongoSampleToSampleConverter,
+      MongoOperations mongoOperations,
       MongoProperties mongoProperties) {
     return new MongoAccessionService(
         mongoSampleRepository,
         sampleToMongoSampleConverter,
         mongoSampleToSampleConverter,
+        mongoOperations,
         mongoProperties.getAccessionPrefix(),
         mongoProperties.getAccessionMinimum(),
         mongoProperties.getAcessionQueueSize());
@@ -108,11 +134,13 @@ public class Application extends SpringBootServletInitializer {
       MongoSampleRepository mongoSampleRepository,
       SampleToMongoSampleConverter sampleToMongoSampleConverter,
       MongoSampleToSampleConverter mongoSampleToSampleConverter,
+      MongoOperations mongoOperations,
       MongoProperties mongoProperties) {
     return new MongoAccessionService(
         mongoSampleRepository,
         sampleToMongoSampleConverter,
         mongoSampleToSampleConverter,
+        mongoOperations,
         "SAMEG",
         mongoProperties.getAccessionMinimum(),
         mongoProperties.getAcessionQueueSize());
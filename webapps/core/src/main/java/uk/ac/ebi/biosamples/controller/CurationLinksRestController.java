@@ -0,0 +1,125 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.controller;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.hateoas.MediaTypes;
+import org.springframework.hateoas.Resource;
+import org.springframework.hateoas.Resources;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.provider.authentication.BearerTokenExtractor;
+import org.springframework.web.bind.annotation.*;
+import uk.ac.ebi.biosamples.model.CurationLink;
+import uk.ac.ebi.biosamples.model.auth.SubmissionAccount;
+import uk.ac.ebi.biosamples.service.*;
+
+/**
+ * Bulk ingestion of curation links across many samples, for pipelines that would otherwise POST
+ * each curation link to its sample separately
+ */
+@RestController
+@RequestMapping("/curationlinks")
+public class CurationLinksRestController {
+
+  private final CurationPersistService curationPersistService;
+  private final CurationLinkResourceAssembler curationLinkResourceAssembler;
+  private final BioSamplesAapService bioSamplesAapService;
+  private final BioSamplesWebinAuthenticationService bioSamplesWebinAuthenticationService;
+
+  private Logger log = LoggerFactory.getLogger(getClass());
+
+  public CurationLinksRestController(
+      CurationPersistService curationPersistService,
+      CurationLinkResourceAssembler curationLinkResourceAssembler,
+      BioSamplesAapService bioSamplesAapService,
+      BioSamplesWebinAuthenticationService bioSamplesWebinAuthenticationService) {
+    this.curationPersistService = curationPersistService;
+    this.curationLinkResourceAssembler = curationLinkResourceAssembler;
+    this.bioSamplesAapService = bioSamplesAapService;
+    this.bioSamplesWebinAuthenticationService = bioSamplesWebinAuthenticationService;
+  }
+
+  @PreAuthorize("isAuthenticated()")
+  @PostMapping(
+      value = "/bulk",
+      consumes = {MediaType.APPLICATION_JSON_VALUE},
+      produces = {MediaTypes.HAL_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+  public ResponseEntity<Resources<Resource<CurationLink>>> createCurationLinksJson(
+      HttpServletRequest request,
+      @RequestBody List<CurationLink> curationLinks,
+      @RequestParam(name = "authProvider", required = false, defaultValue = "AAP")
+          String authProvider) {
+
+    log.info("Recieved bulk POST for " + curationLinks.size() + " curation links");
+
+    String webinSubmissionAccountId = null;
+    if (authProvider.equalsIgnoreCase("WEBIN")) {
+      final BearerTokenExtractor bearerTokenExtractor = new BearerTokenExtractor();
+      final Authentication authentication = bearerTokenExtractor.extract(request);
+      final SubmissionAccount webinAccount =
+          bioSamplesWebinAuthenticationService
+              .getWebinSubmissionAccount(String.valueOf(authentication.getPrincipal()))
+              .getBody();
+      webinSubmissionAccountId = webinAccount.getId();
+    }
+
+    Instant now = Instant.now();
+    List<CurationLink> prepared = new ArrayList<>(curationLinks.size());
+    for (CurationLink curationLink : curationLinks) {
+      if (curationLink.getSample() == null) {
+        throw new SampleMissingException();
+      }
+
+      if (webinSubmissionAccountId != null) {
+        curationLink =
+            bioSamplesWebinAuthenticationService.handleWebinUser(
+                curationLink, webinSubmissionAccountId);
+        prepared.add(
+            CurationLink.build(
+                curationLink.getSample(),
+                curationLink.getCuration(),
+                null,
+                curationLink.getWebinSubmissionAccountId(),
+                now));
+      } else {
+        prepared.add(
+            bioSamplesAapService.handleCurationLinkDomain(
+                CurationLink.build(
+                    curationLink.getSample(),
+                    curationLink.getCuration(),
+                    curationLink.getDomain(),
+                    null,
+                    now)));
+      }
+    }
+
+    List<Resource<CurationLink>> resources = new ArrayList<>(prepared.size());
+    for (CurationLink curationLink : curationPersistService.storeAll(prepared)) {
+      resources.add(curationLinkResourceAssembler.toResource(curationLink));
+    }
+
+    return ResponseEntity.status(HttpStatus.CREATED).body(new Resources<>(resources));
+  }
+
+  @ResponseStatus(
+      value = HttpStatus.BAD_REQUEST,
+      reason = "Each curation link must specify its sample") // 400
+  public static class SampleMissingException extends RuntimeException {}
+}
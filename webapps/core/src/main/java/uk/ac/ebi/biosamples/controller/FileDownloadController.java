@@ -10,19 +10,17 @@
 */
 package uk.ac.ebi.biosamples.controller;
 
-import java.io.InputStream;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import uk.ac.ebi.biosamples.model.filter.Filter;
 import uk.ac.ebi.biosamples.service.BioSamplesAapService;
 import uk.ac.ebi.biosamples.service.FileDownloadService;
@@ -48,16 +46,18 @@ public class FileDownloadController {
   }
 
   @GetMapping
-  public ResponseEntity<StreamingResponseBody> download(
+  public void download(
       @RequestParam(name = "text", required = false) String text,
       @RequestParam(name = "filter", required = false) String[] filter,
       @RequestParam(name = "zip", required = false, defaultValue = "true") boolean zip,
+      @RequestParam(name = "gzip", required = false, defaultValue = "false") boolean gzip,
       @RequestParam(name = "format", required = false)
           String format, // there is no easy way to set accept header in html for downloading large
       // files
       @RequestParam(name = "count", required = false, defaultValue = "100000") int count,
       HttpServletResponse response,
-      HttpServletRequest request) {
+      HttpServletRequest request)
+      throws IOException {
     LOG.info(
         "Sample bulk download request: text = {}, filters = {}", text, Arrays.toString(filter));
     String decodedText = LinkUtils.decodeText(text);
@@ -65,13 +65,26 @@ public class FileDownloadController {
     Collection<String> domains = bioSamplesAapService.getDomains();
 
     String outputFormat = getDownloadFormat(format, request.getHeader("Accept"));
-    setResponseHeaders(response, zip, outputFormat);
-    InputStream in =
-        fileDownloadService.getDownloadStream(decodedText, filters, domains, outputFormat, count);
-    StreamingResponseBody responseBody =
-        outputStream -> fileDownloadService.copyAndCompress(in, outputStream, zip, outputFormat);
+    FileDownloadService.Compression compression = getCompression(zip, gzip);
+    setResponseHeaders(response, compression, outputFormat);
+    // written straight to the response rather than as an async StreamingResponseBody so that
+    // large downloads are not cut off by the async request timeout. This holds a request thread
+    // for the whole download, so count stays capped by default.
+    fileDownloadService.download(
+        decodedText,
+        filters,
+        domains,
+        outputFormat,
+        count,
+        compression,
+        response.getOutputStream());
+  }
 
-    return ResponseEntity.ok().body(responseBody);
+  private FileDownloadService.Compression getCompression(boolean zip, boolean gzip) {
+    if (gzip) {
+      return FileDownloadService.Compression.GZIP;
+    }
+    return zip ? FileDownloadService.Compression.ZIP : FileDownloadService.Compression.NONE;
   }
 
   private String getDownloadFormat(String format, String acceptHeader) {
@@ -82,10 +95,15 @@ public class FileDownloadController {
     return format;
   }
 
-  private void setResponseHeaders(HttpServletResponse response, boolean zip, String format) {
-    if (zip) {
+  private void setResponseHeaders(
+      HttpServletResponse response, FileDownloadService.Compression compression, String format) {
+    if (compression == FileDownloadService.Compression.ZIP) {
       response.setContentType("application/zip");
       response.setHeader("Content-Disposition", "attachment; filename=\"samples.zip\"");
+    } else if (compression == FileDownloadService.Compression.GZIP) {
+      response.setContentType("application/gzip");
+      response.setHeader(
+          "Content-Disposition", "attachment; filename=\"samples." + format + ".gz\"");
     } else {
       response.setContentType("application/" + format);
       response.setHeader("Content-Disposition", "attachment; filename=\"samples." + format + "\"");
@@ -34,6 +34,10 @@ public class RootHalController {
     resource.add(ControllerLinkBuilder.linkTo(SamplesRestController.class).withRel("samples"));
     resource.add(ControllerLinkBuilder.linkTo(GroupsRestController.class).withRel("groups"));
     resource.add(ControllerLinkBuilder.linkTo(CurationRestController.class).withRel("curations"));
+    resource.add(
+        ControllerLinkBuilder.linkTo(CurationLinksRestController.class)
+            .slash("bulk")
+            .withRel("bulkCurationLinks"));
     resource.add(
         new Link(
             "https://www.ebi.ac.uk/data-protection/privacy-notice/embl-ebi-public-website",
@@ -12,6 +12,8 @@ package uk.ac.ebi.biosamples.controller;
 
 import java.net.URI;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import javax.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,6 +23,7 @@ import org.springframework.data.web.PagedResourcesAssembler;
 import org.springframework.hateoas.MediaTypes;
 import org.springframework.hateoas.PagedResources;
 import org.springframework.hateoas.Resource;
+import org.springframework.hateoas.Resources;
 import org.springframework.hateoas.mvc.ControllerLinkBuilder;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -107,6 +110,59 @@ public class SampleCurationLinksRestController {
 
     log.info("Recieved POST for " + curationLink);
 
+    curationLink = prepareCurationLink(request, accession, curationLink, authProvider, null);
+
+    // now actually persist it
+    curationLink = curationPersistService.store(curationLink);
+    Resource<CurationLink> resource = curationLinkResourceAssembler.toResource(curationLink);
+
+    // create the response object with the appropriate status
+    return ResponseEntity.created(URI.create(resource.getLink("self").getHref())).body(resource);
+  }
+
+  /**
+   * Stores several curation links on one sample in a single request, so that pipelines curating
+   * many attributes of a sample do not need a round trip per curation
+   */
+  @PreAuthorize("isAuthenticated()")
+  @PostMapping(
+      value = "/batch",
+      consumes = {MediaType.APPLICATION_JSON_VALUE},
+      produces = {MediaTypes.HAL_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+  public ResponseEntity<Resources<Resource<CurationLink>>> createCurationLinksJson(
+      HttpServletRequest request,
+      @PathVariable String accession,
+      @RequestBody List<CurationLink> curationLinks,
+      @RequestParam(name = "authProvider", required = false, defaultValue = "AAP")
+          String authProvider) {
+
+    log.info("Recieved POST for " + curationLinks.size() + " curation links on " + accession);
+
+    SubmissionAccount webinAccount = null;
+    if (authProvider.equalsIgnoreCase("WEBIN")) {
+      webinAccount = getWebinSubmissionAccount(request);
+    }
+
+    List<CurationLink> prepared = new ArrayList<>(curationLinks.size());
+    for (CurationLink curationLink : curationLinks) {
+      prepared.add(
+          prepareCurationLink(request, accession, curationLink, authProvider, webinAccount));
+    }
+
+    List<Resource<CurationLink>> resources = new ArrayList<>(prepared.size());
+    for (CurationLink curationLink : curationPersistService.storeAll(prepared)) {
+      resources.add(curationLinkResourceAssembler.toResource(curationLink));
+    }
+
+    return ResponseEntity.status(HttpStatus.CREATED).body(new Resources<>(resources));
+  }
+
+  private CurationLink prepareCurationLink(
+      HttpServletRequest request,
+      String accession,
+      CurationLink curationLink,
+      String authProvider,
+      SubmissionAccount webinAccount) {
     if (curationLink.getSample() == null) {
       // curationLink has no sample, use the one specified in the URL
     } else if (!curationLink.getSample().equals(accession)) {
@@ -117,36 +173,34 @@ public class SampleCurationLinksRestController {
     }
 
     if (authProvider.equalsIgnoreCase("WEBIN")) {
-      final BearerTokenExtractor bearerTokenExtractor = new BearerTokenExtractor();
-      final Authentication authentication = bearerTokenExtractor.extract(request);
-      final SubmissionAccount webinAccount =
-          bioSamplesWebinAuthenticationService
-              .getWebinSubmissionAccount(String.valueOf(authentication.getPrincipal()))
-              .getBody();
+      if (webinAccount == null) {
+        webinAccount = getWebinSubmissionAccount(request);
+      }
 
       curationLink =
           bioSamplesWebinAuthenticationService.handleWebinUser(curationLink, webinAccount.getId());
 
-      curationLink =
-          CurationLink.build(
-              accession,
-              curationLink.getCuration(),
-              null,
-              curationLink.getWebinSubmissionAccountId(),
-              Instant.now());
+      return CurationLink.build(
+          accession,
+          curationLink.getCuration(),
+          null,
+          curationLink.getWebinSubmissionAccountId(),
+          Instant.now());
     } else {
       curationLink =
           CurationLink.build(
               accession, curationLink.getCuration(), curationLink.getDomain(), null, Instant.now());
-      curationLink = bioSamplesAapService.handleCurationLinkDomain(curationLink);
+      return bioSamplesAapService.handleCurationLinkDomain(curationLink);
     }
+  }
 
-    // now actually persist it
-    curationLink = curationPersistService.store(curationLink);
-    Resource<CurationLink> resource = curationLinkResourceAssembler.toResource(curationLink);
+  private SubmissionAccount getWebinSubmissionAccount(HttpServletRequest request) {
+    final BearerTokenExtractor bearerTokenExtractor = new BearerTokenExtractor();
+    final Authentication authentication = bearerTokenExtractor.extract(request);
 
-    // create the response object with the appropriate status
-    return ResponseEntity.created(URI.create(resource.getLink("self").getHref())).body(resource);
+    return bioSamplesWebinAuthenticationService
+        .getWebinSubmissionAccount(String.valueOf(authentication.getPrincipal()))
+        .getBody();
   }
 
   @ResponseStatus(
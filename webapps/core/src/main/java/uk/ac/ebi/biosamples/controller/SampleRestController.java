@@ -19,14 +19,18 @@ import org.slf4j.LoggerFactory;
 import org.springframework.hateoas.ExposesResourceFor;
 import org.springframework.hateoas.MediaTypes;
 import org.springframework.hateoas.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.provider.authentication.BearerTokenExtractor;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
 import uk.ac.ebi.biosamples.exception.SampleNotFoundException;
 import uk.ac.ebi.biosamples.model.Sample;
+import uk.ac.ebi.biosamples.model.StaticViewWrapper;
 import uk.ac.ebi.biosamples.model.SubmittedViaType;
 import uk.ac.ebi.biosamples.model.auth.SubmissionAccount;
 import uk.ac.ebi.biosamples.model.ga4gh.phenopacket.PhenopacketConverter;
@@ -56,6 +60,7 @@ public class SampleRestController {
   private PhenopacketConverter phenopacketConverter;
   private final SchemaValidationService schemaValidationService;
   private final ENATaxonClientService enaTaxonClientService;
+  private final SampleVersionService sampleVersionService;
 
   public SampleRestController(
       SampleService sampleService,
@@ -65,7 +70,8 @@ public class SampleRestController {
       SampleResourceAssembler sampleResourceAssembler,
       PhenopacketConverter phenopacketConverter,
       SchemaValidationService schemaValidationService,
-      ENATaxonClientService enaTaxonClientService) {
+      ENATaxonClientService enaTaxonClientService,
+      SampleVersionService sampleVersionService) {
     this.sampleService = sampleService;
     this.bioSamplesAapService = bioSamplesAapService;
     this.bioSamplesWebinAuthenticationService = bioSamplesWebinAuthenticationService;
@@ -74,20 +80,74 @@ public class SampleRestController {
     this.phenopacketConverter = phenopacketConverter;
     this.schemaValidationService = schemaValidationService;
     this.enaTaxonClientService = enaTaxonClientService;
+    this.sampleVersionService = sampleVersionService;
   }
 
   @PreAuthorize("isAuthenticated()")
   @CrossOrigin(methods = RequestMethod.GET)
   @GetMapping(produces = {MediaTypes.HAL_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
   public Resource<Sample> getSampleHal(
+      ServletWebRequest webRequest,
       @PathVariable String accession,
       @RequestParam(name = "legacydetails", required = false) String legacydetails,
       @RequestParam(name = "curationdomain", required = false) String[] curationdomain,
       @RequestParam(name = "curationrepo", required = false) String curationRepo) {
-    log.trace("starting call");
-
     // decode percent-encoding from curation domains
     Optional<List<String>> decodedCurationDomains = LinkUtils.decodeTextsToArray(curationdomain);
+
+    // answer revalidation before fetching and curating the sample
+    Optional<SampleVersionService.SampleVersion> version =
+        fetchVersion(
+            webRequest, accession, decodedCurationDomains, curationRepo, "hal " + legacydetails);
+    if (version.isPresent()
+        && webRequest.checkNotModified(
+            "\"" + version.get().getEtag() + "\"",
+            version.get().getLastModified().toEpochMilli())) {
+      return null;
+    }
+
+    // a stamped body must be at least as recent as its stamp, and the sample cache of this node
+    // may still hold an older version of the sample
+    return fetchSampleResource(
+        accession, legacydetails, decodedCurationDomains, curationRepo, !version.isPresent());
+  }
+
+  /**
+   * Fetches a version stamp of the sample to check the conditional headers of the request against,
+   * which is set as ETag and Last-Modified on the response. Only public samples in the dynamic view
+   * are stamped, others are left to the body-based ETag filter.
+   */
+  private Optional<SampleVersionService.SampleVersion> fetchVersion(
+      ServletWebRequest webRequest,
+      String accession,
+      Optional<List<String>> curationDomains,
+      String curationRepo,
+      String variant) {
+    if (StaticViewWrapper.getStaticView(curationDomains.orElse(null), curationRepo)
+        != StaticViewWrapper.StaticView.SAMPLES_DYNAMIC) {
+      return Optional.empty();
+    }
+
+    Optional<SampleVersionService.SampleVersion> version =
+        sampleVersionService.fetchVersion(
+            accession, curationDomains, variant + " " + webRequest.getHeader(HttpHeaders.ACCEPT));
+    if (!version.isPresent() || version.get().getRelease().isAfter(Instant.now())) {
+      return Optional.empty();
+    }
+
+    // the stamp replaces the hash of the body, which would need the full response to compute
+    ShallowEtagHeaderFilter.disableContentCaching(webRequest.getRequest());
+    return version;
+  }
+
+  private Resource<Sample> fetchSampleResource(
+      String accession,
+      String legacydetails,
+      Optional<List<String>> decodedCurationDomains,
+      String curationRepo,
+      boolean useCache) {
+    log.trace("starting call");
+
     Optional<Boolean> decodedLegacyDetails;
     if ("true".equals(legacydetails)) {
       decodedLegacyDetails = Optional.of(Boolean.TRUE);
@@ -96,7 +156,10 @@ public class SampleRestController {
     }
 
     // convert it into the format to return
-    Optional<Sample> sample = sampleService.fetch(accession, decodedCurationDomains, curationRepo);
+    Optional<Sample> sample =
+        useCache
+            ? sampleService.fetch(accession, decodedCurationDomains, curationRepo)
+            : sampleService.fetchUncached(accession, decodedCurationDomains, curationRepo);
     if (sample.isPresent()) {
       bioSamplesAapService.checkAccessible(sample.get());
 
@@ -157,7 +220,9 @@ public class SampleRestController {
   public Sample getSampleXml(
       @PathVariable String accession,
       @RequestParam(name = "curationrepo", required = false) final String curationRepo) {
-    Sample sample = this.getSampleHal(accession, "true", null, curationRepo).getContent();
+    Sample sample =
+        this.fetchSampleResource(accession, "true", Optional.empty(), curationRepo, true)
+            .getContent();
     if (!sample.getAccession().matches("SAMEG\\d+")) {
       //			sample = Sample.build(sample.getName(),sample.getAccession(), sample.getDomain(),
       //					sample.getRelease(), sample.getUpdate(), sample.getCharacteristics(),
@@ -15,7 +15,7 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.*;
-import java.util.concurrent.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import javax.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
@@ -70,6 +70,7 @@ public class SamplesRestController {
   private final SampleResourceAssembler sampleResourceAssembler;
   private final SchemaValidationService schemaValidationService;
   private final ENATaxonClientService enaTaxonClientService;
+  private final BulkAccessionService bulkAccessionService;
 
   private static final String NCBI_IMPORT_DOMAIN = "self.BiosampleImportNCBI";
   private static final String ENA_IMPORT_DOMAIN = "self.BiosampleImportENA";
@@ -86,7 +87,8 @@ public class SamplesRestController {
       SampleService sampleService,
       BioSamplesProperties bioSamplesProperties,
       SchemaValidationService schemaValidationService,
-      ENATaxonClientService enaTaxonClientService) {
+      ENATaxonClientService enaTaxonClientService,
+      BulkAccessionService bulkAccessionService) {
     this.samplePageService = samplePageService;
     this.filterService = filterService;
     this.bioSamplesAapService = bioSamplesAapService;
@@ -97,6 +99,7 @@ public class SamplesRestController {
     this.schemaValidationService = schemaValidationService;
     this.bioSamplesProperties = bioSamplesProperties;
     this.enaTaxonClientService = enaTaxonClientService;
+    this.bulkAccessionService = bulkAccessionService;
   }
 
   // must return a ResponseEntity so that cache headers can be set
@@ -109,7 +112,9 @@ public class SamplesRestController {
       @RequestParam(name = "page", required = false) final Integer page,
       @RequestParam(name = "size", required = false) final Integer size,
       @RequestParam(name = "sort", required = false) final String[] sort,
-      @RequestParam(name = "curationrepo", required = false) final String curationRepo) {
+      @RequestParam(name = "curationrepo", required = false) final String curationRepo,
+      @RequestParam(name = "partition", required = false) final Integer partition,
+      @RequestParam(name = "partitions", required = false) final Integer partitions) {
 
     // Need to decode the %20 and similar from the parameters
     // this is *not* needed for the html controller
@@ -150,10 +155,27 @@ public class SamplesRestController {
     }
 
     if (cursor != null) {
+      // a cursor can be restricted to one partition of the results, so that clients can iterate
+      // over the results with several cursors at once
+      int effectivePartitions = partitions == null ? 1 : partitions;
+      int effectivePartition = partition == null ? 0 : partition;
+      if (effectivePartitions < 1
+          || effectivePartition < 0
+          || effectivePartition >= effectivePartitions) {
+        throw new InvalidPartitionException();
+      }
+
       log.trace("This cursor = " + decodedCursor);
       CursorArrayList<Sample> samples =
           samplePageService.getSamplesByText(
-              decodedText, filters, domains, decodedCursor, effectiveSize, curationRepo);
+              decodedText,
+              filters,
+              domains,
+              decodedCursor,
+              effectiveSize,
+              curationRepo,
+              effectivePartition,
+              effectivePartitions);
       log.trace("Next cursor = " + samples.getNextCursorMark());
 
       Resources<Resource<Sample>> resources =
@@ -172,6 +194,8 @@ public class SamplesRestController {
               decodedFilter,
               decodedCursor,
               effectiveSize,
+              partition,
+              partitions,
               Link.REL_SELF,
               this.getClass()));
       // only display the next link if there is a next cursor to go to
@@ -183,6 +207,8 @@ public class SamplesRestController {
                 decodedFilter,
                 samples.getNextCursorMark(),
                 effectiveSize,
+                partition,
+                partitions,
                 Link.REL_NEXT,
                 this.getClass()));
       }
@@ -335,6 +361,18 @@ public class SamplesRestController {
    */
   public static Link getCursorLink(
       String text, String[] filter, String cursor, int size, String rel, Class controllerClass) {
+    return getCursorLink(text, filter, cursor, size, null, null, rel, controllerClass);
+  }
+
+  public static Link getCursorLink(
+      String text,
+      String[] filter,
+      String cursor,
+      int size,
+      Integer partition,
+      Integer partitions,
+      String rel,
+      Class controllerClass) {
     UriComponentsBuilder builder =
         ControllerLinkBuilder.linkTo(controllerClass).toUriComponentsBuilder();
 
@@ -350,6 +388,10 @@ public class SamplesRestController {
 
     builder.queryParam("cursor", cursor);
     builder.queryParam("size", size);
+    if (partitions != null) {
+      builder.queryParam("partition", partition);
+      builder.queryParam("partitions", partitions);
+    }
     return new Link(builder.toUriString(), rel);
   }
 
@@ -505,77 +547,46 @@ public class SamplesRestController {
       }
     }
 
-    final ExecutorService executor = Executors.newFixedThreadPool(samples.size());
-
-    /*final Map<String, String> outputMap = samples.stream().map(sample -> executor.submit(new SamplePersistence(sample, authProvider))).map(sampleFuture -> {
-      try {
-        return sampleFuture.get();
-      } catch (InterruptedException | ExecutionException e) {
-        log.info("Exception here " + e.getMessage());
-      }
-
-      return null;
-    }).filter(Objects::nonNull).collect(Collectors.toMap(Sample::getName, Sample::getAccession));*/
+    final Instant release =
+        Instant.ofEpochSecond(
+            LocalDateTime.now(ZoneOffset.UTC).plusYears(100).toEpochSecond(ZoneOffset.UTC));
+    final Instant update = Instant.now();
 
-    final List<Future<Sample>> sampleFutures =
+    samples =
         samples.stream()
-            .map(sample -> executor.submit(new SamplePersistence(sample, authProvider)))
+            .map(
+                sample ->
+                    Sample.Builder.fromSample(sample)
+                        .withRelease(release)
+                        .withUpdate(update)
+                        .withSubmittedVia(
+                            sample.getSubmittedVia() == null
+                                ? SubmittedViaType.JSON_API
+                                : sample.getSubmittedVia())
+                        .build())
             .collect(Collectors.toList());
 
-    log.info("Number of futures " + sampleFutures.size());
-
-    final Map<String, String> outputMap =
-        sampleFutures.stream()
-            .map(
-                sampleFuture -> {
-                  try {
-                    return sampleFuture.get();
-                  } catch (InterruptedException | ExecutionException e) {
-                    log.info("Exception here " + e.getMessage());
-                  }
-
-                  return null;
-                })
-            .filter(Objects::nonNull)
-            .collect(Collectors.toMap(Sample::getName, Sample::getAccession));
-
-    /*final Map<String, String> outputMap = samples.stream().map(sample -> checkAndPersistSample(sample, authProvider)).collect(Collectors.toMap(
-            Sample::getName, Sample::getAccession
-    ));*/
+    // nothing is written to the response until every chunk is stored, so a failure is reported
+    // with an error status rather than as a truncated map
+    final Map<String, String> outputMap = new LinkedHashMap<>();
+    for (Sample sample : bulkAccessionService.accession(samples)) {
+      outputMap.put(sample.getName(), sample.getAccession());
+    }
 
     return ResponseEntity.ok(outputMap);
   }
 
-  class SamplePersistence implements Callable<Sample> {
-    Sample sample;
-    String authProvider;
-
-    SamplePersistence(Sample sample, String authProvider) {
-      this.sample = sample;
-      this.authProvider = authProvider;
-    }
-
-    @Override
-    public Sample call() {
-      Logger log = LoggerFactory.getLogger(getClass());
-
-      final Instant release =
-          Instant.ofEpochSecond(
-              LocalDateTime.now(ZoneOffset.UTC).plusYears(100).toEpochSecond(ZoneOffset.UTC));
-      final Instant update = Instant.now();
-      final SubmittedViaType submittedVia =
-          sample.getSubmittedVia() == null ? SubmittedViaType.JSON_API : sample.getSubmittedVia();
-
-      sample =
-          Sample.Builder.fromSample(sample)
-              .withRelease(release)
-              .withUpdate(update)
-              .withSubmittedVia(submittedVia)
-              .build();
-
-      log.info("Initiating store() for " + sample.getName());
-      return sampleService.store(sample, false, authProvider);
-    }
+  /**
+   * The samples of the chunks stored before the failure keep their accessions, so they are returned
+   * with the error for the client to leave out of a retry.
+   */
+  @ExceptionHandler
+  public ResponseEntity<Map<String, Object>> handleBulkAccessionFailed(
+      BulkAccessionService.BulkAccessionFailedException e) {
+    Map<String, Object> body = new LinkedHashMap<>();
+    body.put("error", e.getMessage());
+    body.put("accessioned", e.getAccessions());
+    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(body);
   }
 
   @PreAuthorize("isAuthenticated()")
@@ -699,4 +710,9 @@ public class SamplesRestController {
       value = HttpStatus.BAD_REQUEST,
       reason = "New sample submission should not contain an accession")
   public static class SampleWithAccessionSumbissionException extends RuntimeException {}
+
+  @ResponseStatus(
+      value = HttpStatus.BAD_REQUEST,
+      reason = "Partition must be between 0 and the number of partitions minus one")
+  public static class InvalidPartitionException extends RuntimeException {}
 }
@@ -0,0 +1,51 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.biosamples.mongo.service.MongoAccessionService;
+
+/** Exposes accession generation statistics on the actuator metrics endpoint. */
+@Component
+public class AccessionMetrics implements PublicMetrics {
+  private static final String PREFIX = "accession.";
+
+  private final List<MongoAccessionService> accessionServices;
+  private final BulkAccessionService bulkAccessionService;
+
+  public AccessionMetrics(
+      List<MongoAccessionService> accessionServices, BulkAccessionService bulkAccessionService) {
+    this.accessionServices = accessionServices;
+    this.bulkAccessionService = bulkAccessionService;
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    Collection<Metric<?>> metrics = new ArrayList<>();
+    for (MongoAccessionService accessionService : accessionServices) {
+      String prefix = PREFIX + accessionService.getPrefix() + ".";
+      metrics.add(new Metric<>(prefix + "generated", accessionService.getAccessionsGenerated()));
+      metrics.add(new Metric<>(prefix + "blocks", accessionService.getBlocksReserved()));
+      metrics.add(new Metric<>(prefix + "collisions", accessionService.getCollisions()));
+    }
+    metrics.add(new Metric<>(PREFIX + "bulk.active", bulkAccessionService.getActiveCount()));
+    metrics.add(new Metric<>(PREFIX + "bulk.queued", bulkAccessionService.getQueuedCount()));
+    metrics.add(
+        new Metric<>(PREFIX + "bulk.samples", bulkAccessionService.getSamplesAccessioned()));
+    metrics.add(new Metric<>(PREFIX + "bulk.rejected", bulkAccessionService.getRequestsRejected()));
+    return metrics;
+  }
+}
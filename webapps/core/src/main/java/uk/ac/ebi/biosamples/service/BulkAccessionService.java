@@ -0,0 +1,254 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import uk.ac.ebi.biosamples.BioSamplesProperties;
+import uk.ac.ebi.biosamples.model.Sample;
+
+/**
+ * Accessions large numbers of new samples. The samples are split into chunks that are validated and
+ * then inserted on a thread pool shared by all requests, so the number of threads does not depend
+ * on the number or size of the requests.
+ *
+ * <p>The queue of the pool is bounded. A request is only started when there is room for all of its
+ * chunks, otherwise it is rejected as a whole before anything is stored.
+ */
+@Service
+public class BulkAccessionService {
+  private static final Logger LOG = LoggerFactory.getLogger(BulkAccessionService.class);
+  private static final int CHUNK_SIZE = 1000;
+
+  private final SampleService sampleService;
+  private final SampleValidator sampleValidator;
+  private final ThreadPoolExecutor executor;
+  // one permit per chunk that can be running or queued, taken for every chunk of a request at once.
+  // The queue can hold all of them, so a task is only rejected if the two disagree
+  private final Semaphore chunkPermits;
+  private final int maxChunks;
+  private final AtomicLong samplesAccessioned = new AtomicLong();
+  private final AtomicLong requestsRejected = new AtomicLong();
+
+  public BulkAccessionService(
+      SampleService sampleService,
+      SampleValidator sampleValidator,
+      BioSamplesProperties bioSamplesProperties) {
+    this.sampleService = sampleService;
+    this.sampleValidator = sampleValidator;
+    int threadCount = bioSamplesProperties.getBiosamplesCoreBulkAccessionThreadCount();
+    int queueSize = bioSamplesProperties.getBiosamplesCoreBulkAccessionQueueSize();
+    executor =
+        new ThreadPoolExecutor(
+            threadCount,
+            threadCount,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueSize),
+            new ThreadPoolExecutor.AbortPolicy());
+    maxChunks = queueSize;
+    chunkPermits = new Semaphore(maxChunks);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Validates all of the samples and, if they are all valid, accessions and stores them. The result
+   * is only returned once every chunk has been stored, so a caller never reports part of a request
+   * as accessioned when a later chunk fails.
+   *
+   * @param samples new samples without accessions
+   * @return the stored samples, in the order they were submitted
+   * @throws SampleService.SampleValidationException if any sample is invalid, in which case none
+   *     are stored
+   * @throws BulkAccessionBusyException if there is no room for the request, in which case none are
+   *     stored
+   * @throws BulkAccessionFailedException if storing any chunk failed, with the accessions of the
+   *     chunks that were stored
+   */
+  public List<Sample> accession(List<Sample> samples) {
+    List<List<Sample>> chunks = new ArrayList<>();
+    for (int i = 0; i < samples.size(); i += CHUNK_SIZE) {
+      chunks.add(samples.subList(i, Math.min(i + CHUNK_SIZE, samples.size())));
+    }
+
+    if (chunks.size() > maxChunks) {
+      requestsRejected.incrementAndGet();
+      throw new BulkAccessionTooLargeException();
+    }
+    if (!chunkPermits.tryAcquire(chunks.size())) {
+      requestsRejected.incrementAndGet();
+      LOG.warn("Rejected bulk accession of {} samples, the queue is full", samples.size());
+      throw new BulkAccessionBusyException();
+    }
+    try {
+      validateAll(chunks);
+      return storeAll(chunks);
+    } finally {
+      chunkPermits.release(chunks.size());
+    }
+  }
+
+  private void validateAll(List<List<Sample>> chunks) {
+    List<Future<List<String>>> validationFutures = new ArrayList<>(chunks.size());
+    for (List<Sample> chunk : chunks) {
+      validationFutures.add(submit(() -> validate(chunk), validationFutures));
+    }
+    List<String> errors = new ArrayList<>();
+    for (Future<List<String>> future : validationFutures) {
+      errors.addAll(get(future, validationFutures));
+    }
+    if (!errors.isEmpty()) {
+      LOG.error("Sample validation failed : {}", errors);
+      throw new SampleService.SampleValidationException(String.join("|", errors));
+    }
+  }
+
+  private List<Sample> storeAll(List<List<Sample>> chunks) {
+    List<Future<List<Sample>>> storeFutures = new ArrayList<>(chunks.size());
+    for (List<Sample> chunk : chunks) {
+      storeFutures.add(submit(() -> sampleService.storeNewSamples(chunk), storeFutures));
+    }
+
+    // every chunk is waited for even after a failure, so that the caller can be told which samples
+    // were stored and does not accession them again
+    List<Sample> accessionedSamples = new ArrayList<>();
+    RuntimeException failure = null;
+    for (Future<List<Sample>> future : storeFutures) {
+      try {
+        List<Sample> storedSamples = future.get();
+        samplesAccessioned.addAndGet(storedSamples.size());
+        accessionedSamples.addAll(storedSamples);
+      } catch (InterruptedException e) {
+        storeFutures.forEach(f -> f.cancel(true));
+        Thread.currentThread().interrupt();
+        throw new RuntimeException(e);
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          failure =
+              e.getCause() instanceof RuntimeException
+                  ? (RuntimeException) e.getCause()
+                  : new RuntimeException(e.getCause());
+        }
+      }
+    }
+
+    if (failure != null) {
+      Map<String, String> accessions = new LinkedHashMap<>();
+      for (Sample sample : accessionedSamples) {
+        accessions.put(sample.getName(), sample.getAccession());
+      }
+      LOG.error("Bulk accession failed after storing {}", accessions, failure);
+      throw new BulkAccessionFailedException(accessions, failure);
+    }
+    return accessionedSamples;
+  }
+
+  private <T> Future<T> submit(Callable<T> task, List<? extends Future<?>> futures) {
+    try {
+      return executor.submit(task);
+    } catch (RejectedExecutionException e) {
+      // only happens if the permits and the queue disagree, nothing has been stored yet
+      futures.forEach(f -> f.cancel(true));
+      requestsRejected.incrementAndGet();
+      throw new BulkAccessionBusyException();
+    }
+  }
+
+  private List<String> validate(List<Sample> samples) {
+    List<String> errors = new ArrayList<>();
+    for (Sample sample : samples) {
+      Collection<String> sampleErrors = sampleValidator.validate(sample);
+      if (!sampleErrors.isEmpty()) {
+        errors.add(sample.getName() + ": " + String.join(", ", sampleErrors));
+      }
+    }
+    return errors;
+  }
+
+  private <T> T get(Future<T> future, List<? extends Future<?>> futures) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      futures.forEach(f -> f.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      futures.forEach(f -> f.cancel(true));
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
+  public int getActiveCount() {
+    return executor.getActiveCount();
+  }
+
+  public int getQueuedCount() {
+    return executor.getQueue().size();
+  }
+
+  public long getSamplesAccessioned() {
+    return samplesAccessioned.get();
+  }
+
+  public long getRequestsRejected() {
+    return requestsRejected.get();
+  }
+
+  @ResponseStatus(
+      value = HttpStatus.SERVICE_UNAVAILABLE,
+      reason = "Too many samples are being accessioned, retry later")
+  public static class BulkAccessionBusyException extends RuntimeException {}
+
+  @ResponseStatus(
+      value = HttpStatus.PAYLOAD_TOO_LARGE,
+      reason = "Too many samples to accession in one request, split them into smaller requests")
+  public static class BulkAccessionTooLargeException extends RuntimeException {}
+
+  /** Storing a chunk failed after others were stored, which keep their accessions. */
+  public static class BulkAccessionFailedException extends RuntimeException {
+    private final Map<String, String> accessions;
+
+    public BulkAccessionFailedException(Map<String, String> accessions, Throwable cause) {
+      super("Bulk accession failed after " + accessions.size() + " samples were stored", cause);
+      this.accessions = accessions;
+    }
+
+    /** @return sample name to accession of the samples that were stored */
+    public Map<String, String> getAccessions() {
+      return accessions;
+    }
+  }
+}
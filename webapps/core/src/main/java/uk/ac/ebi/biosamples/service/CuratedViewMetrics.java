@@ -0,0 +1,41 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+/**
+ * Exposes how far the curated static view is behind the samples it is materialized from on the
+ * actuator metrics endpoint.
+ */
+@Component
+public class CuratedViewMetrics implements PublicMetrics {
+  private static final String PREFIX = "curatedview.";
+
+  private final CuratedViewMaterializer curatedViewMaterializer;
+
+  public CuratedViewMetrics(CuratedViewMaterializer curatedViewMaterializer) {
+    this.curatedViewMaterializer = curatedViewMaterializer;
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    Collection<Metric<?>> metrics = new ArrayList<>();
+    // in seconds
+    metrics.add(new Metric<>(PREFIX + "lag", curatedViewMaterializer.getLag().getSeconds()));
+    metrics.add(new Metric<>(PREFIX + "pending", curatedViewMaterializer.getPending()));
+    return metrics;
+  }
+}
@@ -10,12 +10,20 @@
 */
 package uk.ac.ebi.biosamples.service;
 
-import java.util.SortedSet;
-import java.util.TreeSet;
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteError;
+import com.mongodb.DBObject;
+import java.util.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import uk.ac.ebi.biosamples.model.Curation;
 import uk.ac.ebi.biosamples.model.CurationLink;
@@ -31,6 +39,8 @@ import uk.ac.ebi.biosamples.mongo.service.MongoCurationLinkToCurationLinkConvert
 @Service
 public class CurationPersistService {
 
+  private static final int DUPLICATE_KEY_ERROR_CODE = 11000;
+
   private Logger log = LoggerFactory.getLogger(getClass());
 
   // TODO use constructor injection
@@ -46,7 +56,11 @@ public class CurationPersistService {
   @Autowired private MongoCurationRepository mongoCurationRepository;
   @Autowired private CurationToMongoCurationConverter curationToMongoCurationConverter;
 
+  @Autowired private CurationReadService curationReadService;
+  @Autowired private SampleCache sampleCache;
+
   @Autowired private MessagingService messagingSerivce;
+  @Autowired private MongoOperations mongoOperations;
 
   public CurationLink store(CurationLink curationLink) {
     // TODO do this as a trigger on the curation link repo
@@ -79,6 +93,8 @@ public class CurationPersistService {
     // for each relationship curation create reverse relationship curation
     createReverseRelationshipCurations(curationLink);
 
+    curationReadService.evictCuratedSample(curationLink.getSample());
+    sampleCache.evict(curationLink.getSample());
     messagingSerivce.fetchThenSendMessage(curationLink.getSample());
     return curationLink;
   }
@@ -88,52 +104,133 @@ public class CurationPersistService {
     MongoCurationLink mongoCurationLink =
         curationLinkToMongoCurationLinkConverter.convert(curationLink);
     mongoCurationLinkRepository.delete(mongoCurationLink.getHash());
+    curationReadService.evictCuratedSample(curationLink.getSample());
+    sampleCache.evict(curationLink.getSample());
     messagingSerivce.fetchThenSendMessage(curationLink.getSample());
   }
 
-  // sample reverse relationships are dynamically generated, therefore should create for curations
-  private void createReverseRelationshipCurations(CurationLink curationLink) {
-    SortedSet<Relationship> relationshipsPre = curationLink.getCuration().getRelationshipsPre();
-    SortedSet<Relationship> relationshipsPost = curationLink.getCuration().getRelationshipsPost();
-    if (!relationshipsPre.isEmpty()) {
-      for (Relationship rel : relationshipsPre) {
-        SortedSet<Relationship> reverseRelationships = new TreeSet<>();
-        reverseRelationships.add(
-            rel); // to keep original direction, instead of adding reverse relationship
-        Curation reverseCuration =
-            Curation.build(null, null, null, null, reverseRelationships, null);
-        CurationLink reverseCurationLink =
-            CurationLink.build(
-                rel.getTarget(),
-                reverseCuration,
-                curationLink.getDomain(),
-                null,
-                curationLink.getCreated());
-        if (mongoCurationLinkRepository.findOne(reverseCurationLink.getHash()) == null) {
-          mongoCurationLinkRepository.save(
-              curationLinkToMongoCurationLinkConverter.convert(reverseCurationLink));
+  /**
+   * Stores many curation links at once. Curations and links are deduplicated by hash in memory and
+   * written with unordered bulk upserts that only insert what is not stored yet, then each affected
+   * sample is evicted and reindexed once rather than once per link.
+   *
+   * @return the curation links, deduplicated
+   */
+  public List<CurationLink> storeAll(Collection<CurationLink> curationLinks) {
+    Map<String, MongoCuration> mongoCurations = new LinkedHashMap<>();
+    Map<String, CurationLink> links = new LinkedHashMap<>();
+    Map<String, MongoCurationLink> mongoCurationLinks = new LinkedHashMap<>();
+    Set<String> accessions = new LinkedHashSet<>();
+    Set<String> reverseRelationshipTargets = new HashSet<>();
+
+    for (CurationLink curationLink : curationLinks) {
+      mongoCurations.computeIfAbsent(
+          curationLink.getCuration().getHash(),
+          hash -> curationToMongoCurationConverter.convert(curationLink.getCuration()));
+      if (links.putIfAbsent(curationLink.getHash(), curationLink) == null) {
+        mongoCurationLinks.put(
+            curationLink.getHash(), curationLinkToMongoCurationLinkConverter.convert(curationLink));
+      }
+      accessions.add(curationLink.getSample());
+
+      // for each relationship curation create reverse relationship curation
+      for (CurationLink reverseCurationLink : buildReverseRelationshipCurationLinks(curationLink)) {
+        mongoCurationLinks.putIfAbsent(
+            reverseCurationLink.getHash(),
+            curationLinkToMongoCurationLinkConverter.convert(reverseCurationLink));
+        reverseRelationshipTargets.add(reverseCurationLink.getSample());
+      }
+    }
+
+    insertMissing(MongoCuration.class, mongoCurations.values());
+    insertMissing(MongoCurationLink.class, mongoCurationLinks.values());
+
+    for (String accession : reverseRelationshipTargets) {
+      sampleCache.evict(accession);
+    }
+    for (String accession : accessions) {
+      curationReadService.evictCuratedSample(accession);
+      sampleCache.evict(accession);
+      messagingSerivce.fetchThenSendMessage(accession);
+    }
+
+    return new ArrayList<>(links.values());
+  }
+
+  /** Upserts the documents by id, only setting their content if they are new */
+  private void insertMissing(Class<?> type, Collection<?> documents) {
+    if (documents.isEmpty()) {
+      return;
+    }
+
+    BulkOperations bulkOperations =
+        mongoOperations.bulkOps(BulkOperations.BulkMode.UNORDERED, type);
+    for (Object document : documents) {
+      DBObject dbObject = new BasicDBObject();
+      mongoOperations.getConverter().write(document, dbObject);
+
+      Update update = new Update();
+      for (String key : dbObject.keySet()) {
+        if (!"_id".equals(key)) {
+          update.setOnInsert(key, dbObject.get(key));
         }
       }
+      bulkOperations.upsert(new Query(Criteria.where("_id").is(dbObject.get("_id"))), update);
     }
-    if (!relationshipsPost.isEmpty()) {
-      for (Relationship rel : relationshipsPost) {
-        SortedSet<Relationship> reverseRelationships = new TreeSet<>();
-        reverseRelationships.add(
-            rel); // to keep original direction, instead of adding reverse relationship
-        Curation reverseCuration =
-            Curation.build(null, null, null, null, null, reverseRelationships);
-        CurationLink reverseCurationLink =
-            CurationLink.build(
-                rel.getTarget(),
-                reverseCuration,
-                curationLink.getDomain(),
-                null,
-                curationLink.getCreated());
-        if (mongoCurationLinkRepository.findOne(reverseCurationLink.getHash()) == null) {
-          mongoCurationLinkRepository.save(
-              curationLinkToMongoCurationLinkConverter.convert(reverseCurationLink));
+
+    try {
+      bulkOperations.execute();
+    } catch (BulkOperationException e) {
+      // concurrent upserts of the same new document collide on its id, and it is then stored
+      for (BulkWriteError error : e.getErrors()) {
+        if (error.getCode() != DUPLICATE_KEY_ERROR_CODE) {
+          throw e;
         }
       }
     }
   }
+
+  // sample reverse relationships are dynamically generated, therefore should create for curations
+  private void createReverseRelationshipCurations(CurationLink curationLink) {
+    for (CurationLink reverseCurationLink : buildReverseRelationshipCurationLinks(curationLink)) {
+      if (mongoCurationLinkRepository.findOne(reverseCurationLink.getHash()) == null) {
+        mongoCurationLinkRepository.save(
+            curationLinkToMongoCurationLinkConverter.convert(reverseCurationLink));
+        sampleCache.evict(reverseCurationLink.getSample());
+      }
+    }
+  }
+
+  private List<CurationLink> buildReverseRelationshipCurationLinks(CurationLink curationLink) {
+    List<CurationLink> reverseCurationLinks = new ArrayList<>();
+    SortedSet<Relationship> relationshipsPre = curationLink.getCuration().getRelationshipsPre();
+    SortedSet<Relationship> relationshipsPost = curationLink.getCuration().getRelationshipsPost();
+    for (Relationship rel : relationshipsPre) {
+      SortedSet<Relationship> reverseRelationships = new TreeSet<>();
+      reverseRelationships.add(
+          rel); // to keep original direction, instead of adding reverse relationship
+      Curation reverseCuration = Curation.build(null, null, null, null, reverseRelationships, null);
+      reverseCurationLinks.add(
+          CurationLink.build(
+              rel.getTarget(),
+              reverseCuration,
+              curationLink.getDomain(),
+              null,
+              curationLink.getCreated()));
+    }
+    for (Relationship rel : relationshipsPost) {
+      SortedSet<Relationship> reverseRelationships = new TreeSet<>();
+      reverseRelationships.add(
+          rel); // to keep original direction, instead of adding reverse relationship
+      Curation reverseCuration = Curation.build(null, null, null, null, null, reverseRelationships);
+      reverseCurationLinks.add(
+          CurationLink.build(
+              rel.getTarget(),
+              reverseCuration,
+              curationLink.getDomain(),
+              null,
+              curationLink.getCreated()));
+    }
+    return reverseCurationLinks;
+  }
 }
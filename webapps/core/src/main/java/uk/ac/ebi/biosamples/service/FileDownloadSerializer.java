@@ -10,90 +10,112 @@
 */
 package uk.ac.ebi.biosamples.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import java.io.IOException;
+import java.io.Writer;
+import org.dom4j.io.OutputFormat;
+import org.dom4j.io.XMLWriter;
 import uk.ac.ebi.biosamples.model.Sample;
 
+/**
+ * Writes a bulk download one sample at a time to a {@link Writer}. Implementations keep no more
+ * than a single sample in memory and leave flushing to the caller.
+ */
 public interface FileDownloadSerializer {
 
-  static FileDownloadSerializer getSerializerFor(String format) {
+  static FileDownloadSerializer getSerializerFor(String format, Writer writer) throws IOException {
     FileDownloadSerializer serializer;
     if ("txt".equalsIgnoreCase(format)) {
-      serializer = new FileDownloadAccessionsSerializer();
+      serializer = new FileDownloadAccessionsSerializer(writer);
     } else if ("xml".equalsIgnoreCase(format)) {
-      serializer = new FileDownloadXmlSerializer();
+      serializer = new FileDownloadXmlSerializer(writer);
     } else {
-      serializer = new FileDownloadJsonSerializer();
+      serializer = new FileDownloadJsonSerializer(writer);
     }
     return serializer;
   }
 
-  String asString(Sample sample) throws IOException;
+  void startOfFile() throws IOException;
 
-  String startOfFile();
+  void write(Sample sample) throws IOException;
 
-  String endOfFile();
-
-  String delimiter();
+  void endOfFile() throws IOException;
 
   class FileDownloadJsonSerializer implements FileDownloadSerializer {
-    private final ObjectMapper objectMapper =
-        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
-
-    public String asString(Sample sample) throws IOException {
-      return objectMapper.writeValueAsString(sample);
+    // flushing after every sample would push each one through the compressor separately
+    private static final ObjectMapper objectMapper =
+        new ObjectMapper().disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private final JsonGenerator generator;
+
+    public FileDownloadJsonSerializer(Writer writer) throws IOException {
+      generator =
+          objectMapper
+              .getFactory()
+              .createGenerator(writer)
+              .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
     }
 
-    public String startOfFile() {
-      return "[";
+    public void startOfFile() throws IOException {
+      generator.writeStartArray();
     }
 
-    public String endOfFile() {
-      return "]";
+    public void write(Sample sample) throws IOException {
+      objectMapper.writeValue(generator, sample);
     }
 
-    public String delimiter() {
-      return "," + System.lineSeparator();
+    public void endOfFile() throws IOException {
+      generator.writeEndArray();
+      generator.flush();
     }
   }
 
   class FileDownloadXmlSerializer implements FileDownloadSerializer {
-    private final SampleToXmlConverter converter =
+    private static final SampleToXmlConverter converter =
         new SampleToXmlConverter(new ExternalReferenceService());
 
-    public String asString(Sample sample) {
-      return converter.convert(sample).getRootElement().asXML();
+    private final Writer writer;
+    private final XMLWriter xmlWriter;
+
+    public FileDownloadXmlSerializer(Writer writer) {
+      this.writer = writer;
+      xmlWriter = new XMLWriter(writer, new OutputFormat());
     }
 
-    public String startOfFile() {
-      return "<BioSamples>" + System.lineSeparator();
+    public void startOfFile() throws IOException {
+      writer.write("<BioSamples>" + System.lineSeparator());
     }
 
-    public String endOfFile() {
-      return "</BioSamples>";
+    public void write(Sample sample) throws IOException {
+      xmlWriter.write(converter.convert(sample).getRootElement());
+      writer.write(System.lineSeparator());
     }
 
-    public String delimiter() {
-      return System.lineSeparator();
+    public void endOfFile() throws IOException {
+      writer.write("</BioSamples>");
     }
   }
 
   class FileDownloadAccessionsSerializer implements FileDownloadSerializer {
-    public String asString(Sample sample) {
-      return sample.getAccession();
-    }
+    private final Writer writer;
+    private boolean first = true;
 
-    public String startOfFile() {
-      return "";
+    public FileDownloadAccessionsSerializer(Writer writer) {
+      this.writer = writer;
     }
 
-    public String endOfFile() {
-      return "";
-    }
+    public void startOfFile() {}
 
-    public String delimiter() {
-      return System.lineSeparator();
+    public void write(Sample sample) throws IOException {
+      if (!first) {
+        writer.write(System.lineSeparator());
+      }
+      writer.write(sample.getAccession());
+      first = false;
     }
+
+    public void endOfFile() {}
   }
 }
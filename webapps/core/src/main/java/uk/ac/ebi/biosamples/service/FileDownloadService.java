@@ -10,52 +10,158 @@
 */
 package uk.ac.ebi.biosamples.service;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
-import org.springframework.util.StreamUtils;
+import uk.ac.ebi.biosamples.BioSamplesProperties;
+import uk.ac.ebi.biosamples.model.Sample;
 import uk.ac.ebi.biosamples.model.filter.Filter;
+import uk.ac.ebi.biosamples.solr.repo.CursorArrayList;
 
+/**
+ * Streams search results to a client page by page. While a page is being written the next one is
+ * already fetched from Solr and Mongo, so at most two pages are held in memory regardless of the
+ * size of the download.
+ */
 @Service
 public class FileDownloadService {
+  private static final Logger LOG = LoggerFactory.getLogger(FileDownloadService.class);
+  private static final int PAGE_SIZE = 1000;
+  private static final int BUFFER_SIZE = 256 * 1024;
+
+  public enum Compression {
+    NONE,
+    ZIP,
+    GZIP
+  }
+
   private final SamplePageService samplePageService;
+  private final ExecutorService executorService;
 
-  public FileDownloadService(SamplePageService samplePageService) {
+  public FileDownloadService(
+      SamplePageService samplePageService, BioSamplesProperties bioSamplesProperties) {
     this.samplePageService = samplePageService;
+    executorService =
+        Executors.newFixedThreadPool(bioSamplesProperties.getBiosamplesCoreDownloadThreadCount());
   }
 
-  public InputStream getDownloadStream(
+  @PreDestroy
+  public void shutdown() {
+    executorService.shutdownNow();
+  }
+
+  /**
+   * Writes every sample matching the search, up to limit, to the output stream.
+   *
+   * @param limit maximum number of samples to write, the download controller caps it at 100000
+   *     unless a larger count is requested
+   */
+  public void download(
       String text,
       Collection<Filter> filters,
       Collection<String> domains,
       String format,
-      int count) {
-    FileDownloadSerializer serializer = FileDownloadSerializer.getSerializerFor(format);
-    return new FileDownloadInputStream(
-        samplePageService, text, filters, count, domains, serializer);
+      int limit,
+      Compression compression,
+      OutputStream out)
+      throws IOException {
+    OutputStream bufferedOut = new BufferedOutputStream(out, BUFFER_SIZE);
+    if (compression == Compression.ZIP) {
+      ZipOutputStream zippedOut = new ZipOutputStream(bufferedOut);
+      zippedOut.putNextEntry(new ZipEntry("samples." + format));
+      writeSamples(text, filters, domains, format, limit, zippedOut);
+      zippedOut.closeEntry();
+      zippedOut.finish();
+    } else if (compression == Compression.GZIP) {
+      GZIPOutputStream gzippedOut = new GZIPOutputStream(bufferedOut, BUFFER_SIZE);
+      writeSamples(text, filters, domains, format, limit, gzippedOut);
+      gzippedOut.finish();
+    } else {
+      writeSamples(text, filters, domains, format, limit, bufferedOut);
+    }
+    bufferedOut.flush();
   }
 
-  public void copyAndCompress(InputStream in, OutputStream out, boolean zip, String format)
+  private void writeSamples(
+      String text,
+      Collection<Filter> filters,
+      Collection<String> domains,
+      String format,
+      int limit,
+      OutputStream out)
       throws IOException {
-    if (zip) {
-      zip(in, out, format);
-    } else {
-      StreamUtils.copy(in, out);
+    Writer writer =
+        new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    FileDownloadSerializer serializer = FileDownloadSerializer.getSerializerFor(format, writer);
+    long remaining = limit;
+    long startTime = System.nanoTime();
+    long sampleCount = 0;
+
+    serializer.startOfFile();
+    String cursor = "*";
+    Future<CursorArrayList<Sample>> nextPage = fetchPage(text, filters, domains, cursor);
+    try {
+      while (nextPage != null && remaining > 0) {
+        CursorArrayList<Sample> page = getPage(nextPage);
+        String nextCursor = page.getNextCursorMark();
+        // solr returns the same cursor once there are no more results
+        boolean hasMore = !page.isEmpty() && nextCursor != null && !nextCursor.equals(cursor);
+        nextPage =
+            hasMore && page.size() < remaining
+                ? fetchPage(text, filters, domains, nextCursor)
+                : null;
+        cursor = nextCursor;
+
+        for (Sample sample : page) {
+          if (remaining-- <= 0) {
+            break;
+          }
+          serializer.write(sample);
+          sampleCount++;
+        }
+      }
+    } finally {
+      if (nextPage != null) {
+        nextPage.cancel(true);
+      }
     }
+    serializer.endOfFile();
+    writer.flush();
+
+    LOG.info(
+        "Downloaded {} samples in {}ms", sampleCount, (System.nanoTime() - startTime) / 1000000);
   }
 
-  private void zip(InputStream in, OutputStream out, String format) throws IOException {
-    try (ZipOutputStream zippedOut = new ZipOutputStream(out)) {
-      ZipEntry zipEntry = new ZipEntry("samples." + format);
-      zippedOut.putNextEntry(zipEntry);
-      StreamUtils.copy(in, zippedOut);
+  private Future<CursorArrayList<Sample>> fetchPage(
+      String text, Collection<Filter> filters, Collection<String> domains, String cursor) {
+    return executorService.submit(
+        () -> samplePageService.getSamplesByText(text, filters, domains, cursor, PAGE_SIZE, null));
+  }
 
-      zippedOut.closeEntry();
-      zippedOut.finish();
+  private CursorArrayList<Sample> getPage(Future<CursorArrayList<Sample>> page) throws IOException {
+    try {
+      return page.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while fetching samples for download", e);
+    } catch (ExecutionException e) {
+      throw new IOException("Failed to fetch samples for download", e.getCause());
     }
   }
 }
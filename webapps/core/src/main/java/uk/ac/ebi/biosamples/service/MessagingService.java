@@ -19,53 +19,90 @@ import org.springframework.amqp.core.AmqpTemplate;
 import org.springframework.stereotype.Service;
 import uk.ac.ebi.biosamples.MessageContent;
 import uk.ac.ebi.biosamples.Messaging;
+import uk.ac.ebi.biosamples.SampleChange;
 import uk.ac.ebi.biosamples.model.CurationLink;
 import uk.ac.ebi.biosamples.model.Relationship;
 import uk.ac.ebi.biosamples.model.Sample;
-import uk.ac.ebi.biosamples.model.StaticViewWrapper;
-import uk.ac.ebi.biosamples.mongo.repo.MongoSampleRepository;
-import uk.ac.ebi.biosamples.mongo.service.SampleToMongoSampleConverter;
+import uk.ac.ebi.biosamples.mongo.service.MongoSampleChangeService;
 
 @Service
 public class MessagingService {
   private Logger log = LoggerFactory.getLogger(getClass());
 
   private final SampleReadService sampleReadService;
+  private final SampleCache sampleCache;
   private final AmqpTemplate amqpTemplate;
-  private final MongoSampleRepository mongoSampleRepository;
-  private final SampleToMongoSampleConverter sampleToMongoSampleConverter;
+  private final MongoSampleChangeService mongoSampleChangeService;
 
   public MessagingService(
       SampleReadService sampleReadService,
+      SampleCache sampleCache,
       AmqpTemplate amqpTemplate,
-      MongoSampleRepository mongoSampleRepository,
-      SampleToMongoSampleConverter sampleToMongoSampleConverter) {
+      MongoSampleChangeService mongoSampleChangeService) {
     this.sampleReadService = sampleReadService;
+    this.sampleCache = sampleCache;
     this.amqpTemplate = amqpTemplate;
-    this.mongoSampleRepository = mongoSampleRepository;
-    this.sampleToMongoSampleConverter = sampleToMongoSampleConverter;
+    this.mongoSampleChangeService = mongoSampleChangeService;
   }
 
   public void fetchThenSendMessage(String accession) {
     fetchThenSendMessage(accession, Collections.emptyList());
   }
 
+  /**
+   * Records the change to the sample and queues it to be indexed, together with the samples it has
+   * or had relationships to. Only the accession is sent before returning; the queue is durable, so
+   * the change is not lost if this node stops before {@link SampleChangeListener} has fetched the
+   * samples and sent them with {@link #sendIndexingMessage(String, Collection)}.
+   *
+   * @param accession the sample that has changed
+   * @param existingRelationshipTargets targets of the relationships the sample had before it
+   *     changed, so that removed relationships are updated too
+   */
   public void fetchThenSendMessage(String accession, List<String> existingRelationshipTargets) {
     if (accession == null) throw new IllegalArgumentException("accession cannot be null");
     if (accession.trim().length() == 0)
       throw new IllegalArgumentException("accession cannot be empty");
 
+    // the curated view of this sample and of the samples it had relationships to is updated
+    // from these by the curated view pipeline
+    List<String> changed = new ArrayList<>(existingRelationshipTargets);
+    changed.add(accession);
+    mongoSampleChangeService.recordChanges(changed);
+    sampleCache.evict(accession);
+
+    amqpTemplate.convertAndSend(
+        Messaging.exchangeForSampleChanged,
+        "",
+        SampleChange.build(accession, existingRelationshipTargets));
+  }
+
+  /** Same as {@link #fetchThenSendMessage(String)} for newly created samples. */
+  public void fetchThenSendMessages(List<String> accessions) {
+    mongoSampleChangeService.recordChanges(accessions);
+    for (String accession : accessions) {
+      sampleCache.evict(accession);
+      amqpTemplate.convertAndSend(
+          Messaging.exchangeForSampleChanged,
+          "",
+          SampleChange.build(accession, Collections.emptyList()));
+    }
+  }
+
+  /**
+   * Fetches a changed sample and sends it to be indexed, with the samples it has or had
+   * relationships to as related samples so that their inverse relationships are updated.
+   *
+   * @param accession the sample that has changed
+   * @param existingRelationshipTargets targets of the relationships the sample had before any of
+   *     the changes being sent
+   */
+  public void sendIndexingMessage(
+      String accession, Collection<String> existingRelationshipTargets) {
     Optional<Sample> sample = sampleReadService.fetch(accession, Optional.empty());
     if (sample.isPresent()) {
-      // save sample with curations and relationships in static view collection
-      mongoSampleRepository.insertSampleToCollection(
-          sampleToMongoSampleConverter.convert(sample.get()),
-          StaticViewWrapper.StaticView.SAMPLES_CURATED);
-
       // for each sample we have a relationship to, update it to index this sample as an
-      // inverse
-      // relationship
-      // TODO do this async
+      // inverse relationship
       List<Sample> related = updateInverseRelationships(sample.get(), existingRelationshipTargets);
 
       // send the original sample with the extras as related samples
@@ -77,7 +114,7 @@ public class MessagingService {
   }
 
   private List<Sample> updateInverseRelationships(
-      Sample sample, List<String> existingRelationshipTargets) {
+      Sample sample, Collection<String> existingRelationshipTargets) {
     List<Future<Optional<Sample>>> futures = new ArrayList<>();
 
     // remove deleted relationships
@@ -99,11 +136,8 @@ public class MessagingService {
         Optional<Sample> optionalSample = future.get();
         if (optionalSample.isPresent()) {
           related.add(optionalSample.get());
-          // todo if we  add inverse relationships we also have to think about deleting
-          // them
-          mongoSampleRepository.insertSampleToCollection(
-              sampleToMongoSampleConverter.convert(optionalSample.get()),
-              StaticViewWrapper.StaticView.SAMPLES_CURATED);
+          // its inverse relationships have changed as well as its static view
+          sampleCache.evict(optionalSample.get().getAccession());
         }
       } catch (InterruptedException e) {
         log.warn("Interrupted fetching future relationships", e);
@@ -0,0 +1,42 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.service;
+
+import com.google.common.cache.CacheStats;
+import java.util.ArrayList;
+import java.util.Collection;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+/** Exposes the single-sample cache statistics on the actuator metrics endpoint. */
+@Component
+public class SampleCacheMetrics implements PublicMetrics {
+  private static final String PREFIX = "cache.samples.";
+
+  private final SampleCache sampleCache;
+
+  public SampleCacheMetrics(SampleCache sampleCache) {
+    this.sampleCache = sampleCache;
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    CacheStats stats = sampleCache.stats();
+    Collection<Metric<?>> metrics = new ArrayList<>();
+    metrics.add(new Metric<>(PREFIX + "size", sampleCache.size()));
+    metrics.add(new Metric<>(PREFIX + "hit", stats.hitCount()));
+    metrics.add(new Metric<>(PREFIX + "miss", stats.missCount()));
+    metrics.add(new Metric<>(PREFIX + "eviction", stats.evictionCount()));
+    metrics.add(new Metric<>(PREFIX + "hit.ratio", stats.hitRate()));
+    return metrics;
+  }
+}
@@ -0,0 +1,144 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.service;
+
+import com.rabbitmq.client.Channel;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Service;
+import uk.ac.ebi.biosamples.BioSamplesProperties;
+import uk.ac.ebi.biosamples.Messaging;
+import uk.ac.ebi.biosamples.SampleChange;
+
+/**
+ * Fetches the samples written by {@link SampleService} and sends them to be indexed, off the
+ * request thread.
+ *
+ * <p>Changes are taken from a durable queue and acknowledged manually, only once the indexing
+ * message for them has been sent, so a change is redelivered if this node stops before then.
+ * Changes to the same sample that arrive while an earlier one is waiting for a thread are merged
+ * into it, so the sample and its related samples are fetched once. The number of changes held is
+ * bounded by the prefetch of the listener container, biosamples.webapp.core.postwrite.prefetch.
+ */
+@Service
+public class SampleChangeListener {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SampleChangeListener.class);
+
+  private final MessagingService messagingService;
+  private final ExecutorService executorService;
+
+  // changes waiting for a thread, by accession
+  private final Map<String, PendingChange> pendingChanges = new HashMap<>();
+
+  public SampleChangeListener(
+      MessagingService messagingService, BioSamplesProperties bioSamplesProperties) {
+    this(
+        messagingService,
+        Executors.newFixedThreadPool(bioSamplesProperties.getBiosamplesCorePostWriteThreadCount()));
+  }
+
+  SampleChangeListener(MessagingService messagingService, ExecutorService executorService) {
+    this.messagingService = messagingService;
+    this.executorService = executorService;
+  }
+
+  @RabbitListener(
+      queues = Messaging.queueSampleChanged,
+      containerFactory = "sampleChangeListenerContainerFactory")
+  public void handle(
+      SampleChange sampleChange,
+      Channel channel,
+      @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag) {
+    String accession = sampleChange.getAccession();
+    boolean waiting;
+    synchronized (pendingChanges) {
+      PendingChange pendingChange = pendingChanges.get(accession);
+      waiting = pendingChange != null;
+      if (!waiting) {
+        pendingChange = new PendingChange();
+        pendingChanges.put(accession, pendingChange);
+      }
+      pendingChange.add(sampleChange.getPreviousRelationshipTargets(), channel, deliveryTag);
+    }
+    if (!waiting) {
+      executorService.execute(() -> process(accession));
+    }
+  }
+
+  private void process(String accession) {
+    PendingChange pendingChange;
+    synchronized (pendingChanges) {
+      // later changes wait for the next fetch, as this one may not see them
+      pendingChange = pendingChanges.remove(accession);
+    }
+
+    try {
+      messagingService.sendIndexingMessage(accession, pendingChange.previousRelationshipTargets);
+      pendingChange.acknowledge();
+    } catch (RuntimeException e) {
+      LOGGER.error("failed to send " + accession + " to be indexed", e);
+      pendingChange.reject();
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    // unacknowledged changes are redelivered once the channel is closed
+    executorService.shutdown();
+  }
+
+  private static class PendingChange {
+    private final Set<String> previousRelationshipTargets = new LinkedHashSet<>();
+    // delivery tags are only valid on the channel they arrived on
+    private final List<Channel> channels = new ArrayList<>();
+    private final List<Long> deliveryTags = new ArrayList<>();
+
+    private void add(List<String> previousRelationshipTargets, Channel channel, long deliveryTag) {
+      this.previousRelationshipTargets.addAll(previousRelationshipTargets);
+      channels.add(channel);
+      deliveryTags.add(deliveryTag);
+    }
+
+    private void acknowledge() {
+      for (int i = 0; i < deliveryTags.size(); i++) {
+        try {
+          channels.get(i).basicAck(deliveryTags.get(i), false);
+        } catch (IOException e) {
+          // the channel has gone, the broker will redeliver the change
+          LOGGER.error("failed to acknowledge sample change", e);
+        }
+      }
+    }
+
+    private void reject() {
+      for (int i = 0; i < deliveryTags.size(); i++) {
+        try {
+          channels.get(i).basicNack(deliveryTags.get(i), false, false);
+        } catch (IOException e) {
+          LOGGER.error("failed to reject sample change", e);
+        }
+      }
+    }
+  }
+}
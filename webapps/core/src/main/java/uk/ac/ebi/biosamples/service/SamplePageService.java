@@ -10,16 +10,15 @@
 */
 package uk.ac.ebi.biosamples.service;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import uk.ac.ebi.biosamples.model.Sample;
@@ -85,28 +84,12 @@ public class SamplePageService {
     log.trace("Got solr page in " + ((endTime - startTime) / 1000000) + "ms");
 
     startTime = System.nanoTime();
-    Page<Future<Optional<Sample>>> pageFutureSample;
     StaticViewWrapper.StaticView staticViews =
         StaticViewWrapper.getStaticView(domains.isEmpty() ? null : domains, curationRepo);
-    pageFutureSample =
-        pageSolrSample.map(
-            ss -> sampleService.fetchAsync(ss.getAccession(), Optional.empty(), staticViews));
-
+    List<Sample> listSample =
+        sampleService.fetchAll(getAccessions(pageSolrSample), Optional.empty(), staticViews);
     Page<Sample> pageSample =
-        pageFutureSample.map(
-            ss -> {
-              try {
-                if (ss.get().isPresent()) {
-                  return ss.get().get();
-                } else {
-                  return null;
-                }
-              } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-              } catch (ExecutionException e) {
-                throw new RuntimeException(e);
-              }
-            });
+        new PageImpl<>(listSample, pageable, pageSolrSample.getTotalElements());
     endTime = System.nanoTime();
     log.trace("Got mongo page content in " + ((endTime - startTime) / 1000000) + "ms");
     return pageSample;
@@ -119,38 +102,43 @@ public class SamplePageService {
       String cursorMark,
       int size,
       String curationRepo) {
+    return getSamplesByText(text, filters, domains, cursorMark, size, curationRepo, 0, 1);
+  }
+
+  /**
+   * Get a cursor page of samples from one of several disjoint partitions of the search results, so
+   * that clients can iterate over all the results with several concurrent cursors
+   */
+  public CursorArrayList<Sample> getSamplesByText(
+      String text,
+      Collection<Filter> filters,
+      Collection<String> domains,
+      String cursorMark,
+      int size,
+      String curationRepo,
+      int partition,
+      int partitions) {
     cursorMark = validateCursor(cursorMark);
     size = validatePageSize(size);
 
     CursorArrayList<SolrSample> cursorSolrSample =
-        solrSampleService.fetchSolrSampleByText(text, filters, domains, cursorMark, size);
+        solrSampleService.fetchSolrSampleByText(
+            text, filters, domains, cursorMark, size, partition, partitions);
 
     StaticViewWrapper.StaticView staticViews =
         StaticViewWrapper.getStaticView(domains.isEmpty() ? null : domains, curationRepo);
-    List<Future<Optional<Sample>>> listFutureSample;
-    listFutureSample =
-        cursorSolrSample.stream()
-            .map(s -> sampleService.fetchAsync(s.getAccession(), Optional.empty(), staticViews))
-            .collect(Collectors.toList());
-
-    List<Sample> listSample = collectSampleFutures(listFutureSample);
+    List<Sample> listSample =
+        sampleService.fetchAll(getAccessions(cursorSolrSample), Optional.empty(), staticViews);
 
     return new CursorArrayList<>(listSample, cursorSolrSample.getNextCursorMark());
   }
 
-  private List<Sample> collectSampleFutures(List<Future<Optional<Sample>>> listFutureSample) {
-    return listFutureSample.stream()
-        .map(
-            ss -> {
-              try {
-                return ss.get().get();
-              } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-              } catch (ExecutionException e) {
-                throw new RuntimeException(e);
-              }
-            })
-        .collect(Collectors.toList());
+  private List<String> getAccessions(Iterable<SolrSample> solrSamples) {
+    List<String> accessions = new ArrayList<>();
+    for (SolrSample solrSample : solrSamples) {
+      accessions.add(solrSample.getAccession());
+    }
+    return accessions;
   }
 
   private String validateCursor(String cursorMark) {
@@ -66,7 +66,7 @@ public class SampleRestResponseBodyAdvice implements ResponseBodyAdvice<Resource
       }
     }
 
-    // TODO last modified and etag
+    // ETag and Last-Modified are set by SampleRestController from a version stamp of the sample
     return body;
   }
 }
@@ -27,6 +27,7 @@ import uk.ac.ebi.biosamples.mongo.model.MongoRelationship;
 import uk.ac.ebi.biosamples.mongo.model.MongoSample;
 import uk.ac.ebi.biosamples.mongo.repo.MongoSampleRepository;
 import uk.ac.ebi.biosamples.mongo.service.MongoAccessionService;
+import uk.ac.ebi.biosamples.mongo.service.MongoSampleFingerprintService;
 import uk.ac.ebi.biosamples.mongo.service.MongoSampleToSampleConverter;
 import uk.ac.ebi.biosamples.mongo.service.SampleToMongoSampleConverter;
 import uk.ac.ebi.biosamples.mongo.service.SampleToMongoSampleStructuredDataCentricConverter;
@@ -63,7 +64,9 @@ public class SampleService {
   @Autowired private SampleValidator sampleValidator;
   @Autowired private SolrSampleService solrSampleService;
   @Autowired private SampleReadService sampleReadService;
+  @Autowired private SampleCache sampleCache;
   @Autowired private MessagingService messagingSerivce;
+  @Autowired private MongoSampleFingerprintService mongoSampleFingerprintService;
 
   /**
    * Throws an IllegalArgumentException of no sample with that accession exists
@@ -79,6 +82,17 @@ public class SampleService {
     return sampleReadService.fetch(accession, curationDomains, staticView);
   }
 
+  /**
+   * Like {@link #fetch(String, Optional, String)}, but always reads the sample from the database
+   * instead of the sample cache, for responses that must not be older than a version read earlier
+   */
+  public Optional<Sample> fetchUncached(
+      String accession, Optional<List<String>> curationDomains, String curationRepo) {
+    StaticViewWrapper.StaticView staticView =
+        StaticViewWrapper.getStaticView(curationDomains.orElse(null), curationRepo);
+    return sampleReadService.fetchUncached(accession, curationDomains, staticView);
+  }
+
   public Autocomplete getAutocomplete(
       String autocompletePrefix, Collection<Filter> filters, int noSuggestions) {
     return solrSampleService.getAutocomplete(autocompletePrefix, filters, noSuggestions);
@@ -152,12 +166,9 @@ public class SampleService {
     return firstTimeMetadataAdded;
   }
 
-  // because the fetchUsing caches the sample, if an updated version is stored, we need to make
-  // sure
-  // that any cached version
-  // is removed.
-  // Note, pages of samples will not be cache busted, only single-accession sample retrieval
-  // @CacheEvict(cacheNames=WebappProperties.fetchUsing, key="#result.accession")
+  // because fetch caches the sample, if an updated version is stored, we need to make sure that
+  // any cached version is removed.
+  // Note, pages of samples are not cached, only single-accession sample retrieval
   public Sample store(Sample sample, boolean isFirstTimeMetadataAdded, String authProvider) {
     return store(sample, false, isFirstTimeMetadataAdded, authProvider);
   }
@@ -190,6 +201,9 @@ public class SampleService {
 
       mongoSample = mongoSampleRepository.save(mongoSample);
       sample = mongoSampleToSampleConverter.convert(mongoSample);
+      sampleCache.evict(sample.getAccession());
+      // so import pipelines do not skip it as unchanged at their source
+      mongoSampleFingerprintService.forget(sample.getAccession());
 
       // send a message for storage and further processing, send relationship targets to
       // identify
@@ -208,6 +222,24 @@ public class SampleService {
     return fetch(sample.getAccession(), Optional.empty(), null).get();
   }
 
+  /**
+   * Accessions and stores new samples in bulk. Unlike {@link #store(Sample, boolean, String)} the
+   * samples are not validated here and the stored samples are not fetched again, so the returned
+   * samples do not include curation or inverse relationships.
+   *
+   * @param samples validated samples without accessions
+   * @return the samples with their new accessions, in the same order
+   */
+  public List<Sample> storeNewSamples(List<Sample> samples) {
+    List<Sample> accessionedSamples = mongoAccessionService.generateAccessions(samples);
+    List<String> accessions = new ArrayList<>(accessionedSamples.size());
+    for (Sample sample : accessionedSamples) {
+      accessions.add(sample.getAccession());
+    }
+    messagingSerivce.fetchThenSendMessages(accessions);
+    return accessionedSamples;
+  }
+
   public Sample storeSampleStructuredData(Sample newSample, String authProvider) {
     validateSampleContentsForStructuredDataPatching(newSample);
 
@@ -223,6 +255,8 @@ public class SampleService {
     MongoSample mongoSample = structuredDataConverter.convert(newSample, authProvider);
     mongoSample = mongoSampleRepository.save(mongoSample);
     newSample = mongoSampleToSampleConverter.convert(mongoSample);
+    sampleCache.evict(newSample.getAccession());
+    mongoSampleFingerprintService.forget(newSample.getAccession());
 
     // return the newSample in case we have modified it i.e accessioned
     // do a fetch to return it with curation objects and inverse relationships
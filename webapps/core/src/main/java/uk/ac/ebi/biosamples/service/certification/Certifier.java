@@ -13,16 +13,27 @@ package uk.ac.ebi.biosamples.service.certification;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
 import org.everit.json.schema.ValidationException;
+import org.json.JSONException;
+import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import uk.ac.ebi.biosamples.BioSamplesProperties;
 import uk.ac.ebi.biosamples.model.certification.*;
 import uk.ac.ebi.biosamples.validation.ValidatorI;
 
@@ -34,14 +45,25 @@ public class Certifier {
   private ConfigLoader configLoader;
   private ValidatorI validator;
   private Applicator applicator;
+  // checks the schemas of a certification concurrently, apart from the pools serving requests
+  private final ExecutorService executor;
 
   public Certifier(
       ConfigLoader configLoader,
       @Qualifier("javaValidator") ValidatorI validator,
-      Applicator applicator) {
+      Applicator applicator,
+      BioSamplesProperties bioSamplesProperties) {
     this.validator = validator;
     this.configLoader = configLoader;
     this.applicator = applicator;
+    this.executor =
+        Executors.newFixedThreadPool(
+            bioSamplesProperties.getBiosamplesCoreCertificationThreadCount());
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
   }
 
   public CertificationResult certify(SampleDocument sampleDocument, boolean isJustCertification) {
@@ -80,9 +102,12 @@ public class Certifier {
     boolean certified = false;
     String suggestionMessage = "";
 
-    for (Checklist checklist : configLoader.config.getChecklists()) {
+    List<Checklist> checklists = configLoader.config.getChecklists();
+    Map<String, Optional<Exception>> failures = validateAll(checklists, sampleDocument);
+
+    for (Checklist checklist : checklists) {
       try {
-        validator.validate(checklist.getFileName(), sampleDocument.getDocument());
+        rethrow(failures.get(checklist.getFileName()));
         EVENTS.info(
             String.format("%s validation successful against %s", message, checklist.getID()));
         certified = true;
@@ -135,6 +160,81 @@ public class Certifier {
     return certificationResult;
   }
 
+  /**
+   * Validates the document against the schema of each checklist. Each schema is only checked once
+   * even if several checklists use it, and the schemas are checked concurrently. The java validator
+   * is given the document parsed once for all of them, other validators get the text.
+   *
+   * @return the failure for each schema file, if it failed
+   */
+  private Map<String, Optional<Exception>> validateAll(
+      List<Checklist> checklists, SampleDocument sampleDocument) {
+    JSONObject parsedDocument = null;
+    if (validator instanceof Validator) {
+      try {
+        parsedDocument = new JSONObject(sampleDocument.getDocument());
+      } catch (JSONException e) {
+        // left to each schema check to report, as before
+        LOG.debug("cannot parse the sample document", e);
+      }
+    }
+
+    Map<String, Future<Optional<Exception>>> futures = new LinkedHashMap<>();
+    for (Checklist checklist : checklists) {
+      final JSONObject document = parsedDocument;
+      futures.computeIfAbsent(
+          checklist.getFileName(),
+          fileName ->
+              executor.submit(
+                  () ->
+                      document != null
+                          ? validate(fileName, document)
+                          : validate(fileName, sampleDocument.getDocument())));
+    }
+
+    Map<String, Optional<Exception>> failures = new HashMap<>();
+    try {
+      for (Map.Entry<String, Future<Optional<Exception>>> future : futures.entrySet()) {
+        failures.put(future.getKey(), future.getValue().get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    } finally {
+      futures.values().forEach(future -> future.cancel(true));
+    }
+    return failures;
+  }
+
+  private Optional<Exception> validate(String fileName, String document) {
+    try {
+      validator.validate(fileName, document);
+      return Optional.empty();
+    } catch (IOException | ValidationException e) {
+      return Optional.of(e);
+    }
+  }
+
+  private Optional<Exception> validate(String fileName, JSONObject document) {
+    try {
+      ((Validator) validator).validate(fileName, document);
+      return Optional.empty();
+    } catch (IOException | ValidationException e) {
+      return Optional.of(e);
+    }
+  }
+
+  private void rethrow(Optional<Exception> failure) throws IOException {
+    if (failure.isPresent()) {
+      if (failure.get() instanceof IOException) {
+        throw (IOException) failure.get();
+      }
+      throw (ValidationException) failure.get();
+    }
+  }
+
   private String getAccession(SampleDocument sampleDocument) {
     return sampleDocument.getAccession();
   }
@@ -0,0 +1,105 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.service.certification;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.everit.json.schema.Schema;
+import org.everit.json.schema.loader.SchemaLoader;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Compiled checklist schemas, keyed by their classpath location. Each schema is loaded the first
+ * time it is used and then kept, and is recompiled when the file it was loaded from changes.
+ */
+@Service
+public class SchemaRegistry {
+  private Logger log = LoggerFactory.getLogger(getClass());
+
+  private final Map<String, CompiledSchema> schemas = new ConcurrentHashMap<>();
+
+  public Schema getSchema(String schemaPath) throws IOException {
+    try {
+      return schemas.computeIfAbsent(schemaPath, this::compileUnchecked).schema;
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /** Recompiles every schema whose file has been modified since it was last loaded. */
+  @Scheduled(fixedDelayString = "${biosamples.certification.schema.reload:60000}")
+  public void reloadModified() {
+    for (Map.Entry<String, CompiledSchema> entry : schemas.entrySet()) {
+      try {
+        if (getLastModified(entry.getValue().url) != entry.getValue().lastModified) {
+          log.info("Reloading modified schema " + entry.getKey());
+          schemas.put(entry.getKey(), compile(entry.getKey()));
+        }
+      } catch (IOException | RuntimeException e) {
+        // keep using the schema we already have
+        log.error("Unable to reload schema " + entry.getKey(), e);
+      }
+    }
+  }
+
+  private CompiledSchema compileUnchecked(String schemaPath) {
+    try {
+      return compile(schemaPath);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private CompiledSchema compile(String schemaPath) throws IOException {
+    URL url = getClass().getClassLoader().getResource(schemaPath);
+    if (url == null) {
+      throw new FileNotFoundException(schemaPath);
+    }
+    long lastModified = getLastModified(url);
+    try (InputStream inputStream = url.openStream()) {
+      JSONObject rawSchema = new JSONObject(new JSONTokener(inputStream));
+      return new CompiledSchema(SchemaLoader.load(rawSchema), url, lastModified);
+    }
+  }
+
+  private long getLastModified(URL url) throws IOException {
+    URLConnection connection = url.openConnection();
+    try {
+      return connection.getLastModified();
+    } finally {
+      // connecting opens the file, so close it again
+      connection.getInputStream().close();
+    }
+  }
+
+  private static class CompiledSchema {
+    private final Schema schema;
+    private final URL url;
+    private final long lastModified;
+
+    private CompiledSchema(Schema schema, URL url, long lastModified) {
+      this.schema = schema;
+      this.url = url;
+      this.lastModified = lastModified;
+    }
+  }
+}
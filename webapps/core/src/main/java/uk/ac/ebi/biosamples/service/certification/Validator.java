@@ -11,15 +11,11 @@
 package uk.ac.ebi.biosamples.service.certification;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
-import org.everit.json.schema.Schema;
 import org.everit.json.schema.ValidationException;
-import org.everit.json.schema.loader.SchemaLoader;
 import org.json.JSONObject;
-import org.json.JSONTokener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -34,10 +30,12 @@ public class Validator implements ValidatorI {
   private Logger log = LoggerFactory.getLogger(getClass());
 
   private ConfigLoader configLoader;
+  private SchemaRegistry schemaRegistry;
   private Map<String, Checklist> checklists;
 
-  public Validator(ConfigLoader configLoader) {
+  public Validator(ConfigLoader configLoader, SchemaRegistry schemaRegistry) {
     this.configLoader = configLoader;
+    this.schemaRegistry = schemaRegistry;
   }
 
   private void init() {
@@ -57,21 +55,24 @@ public class Validator implements ValidatorI {
   }
 
   public void validate(String schemaPath, String document) throws IOException, ValidationException {
-    try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(schemaPath)) {
-      JSONObject rawSchema = new JSONObject(new JSONTokener(inputStream));
-      Schema schema = SchemaLoader.load(rawSchema);
-      schema.validate(new JSONObject(document));
-    }
+    validate(schemaPath, new JSONObject(document));
+  }
+
+  /**
+   * Validates a document that has already been parsed, so that it can be checked against several
+   * schemas without parsing it each time. The schemas are loaded without defaults, so validation
+   * only reads the document and it can be shared between threads.
+   */
+  public void validate(String schemaPath, JSONObject document)
+      throws IOException, ValidationException {
+    schemaRegistry.getSchema(schemaPath).validate(document);
   }
 
   public String validateById(String schemaId, String document)
       throws IOException, SchemaValidationException {
     Checklist checklist = getChecklist(schemaId);
-    try (InputStream inputStream =
-        getClass().getClassLoader().getResourceAsStream(checklist.getFileName())) {
-      JSONObject rawSchema = new JSONObject(new JSONTokener(inputStream));
-      Schema schema = SchemaLoader.load(rawSchema);
-      schema.validate(new JSONObject(document));
+    try {
+      validate(checklist.getFileName(), document);
     } catch (ValidationException e) {
       throw new SchemaValidationException(e.getMessage());
     }
@@ -11,10 +11,15 @@
 package uk.ac.ebi.biosamples;
 
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.time.Instant;
 import java.util.Optional;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -32,6 +37,7 @@ import uk.ac.ebi.biosamples.model.Attribute;
 import uk.ac.ebi.biosamples.model.Sample;
 import uk.ac.ebi.biosamples.service.BioSamplesAapService;
 import uk.ac.ebi.biosamples.service.SampleService;
+import uk.ac.ebi.biosamples.service.SampleVersionService;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest
@@ -45,6 +51,8 @@ public class EtagTests {
 
   @MockBean private SampleService sampleService;
 
+  @MockBean private SampleVersionService sampleVersionService;
+
   @Test
   public void get_validation_endpoint_return_not_allowed_response() throws Exception {
     String sampleAccession = "SAMEA123456789";
@@ -58,6 +66,9 @@ public class EtagTests {
             Matchers.eq(sampleAccession), Matchers.any(Optional.class), any(String.class)))
         .thenReturn(Optional.of(testSample));
     when(bioSamplesAapService.handleSampleDomain(testSample)).thenReturn(testSample);
+    when(sampleVersionService.fetchVersion(
+            Matchers.eq(sampleAccession), Matchers.any(Optional.class), any(String.class)))
+        .thenReturn(Optional.empty());
 
     MvcResult sampleRequestResult =
         mockMvc
@@ -74,4 +85,45 @@ public class EtagTests {
                 .header("If-None-Match", etag))
         .andExpect(status().isNotModified());
   }
+
+  @Test
+  public void get_sample_with_current_version_stamp_returns_not_modified_without_fetching()
+      throws Exception {
+    String sampleAccession = "SAMEA123456789";
+    Sample testSample =
+        new Sample.Builder("TestSample", sampleAccession)
+            .withDomain("TestDomain")
+            .addAttribute(new Attribute.Builder("Organism", "Homo sapiens").build())
+            .build();
+    Instant lastModified = Instant.parse("2020-01-01T00:00:00Z");
+
+    when(sampleService.fetchUncached(
+            Matchers.eq(sampleAccession), Matchers.any(Optional.class), any(String.class)))
+        .thenReturn(Optional.of(testSample));
+    when(sampleVersionService.fetchVersion(
+            Matchers.eq(sampleAccession), Matchers.any(Optional.class), any(String.class)))
+        .thenReturn(
+            Optional.of(
+                new SampleVersionService.SampleVersion("abc123", lastModified, lastModified)));
+
+    mockMvc
+        .perform(get("/samples/{accession}", sampleAccession).accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk())
+        .andExpect(header().string("ETag", "\"abc123\""))
+        .andExpect(header().dateValue("Last-Modified", lastModified.toEpochMilli()));
+
+    mockMvc
+        .perform(
+            get("/samples/{accession}", sampleAccession)
+                .accept(MediaType.APPLICATION_JSON)
+                .header("If-None-Match", "\"abc123\""))
+        .andExpect(status().isNotModified());
+
+    // the stamped response bypasses the sample cache, which could hold an older sample
+    verify(sampleService, times(1))
+        .fetchUncached(
+            Matchers.eq(sampleAccession), Matchers.any(Optional.class), any(String.class));
+    verify(sampleService, never())
+        .fetch(Matchers.eq(sampleAccession), Matchers.any(Optional.class), any(String.class));
+  }
 }
@@ -11,13 +11,17 @@
 package uk.ac.ebi.biosamples.certification.service;
 
 import static junit.framework.TestCase.assertNotNull;
+import static org.junit.Assert.assertEquals;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.util.Collections;
+import java.util.HashSet;
 import org.apache.commons.io.IOUtils;
+import org.json.JSONObject;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -37,6 +41,7 @@ import uk.ac.ebi.biosamples.validation.ValidatorI;
       Certifier.class,
       ConfigLoader.class,
       Validator.class,
+      SchemaRegistry.class,
       ValidatorI.class,
       ElixirSchemaValidator.class,
       RestTemplate.class,
@@ -53,6 +58,8 @@ import uk.ac.ebi.biosamples.validation.ValidatorI;
 public class CertifierTest {
   @Autowired private Certifier certifier;
   @Autowired private CertifyService certifyService;
+  @Autowired private ConfigLoader configLoader;
+  @Autowired private Applicator applicator;
   @MockBean ElixirSchemaValidator validator;
 
   @Test
@@ -83,6 +90,34 @@ public class CertifierTest {
         certifyService.recordResult(sampleDocument, true);
   }
 
+  @Test
+  public void document_is_parsed_once_for_all_schemas() throws Exception {
+    Validator javaValidator = Mockito.mock(Validator.class);
+    BioSamplesProperties bioSamplesProperties = Mockito.mock(BioSamplesProperties.class);
+    Mockito.when(bioSamplesProperties.getBiosamplesCoreCertificationThreadCount()).thenReturn(2);
+    Certifier javaCertifier =
+        new Certifier(configLoader, javaValidator, applicator, bioSamplesProperties);
+    String data =
+        IOUtils.toString(
+            getClass().getClassLoader().getResourceAsStream("json/ncbi-SAMN03894263-curated.json"),
+            "UTF8");
+
+    try {
+      javaCertifier.certify(new SampleDocument("test-uuid", data), true);
+    } finally {
+      javaCertifier.shutdown();
+    }
+
+    long schemaCount =
+        configLoader.config.getChecklists().stream().map(Checklist::getFileName).distinct().count();
+    ArgumentCaptor<JSONObject> documents = ArgumentCaptor.forClass(JSONObject.class);
+    Mockito.verify(javaValidator, Mockito.times((int) schemaCount))
+        .validate(Mockito.anyString(), documents.capture());
+    assertEquals(1, new HashSet<>(documents.getAllValues()).size());
+    Mockito.verify(javaValidator, Mockito.never())
+        .validate(Mockito.anyString(), Mockito.anyString());
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void given_null_planResult_throw_exception() throws IOException {
     certifier.certify((SampleDocument) null, true);
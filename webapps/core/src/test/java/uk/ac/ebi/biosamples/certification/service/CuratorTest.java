@@ -42,6 +42,7 @@ import uk.ac.ebi.biosamples.validation.ValidatorI;
       Certifier.class,
       ConfigLoader.class,
       Validator.class,
+      SchemaRegistry.class,
       ValidatorI.class,
       ElixirSchemaValidator.class,
       RestTemplate.class,
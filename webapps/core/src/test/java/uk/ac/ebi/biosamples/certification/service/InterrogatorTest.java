@@ -39,6 +39,7 @@ import uk.ac.ebi.biosamples.validation.ValidatorI;
       Curator.class,
       Certifier.class,
       Validator.class,
+      SchemaRegistry.class,
       ValidatorI.class,
       ElixirSchemaValidator.class,
       RestTemplate.class,
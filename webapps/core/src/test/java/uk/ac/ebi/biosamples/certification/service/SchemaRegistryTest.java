@@ -0,0 +1,38 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.certification.service;
+
+import static org.junit.Assert.assertSame;
+
+import java.io.FileNotFoundException;
+import org.everit.json.schema.Schema;
+import org.junit.Test;
+import uk.ac.ebi.biosamples.service.certification.SchemaRegistry;
+
+public class SchemaRegistryTest {
+  private static final String SCHEMA = "schemas/certification/biosamples-minimal.json";
+
+  private final SchemaRegistry schemaRegistry = new SchemaRegistry();
+
+  @Test
+  public void schemas_are_compiled_once() throws Exception {
+    Schema schema = schemaRegistry.getSchema(SCHEMA);
+    assertSame(schema, schemaRegistry.getSchema(SCHEMA));
+
+    schemaRegistry.reloadModified();
+    assertSame(schema, schemaRegistry.getSchema(SCHEMA));
+  }
+
+  @Test(expected = FileNotFoundException.class)
+  public void missing_schemas_throw_exception() throws Exception {
+    schemaRegistry.getSchema("schemas/certification/missing.json");
+  }
+}
@@ -30,6 +30,7 @@ import uk.ac.ebi.biosamples.validation.ValidatorI;
 @SpringBootTest(
     classes = {
       Validator.class,
+      SchemaRegistry.class,
       ValidatorI.class,
       ElixirSchemaValidator.class,
       RestTemplate.class,
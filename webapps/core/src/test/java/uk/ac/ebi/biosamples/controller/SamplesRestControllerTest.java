@@ -0,0 +1,184 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.controller;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import uk.ac.ebi.biosamples.BioSamplesProperties;
+import uk.ac.ebi.biosamples.model.Sample;
+import uk.ac.ebi.biosamples.service.BioSamplesAapService;
+import uk.ac.ebi.biosamples.service.BioSamplesWebinAuthenticationService;
+import uk.ac.ebi.biosamples.service.BulkAccessionService;
+import uk.ac.ebi.biosamples.service.FilterService;
+import uk.ac.ebi.biosamples.service.SampleManipulationService;
+import uk.ac.ebi.biosamples.service.SamplePageService;
+import uk.ac.ebi.biosamples.service.SampleResourceAssembler;
+import uk.ac.ebi.biosamples.service.SampleService;
+import uk.ac.ebi.biosamples.service.SchemaValidationService;
+import uk.ac.ebi.biosamples.service.taxonomy.ENATaxonClientService;
+import uk.ac.ebi.biosamples.solr.repo.CursorArrayList;
+
+public class SamplesRestControllerTest {
+
+  @Rule public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+  @Mock private SamplePageService samplePageService;
+  @Mock private FilterService filterService;
+  @Mock private BioSamplesAapService bioSamplesAapService;
+  @Mock private BioSamplesWebinAuthenticationService bioSamplesWebinAuthenticationService;
+  @Mock private SampleResourceAssembler sampleResourceAssembler;
+  @Mock private SampleManipulationService sampleManipulationService;
+  @Mock private SampleService sampleService;
+  @Mock private BioSamplesProperties bioSamplesProperties;
+  @Mock private SchemaValidationService schemaValidationService;
+  @Mock private ENATaxonClientService enaTaxonClientService;
+  @Mock private BulkAccessionService bulkAccessionService;
+
+  private MockMvc mockMvc;
+
+  @Before
+  public void setUp() {
+    when(filterService.getFiltersCollection(any())).thenReturn(Collections.emptyList());
+    when(bioSamplesAapService.getDomains()).thenReturn(Collections.emptySet());
+    when(samplePageService.getSamplesByText(
+            anyString(), any(), any(), anyString(), anyInt(), any(), anyInt(), anyInt()))
+        .thenReturn(new CursorArrayList<Sample>("*"));
+
+    mockMvc =
+        MockMvcBuilders.standaloneSetup(
+                new SamplesRestController(
+                    samplePageService,
+                    filterService,
+                    bioSamplesAapService,
+                    bioSamplesWebinAuthenticationService,
+                    sampleResourceAssembler,
+                    sampleManipulationService,
+                    sampleService,
+                    bioSamplesProperties,
+                    schemaValidationService,
+                    enaTaxonClientService,
+                    bulkAccessionService))
+            .build();
+  }
+
+  @Test
+  public void partition_is_passed_to_the_search() throws Exception {
+    mockMvc
+        .perform(
+            get("/samples")
+                .param("text", "liver")
+                .param("cursor", "*")
+                .param("partition", "1")
+                .param("partitions", "4")
+                .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+
+    verify(samplePageService)
+        .getSamplesByText(
+            eq("liver"), any(), any(), eq("*"), eq(20), isNull(String.class), eq(1), eq(4));
+  }
+
+  @Test
+  public void cursor_without_partitions_searches_everything() throws Exception {
+    mockMvc
+        .perform(get("/samples").param("cursor", "*").accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isOk());
+
+    verify(samplePageService)
+        .getSamplesByText(
+            isNull(String.class),
+            any(),
+            any(),
+            eq("*"),
+            eq(20),
+            isNull(String.class),
+            eq(0),
+            eq(1));
+  }
+
+  @Test
+  public void out_of_range_partition_is_rejected() throws Exception {
+    mockMvc
+        .perform(
+            get("/samples")
+                .param("cursor", "*")
+                .param("partition", "2")
+                .param("partitions", "2")
+                .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest());
+    mockMvc
+        .perform(
+            get("/samples")
+                .param("cursor", "*")
+                .param("partition", "-1")
+                .param("partitions", "2")
+                .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest());
+
+    verifyZeroInteractions(samplePageService);
+  }
+
+  @Test
+  public void no_partitions_is_rejected() throws Exception {
+    mockMvc
+        .perform(
+            get("/samples")
+                .param("cursor", "*")
+                .param("partitions", "0")
+                .accept(MediaType.APPLICATION_JSON))
+        .andExpect(status().isBadRequest());
+
+    verifyZeroInteractions(samplePageService);
+  }
+
+  @Test
+  public void failed_bulk_accession_returns_the_stored_accessions() throws Exception {
+    when(bioSamplesAapService.handleSampleDomain(any(Sample.class)))
+        .thenAnswer(invocation -> invocation.getArguments()[0]);
+    when(bulkAccessionService.accession(any()))
+        .thenThrow(
+            new BulkAccessionService.BulkAccessionFailedException(
+                Collections.singletonMap("first", "SAMEA1"),
+                new IllegalStateException("mongo is down")));
+
+    mockMvc
+        .perform(
+            post("/samples/bulk-accession")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_JSON)
+                .content(
+                    "[{\"name\":\"first\",\"domain\":\"self.test\"},"
+                        + "{\"name\":\"second\",\"domain\":\"self.test\"}]"))
+        .andExpect(status().isInternalServerError())
+        .andExpect(jsonPath("$.accessioned.first").value("SAMEA1"));
+  }
+}
@@ -0,0 +1,166 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import uk.ac.ebi.biosamples.BioSamplesProperties;
+import uk.ac.ebi.biosamples.model.Sample;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BulkAccessionServiceTest {
+  @Mock SampleService sampleService;
+  @Mock SampleValidator sampleValidator;
+  @Mock BioSamplesProperties bioSamplesProperties;
+  BulkAccessionService bulkAccessionService;
+
+  @Before
+  public void init() {
+    when(bioSamplesProperties.getBiosamplesCoreBulkAccessionThreadCount()).thenReturn(2);
+    when(bioSamplesProperties.getBiosamplesCoreBulkAccessionQueueSize()).thenReturn(4);
+    when(sampleValidator.validate(any(Sample.class))).thenReturn(Collections.emptyList());
+    when(sampleService.storeNewSamples(anyListOf(Sample.class)))
+        .thenAnswer(
+            invocation -> {
+              @SuppressWarnings("unchecked")
+              List<Sample> samples = (List<Sample>) invocation.getArguments()[0];
+              return samples.stream()
+                  .map(
+                      sample ->
+                          Sample.Builder.fromSample(sample)
+                              .withAccession("SAMEA" + sample.getName())
+                              .build())
+                  .collect(Collectors.toList());
+            });
+    bulkAccessionService =
+        new BulkAccessionService(sampleService, sampleValidator, bioSamplesProperties);
+  }
+
+  @After
+  public void shutdown() {
+    bulkAccessionService.shutdown();
+  }
+
+  @Test
+  public void all_samples_are_accessioned_in_order() throws Exception {
+    List<Sample> samples = getSamples(2500);
+    List<Sample> accessioned = bulkAccessionService.accession(samples);
+
+    assertEquals(2500, accessioned.size());
+    for (int i = 0; i < accessioned.size(); i++) {
+      assertEquals("SAMEA" + i, accessioned.get(i).getAccession());
+    }
+    assertEquals(2500, bulkAccessionService.getSamplesAccessioned());
+  }
+
+  @Test
+  public void nothing_is_stored_if_any_sample_is_invalid() throws Exception {
+    List<Sample> samples = getSamples(2500);
+    when(sampleValidator.validate(samples.get(2000)))
+        .thenReturn(Collections.singletonList("missing attribute"));
+
+    try {
+      bulkAccessionService.accession(samples);
+      fail();
+    } catch (SampleService.SampleValidationException e) {
+      assertEquals("2000: missing attribute", e.getMessage());
+    }
+    verify(sampleService, never()).storeNewSamples(anyListOf(Sample.class));
+  }
+
+  @Test
+  public void failure_of_any_chunk_is_thrown_with_the_stored_accessions() throws Exception {
+    List<Sample> samples = getSamples(2500);
+    when(sampleService.storeNewSamples(samples.subList(1000, 2000)))
+        .thenThrow(new IllegalStateException("mongo is down"));
+
+    try {
+      bulkAccessionService.accession(samples);
+      fail();
+    } catch (BulkAccessionService.BulkAccessionFailedException e) {
+      assertEquals("mongo is down", e.getCause().getMessage());
+      assertEquals(1500, e.getAccessions().size());
+      assertEquals("SAMEA0", e.getAccessions().get("0"));
+      assertEquals("SAMEA2499", e.getAccessions().get("2499"));
+      assertFalse(e.getAccessions().containsKey("1000"));
+    }
+  }
+
+  @Test
+  public void request_is_rejected_when_the_queue_is_full() throws Exception {
+    CountDownLatch storing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    List<Sample> blocked = getSamples(3000);
+    when(sampleService.storeNewSamples(blocked.subList(0, 1000)))
+        .thenAnswer(
+            invocation -> {
+              storing.countDown();
+              release.await();
+              return Collections.emptyList();
+            });
+    ExecutorService caller = Executors.newSingleThreadExecutor();
+    try {
+      // three of the four chunks the service accepts are taken until released
+      Future<List<Sample>> first = caller.submit(() -> bulkAccessionService.accession(blocked));
+      assertTrue(storing.await(10, TimeUnit.SECONDS));
+
+      try {
+        bulkAccessionService.accession(getSamples(2000));
+        fail();
+      } catch (BulkAccessionService.BulkAccessionBusyException e) {
+        assertEquals(1, bulkAccessionService.getRequestsRejected());
+      }
+
+      release.countDown();
+      first.get(10, TimeUnit.SECONDS);
+      assertEquals(2000, bulkAccessionService.accession(getSamples(2000)).size());
+    } finally {
+      release.countDown();
+      caller.shutdownNow();
+    }
+  }
+
+  @Test(expected = BulkAccessionService.BulkAccessionTooLargeException.class)
+  public void request_larger_than_the_queue_is_rejected() throws Exception {
+    bulkAccessionService.accession(getSamples(4001));
+  }
+
+  private List<Sample> getSamples(int count) {
+    List<Sample> samples = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      samples.add(new Sample.Builder(String.valueOf(i)).withDomain("self.test").build());
+    }
+    return samples;
+  }
+}
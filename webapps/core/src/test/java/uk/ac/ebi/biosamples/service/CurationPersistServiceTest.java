@@ -0,0 +1,109 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import uk.ac.ebi.biosamples.model.Attribute;
+import uk.ac.ebi.biosamples.model.Curation;
+import uk.ac.ebi.biosamples.model.CurationLink;
+import uk.ac.ebi.biosamples.model.Relationship;
+import uk.ac.ebi.biosamples.mongo.model.MongoCuration;
+import uk.ac.ebi.biosamples.mongo.model.MongoCurationLink;
+import uk.ac.ebi.biosamples.mongo.service.CurationLinkToMongoCurationLinkConverter;
+import uk.ac.ebi.biosamples.mongo.service.CurationToMongoCurationConverter;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CurationPersistServiceTest {
+  @Mock MongoOperations mongoOperations;
+  @Mock MongoConverter mongoConverter;
+  @Mock BulkOperations curationBulkOperations;
+  @Mock BulkOperations curationLinkBulkOperations;
+  @Mock CurationReadService curationReadService;
+  @Mock SampleCache sampleCache;
+  @Mock MessagingService messagingService;
+
+  @Spy
+  CurationLinkToMongoCurationLinkConverter curationLinkToMongoCurationLinkConverter =
+      new CurationLinkToMongoCurationLinkConverter();
+
+  @Spy
+  CurationToMongoCurationConverter curationToMongoCurationConverter =
+      new CurationToMongoCurationConverter();
+
+  @InjectMocks CurationPersistService curationPersistService;
+
+  @Before
+  public void init() {
+    when(mongoOperations.getConverter()).thenReturn(mongoConverter);
+    when(mongoOperations.bulkOps(any(BulkOperations.BulkMode.class), eq(MongoCuration.class)))
+        .thenReturn(curationBulkOperations);
+    when(mongoOperations.bulkOps(any(BulkOperations.BulkMode.class), eq(MongoCurationLink.class)))
+        .thenReturn(curationLinkBulkOperations);
+  }
+
+  @Test
+  public void store_all_dedupes_and_reindexes_each_sample_once() {
+    Instant now = Instant.now();
+    Curation curation = Curation.build(null, Attribute.build("organism", "Homo sapiens"));
+    Curation relationshipCuration =
+        Curation.build(
+            null,
+            null,
+            null,
+            null,
+            null,
+            Collections.singletonList(Relationship.build("SAMEA1", "derived from", "SAMEA3")));
+
+    List<CurationLink> stored =
+        curationPersistService.storeAll(
+            Arrays.asList(
+                CurationLink.build("SAMEA1", curation, "self.test", null, now),
+                CurationLink.build("SAMEA1", curation, "self.test", null, now),
+                CurationLink.build("SAMEA2", curation, "self.test", null, now),
+                CurationLink.build("SAMEA1", relationshipCuration, "self.test", null, now)));
+
+    assertEquals(3, stored.size());
+    // both curations are written in one bulk operation
+    verify(curationBulkOperations, times(2)).upsert(any(Query.class), any(Update.class));
+    verify(curationBulkOperations, times(1)).execute();
+    // three distinct links plus the reverse relationship link on SAMEA3
+    verify(curationLinkBulkOperations, times(4)).upsert(any(Query.class), any(Update.class));
+    verify(curationLinkBulkOperations, times(1)).execute();
+
+    verify(messagingService, times(2)).fetchThenSendMessage(anyString());
+    verify(messagingService, times(1)).fetchThenSendMessage("SAMEA1");
+    verify(messagingService, times(1)).fetchThenSendMessage("SAMEA2");
+    verify(sampleCache, times(1)).evict("SAMEA3");
+  }
+}
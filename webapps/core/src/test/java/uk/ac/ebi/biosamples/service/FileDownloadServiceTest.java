@@ -12,36 +12,160 @@ package uk.ac.ebi.biosamples.service;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
-import org.springframework.core.io.ClassPathResource;
+import uk.ac.ebi.biosamples.BioSamplesProperties;
+import uk.ac.ebi.biosamples.model.Attribute;
+import uk.ac.ebi.biosamples.model.Sample;
+import uk.ac.ebi.biosamples.model.filter.Filter;
+import uk.ac.ebi.biosamples.solr.repo.CursorArrayList;
 
 @RunWith(MockitoJUnitRunner.class)
 public class FileDownloadServiceTest {
   @Mock SamplePageService samplePageService;
+  @Mock BioSamplesProperties bioSamplesProperties;
   FileDownloadService fileDownloadService;
 
+  int pageSize = 1000;
+  String sampleSearchText = "";
+  String emptySamplesText = "no samples search";
+  String pagedSamplesText = "paged samples search";
+  Collection<Filter> filters = Collections.emptyList();
+  Collection<String> domains = Collections.emptyList();
+
   @Before
   public void init() {
-    fileDownloadService = new FileDownloadService(samplePageService);
+    when(bioSamplesProperties.getBiosamplesCoreDownloadThreadCount()).thenReturn(2);
+    fileDownloadService = new FileDownloadService(samplePageService, bioSamplesProperties);
+
+    CursorArrayList<Sample> samplePage = new CursorArrayList<>("*");
+    when(samplePageService.getSamplesByText(
+            emptySamplesText, filters, domains, "*", pageSize, null))
+        .thenReturn(samplePage);
+
+    CursorArrayList<Sample> samplePageWithSample = new CursorArrayList<>("*");
+    samplePageWithSample.add(getTestSample("fileDownloadTestAccession"));
+    when(samplePageService.getSamplesByText(
+            sampleSearchText, filters, domains, "*", pageSize, null))
+        .thenReturn(samplePageWithSample);
+
+    CursorArrayList<Sample> firstPage = new CursorArrayList<>("page2");
+    firstPage.add(getTestSample("SAMEA0001"));
+    firstPage.add(getTestSample("SAMEA0002"));
+    CursorArrayList<Sample> secondPage = new CursorArrayList<>("page2");
+    secondPage.add(getTestSample("SAMEA0003"));
+    when(samplePageService.getSamplesByText(
+            pagedSamplesText, filters, domains, "*", pageSize, null))
+        .thenReturn(firstPage);
+    when(samplePageService.getSamplesByText(
+            pagedSamplesText, filters, domains, "page2", pageSize, null))
+        .thenReturn(secondPage);
+  }
+
+  @After
+  public void shutdown() {
+    fileDownloadService.shutdown();
   }
 
   @Test
-  public void copyAndCompress() throws IOException {
+  public void download_zip() throws IOException {
     ByteArrayOutputStream out = new ByteArrayOutputStream();
-    InputStream in = new ClassPathResource("amr_sample.json").getInputStream();
-    fileDownloadService.copyAndCompress(in, out, true, "json");
+    download(sampleSearchText, "json", Integer.MAX_VALUE, FileDownloadService.Compression.ZIP, out);
 
     ZipInputStream zipIn = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()));
     ZipEntry entry = zipIn.getNextEntry();
     assertNotNull(entry);
     assertEquals("samples.json", entry.getName());
+    assertTrue(
+        IOUtils.toString(zipIn, StandardCharsets.UTF_8).contains("fileDownloadTestAccession"));
+  }
+
+  @Test
+  public void download_gzip() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    download(sampleSearchText, "txt", Integer.MAX_VALUE, FileDownloadService.Compression.GZIP, out);
+
+    InputStream gzipIn = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()));
+    assertEquals("fileDownloadTestAccession", IOUtils.toString(gzipIn, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void download_empty_json() throws IOException {
+    assertEquals("[]", download(emptySamplesText, "json", Integer.MAX_VALUE));
+  }
+
+  @Test
+  public void download_empty_xml() throws IOException {
+    assertEquals(
+        "<BioSamples>" + System.lineSeparator() + "</BioSamples>",
+        download(emptySamplesText, "xml", Integer.MAX_VALUE));
+  }
+
+  @Test
+  public void download_json_with_samples() throws IOException {
+    String sampleJson = download(sampleSearchText, "json", Integer.MAX_VALUE);
+    assertTrue(sampleJson.startsWith("[{"));
+    assertTrue(sampleJson.contains("\"accession\":\"fileDownloadTestAccession\""));
+    assertTrue(sampleJson.endsWith("}]"));
+  }
+
+  @Test
+  public void download_follows_cursor_until_exhausted() throws IOException {
+    assertEquals(
+        String.join(System.lineSeparator(), "SAMEA0001", "SAMEA0002", "SAMEA0003"),
+        download(pagedSamplesText, "txt", Integer.MAX_VALUE));
+  }
+
+  @Test
+  public void download_stops_at_limit() throws IOException {
+    assertEquals(
+        String.join(System.lineSeparator(), "SAMEA0001", "SAMEA0002"),
+        download(pagedSamplesText, "txt", 2));
+  }
+
+  private String download(String text, String format, int limit) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    download(text, format, limit, FileDownloadService.Compression.NONE, out);
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  private void download(
+      String text,
+      String format,
+      int limit,
+      FileDownloadService.Compression compression,
+      OutputStream out)
+      throws IOException {
+    fileDownloadService.download(text, filters, domains, format, limit, compression, out);
+  }
+
+  private Sample getTestSample(String accession) {
+    String name = "FileDownloadServiceTest_sample";
+    Instant release = Instant.parse("2016-04-01T11:36:57.00Z");
+    SortedSet<Attribute> attributes = new TreeSet<>();
+    attributes.add(Attribute.build("organism", "Homo sapiens"));
+    attributes.add(Attribute.build("organism_part", "liver"));
+
+    return new Sample.Builder(name)
+        .withAccession(accession)
+        .withDomain("self.biosamplesUnitTests")
+        .withRelease(release)
+        .withAttributes(attributes)
+        .build();
   }
 }
@@ -0,0 +1,102 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.amqp.core.AmqpTemplate;
+import uk.ac.ebi.biosamples.MessageContent;
+import uk.ac.ebi.biosamples.Messaging;
+import uk.ac.ebi.biosamples.SampleChange;
+import uk.ac.ebi.biosamples.model.Sample;
+import uk.ac.ebi.biosamples.mongo.service.MongoSampleChangeService;
+
+@RunWith(MockitoJUnitRunner.class)
+public class MessagingServiceTest {
+  @Mock SampleReadService sampleReadService;
+  @Mock SampleCache sampleCache;
+  @Mock AmqpTemplate amqpTemplate;
+  @Mock MongoSampleChangeService mongoSampleChangeService;
+  MessagingService messagingService;
+
+  @Before
+  public void init() {
+    when(sampleReadService.fetch(anyString(), eq(Optional.empty())))
+        .thenAnswer(
+            invocation ->
+                Optional.of(
+                    new Sample.Builder("test", (String) invocation.getArguments()[0]).build()));
+    when(sampleReadService.fetchAsync(anyString(), eq(Optional.empty())))
+        .thenAnswer(
+            invocation ->
+                CompletableFuture.completedFuture(
+                    Optional.of(
+                        new Sample.Builder("test", (String) invocation.getArguments()[0])
+                            .build())));
+    messagingService =
+        new MessagingService(
+            sampleReadService, sampleCache, amqpTemplate, mongoSampleChangeService);
+  }
+
+  @Test
+  public void change_is_queued_before_returning() {
+    messagingService.fetchThenSendMessage("SAMEA1", Collections.singletonList("SAMEA3"));
+
+    verify(mongoSampleChangeService).recordChanges(Arrays.asList("SAMEA3", "SAMEA1"));
+    verify(sampleCache).evict("SAMEA1");
+    ArgumentCaptor<SampleChange> change = ArgumentCaptor.forClass(SampleChange.class);
+    verify(amqpTemplate)
+        .convertAndSend(eq(Messaging.exchangeForSampleChanged), anyString(), change.capture());
+    assertEquals("SAMEA1", change.getValue().getAccession());
+    assertEquals(
+        Collections.singletonList("SAMEA3"), change.getValue().getPreviousRelationshipTargets());
+    // the samples are fetched later, off the request thread
+    verify(sampleReadService, never()).fetch(anyString(), any());
+  }
+
+  @Test
+  public void indexing_message_includes_previous_relationship_targets() {
+    messagingService.sendIndexingMessage("SAMEA1", Collections.singletonList("SAMEA3"));
+
+    ArgumentCaptor<MessageContent> message = ArgumentCaptor.forClass(MessageContent.class);
+    verify(amqpTemplate)
+        .convertAndSend(eq(Messaging.exchangeForIndexingSolr), anyString(), message.capture());
+    assertEquals("SAMEA1", message.getValue().getSample().getAccession());
+    // the previous relationship target is sent too, to have the inverse relationship removed
+    assertEquals(1, message.getValue().getRelated().size());
+    assertEquals("SAMEA3", message.getValue().getRelated().get(0).getAccession());
+  }
+
+  @Test
+  public void missing_sample_is_not_sent() {
+    when(sampleReadService.fetch("SAMEA1", Optional.empty())).thenReturn(Optional.empty());
+
+    messagingService.sendIndexingMessage("SAMEA1", Collections.emptyList());
+
+    verify(amqpTemplate, never()).convertAndSend(anyString(), anyString(), any(Object.class));
+  }
+}
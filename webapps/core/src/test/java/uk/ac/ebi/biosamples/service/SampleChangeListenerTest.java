@@ -0,0 +1,110 @@
+/*
+* Copyright 2019 EMBL - European Bioinformatics Institute
+* Licensed under the Apache License, Version 2.0 (the "License"); you may not use this
+* file except in compliance with the License. You may obtain a copy of the License at
+* http://www.apache.org/licenses/LICENSE-2.0
+* Unless required by applicable law or agreed to in writing, software distributed under the
+* License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+* CONDITIONS OF ANY KIND, either express or implied. See the License for the
+* specific language governing permissions and limitations under the License.
+*/
+package uk.ac.ebi.biosamples.service;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.rabbitmq.client.Channel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import uk.ac.ebi.biosamples.SampleChange;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SampleChangeListenerTest {
+  @Mock MessagingService messagingService;
+  @Mock Channel channel;
+  @Mock ExecutorService executorService;
+  SampleChangeListener sampleChangeListener;
+
+  // tasks given to the executor, run when the test chooses
+  private final List<Runnable> tasks = new ArrayList<>();
+
+  @Before
+  public void init() {
+    doAnswer(
+            invocation -> {
+              tasks.add((Runnable) invocation.getArguments()[0]);
+              return null;
+            })
+        .when(executorService)
+        .execute(any(Runnable.class));
+    sampleChangeListener = new SampleChangeListener(messagingService, executorService);
+  }
+
+  @Test
+  public void changes_waiting_for_a_thread_are_merged() throws Exception {
+    sampleChangeListener.handle(
+        SampleChange.build("SAMEA1", Collections.singletonList("SAMEA3")), channel, 1);
+    sampleChangeListener.handle(
+        SampleChange.build("SAMEA1", Collections.singletonList("SAMEA4")), channel, 2);
+    sampleChangeListener.handle(SampleChange.build("SAMEA2", null), channel, 3);
+    Assert.assertEquals(2, tasks.size());
+
+    // nothing is acknowledged until the samples have been sent
+    verify(channel, never()).basicAck(anyLong(), anyBoolean());
+    tasks.forEach(Runnable::run);
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    ArgumentCaptor<Collection<String>> targets = ArgumentCaptor.forClass((Class) Collection.class);
+    verify(messagingService).sendIndexingMessage(eq("SAMEA1"), targets.capture());
+    Assert.assertEquals(Arrays.asList("SAMEA3", "SAMEA4"), new ArrayList<>(targets.getValue()));
+    verify(messagingService).sendIndexingMessage("SAMEA2", Collections.emptySet());
+    verify(channel).basicAck(1, false);
+    verify(channel).basicAck(2, false);
+    verify(channel).basicAck(3, false);
+  }
+
+  @Test
+  public void change_after_the_fetch_started_is_processed_again() {
+    sampleChangeListener.handle(SampleChange.build("SAMEA1", null), channel, 1);
+    tasks.get(0).run();
+    sampleChangeListener.handle(SampleChange.build("SAMEA1", null), channel, 2);
+    Assert.assertEquals(2, tasks.size());
+    tasks.get(1).run();
+
+    verify(messagingService, times(2))
+        .sendIndexingMessage(eq("SAMEA1"), anyCollectionOf(String.class));
+  }
+
+  @Test
+  public void failed_change_is_rejected() throws Exception {
+    doThrow(new IllegalStateException("broker unavailable"))
+        .when(messagingService)
+        .sendIndexingMessage(anyString(), anyCollectionOf(String.class));
+
+    sampleChangeListener.handle(SampleChange.build("SAMEA1", null), channel, 1);
+    tasks.get(0).run();
+
+    verify(channel).basicNack(1, false, false);
+    verify(channel, never()).basicAck(anyLong(), anyBoolean());
+  }
+}